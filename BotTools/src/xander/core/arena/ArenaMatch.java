@@ -0,0 +1,317 @@
+package xander.core.arena;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.Callable;
+
+import robocode.BattleEndedEvent;
+import robocode.Robot;
+import robocode.RoundEndedEvent;
+import xander.core.AbstractXanderRobot;
+import xander.core.log.Log;
+import xander.core.log.Logger;
+import xander.core.replay.PeerHandler;
+
+/**
+ * A match of one or more framework robots and any number of scripted movers
+ * in the arena, run to completion by call().
+ *
+ * Each framework robot is loaded by a class loader of its own, so that the
+ * framework's static state is kept apart between robots of a match and
+ * between matches run at the same time, much as Robocode keeps robots apart.
+ * As in Robocode, that state carries over from round to round of the match,
+ * and a new robot instance is created for each round.
+ *
+ * Starting positions are drawn from a random number generator seeded by the
+ * match seed, so a match run again with the same seed plays out the same way,
+ * unless a robot itself makes random choices.
+ */
+public class ArenaMatch implements Callable<MatchResult> {
+
+	public static final String TUNING_FILE_NAME = "tuning.properties";
+
+	private static final double START_MARGIN = 50;
+	private static final double START_SEPARATION = 120;
+
+	/**
+	 * Class loader that loads robot and framework classes itself rather than
+	 * leaving them to its parent.  Robocode and the arena itself are left to
+	 * the parent, so that both sides of the peer agree on them.
+	 */
+	private static class RobotClassLoader extends URLClassLoader {
+
+		RobotClassLoader(URL[] urls, ClassLoader parent) {
+			super(urls, parent);
+		}
+
+		private static boolean isRobotClass(String name) {
+			return (name.startsWith("xander.") || name.startsWith("teamlg."))
+					&& !name.startsWith("xander.core.arena.") && !name.startsWith("xander.core.replay.");
+		}
+
+		@Override
+		protected synchronized Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+			if (!isRobotClass(name)) {
+				return super.loadClass(name, resolve);
+			}
+			Class<?> c = findLoadedClass(name);
+			if (c == null) {
+				try {
+					c = findClass(name);
+				} catch (ClassNotFoundException e) {
+					c = super.loadClass(name, false);
+				}
+			}
+			if (resolve) {
+				resolveClass(c);
+			}
+			return c;
+		}
+	}
+
+	/**
+	 * Runs a framework robot's run method until its round is over for it.
+	 */
+	private static class RobotRunner implements Runnable {
+
+		private Robot robot;
+		private ArenaRound round;
+
+		RobotRunner(Robot robot, ArenaRound round) {
+			this.robot = robot;
+			this.round = round;
+		}
+
+		@Override
+		public void run() {
+			try {
+				robot.run();
+			} catch (PeerHandler.RoundOver e) {
+				// round is over for this robot
+			} finally {
+				round.leave();
+			}
+		}
+	}
+
+	private String name;
+	private String[] robotClassNames;
+	private ScriptedMover[] movers;
+	private int rounds;
+	private long seed;
+	private File dataDir;
+	private Properties[] tunings;
+	private URL[] classPath;
+	private Log.Level logLevel;
+	private double battleFieldWidth = 800;
+	private double battleFieldHeight = 600;
+	private int maxTicksPerRound = 6000;
+
+	/**
+	 * Creates a new match.
+	 *
+	 * @param name               name of match
+	 * @param robotClassNames    class names of framework robots
+	 * @param movers             scripted movers
+	 * @param rounds             number of rounds
+	 * @param seed               seed for starting positions
+	 * @param dataDir            directory to hold a data directory for each framework robot
+	 */
+	public ArenaMatch(String name, String[] robotClassNames, ScriptedMover[] movers, int rounds, long seed, File dataDir) {
+		this.name = name;
+		this.robotClassNames = robotClassNames;
+		this.movers = movers;
+		this.rounds = rounds;
+		this.seed = seed;
+		this.dataDir = dataDir;
+		this.tunings = new Properties[robotClassNames.length];
+		URL codeSource = AbstractXanderRobot.class.getProtectionDomain().getCodeSource().getLocation();
+		this.classPath = new URL[] {codeSource};
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public void setBattleFieldSize(double width, double height) {
+		this.battleFieldWidth = width;
+		this.battleFieldHeight = height;
+	}
+
+	/**
+	 * Sets the number of ticks after which a round is ended, whoever is still
+	 * alive.  The default is 6000.
+	 *
+	 * @param maxTicksPerRound    maximum ticks per round
+	 */
+	public void setMaxTicksPerRound(int maxTicksPerRound) {
+		this.maxTicksPerRound = maxTicksPerRound;
+	}
+
+	/**
+	 * Sets tuning properties for a framework robot.  They are written to the
+	 * robot's data directory as tuning.properties before the match begins, for
+	 * robots that read their settings from there.
+	 *
+	 * @param robotIndex    index of framework robot
+	 * @param tuning        tuning properties
+	 */
+	public void setTuning(int robotIndex, Properties tuning) {
+		this.tunings[robotIndex] = tuning;
+	}
+
+	/**
+	 * Sets the default log level of the framework robots.  As each robot has
+	 * its own copy of the framework's Logger, it is set through the robot's
+	 * class loader.  By default, the level is left as the framework sets it.
+	 *
+	 * @param logLevel    default log level for robots
+	 */
+	public void setLogLevel(Log.Level logLevel) {
+		this.logLevel = logLevel;
+	}
+
+	/**
+	 * Sets where robot and framework classes are loaded from.  By default,
+	 * they are loaded from wherever the framework was loaded from.
+	 *
+	 * @param classPath    robot class path
+	 */
+	public void setClassPath(URL[] classPath) {
+		this.classPath = classPath;
+	}
+
+	private static String[] getUniqueNames(String[] names) {
+		String[] uniqueNames = new String[names.length];
+		for (int i=0; i<names.length; i++) {
+			int count = 0, index = 0;
+			for (int j=0; j<names.length; j++) {
+				if (names[j].equals(names[i])) {
+					count++;
+					if (j < i) {
+						index++;
+					}
+				}
+			}
+			uniqueNames[i] = (count == 1)? names[i] : names[i] + " (" + (index + 1) + ")";
+		}
+		return uniqueNames;
+	}
+
+	private static void setDefaultLogLevel(ClassLoader loader, Log.Level logLevel) throws Exception {
+		Class<?> levelClass = Class.forName(Log.Level.class.getName(), true, loader);
+		Object level = levelClass.getField(logLevel.name()).get(null);
+		Class.forName(Logger.class.getName(), true, loader).getMethod("setDefaultLogLevel", levelClass).invoke(null, level);
+	}
+
+	private void writeTuning(Properties tuning, File robotDataDir) throws IOException {
+		OutputStream os = new FileOutputStream(new File(robotDataDir, TUNING_FILE_NAME));
+		try {
+			tuning.store(os, name);
+		} finally {
+			os.close();
+		}
+	}
+
+	private void place(ArenaRobot[] robots, Random random) {
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			boolean clear = false;
+			for (int attempt=0; attempt<100 && !clear; attempt++) {
+				robot.x = START_MARGIN + random.nextDouble() * (battleFieldWidth - 2 * START_MARGIN);
+				robot.y = START_MARGIN + random.nextDouble() * (battleFieldHeight - 2 * START_MARGIN);
+				clear = true;
+				for (int j=0; j<i && clear; j++) {
+					clear = Math.abs(robot.x - robots[j].x) > START_SEPARATION
+							|| Math.abs(robot.y - robots[j].y) > START_SEPARATION;
+				}
+			}
+			robot.heading = random.nextDouble() * 2 * Math.PI;
+			robot.gunHeading = robot.heading;
+			robot.radarHeading = robot.heading;
+		}
+	}
+
+	@Override
+	public MatchResult call() throws Exception {
+		int robotCount = robotClassNames.length;
+		String[] names = new String[robotCount + movers.length];
+		Class<?>[] robotClasses = new Class<?>[robotCount];
+		File[] robotDataDirs = new File[robotCount];
+		for (int i=0; i<robotCount; i++) {
+			ClassLoader loader = new RobotClassLoader(classPath, ArenaMatch.class.getClassLoader());
+			if (logLevel != null) {
+				setDefaultLogLevel(loader, logLevel);
+			}
+			robotClasses[i] = Class.forName(robotClassNames[i], true, loader).asSubclass(Robot.class);
+			names[i] = robotClassNames[i];
+			robotDataDirs[i] = new File(dataDir, "robot" + i);
+			robotDataDirs[i].mkdirs();
+			if (tunings[i] != null) {
+				writeTuning(tunings[i], robotDataDirs[i]);
+			}
+		}
+		for (int i=0; i<movers.length; i++) {
+			names[robotCount + i] = movers[i].getName();
+		}
+		names = getUniqueNames(names);
+		ArenaScore[] scores = new ArenaScore[names.length];
+		for (int i=0; i<names.length; i++) {
+			scores[i] = new ArenaScore(names[i]);
+		}
+		MatchResult result = new MatchResult(name, scores);
+		Random random = new Random(seed);
+		Robot[] robots = new Robot[robotCount];
+		int totalTurns = 0;
+		long start = System.nanoTime();
+		for (int roundNum=0; roundNum<rounds; roundNum++) {
+			ArenaRobot[] arenaRobots = new ArenaRobot[names.length];
+			for (int i=0; i<names.length; i++) {
+				arenaRobots[i] = new ArenaRobot(names[i], scores[i], (i < robotCount)? null : movers[i - robotCount]);
+			}
+			place(arenaRobots, random);
+			ArenaRound round = new ArenaRound(arenaRobots, battleFieldWidth, battleFieldHeight, maxTicksPerRound);
+			Thread[] threads = new Thread[robotCount];
+			for (int i=0; i<robotCount; i++) {
+				robots[i] = (Robot) robotClasses[i].getDeclaredConstructor().newInstance();
+				ArenaPeer peer = new ArenaPeer(robots[i], arenaRobots[i], round, roundNum, rounds, robotDataDirs[i]);
+				robots[i].setOut(System.out);
+				robots[i].setPeer(peer.newPeer());
+				threads[i] = new Thread(new RobotRunner(robots[i], round), name + " " + names[i]);
+				threads[i].setContextClassLoader(robotClasses[i].getClassLoader());
+			}
+			for (int i=0; i<robotCount; i++) {
+				threads[i].start();
+			}
+			for (int i=0; i<robotCount; i++) {
+				threads[i].join();
+			}
+			round.finish();
+			int turns = (int) round.getTime();
+			totalTurns += turns;
+			result.addTicks(turns);
+			for (int i=0; i<robotCount; i++) {
+				try {
+					robots[i].onRoundEnded(new RoundEndedEvent(roundNum, turns, totalTurns));
+				} catch (RuntimeException e) {
+					result.addError(e);
+				}
+			}
+		}
+		for (int i=0; i<robotCount; i++) {
+			try {
+				robots[i].onBattleEnded(new BattleEndedEvent(false, null));
+			} catch (RuntimeException e) {
+				result.addError(e);
+			}
+		}
+		result.setNanos(System.nanoTime() - start);
+		return result;
+	}
+}
@@ -0,0 +1,227 @@
+package xander.core.arena;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import robocode.Bullet;
+import robocode.BulletHitBulletEvent;
+import robocode.BulletHitEvent;
+import robocode.BulletMissedEvent;
+import robocode.DeathEvent;
+import robocode.Event;
+import robocode.HitByBulletEvent;
+import robocode.HitRobotEvent;
+import robocode.HitWallEvent;
+import robocode.Robot;
+import robocode.RobotDeathEvent;
+import robocode.ScannedRobotEvent;
+import robocode.WinEvent;
+import xander.core.math.RCPhysics;
+import xander.core.replay.PeerHandler;
+
+/**
+ * Robot peer for a framework robot in the arena.  Commands given by the robot
+ * are handed to its ArenaRobot at the end of each turn; once the arena has
+ * advanced a tick, the events queued for the robot are passed to it in
+ * Robocode's priority order.  When the robot dies or the round ends, the robot
+ * is sent its death or win event and execute throws RoundOver out of the
+ * robot's run method.
+ */
+class ArenaPeer extends PeerHandler {
+
+	private Robot robot;
+	private ArenaRobot me;
+	private ArenaRound round;
+	private int roundNum;
+	private int numRounds;
+	private List<Event> events = new ArrayList<Event>();
+
+	ArenaPeer(Robot robot, ArenaRobot me, ArenaRound round, int roundNum, int numRounds, File dataDir) {
+		super(dataDir);
+		this.robot = robot;
+		this.me = me;
+		this.round = round;
+		this.roundNum = roundNum;
+		this.numRounds = numRounds;
+		me.peer = this;
+	}
+
+	void addEvent(Event event) {
+		event.setTime(round.getTime());
+		events.add(event);
+	}
+
+	@Override
+	protected String getName() {
+		return me.name;
+	}
+
+	@Override
+	protected long getTime() {
+		return round.getTime();
+	}
+
+	@Override
+	protected int getRoundNum() {
+		return roundNum;
+	}
+
+	@Override
+	protected int getNumRounds() {
+		return numRounds;
+	}
+
+	@Override
+	protected int getOthers() {
+		return round.getAliveCount() - (me.alive? 1 : 0);
+	}
+
+	@Override
+	protected double getX() {
+		return me.x;
+	}
+
+	@Override
+	protected double getY() {
+		return me.y;
+	}
+
+	@Override
+	protected double getVelocity() {
+		return me.velocity;
+	}
+
+	@Override
+	protected double getBodyHeading() {
+		return me.heading;
+	}
+
+	@Override
+	protected double getGunHeading() {
+		return me.gunHeading;
+	}
+
+	@Override
+	protected double getRadarHeading() {
+		return me.radarHeading;
+	}
+
+	@Override
+	protected double getEnergy() {
+		return me.energy;
+	}
+
+	@Override
+	protected double getGunHeat() {
+		return me.gunHeat;
+	}
+
+	@Override
+	protected double getBattleFieldWidth() {
+		return round.getWidth();
+	}
+
+	@Override
+	protected double getBattleFieldHeight() {
+		return round.getHeight();
+	}
+
+	@Override
+	protected Bullet setFire(double power) {
+		if (me.firePower > 0 || me.gunHeat > 0 || me.energy <= 0) {
+			return null;
+		}
+		me.firePower = Math.min(RCPhysics.MAX_FIRE_POWER, Math.max(RCPhysics.MIN_FIRE_POWER, power));
+		return new Bullet(me.gunHeading, me.x, me.y, me.firePower, me.name, null, true, me.nextBulletId);
+	}
+
+	@Override
+	protected void execute() {
+		me.bodyTurn = bodyTurnRemaining;
+		me.gunTurn = gunTurnRemaining;
+		me.radarTurn = radarTurnRemaining;
+		me.distance = distanceRemaining;
+		me.maxVelocity = maxVelocity;
+		me.maxTurnRate = maxTurnRate;
+		me.adjustGunForBodyTurn = adjustGunForBodyTurn;
+		me.adjustRadarForGunTurn = adjustRadarForGunTurn;
+		me.adjustRadarForBodyTurn = adjustRadarForBodyTurn;
+		try {
+			round.arrive();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new RoundOver();
+		}
+		bodyTurnRemaining = me.bodyTurn;
+		gunTurnRemaining = me.gunTurn;
+		radarTurnRemaining = me.radarTurn;
+		distanceRemaining = me.distance;
+		dispatchEvents();
+		if (!me.alive) {
+			robot.onDeath(new DeathEvent());
+			throw new RoundOver();
+		}
+		if (round.isOver()) {
+			if (round.getAliveCount() == 1) {
+				robot.onWin(new WinEvent());
+			}
+			throw new RoundOver();
+		}
+	}
+
+	/**
+	 * Returns the rank of the given event in Robocode's delivery order, with
+	 * highest priority events first.
+	 */
+	private static int getRank(Event event) {
+		if (event instanceof RobotDeathEvent) {
+			return 0;
+		} else if (event instanceof BulletMissedEvent) {
+			return 1;
+		} else if (event instanceof BulletHitBulletEvent) {
+			return 2;
+		} else if (event instanceof BulletHitEvent) {
+			return 3;
+		} else if (event instanceof HitRobotEvent) {
+			return 4;
+		} else if (event instanceof HitWallEvent) {
+			return 5;
+		} else if (event instanceof HitByBulletEvent) {
+			return 6;
+		}
+		return 7;
+	}
+
+	private void dispatchEvents() {
+		for (int rank=0; rank<8 && events.size() > 0; rank++) {
+			for (int i=0; i<events.size(); i++) {
+				Event event = events.get(i);
+				if (getRank(event) == rank) {
+					dispatch(event);
+				}
+			}
+		}
+		events.clear();
+	}
+
+	private void dispatch(Event event) {
+		if (event instanceof RobotDeathEvent) {
+			robot.onRobotDeath((RobotDeathEvent) event);
+		} else if (event instanceof BulletMissedEvent) {
+			robot.onBulletMissed((BulletMissedEvent) event);
+		} else if (event instanceof BulletHitBulletEvent) {
+			robot.onBulletHitBullet((BulletHitBulletEvent) event);
+		} else if (event instanceof BulletHitEvent) {
+			robot.onBulletHit((BulletHitEvent) event);
+		} else if (event instanceof HitRobotEvent) {
+			robot.onHitRobot((HitRobotEvent) event);
+		} else if (event instanceof HitWallEvent) {
+			robot.onHitWall((HitWallEvent) event);
+		} else if (event instanceof HitByBulletEvent) {
+			robot.onHitByBullet((HitByBulletEvent) event);
+		} else if (event instanceof ScannedRobotEvent) {
+			robot.onScannedRobot((ScannedRobotEvent) event);
+		}
+	}
+}
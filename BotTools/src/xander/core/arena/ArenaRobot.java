@@ -0,0 +1,171 @@
+package xander.core.arena;
+
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+
+/**
+ * A robot in the arena, either a framework robot run through an ArenaPeer or
+ * a scripted mover.  Holds the robot's state, the commands given to it for the
+ * coming tick, and the movement rules it is subject to.  Angles are in
+ * radians.
+ */
+class ArenaRobot {
+
+	static final double HALF_SIZE = 18;    // robots collide as 36 x 36 boxes
+	static final double MAX_GUN_TURN = Math.toRadians(20);
+	static final double MAX_RADAR_TURN = Math.toRadians(45);
+
+	final String name;
+	final ArenaScore score;
+	final ScriptedMover mover;             // null for framework robots
+	ArenaPeer peer;                        // null for scripted movers
+
+	double x, y, heading, velocity;
+	double energy = 100;
+	double gunHeading, radarHeading;
+	double gunHeat = 3;
+	double radarSweep;                     // radar turn made in the last tick
+	boolean alive = true;
+	int moveDirection = 1;                 // for scripted movers
+	int nextBulletId;
+
+	// commands for the coming tick; turns and distance hold what remains
+	double bodyTurn, gunTurn, radarTurn, distance;
+	double maxVelocity = RCPhysics.MAX_SPEED;
+	double maxTurnRate = Math.toRadians(RCPhysics.MAX_TURN_RATE);
+	double firePower;
+	boolean adjustGunForBodyTurn, adjustRadarForGunTurn, adjustRadarForBodyTurn;
+
+	ArenaRobot(String name, ArenaScore score, ScriptedMover mover) {
+		this.name = name;
+		this.score = score;
+		this.mover = mover;
+	}
+
+	private static double limit(double turn, double max) {
+		return Math.max(-max, Math.min(max, turn));
+	}
+
+	/**
+	 * Turns the body, gun, and radar as far as allowed toward their remaining
+	 * turns.  The gun turns with the body, and the radar with the gun and
+	 * body, unless set to adjust for them.
+	 */
+	void turn() {
+		double maxBodyTurn = Math.min(maxTurnRate, Math.toRadians(RCPhysics.getMaxTurnRate(velocity)));
+		double bodyTurnMade = limit(bodyTurn, maxBodyTurn);
+		double gunTurnMade = limit(gunTurn, MAX_GUN_TURN);
+		double radarTurnMade = limit(radarTurn, MAX_RADAR_TURN);
+		bodyTurn -= bodyTurnMade;
+		gunTurn -= gunTurnMade;
+		radarTurn -= radarTurnMade;
+		double gunSweep = gunTurnMade + (adjustGunForBodyTurn? 0 : bodyTurnMade);
+		radarSweep = radarTurnMade + (adjustRadarForBodyTurn? 0 : bodyTurnMade)
+				+ (adjustRadarForGunTurn? 0 : gunTurnMade);
+		heading = RCMath.normalizeRadians(heading + bodyTurnMade);
+		gunHeading = RCMath.normalizeRadians(gunHeading + gunSweep);
+		radarHeading = RCMath.normalizeRadians(radarHeading + radarSweep);
+	}
+
+	/**
+	 * Moves the robot along its new heading, accelerating or decelerating
+	 * toward the remaining distance as Robocode does.
+	 */
+	void move() {
+		velocity = getNewVelocity(velocity, distance);
+		distance -= velocity;
+		x += velocity * Math.sin(heading);
+		y += velocity * Math.cos(heading);
+	}
+
+	private double getNewVelocity(double velocity, double distance) {
+		if (distance < 0) {
+			return -getNewVelocity(-velocity, -distance);
+		}
+		double goalVelocity = Math.min(maxVelocity, getMaxVelocity(distance));
+		if (velocity >= 0) {
+			return Math.max(velocity + RCPhysics.DECELERATION_RATE,
+					Math.min(goalVelocity, velocity + RCPhysics.ACCELERATION_RATE));
+		}
+		return Math.max(velocity - RCPhysics.ACCELERATION_RATE,
+				Math.min(goalVelocity, velocity + getMaxDeceleration(-velocity)));
+	}
+
+	/**
+	 * Returns the highest velocity from which the robot can still stop within
+	 * the given distance.
+	 */
+	private static double getMaxVelocity(double distance) {
+		double deceleration = -RCPhysics.DECELERATION_RATE;
+		double decelTime = Math.max(1, Math.ceil((Math.sqrt(4 * distance + 1) - 1) / 2));
+		if (Double.isInfinite(decelTime)) {
+			return RCPhysics.MAX_SPEED;
+		}
+		double decelDistance = (decelTime / 2d) * (decelTime - 1) * deceleration;
+		return Math.min(RCPhysics.MAX_SPEED, ((decelTime - 1) * deceleration) + ((distance - decelDistance) / decelTime));
+	}
+
+	private static double getMaxDeceleration(double speed) {
+		double decelTime = speed / -RCPhysics.DECELERATION_RATE;
+		double accelTime = 1 - decelTime;
+		return Math.min(1, decelTime) * -RCPhysics.DECELERATION_RATE + Math.max(0, accelTime) * RCPhysics.ACCELERATION_RATE;
+	}
+
+	/**
+	 * Keeps the robot inside the battlefield.  If it has run into a wall, it
+	 * is stopped, takes wall damage, and the Robocode angle of the wall hit is
+	 * returned; otherwise NaN is returned.
+	 *
+	 * @param width     battlefield width
+	 * @param height    battlefield height
+	 *
+	 * @return          angle of wall hit in radians, or NaN if no wall was hit
+	 */
+	double hitWall(double width, double height) {
+		double wallAngle = Double.NaN;
+		if (x < HALF_SIZE) {
+			x = HALF_SIZE;
+			wallAngle = 1.5 * Math.PI;
+		} else if (x > width - HALF_SIZE) {
+			x = width - HALF_SIZE;
+			wallAngle = 0.5 * Math.PI;
+		}
+		if (y < HALF_SIZE) {
+			y = HALF_SIZE;
+			wallAngle = Math.PI;
+		} else if (y > height - HALF_SIZE) {
+			y = height - HALF_SIZE;
+			wallAngle = 0;
+		}
+		if (!Double.isNaN(wallAngle)) {
+			energy -= RCPhysics.getWallHitDamage(velocity);
+			velocity = 0;
+			distance = 0;
+		}
+		return wallAngle;
+	}
+
+	boolean overlaps(ArenaRobot robot) {
+		return Math.abs(x - robot.x) < 2 * HALF_SIZE && Math.abs(y - robot.y) < 2 * HALF_SIZE;
+	}
+
+	/**
+	 * Returns the angle from this robot to the given point.
+	 */
+	double getAngleTo(double toX, double toY) {
+		return RCMath.normalizeRadians(Math.atan2(toX - x, toY - y));
+	}
+
+	/**
+	 * Returns the given absolute angle relative to the robot's heading, in the
+	 * range -PI to PI.
+	 */
+	double getBearing(double angle) {
+		return normalizeRelative(angle - heading);
+	}
+
+	static double normalizeRelative(double angle) {
+		angle = RCMath.normalizeRadians(angle);
+		return (angle > Math.PI)? angle - 2 * Math.PI : angle;
+	}
+}
@@ -0,0 +1,405 @@
+package xander.core.arena;
+
+import java.awt.geom.Line2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import robocode.Bullet;
+import robocode.BulletHitBulletEvent;
+import robocode.BulletHitEvent;
+import robocode.BulletMissedEvent;
+import robocode.HitByBulletEvent;
+import robocode.HitRobotEvent;
+import robocode.HitWallEvent;
+import robocode.RobotDeathEvent;
+import robocode.ScannedRobotEvent;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+
+/**
+ * One round in the arena.  Holds the robots and bullets, and advances them a
+ * tick at a time by the rules in RCPhysics, queuing the events each framework
+ * robot is to receive on its peer.
+ *
+ * Each framework robot runs in its own thread.  A tick is advanced only once
+ * every framework robot still running has ended its turn, and always by the
+ * same steps in the same order, so which thread gets there last does not
+ * matter.  Given the same starting positions and robot behavior, a round
+ * plays out the same way every time.
+ */
+class ArenaRound {
+
+	private static final double SCAN_RADIUS = 1200;
+	private static final double ROBOT_COLLISION_DAMAGE = 0.6;
+	private static final double GUN_COOLING_RATE = 0.1;
+
+	private static class ArenaBullet {
+		ArenaRobot owner;
+		int id;
+		double power;
+		double velocity;
+		double heading;
+		double x, y;
+		double lastX, lastY;
+		boolean active = true;
+
+		Bullet toBullet(ArenaRobot victim) {
+			return new Bullet(heading, x, y, power, owner.name, (victim == null)? null : victim.name, active, id);
+		}
+	}
+
+	private double width;
+	private double height;
+	private ArenaRobot[] robots;
+	private List<ArenaBullet> bullets = new ArrayList<ArenaBullet>();
+	private Line2D.Double segment = new Line2D.Double();
+	private long time;
+	private int maxTicks;
+	private boolean over;
+	private int aliveCount;
+
+	// turn synchronization
+	private int parties;
+	private int arrived;
+	private long generation;
+
+	ArenaRound(ArenaRobot[] robots, double width, double height, int maxTicks) {
+		this.robots = robots;
+		this.width = width;
+		this.height = height;
+		this.maxTicks = maxTicks;
+		this.aliveCount = robots.length;
+		for (int i=0; i<robots.length; i++) {
+			if (robots[i].mover == null) {
+				parties++;
+			}
+		}
+	}
+
+	long getTime() {
+		return time;
+	}
+
+	boolean isOver() {
+		return over;
+	}
+
+	int getAliveCount() {
+		return aliveCount;
+	}
+
+	double getWidth() {
+		return width;
+	}
+
+	double getHeight() {
+		return height;
+	}
+
+	/**
+	 * Ends the calling framework robot's turn and waits until the next tick
+	 * has been advanced.
+	 *
+	 * @throws InterruptedException    if the thread is interrupted while waiting
+	 */
+	synchronized void arrive() throws InterruptedException {
+		long turnGeneration = generation;
+		arrived++;
+		if (arrived >= parties) {
+			advance();
+		} else {
+			while (turnGeneration == generation) {
+				wait();
+			}
+		}
+	}
+
+	/**
+	 * Removes the calling framework robot from the turn synchronization, once
+	 * its robot has stopped running.
+	 */
+	synchronized void leave() {
+		parties--;
+		if (parties > 0 && arrived >= parties) {
+			advance();
+		}
+	}
+
+	private void advance() {
+		arrived = 0;
+		if (!over) {
+			step();
+		}
+		generation++;
+		notifyAll();
+	}
+
+	private void step() {
+		time++;
+		moveBullets();
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			if (robot.alive && robot.mover != null) {
+				robot.mover.control(robot, getNearestTarget(robot), time, width, height);
+			}
+		}
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			if (robot.alive) {
+				fire(robot);
+				robot.gunHeat = Math.max(0, robot.gunHeat - GUN_COOLING_RATE);
+				robot.turn();
+				robot.move();
+				double wallAngle = robot.hitWall(width, height);
+				if (!Double.isNaN(wallAngle)) {
+					robot.score.wallHits++;
+					if (robot.peer != null) {
+						robot.peer.addEvent(new HitWallEvent(robot.getBearing(wallAngle)));
+					}
+				}
+			}
+		}
+		collideRobots();
+		removeDeadRobots();
+		for (int i=0; i<robots.length; i++) {
+			if (robots[i].alive && robots[i].peer != null) {
+				scan(robots[i]);
+			}
+		}
+		if (aliveCount <= 1 || time >= maxTicks || !isFrameworkRobotAlive()) {
+			end();
+		}
+	}
+
+	private boolean isFrameworkRobotAlive() {
+		for (int i=0; i<robots.length; i++) {
+			if (robots[i].alive && robots[i].peer != null) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private ArenaRobot getNearestTarget(ArenaRobot mover) {
+		ArenaRobot nearest = null;
+		double nearestDistance = Double.POSITIVE_INFINITY;
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			if (robot.alive && robot.peer != null) {
+				double distance = RCMath.getDistanceBetweenPoints(mover.x, mover.y, robot.x, robot.y);
+				if (distance < nearestDistance) {
+					nearest = robot;
+					nearestDistance = distance;
+				}
+			}
+		}
+		return nearest;
+	}
+
+	private void fire(ArenaRobot robot) {
+		double power = Math.min(robot.firePower, robot.energy);
+		robot.firePower = 0;
+		if (power < RCPhysics.MIN_FIRE_POWER || robot.gunHeat > 0) {
+			return;
+		}
+		ArenaBullet bullet = new ArenaBullet();
+		bullet.owner = robot;
+		bullet.id = robot.nextBulletId++;
+		bullet.power = power;
+		bullet.velocity = RCPhysics.getBulletVelocity(power);
+		bullet.heading = robot.gunHeading;
+		bullet.x = robot.x;
+		bullet.y = robot.y;
+		bullets.add(bullet);
+		robot.energy -= power;
+		robot.gunHeat += RCPhysics.getGunHeatGenerated(power);
+		robot.score.bulletsFired++;
+	}
+
+	private void moveBullets() {
+		for (int i=0; i<bullets.size(); i++) {
+			ArenaBullet bullet = bullets.get(i);
+			bullet.lastX = bullet.x;
+			bullet.lastY = bullet.y;
+			bullet.x += bullet.velocity * Math.sin(bullet.heading);
+			bullet.y += bullet.velocity * Math.cos(bullet.heading);
+		}
+		for (int i=0; i<bullets.size(); i++) {
+			ArenaBullet bullet = bullets.get(i);
+			for (int j=i+1; j<bullets.size() && bullet.active; j++) {
+				ArenaBullet other = bullets.get(j);
+				if (other.active && other.owner != bullet.owner
+						&& Line2D.linesIntersect(bullet.lastX, bullet.lastY, bullet.x, bullet.y,
+								other.lastX, other.lastY, other.x, other.y)) {
+					bullet.active = false;
+					other.active = false;
+					if (bullet.owner.peer != null) {
+						bullet.owner.peer.addEvent(new BulletHitBulletEvent(bullet.toBullet(null), other.toBullet(null)));
+					}
+					if (other.owner.peer != null) {
+						other.owner.peer.addEvent(new BulletHitBulletEvent(other.toBullet(null), bullet.toBullet(null)));
+					}
+				}
+			}
+		}
+		for (int i=0; i<bullets.size(); i++) {
+			ArenaBullet bullet = bullets.get(i);
+			if (bullet.active) {
+				segment.setLine(bullet.lastX, bullet.lastY, bullet.x, bullet.y);
+				for (int r=0; r<robots.length && bullet.active; r++) {
+					ArenaRobot robot = robots[r];
+					if (robot.alive && robot != bullet.owner && segment.intersects(robot.x - ArenaRobot.HALF_SIZE,
+							robot.y - ArenaRobot.HALF_SIZE, 2 * ArenaRobot.HALF_SIZE, 2 * ArenaRobot.HALF_SIZE)) {
+						hit(bullet, robot);
+					}
+				}
+			}
+			if (bullet.active && (bullet.x < 0 || bullet.x > width || bullet.y < 0 || bullet.y > height)) {
+				bullet.active = false;
+				if (bullet.owner.peer != null) {
+					bullet.owner.peer.addEvent(new BulletMissedEvent(bullet.toBullet(null)));
+				}
+			}
+		}
+		int active = 0;
+		for (int i=0; i<bullets.size(); i++) {
+			if (bullets.get(i).active) {
+				bullets.set(active++, bullets.get(i));
+			}
+		}
+		for (int i=bullets.size()-1; i>=active; i--) {
+			bullets.remove(i);
+		}
+	}
+
+	private void hit(ArenaBullet bullet, ArenaRobot victim) {
+		bullet.active = false;
+		double damage = Math.min(victim.energy, RCPhysics.getBulletDamage(bullet.power));
+		victim.energy -= RCPhysics.getBulletDamage(bullet.power);
+		victim.score.damageTaken += damage;
+		bullet.owner.energy += RCPhysics.getEnergyRegained(bullet.power);
+		bullet.owner.score.damageDealt += damage;
+		bullet.owner.score.bulletsHit++;
+		if (bullet.owner.peer != null) {
+			bullet.owner.peer.addEvent(new BulletHitEvent(victim.name, Math.max(0, victim.energy), bullet.toBullet(victim)));
+		}
+		if (victim.peer != null) {
+			double bearing = victim.getBearing(bullet.heading + Math.PI);
+			victim.peer.addEvent(new HitByBulletEvent(bearing, bullet.toBullet(victim)));
+		}
+	}
+
+	private void collideRobots() {
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			for (int j=i+1; j<robots.length && robot.alive; j++) {
+				ArenaRobot other = robots[j];
+				if (other.alive && robot.overlaps(other)) {
+					boolean robotAtFault = isMovingToward(robot, other);
+					boolean otherAtFault = isMovingToward(other, robot);
+					if (robotAtFault) {
+						backUp(robot);
+					}
+					if (otherAtFault) {
+						backUp(other);
+					}
+					robot.energy -= ROBOT_COLLISION_DAMAGE;
+					robot.score.damageTaken += ROBOT_COLLISION_DAMAGE;
+					other.energy -= ROBOT_COLLISION_DAMAGE;
+					other.score.damageTaken += ROBOT_COLLISION_DAMAGE;
+					if (robot.peer != null) {
+						robot.peer.addEvent(new HitRobotEvent(other.name, robot.getBearing(robot.getAngleTo(other.x, other.y)),
+								Math.max(0, other.energy), robotAtFault));
+					}
+					if (other.peer != null) {
+						other.peer.addEvent(new HitRobotEvent(robot.name, other.getBearing(other.getAngleTo(robot.x, robot.y)),
+								Math.max(0, robot.energy), otherAtFault));
+					}
+				}
+			}
+		}
+	}
+
+	private static boolean isMovingToward(ArenaRobot robot, ArenaRobot other) {
+		if (robot.velocity == 0) {
+			return false;
+		}
+		double bearing = robot.getBearing(robot.getAngleTo(other.x, other.y));
+		return (robot.velocity > 0) == (Math.abs(bearing) < Math.PI / 2);
+	}
+
+	private static void backUp(ArenaRobot robot) {
+		robot.x -= robot.velocity * Math.sin(robot.heading);
+		robot.y -= robot.velocity * Math.cos(robot.heading);
+		robot.velocity = 0;
+		robot.distance = 0;
+	}
+
+	private void removeDeadRobots() {
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			if (robot.alive && robot.energy <= 0) {
+				robot.alive = false;
+				robot.energy = 0;
+				aliveCount--;
+				for (int j=0; j<robots.length; j++) {
+					if (j != i && robots[j].alive && robots[j].peer != null) {
+						robots[j].peer.addEvent(new RobotDeathEvent(robot.name));
+					}
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds a scan event for each robot the given robot's radar swept over in
+	 * the last tick.
+	 */
+	private void scan(ArenaRobot robot) {
+		double sweepStart = robot.radarHeading - robot.radarSweep;
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot other = robots[i];
+			if (other == robot || !other.alive) {
+				continue;
+			}
+			double distance = RCMath.getDistanceBetweenPoints(robot.x, robot.y, other.x, other.y);
+			if (distance > SCAN_RADIUS) {
+				continue;
+			}
+			double angle = robot.getAngleTo(other.x, other.y);
+			double halfWidth = Math.atan(ArenaRobot.HALF_SIZE / distance);
+			double offset = ArenaRobot.normalizeRelative(angle - sweepStart);
+			boolean swept = (robot.radarSweep >= 0)?
+					offset >= -halfWidth && offset <= robot.radarSweep + halfWidth :
+					offset <= halfWidth && offset >= robot.radarSweep - halfWidth;
+			if (swept) {
+				robot.peer.addEvent(new ScannedRobotEvent(other.name, other.energy,
+						robot.getBearing(angle), distance, other.heading, other.velocity));
+			}
+		}
+	}
+
+	/**
+	 * Ends the round, if it has not already ended, once no framework robot is
+	 * running any longer.
+	 */
+	synchronized void finish() {
+		if (!over) {
+			end();
+		}
+	}
+
+	private void end() {
+		over = true;
+		for (int i=0; i<robots.length; i++) {
+			ArenaRobot robot = robots[i];
+			robot.score.rounds++;
+			if (robot.alive) {
+				robot.score.survivals++;
+				if (aliveCount == 1) {
+					robot.score.wins++;
+				}
+			}
+		}
+	}
+}
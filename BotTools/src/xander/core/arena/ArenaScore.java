@@ -0,0 +1,104 @@
+package xander.core.arena;
+
+import xander.core.log.Logger;
+
+/**
+ * Running score of one robot over the rounds of an arena match.
+ */
+public class ArenaScore {
+
+	private String name;
+	int rounds;
+	int wins;
+	int survivals;
+	double damageDealt;
+	double damageTaken;
+	int bulletsFired;
+	int bulletsHit;
+	int wallHits;
+
+	ArenaScore(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * Returns the number of rounds this robot was the last robot standing.
+	 *
+	 * @return    number of rounds won
+	 */
+	public int getWins() {
+		return wins;
+	}
+
+	/**
+	 * Returns the number of rounds this robot was still alive at the end of,
+	 * whether or not it was the only one.
+	 *
+	 * @return    number of rounds survived
+	 */
+	public int getSurvivals() {
+		return survivals;
+	}
+
+	public double getDamageDealt() {
+		return damageDealt;
+	}
+
+	public double getDamageTaken() {
+		return damageTaken;
+	}
+
+	public int getBulletsFired() {
+		return bulletsFired;
+	}
+
+	public int getBulletsHit() {
+		return bulletsHit;
+	}
+
+	public double getHitRatio() {
+		return (bulletsFired == 0)? 0 : bulletsHit / (double) bulletsFired;
+	}
+
+	public int getWallHits() {
+		return wallHits;
+	}
+
+	/**
+	 * Adds the given score to this one.  Scores are added by position, so the
+	 * given score need not be for a robot of the same name.
+	 *
+	 * @param score    score to add
+	 */
+	public void add(ArenaScore score) {
+		rounds += score.rounds;
+		wins += score.wins;
+		survivals += score.survivals;
+		damageDealt += score.damageDealt;
+		damageTaken += score.damageTaken;
+		bulletsFired += score.bulletsFired;
+		bulletsHit += score.bulletsHit;
+		wallHits += score.wallHits;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(name).append(": wins ").append(wins).append('/').append(rounds);
+		sb.append(", survived ").append(survivals);
+		sb.append(", damage ");
+		Logger.append(sb, damageDealt, 1).append(" dealt, ");
+		Logger.append(sb, damageTaken, 1).append(" taken, hit ratio ");
+		Logger.append(sb, getHitRatio(), 3).append(" (").append(bulletsFired).append(" shots)");
+		sb.append(", wall hits ").append(wallHits);
+		return sb.toString();
+	}
+}
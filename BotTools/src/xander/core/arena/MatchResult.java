@@ -0,0 +1,86 @@
+package xander.core.arena;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import xander.core.log.Logger;
+
+/**
+ * Result of an arena match: the score of each robot, framework robots first
+ * and then scripted movers, in the order they were given to the match.
+ */
+public class MatchResult {
+
+	private String name;
+	private ArenaScore[] scores;
+	private long ticks;
+	private long nanos;
+	private List<Throwable> errors = new ArrayList<Throwable>();
+
+	MatchResult(String name, ArenaScore[] scores) {
+		this.name = name;
+		this.scores = scores;
+	}
+
+	void addTicks(long ticks) {
+		this.ticks += ticks;
+	}
+
+	void setNanos(long nanos) {
+		this.nanos = nanos;
+	}
+
+	void addError(Throwable error) {
+		errors.add(error);
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public int getScoreCount() {
+		return scores.length;
+	}
+
+	public ArenaScore getScore(int index) {
+		return scores[index];
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getNanos() {
+		return nanos;
+	}
+
+	public double getTicksPerSecond() {
+		return (nanos == 0)? 0 : ticks * 1000000000d / nanos;
+	}
+
+	/**
+	 * Returns exceptions thrown by robots outside of their run methods, such
+	 * as from onRoundEnded or onBattleEnded, which Robocode would have only
+	 * logged.
+	 *
+	 * @return    exceptions thrown by robots
+	 */
+	public List<Throwable> getErrors() {
+		return errors;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append(name).append(": ").append(ticks).append(" ticks in ");
+		Logger.append(sb, nanos / 1000000d, 0).append(" ms (");
+		Logger.append(sb, getTicksPerSecond(), 0).append(" ticks/sec)");
+		if (errors.size() > 0) {
+			sb.append(", ").append(errors.size()).append(" errors");
+		}
+		for (int i=0; i<scores.length; i++) {
+			sb.append("\n  ").append(scores[i]);
+		}
+		return sb.toString();
+	}
+}
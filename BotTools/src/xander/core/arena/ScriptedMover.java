@@ -0,0 +1,133 @@
+package xander.core.arena;
+
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+
+/**
+ * Simple movement pattern for an arena opponent, with optional head-on
+ * targeting.  Movers see everything; they target the nearest framework robot
+ * still alive.  A mover holds no state of its own, so one mover can be shared
+ * by any number of robots and matches.
+ */
+public class ScriptedMover {
+
+	public static enum Pattern {
+		/** Full speed back and forth along a fixed heading, reversing near walls. */
+		LINEAR,
+		/** Full speed in a constant turn. */
+		CIRCULAR,
+		/** Back and forth perpendicular to the target, reversing at a fixed interval. */
+		OSCILLATOR,
+		/** Toward the point mirroring the target through the battlefield center. */
+		MIRROR,
+		/** Straight at the target. */
+		RAM
+	}
+
+	private static final int OSCILLATION_TICKS = 24;
+	private static final double CIRCULAR_TURN_RATE = Math.toRadians(4);
+	private static final double WALL_MARGIN = 60;
+	private static final double FIRE_TOLERANCE = Math.toRadians(3);   // gun turn still needed at which to fire
+
+	private Pattern pattern;
+	private double firePower;
+
+	/**
+	 * Creates a mover that does not fire.
+	 *
+	 * @param pattern    movement pattern
+	 */
+	public ScriptedMover(Pattern pattern) {
+		this(pattern, 0);
+	}
+
+	/**
+	 * Creates a mover.
+	 *
+	 * @param pattern      movement pattern
+	 * @param firePower    power of head-on shots at the target, or 0 to not fire
+	 */
+	public ScriptedMover(Pattern pattern, double firePower) {
+		this.pattern = pattern;
+		this.firePower = firePower;
+	}
+
+	public Pattern getPattern() {
+		return pattern;
+	}
+
+	public double getFirePower() {
+		return firePower;
+	}
+
+	public String getName() {
+		String name = pattern.name();
+		return name.charAt(0) + name.substring(1).toLowerCase();
+	}
+
+	/**
+	 * Sets the commands of the given robot for the coming tick.
+	 *
+	 * @param self      robot moved by this mover
+	 * @param target    robot to move relative to and fire at, or null if none
+	 * @param time      current time
+	 * @param width     battlefield width
+	 * @param height    battlefield height
+	 */
+	void control(ArenaRobot self, ArenaRobot target, long time, double width, double height) {
+		double targetX = (target == null)? width / 2 : target.x;
+		double targetY = (target == null)? height / 2 : target.y;
+		switch (pattern) {
+		case LINEAR:
+			double aheadX = self.x + self.moveDirection * Math.sin(self.heading) * 2 * WALL_MARGIN;
+			double aheadY = self.y + self.moveDirection * Math.cos(self.heading) * 2 * WALL_MARGIN;
+			if (aheadX < WALL_MARGIN || aheadX > width - WALL_MARGIN || aheadY < WALL_MARGIN || aheadY > height - WALL_MARGIN) {
+				self.moveDirection = -self.moveDirection;
+			}
+			self.bodyTurn = 0;
+			self.distance = self.moveDirection * Double.POSITIVE_INFINITY;
+			break;
+		case CIRCULAR:
+			self.bodyTurn = CIRCULAR_TURN_RATE;
+			self.distance = Double.POSITIVE_INFINITY;
+			break;
+		case OSCILLATOR:
+			if (time % OSCILLATION_TICKS == 0) {
+				self.moveDirection = -self.moveDirection;
+			}
+			double perpendicular = self.getAngleTo(targetX, targetY) + Math.PI / 2;
+			self.bodyTurn = ArenaRobot.normalizeRelative(perpendicular - self.heading);
+			if (Math.abs(self.bodyTurn) > Math.PI / 2) {
+				self.bodyTurn = ArenaRobot.normalizeRelative(self.bodyTurn + Math.PI);
+			}
+			self.distance = self.moveDirection * Double.POSITIVE_INFINITY;
+			break;
+		case MIRROR:
+			driveTo(self, width - targetX, height - targetY);
+			break;
+		case RAM:
+			driveTo(self, targetX, targetY);
+			break;
+		}
+		if (target != null && firePower > 0) {
+			double aim = self.getAngleTo(target.x, target.y);
+			self.gunTurn = ArenaRobot.normalizeRelative(aim - self.gunHeading);
+			if (self.gunHeat == 0 && Math.abs(self.gunTurn) < FIRE_TOLERANCE) {
+				self.firePower = Math.min(firePower, RCPhysics.MAX_FIRE_POWER);
+			}
+		}
+	}
+
+	private static void driveTo(ArenaRobot self, double x, double y) {
+		double bearing = self.getBearing(self.getAngleTo(x, y));
+		double distance = RCMath.getDistanceBetweenPoints(self.x, self.y, x, y);
+		if (Math.abs(bearing) > Math.PI / 2) {
+			// back up rather than turn around
+			self.bodyTurn = ArenaRobot.normalizeRelative(bearing + Math.PI);
+			self.distance = -distance;
+		} else {
+			self.bodyTurn = bearing;
+			self.distance = distance;
+		}
+	}
+}
@@ -0,0 +1,143 @@
+package xander.core.bench;
+
+import java.io.File;
+import java.io.IOException;
+
+import robocode.Bullet;
+import xander.core.AbstractXanderRobot;
+import xander.core.ComponentChain;
+import xander.core.replay.PeerHandler;
+
+/**
+ * Robot with no components, run for a single tick against a fixed peer so
+ * that the framework's resources are initialized for benchmarks of code that
+ * relies on them (waves, drive predictors, the wave history).  The robot
+ * stands still in the middle of an 800 x 600 battlefield with one opponent.
+ */
+public class BenchRobot extends AbstractXanderRobot {
+
+	public static final String NAME = "xander.core.bench.BenchRobot";
+	public static final double BATTLEFIELD_WIDTH = 800;
+	public static final double BATTLEFIELD_HEIGHT = 600;
+
+	/**
+	 * Peer that reports a fixed state and ends the round on the first execute.
+	 */
+	private static class BenchPeer extends PeerHandler {
+
+		BenchPeer(File dataDir) {
+			super(dataDir);
+		}
+
+		@Override
+		protected String getName() {
+			return NAME;
+		}
+
+		@Override
+		protected long getTime() {
+			return 0;
+		}
+
+		@Override
+		protected int getRoundNum() {
+			return 0;
+		}
+
+		@Override
+		protected int getNumRounds() {
+			return 1;
+		}
+
+		@Override
+		protected int getOthers() {
+			return 1;
+		}
+
+		@Override
+		protected double getX() {
+			return BATTLEFIELD_WIDTH / 2;
+		}
+
+		@Override
+		protected double getY() {
+			return BATTLEFIELD_HEIGHT / 2;
+		}
+
+		@Override
+		protected double getVelocity() {
+			return 0;
+		}
+
+		@Override
+		protected double getBodyHeading() {
+			return 0;
+		}
+
+		@Override
+		protected double getGunHeading() {
+			return 0;
+		}
+
+		@Override
+		protected double getRadarHeading() {
+			return 0;
+		}
+
+		@Override
+		protected double getEnergy() {
+			return 100;
+		}
+
+		@Override
+		protected double getGunHeat() {
+			return 3;
+		}
+
+		@Override
+		protected double getBattleFieldWidth() {
+			return BATTLEFIELD_WIDTH;
+		}
+
+		@Override
+		protected double getBattleFieldHeight() {
+			return BATTLEFIELD_HEIGHT;
+		}
+
+		@Override
+		protected Bullet setFire(double power) {
+			return null;
+		}
+
+		@Override
+		protected void execute() {
+			throw new RoundOver();
+		}
+	}
+
+	/**
+	 * Initializes the framework's resources.  As the framework keeps them in
+	 * static fields, this is done once per JVM; the robot and its peer remain
+	 * in place for the resources to refer to.
+	 *
+	 * @throws IOException    if a scratch data directory cannot be created
+	 */
+	public static void initializeFramework() throws IOException {
+		File dataDir = File.createTempFile("bench", "");
+		dataDir.delete();
+		dataDir.mkdirs();
+		BenchRobot robot = new BenchRobot();
+		robot.setOut(System.out);
+		robot.setPeer(new BenchPeer(dataDir).newPeer());
+		try {
+			robot.run();
+		} catch (PeerHandler.RoundOver e) {
+			// framework is initialized
+		}
+	}
+
+	@Override
+	protected void addComponents(ComponentChain componentChain) {
+		// no components; only the framework's resources are wanted
+	}
+}
@@ -0,0 +1,37 @@
+package xander.core.bench;
+
+/**
+ * A piece of code to be timed by the BenchmarkRunner.  Each call to run()
+ * is one operation.  Whatever run() computes should be returned, so that the
+ * runner can keep it from being optimized away.
+ */
+public abstract class Benchmark {
+
+	private String name;
+
+	protected Benchmark(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Prepares the benchmark to run on the given inputs.  Anything that
+	 * should not be timed, such as building the objects to operate on, is
+	 * done here.
+	 *
+	 * @param inputs    benchmark inputs
+	 */
+	public abstract void setUp(BenchmarkInputs inputs);
+
+	/**
+	 * Performs one operation.
+	 *
+	 * @param i    index of operation, to be wrapped to pick an input
+	 *
+	 * @return     result of the operation
+	 */
+	public abstract double run(int i);
+}
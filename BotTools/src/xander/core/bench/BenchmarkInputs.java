@@ -0,0 +1,208 @@
+package xander.core.bench;
+
+import java.util.List;
+import java.util.Random;
+
+import xander.core.io.BattleRecorder;
+import xander.core.io.RecordedRound;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+
+/**
+ * Fixed set of battle situations for benchmarks to run on: our position and
+ * movement, an opponent's position and movement, and a bullet power.  Taken
+ * either from recorded battles or from a seeded random number generator, so
+ * that every run of a benchmark sees exactly the same inputs.  Angles are
+ * Robocode angles in degrees.
+ */
+public class BenchmarkInputs {
+
+	private int count;
+	private double battleFieldWidth = 800;
+	private double battleFieldHeight = 600;
+	private double[] myX, myY, myHeading, myVelocity;
+	private double[] oppX, oppY, oppHeading, oppVelocity, oppTurnRate;
+	private double[] power;
+
+	private BenchmarkInputs(int count) {
+		this.count = count;
+		this.myX = new double[count];
+		this.myY = new double[count];
+		this.myHeading = new double[count];
+		this.myVelocity = new double[count];
+		this.oppX = new double[count];
+		this.oppY = new double[count];
+		this.oppHeading = new double[count];
+		this.oppVelocity = new double[count];
+		this.oppTurnRate = new double[count];
+		this.power = new double[count];
+	}
+
+	/**
+	 * Generates inputs at random.
+	 *
+	 * @param count    number of situations
+	 * @param seed     random number generator seed
+	 *
+	 * @return         benchmark inputs
+	 */
+	public static BenchmarkInputs generate(int count, long seed) {
+		BenchmarkInputs inputs = new BenchmarkInputs(count);
+		Random random = new Random(seed);
+		double margin = RCPhysics.ROBOT_HALF_WIDTH;
+		for (int i=0; i<count; i++) {
+			inputs.myX[i] = margin + random.nextDouble() * (inputs.battleFieldWidth - 2 * margin);
+			inputs.myY[i] = margin + random.nextDouble() * (inputs.battleFieldHeight - 2 * margin);
+			inputs.myHeading[i] = random.nextDouble() * 360;
+			inputs.myVelocity[i] = random.nextDouble() * 16 - 8;
+			double distance = 150 + random.nextDouble() * 450;
+			double bearing = random.nextDouble() * 360;
+			inputs.oppX[i] = RCMath.limit(inputs.myX[i] + distance * Math.sin(Math.toRadians(bearing)),
+					margin, inputs.battleFieldWidth - margin);
+			inputs.oppY[i] = RCMath.limit(inputs.myY[i] + distance * Math.cos(Math.toRadians(bearing)),
+					margin, inputs.battleFieldHeight - margin);
+			inputs.oppHeading[i] = random.nextDouble() * 360;
+			inputs.oppVelocity[i] = random.nextDouble() * 16 - 8;
+			inputs.oppTurnRate[i] = random.nextDouble() * 20 - 10;
+			inputs.power[i] = RCPhysics.MIN_FIRE_POWER + random.nextDouble() * (RCPhysics.MAX_FIRE_POWER - RCPhysics.MIN_FIRE_POWER);
+		}
+		return inputs;
+	}
+
+	/**
+	 * Takes inputs from recorded battles.  Each scan of an opponent, together
+	 * with our own state on the same tick, is a candidate; the given number of
+	 * them are picked using a seeded random number generator.  The bullet
+	 * power is that of the opponent's last detected shot.
+	 *
+	 * @param rounds    recorded rounds
+	 * @param count     number of situations
+	 * @param seed      random number generator seed
+	 *
+	 * @return          benchmark inputs, or null if the rounds hold no scans
+	 */
+	public static BenchmarkInputs fromRecordings(List<RecordedRound> rounds, int count, long seed) {
+		int scans = 0;
+		for (RecordedRound round : rounds) {
+			for (int e=0; e<round.getEventCount(); e++) {
+				if (round.getEventTag(e) == BattleRecorder.TAG_SCAN) {
+					scans++;
+				}
+			}
+		}
+		if (scans == 0) {
+			return null;
+		}
+		BenchmarkInputs all = new BenchmarkInputs(scans);
+		int s = 0;
+		for (RecordedRound round : rounds) {
+			all.battleFieldWidth = round.getBattleFieldWidth();
+			all.battleFieldHeight = round.getBattleFieldHeight();
+			double lastPower = 1.9;
+			int lastScan = -1;
+			for (int tick=0; tick<round.getTickCount(); tick++) {
+				for (int e=round.getFirstEvent(tick); e<round.getFirstEvent(tick + 1); e++) {
+					if (round.getEventTag(e) == BattleRecorder.TAG_OPP_FIRE) {
+						lastPower = round.getEventValue(e, 0);
+					} else if (round.getEventTag(e) == BattleRecorder.TAG_SCAN) {
+						all.myX[s] = round.getX(tick);
+						all.myY[s] = round.getY(tick);
+						all.myHeading[s] = round.getHeadingDegrees(tick);
+						all.myVelocity[s] = round.getVelocity(tick);
+						all.oppX[s] = round.getEventValue(e, 0);
+						all.oppY[s] = round.getEventValue(e, 1);
+						all.oppHeading[s] = round.getEventValue(e, 2);
+						all.oppVelocity[s] = round.getEventValue(e, 3);
+						if (lastScan >= 0 && round.getEventId(lastScan) == round.getEventId(e)
+								&& round.getEventTime(lastScan) == round.getEventTime(e) - 1) {
+							all.oppTurnRate[s] = RCMath.getTurnAngle(round.getEventValue(lastScan, 2), all.oppHeading[s]);
+						}
+						all.power[s] = lastPower;
+						lastScan = e;
+						s++;
+					}
+				}
+			}
+		}
+		if (count >= scans) {
+			return all;
+		}
+		BenchmarkInputs inputs = new BenchmarkInputs(count);
+		inputs.battleFieldWidth = all.battleFieldWidth;
+		inputs.battleFieldHeight = all.battleFieldHeight;
+		Random random = new Random(seed);
+		for (int i=0; i<count; i++) {
+			int j = random.nextInt(scans);
+			inputs.myX[i] = all.myX[j];
+			inputs.myY[i] = all.myY[j];
+			inputs.myHeading[i] = all.myHeading[j];
+			inputs.myVelocity[i] = all.myVelocity[j];
+			inputs.oppX[i] = all.oppX[j];
+			inputs.oppY[i] = all.oppY[j];
+			inputs.oppHeading[i] = all.oppHeading[j];
+			inputs.oppVelocity[i] = all.oppVelocity[j];
+			inputs.oppTurnRate[i] = all.oppTurnRate[j];
+			inputs.power[i] = all.power[j];
+		}
+		return inputs;
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getBattleFieldWidth() {
+		return battleFieldWidth;
+	}
+
+	public double getBattleFieldHeight() {
+		return battleFieldHeight;
+	}
+
+	public double getMyX(int i) {
+		return myX[i];
+	}
+
+	public double getMyY(int i) {
+		return myY[i];
+	}
+
+	public double getMyHeading(int i) {
+		return myHeading[i];
+	}
+
+	public double getMyVelocity(int i) {
+		return myVelocity[i];
+	}
+
+	public double getOppX(int i) {
+		return oppX[i];
+	}
+
+	public double getOppY(int i) {
+		return oppY[i];
+	}
+
+	public double getOppHeading(int i) {
+		return oppHeading[i];
+	}
+
+	public double getOppVelocity(int i) {
+		return oppVelocity[i];
+	}
+
+	/**
+	 * Returns the opponent's heading change over the tick before it was seen.
+	 *
+	 * @param i    index of situation
+	 *
+	 * @return     opponent turn rate in degrees per tick
+	 */
+	public double getOppTurnRate(int i) {
+		return oppTurnRate[i];
+	}
+
+	public double getPower(int i) {
+		return power[i];
+	}
+}
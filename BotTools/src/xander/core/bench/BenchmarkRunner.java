@@ -0,0 +1,186 @@
+package xander.core.bench;
+
+import java.io.File;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.util.List;
+
+import xander.core.io.RecordedRound;
+import xander.core.log.Logger;
+import xander.core.replay.ReplayHarness;
+
+/**
+ * Times benchmarks outside of Robocode.  Each benchmark is run for a number
+ * of warmup iterations, to let the JIT compiler settle, and then for a number
+ * of measured iterations of fixed duration.  For each benchmark, the report
+ * gives the mean and standard deviation of operations per second over the
+ * measured iterations, time per operation, bytes allocated per operation, and
+ * the garbage collections that occurred while it was measured.
+ *
+ * Bytes allocated are only available on JVMs that provide per thread
+ * allocation counts (com.sun.management.ThreadMXBean); elsewhere they are
+ * reported as -1.
+ *
+ * Usage: BenchmarkRunner [recordingDirectory] [nameFilter]
+ *
+ * Run from the command line, the kernel benchmarks are run on inputs taken
+ * from the recorded battles in the given directory, or on generated inputs
+ * if none is given.  Only benchmarks whose names contain the filter are run.
+ */
+public class BenchmarkRunner {
+
+	public static final int INPUT_COUNT = 1024;
+	public static final long INPUT_SEED = 42;
+
+	private static final int OPS_PER_TIME_CHECK = 64;
+
+	private int warmupIterations = 3;
+	private int measuredIterations = 5;
+	private long iterationMillis = 1000;
+	private double sink;  // benchmark results are summed here so they cannot be optimized away
+
+	public void setWarmupIterations(int warmupIterations) {
+		this.warmupIterations = warmupIterations;
+	}
+
+	public void setMeasuredIterations(int measuredIterations) {
+		this.measuredIterations = measuredIterations;
+	}
+
+	public void setIterationMillis(long iterationMillis) {
+		this.iterationMillis = iterationMillis;
+	}
+
+	/**
+	 * Returns the sum of all benchmark results, of no interest other than that
+	 * the JIT compiler cannot tell that it is of no interest.
+	 *
+	 * @return    sum of benchmark results
+	 */
+	public double getSink() {
+		return sink;
+	}
+
+	private static long getAllocatedBytes() {
+		ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+		try {
+			Class<?> sunThreadMXBean = Class.forName("com.sun.management.ThreadMXBean");
+			if (sunThreadMXBean.isInstance(threadMXBean)) {
+				Method method = sunThreadMXBean.getMethod("getThreadAllocatedBytes", long.class);
+				return ((Long) method.invoke(threadMXBean, Thread.currentThread().getId())).longValue();
+			}
+		} catch (Exception e) {
+			// not available on this JVM
+		}
+		return -1;
+	}
+
+	private static long[] getGCCountAndMillis() {
+		long[] gc = new long[2];
+		for (GarbageCollectorMXBean gcMXBean : ManagementFactory.getGarbageCollectorMXBeans()) {
+			gc[0] += Math.max(0, gcMXBean.getCollectionCount());
+			gc[1] += Math.max(0, gcMXBean.getCollectionTime());
+		}
+		return gc;
+	}
+
+	/**
+	 * Runs the benchmark for one iteration.
+	 *
+	 * @param benchmark    benchmark to run
+	 *
+	 * @return             operations, and nanoseconds taken
+	 */
+	private long[] runIteration(Benchmark benchmark) {
+		long iterationNanos = iterationMillis * 1000000L;
+		double result = 0;
+		long ops = 0;
+		long start = System.nanoTime();
+		long nanos = 0;
+		while (nanos < iterationNanos) {
+			for (int i=0; i<OPS_PER_TIME_CHECK; i++) {
+				result += benchmark.run((int) ops + i);
+			}
+			ops += OPS_PER_TIME_CHECK;
+			nanos = System.nanoTime() - start;
+		}
+		sink += result;
+		return new long[] {ops, nanos};
+	}
+
+	/**
+	 * Runs the given benchmark on the given inputs and returns a line of
+	 * report for it.
+	 *
+	 * @param benchmark    benchmark to run
+	 * @param inputs       benchmark inputs
+	 *
+	 * @return             report line
+	 */
+	public String run(Benchmark benchmark, BenchmarkInputs inputs) {
+		benchmark.setUp(inputs);
+		for (int i=0; i<warmupIterations; i++) {
+			runIteration(benchmark);
+		}
+		double[] opsPerSecond = new double[measuredIterations];
+		long totalOps = 0;
+		long totalNanos = 0;
+		long[] gcBefore = getGCCountAndMillis();
+		long allocatedBefore = getAllocatedBytes();
+		for (int i=0; i<measuredIterations; i++) {
+			long[] opsAndNanos = runIteration(benchmark);
+			opsPerSecond[i] = opsAndNanos[0] * 1000000000d / opsAndNanos[1];
+			totalOps += opsAndNanos[0];
+			totalNanos += opsAndNanos[1];
+		}
+		long allocatedAfter = getAllocatedBytes();
+		long[] gcAfter = getGCCountAndMillis();
+		double mean = 0;
+		for (int i=0; i<measuredIterations; i++) {
+			mean += opsPerSecond[i];
+		}
+		mean /= measuredIterations;
+		double variance = 0;
+		for (int i=0; i<measuredIterations; i++) {
+			variance += (opsPerSecond[i] - mean) * (opsPerSecond[i] - mean);
+		}
+		double stdDev = Math.sqrt(variance / measuredIterations);
+		double bytesPerOp = (allocatedBefore < 0 || allocatedAfter < 0)? -1 : (allocatedAfter - allocatedBefore) / (double) totalOps;
+		StringBuilder sb = new StringBuilder();
+		sb.append(benchmark.getName()).append(": ");
+		Logger.append(sb, mean, 0).append(" +- ");
+		Logger.append(sb, stdDev, 0).append(" ops/s, ");
+		Logger.append(sb, totalNanos / (double) totalOps, 1).append(" ns/op, ");
+		Logger.append(sb, bytesPerOp, 1).append(" B/op, ");
+		sb.append(gcAfter[0] - gcBefore[0]).append(" gc (");
+		sb.append(gcAfter[1] - gcBefore[1]).append(" ms)");
+		return sb.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		BenchmarkInputs inputs = null;
+		if (args.length > 0) {
+			List<RecordedRound> rounds = ReplayHarness.readRounds(new File(args[0]));
+			inputs = BenchmarkInputs.fromRecordings(rounds, INPUT_COUNT, INPUT_SEED);
+			if (inputs == null) {
+				System.out.println("No scans recorded in " + args[0] + "; using generated inputs.");
+			}
+		}
+		if (inputs == null) {
+			inputs = BenchmarkInputs.generate(INPUT_COUNT, INPUT_SEED);
+		}
+		String nameFilter = (args.length > 1)? args[1] : "";
+		BenchRobot.initializeFramework();
+		BenchmarkRunner runner = new BenchmarkRunner();
+		for (Benchmark benchmark : KernelBenchmarks.getBenchmarks()) {
+			if (benchmark.getName().contains(nameFilter)) {
+				System.out.println(runner.run(benchmark, inputs));
+			}
+		}
+		if (runner.getSink() == 0) {
+			System.out.println();  // results must appear to be used
+		}
+	}
+}
@@ -0,0 +1,484 @@
+package xander.core.bench;
+
+import java.awt.geom.Path2D;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+import java.util.List;
+
+import teamlg.drive.minRisk.MinimumRiskDrive;
+import xander.core.Resources;
+import xander.core.drive.DirectDrivePredictor;
+import xander.core.drive.Direction;
+import xander.core.drive.DistancingEquation;
+import xander.core.drive.DriveController;
+import xander.core.drive.DriveBoundsFactory;
+import xander.core.drive.DriveOptions;
+import xander.core.drive.DriveState;
+import xander.core.drive.OrbitalDrivePredictor;
+import xander.core.math.Circular;
+import xander.core.math.Linear;
+import xander.core.math.LinearIntercept;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.math.VelocityVector;
+import xander.core.track.Snapshot;
+import xander.core.track.Wave;
+import xander.core.track.WaveHistory;
+import xander.core.track.XBullet;
+import xander.core.track.XBulletWave;
+
+/**
+ * Benchmarks of the math and prediction code run every tick by the guns and
+ * drives.  Those that build waves or use drive predictors need the framework
+ * to have been initialized first, see BenchRobot.
+ *
+ * Each benchmark builds the snapshots and waves it needs from the inputs in
+ * setUp(), so that only the kernel itself is timed.  Opponent waves are fired
+ * at time 0 from the opponent's position at us, and our own bullets at time 0
+ * head-on at the opponent.
+ */
+public class KernelBenchmarks {
+
+	private static final String OPPONENT_NAME = "Opponent";
+	private static final int ORBIT_TICKS = 20;
+	private static final int DRIVE_OPTION_TEST_ANGLES = 30;  // as used by the wave history
+	private static final int MELEE_OPPONENTS = 10;
+	private static final double MELEE_WALL_MARGIN = 40;
+
+	/**
+	 * Returns all kernel benchmarks.
+	 *
+	 * @return    kernel benchmarks
+	 */
+	public static List<Benchmark> getBenchmarks() {
+		List<Benchmark> benchmarks = new ArrayList<Benchmark>();
+		benchmarks.add(new GetLocation());
+		benchmarks.add(new GetRobocodeAngle());
+		benchmarks.add(new Normalize());
+		benchmarks.add(new CircleToLineIntersections());
+		benchmarks.add(new LinearTrajectory());
+		benchmarks.add(new CircularCenterPoint());
+		benchmarks.add(new CircularTrajectory());
+		benchmarks.add(new DirectDrivePrediction());
+		benchmarks.add(new OrbitalDrivePrediction());
+		benchmarks.add(new DriveOptionComputation());
+		benchmarks.add(new BulletShadowCasting());
+		benchmarks.add(new MinimumRiskDriving(MinimumRiskDrive.DEFAULT_BASE_SAMPLES, MinimumRiskDrive.DEFAULT_MAX_SAMPLES));
+		benchmarks.add(new MinimumRiskDriving(MinimumRiskDrive.DEFAULT_MAX_SAMPLES, MinimumRiskDrive.DEFAULT_MAX_SAMPLES));
+		return benchmarks;
+	}
+
+	private static Snapshot getMySnapshot(BenchmarkInputs inputs, int i, long time) {
+		double distance = RCMath.getDistanceBetweenPoints(inputs.getMyX(i), inputs.getMyY(i), inputs.getOppX(i), inputs.getOppY(i));
+		return new Snapshot(BenchRobot.NAME, inputs.getMyX(i), inputs.getMyY(i),
+				Math.toRadians(inputs.getMyHeading(i)), inputs.getMyVelocity(i), distance, 100, time);
+	}
+
+	private static Snapshot getOpponentSnapshot(BenchmarkInputs inputs, int i, long time) {
+		double distance = RCMath.getDistanceBetweenPoints(inputs.getMyX(i), inputs.getMyY(i), inputs.getOppX(i), inputs.getOppY(i));
+		return new Snapshot(OPPONENT_NAME, inputs.getOppX(i), inputs.getOppY(i),
+				Math.toRadians(inputs.getOppHeading(i)),
+				inputs.getOppVelocity(i), distance, 100, time);
+	}
+
+	private static Wave[] getOpponentWaves(BenchmarkInputs inputs) {
+		Wave[] waves = new Wave[inputs.getCount()];
+		for (int i=0; i<waves.length; i++) {
+			waves[i] = new Wave(getMySnapshot(inputs, i, 0), getOpponentSnapshot(inputs, i, 0), inputs.getPower(i), 0);
+		}
+		return waves;
+	}
+
+	private static DriveState[] getMyDriveStates(BenchmarkInputs inputs) {
+		DriveState[] driveStates = new DriveState[inputs.getCount()];
+		for (int i=0; i<driveStates.length; i++) {
+			driveStates[i] = new DriveState(getMySnapshot(inputs, i, 0));
+		}
+		return driveStates;
+	}
+
+	private static class GetLocation extends Benchmark {
+
+		private BenchmarkInputs inputs;
+
+		GetLocation() {
+			super("RCMath.getLocation");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+		}
+
+		@Override
+		public double run(int i) {
+			i %= inputs.getCount();
+			Point2D.Double location = RCMath.getLocation(inputs.getMyX(i), inputs.getMyY(i), inputs.getMyVelocity(i), inputs.getMyHeading(i));
+			return location.x + location.y;
+		}
+	}
+
+	private static class GetRobocodeAngle extends Benchmark {
+
+		private BenchmarkInputs inputs;
+
+		GetRobocodeAngle() {
+			super("RCMath.getRobocodeAngle");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+		}
+
+		@Override
+		public double run(int i) {
+			i %= inputs.getCount();
+			return RCMath.getRobocodeAngle(inputs.getMyX(i), inputs.getMyY(i), inputs.getOppX(i), inputs.getOppY(i));
+		}
+	}
+
+	private static class Normalize extends Benchmark {
+
+		private BenchmarkInputs inputs;
+
+		Normalize() {
+			super("RCMath.normalizeDegrees/Radians");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+		}
+
+		@Override
+		public double run(int i) {
+			i %= inputs.getCount();
+			double turn = inputs.getOppHeading(i) - inputs.getMyHeading(i);
+			return RCMath.normalizeDegrees(turn + 720) + RCMath.normalizeRadians(Math.toRadians(turn) - 4 * Math.PI);
+		}
+	}
+
+	private static class CircleToLineIntersections extends Benchmark {
+
+		private BenchmarkInputs inputs;
+		private Point2D.Double[] centers;
+		private Point2D.Double[] linePoints1;
+		private Point2D.Double[] linePoints2;
+
+		CircleToLineIntersections() {
+			super("RCMath.getCircleToLineIntersections");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+			this.centers = new Point2D.Double[inputs.getCount()];
+			this.linePoints1 = new Point2D.Double[inputs.getCount()];
+			this.linePoints2 = new Point2D.Double[inputs.getCount()];
+			for (int i=0; i<inputs.getCount(); i++) {
+				// bullet line from us towards the opponent, one tick of travel long
+				double aim = RCMath.getRobocodeAngle(inputs.getMyX(i), inputs.getMyY(i), inputs.getOppX(i), inputs.getOppY(i));
+				centers[i] = new Point2D.Double(inputs.getOppX(i), inputs.getOppY(i));
+				linePoints1[i] = new Point2D.Double(inputs.getMyX(i), inputs.getMyY(i));
+				linePoints2[i] = RCMath.getLocation(inputs.getMyX(i), inputs.getMyY(i), RCPhysics.getBulletVelocity(inputs.getPower(i)), aim);
+			}
+		}
+
+		@Override
+		public double run(int i) {
+			i %= inputs.getCount();
+			double radius = RCMath.getDistanceBetweenPoints(centers[i], linePoints1[i]) - 5;
+			Point2D.Double[] intersections = RCMath.getCircleToLineIntersections(centers[i], radius, linePoints1[i], linePoints2[i]);
+			return (intersections == null)? 0 : intersections.length;
+		}
+	}
+
+	private static class LinearTrajectory extends Benchmark {
+
+		private BenchmarkInputs inputs;
+		private Snapshot[] targets;
+		private Rectangle2D.Double bounds;
+
+		LinearTrajectory() {
+			super("Linear.calculateTrajectory");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+			this.targets = new Snapshot[inputs.getCount()];
+			for (int i=0; i<targets.length; i++) {
+				targets[i] = getOpponentSnapshot(inputs, i, 0);
+			}
+			this.bounds = new Rectangle2D.Double(0, 0, inputs.getBattleFieldWidth(), inputs.getBattleFieldHeight());
+		}
+
+		@Override
+		public double run(int i) {
+			i %= inputs.getCount();
+			LinearIntercept intercept = Linear.calculateTrajectory(targets[i], inputs.getMyX(i), inputs.getMyY(i),
+					RCPhysics.getBulletVelocity(inputs.getPower(i)), bounds, 0);
+			return (intercept == null)? 0 : intercept.getTimeToIntercept();
+		}
+	}
+
+	/**
+	 * Circular targeting only applies to turning, moving opponents, so any
+	 * situation where the opponent is not both is given a small turn rate and
+	 * a speed.
+	 */
+	private static Snapshot[] getTurningOpponentSnapshots(BenchmarkInputs inputs, long time, boolean previous) {
+		Snapshot[] snapshots = new Snapshot[inputs.getCount()];
+		for (int i=0; i<snapshots.length; i++) {
+			double turnRate = inputs.getOppTurnRate(i);
+			if (Math.abs(turnRate) < 1) {
+				turnRate = 3;
+			}
+			double velocity = inputs.getOppVelocity(i);
+			if (velocity == 0) {
+				velocity = RCPhysics.MAX_SPEED;
+			}
+			double distance = RCMath.getDistanceBetweenPoints(inputs.getMyX(i), inputs.getMyY(i), inputs.getOppX(i), inputs.getOppY(i));
+			double heading = RCMath.normalizeDegrees(inputs.getOppHeading(i) - (previous? turnRate : 0));
+			double x = inputs.getOppX(i);
+			double y = inputs.getOppY(i);
+			if (previous) {
+				Point2D.Double location = RCMath.getLocation(x, y, -velocity, inputs.getOppHeading(i));
+				x = location.x;
+				y = location.y;
+			}
+			snapshots[i] = new Snapshot(OPPONENT_NAME, x, y, Math.toRadians(heading), velocity, distance, 100, previous? time - 1 : time);
+		}
+		return snapshots;
+	}
+
+	private static class CircularCenterPoint extends Benchmark {
+
+		private Snapshot[] targets_t1;
+		private Snapshot[] targets_t0;
+		private double[] centerPoint = new double[2];
+
+		CircularCenterPoint() {
+			super("Circular.getCenterPoint");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.targets_t1 = getTurningOpponentSnapshots(inputs, 1, false);
+			this.targets_t0 = getTurningOpponentSnapshots(inputs, 1, true);
+		}
+
+		@Override
+		public double run(int i) {
+			i %= targets_t1.length;
+			return Circular.getCenterPoint(targets_t1[i], targets_t0[i], centerPoint)? centerPoint[0] + centerPoint[1] : 0;
+		}
+	}
+
+	private static class CircularTrajectory extends Benchmark {
+
+		private BenchmarkInputs inputs;
+		private Snapshot[] targets;
+		private double[][] centerPoints;
+
+		CircularTrajectory() {
+			super("Circular.calculateTrajectory");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.inputs = inputs;
+			this.targets = getTurningOpponentSnapshots(inputs, 1, false);
+			Snapshot[] targets_t0 = getTurningOpponentSnapshots(inputs, 1, true);
+			this.centerPoints = new double[targets.length][];
+			for (int i=0; i<targets.length; i++) {
+				centerPoints[i] = Circular.getCenterPoint(targets[i], targets_t0[i]);
+				if (centerPoints[i] == null) {
+					// nearly straight; any distant center will do
+					centerPoints[i] = new double[] {targets[i].getX() + 10000, targets[i].getY()};
+				}
+			}
+		}
+
+		@Override
+		public double run(int i) {
+			i %= targets.length;
+			VelocityVector vector = Circular.calculateTrajectory(targets[i], inputs.getMyX(i), inputs.getMyY(i),
+					centerPoints[i], RCPhysics.getBulletVelocity(inputs.getPower(i)), 1);
+			return (vector == null)? 0 : vector.getRoboAngle();
+		}
+	}
+
+	private static class DirectDrivePrediction extends Benchmark {
+
+		private Wave[] waves;
+		private DriveState[] driveStates;
+		private DirectDrivePredictor predictor;
+
+		DirectDrivePrediction() {
+			super("DirectDrivePredictor.predictDriveStateUntilWaveHits");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.waves = getOpponentWaves(inputs);
+			this.driveStates = getMyDriveStates(inputs);
+			Rectangle2D.Double bounds = new Rectangle2D.Double(0, 0, inputs.getBattleFieldWidth(), inputs.getBattleFieldHeight());
+			this.predictor = new DirectDrivePredictor(bounds, DriveBoundsFactory.getRectangularBounds(bounds));
+		}
+
+		@Override
+		public double run(int i) {
+			i %= waves.length;
+			// drive perpendicular to the wave, as a surfing drive would
+			double heading = RCMath.normalizeDegrees(waves[i].getInitialDefenderBearing() + 90);
+			DriveState driveState = predictor.predictDriveStateUntilWaveHits(waves[i], driveStates[i], heading, RCPhysics.MAX_SPEED, 0);
+			return driveState.getX() + driveState.getY();
+		}
+	}
+
+	private static class OrbitalDrivePrediction extends Benchmark {
+
+		private Wave[] waves;
+		private DriveState[] driveStates;
+		private double[] distances;
+		private OrbitalDrivePredictor predictor;
+
+		OrbitalDrivePrediction() {
+			super("OrbitalDrivePredictor.advanceOrbitalDriveState x" + ORBIT_TICKS);
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.waves = getOpponentWaves(inputs);
+			this.driveStates = getMyDriveStates(inputs);
+			this.distances = new double[waves.length];
+			for (int i=0; i<waves.length; i++) {
+				distances[i] = RCMath.getDistanceBetweenPoints(waves[i].getOrigin(), driveStates[i].getPosition());
+			}
+			this.predictor = new OrbitalDrivePredictor();
+		}
+
+		@Override
+		public double run(int i) {
+			i %= waves.length;
+			DriveState driveState = new DriveState(driveStates[i]);
+			predictor.advanceOrbitalDriveState(driveState, waves[i].getOrigin(), distances[i],
+					Direction.CLOCKWISE, ORBIT_TICKS, RCPhysics.MAX_SPEED, DistancingEquation.NO_ADJUST);
+			return driveState.getX() + driveState.getY();
+		}
+	}
+
+	private static class DriveOptionComputation extends Benchmark {
+
+		private Wave[] waves;
+		private DriveState[] driveStates;
+		private DirectDrivePredictor predictor;
+		private DriveOptions driveOptions;
+
+		DriveOptionComputation() {
+			super("DriveOptions.computeDriveOptions");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.waves = getOpponentWaves(inputs);
+			this.driveStates = getMyDriveStates(inputs);
+			Rectangle2D.Double bounds = new Rectangle2D.Double(0, 0, inputs.getBattleFieldWidth(), inputs.getBattleFieldHeight());
+			Path2D.Double driveBounds = DriveBoundsFactory.getRectangularBounds(bounds);
+			this.predictor = new DirectDrivePredictor(bounds, driveBounds);
+			this.driveOptions = new DriveOptions(DRIVE_OPTION_TEST_ANGLES, bounds, driveBounds);
+		}
+
+		@Override
+		public double run(int i) {
+			i %= waves.length;
+			driveOptions.computeDriveOptions(waves[i], driveStates[i], 0, predictor);
+			return driveOptions.getMEAClockwiseIndex() + driveOptions.getMEACounterClockwiseIndex();
+		}
+	}
+
+	private static class BulletShadowCasting extends Benchmark {
+
+		private XBulletWave[] myWaves;
+		private Wave[] opponentWaves;
+		private WaveHistory waveHistory;
+
+		BulletShadowCasting() {
+			super("WaveHistory.addBulletShadow");
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			this.opponentWaves = getOpponentWaves(inputs);
+			this.myWaves = new XBulletWave[inputs.getCount()];
+			for (int i=0; i<myWaves.length; i++) {
+				Snapshot mySnapshot = getMySnapshot(inputs, i, 0);
+				Snapshot opponentSnapshot = getOpponentSnapshot(inputs, i, 0);
+				double aim = RCMath.getRobocodeAngle(mySnapshot, opponentSnapshot);
+				XBullet xbullet = new XBullet(mySnapshot.getLocation(), aim, inputs.getPower(i));
+				myWaves[i] = new XBulletWave(opponentSnapshot, mySnapshot, xbullet, "Bench", 0);
+			}
+			this.waveHistory = Resources.getWaveHistory();
+		}
+
+		@Override
+		public double run(int i) {
+			i %= myWaves.length;
+			opponentWaves[i].getBulletShadows().clear();
+			waveHistory.addBulletShadow(myWaves[i], opponentWaves[i], 0);
+			return opponentWaves[i].getBulletShadows().size();
+		}
+	}
+
+	/**
+	 * Drive controller that only keeps the last heading asked for, so that
+	 * driving costs nothing beyond the drive's own decision.
+	 */
+	private static class HeadingDriveController extends DriveController {
+
+		private double heading;
+
+		@Override
+		public void drive(double roboDegrees, double speed) {
+			this.heading = roboDegrees;
+		}
+	}
+
+	private static class MinimumRiskDriving extends Benchmark {
+
+		private int baseSamples;
+		private int maxSamples;
+		private MinimumRiskDrive drive;
+		private HeadingDriveController driveController = new HeadingDriveController();
+
+		MinimumRiskDriving(int baseSamples, int maxSamples) {
+			super("MinimumRiskDrive.drive, " + MELEE_OPPONENTS + " opponents, " + baseSamples + "-" + maxSamples + " samples");
+			this.baseSamples = baseSamples;
+			this.maxSamples = maxSamples;
+		}
+
+		@Override
+		public void setUp(BenchmarkInputs inputs) {
+			// opponents are spread over the inputs and stay put; each operation is one turn of the drive
+			for (int k=0; k<MELEE_OPPONENTS; k++) {
+				int i = k * inputs.getCount() / MELEE_OPPONENTS;
+				Snapshot snapshot = new Snapshot(OPPONENT_NAME + " " + k, inputs.getOppX(i), inputs.getOppY(i),
+						Math.toRadians(inputs.getOppHeading(i)), inputs.getOppVelocity(i), 0, 100, 0);
+				Resources.getSnapshotHistory().addGroupSnapshot(snapshot);
+				Resources.getOtherRobots().addRobot(snapshot.getName());
+			}
+			this.drive = new MinimumRiskDrive(inputs.getBattleFieldWidth(), inputs.getBattleFieldHeight(),
+					MELEE_WALL_MARGIN, MinimumRiskDrive.DEFAULT_SEED);
+			drive.setSampleBudget(baseSamples, maxSamples);
+		}
+
+		@Override
+		public double run(int i) {
+			drive.drive(driveController);
+			return driveController.heading + drive.getLastSampleCount();
+		}
+	}
+}
@@ -0,0 +1,342 @@
+package xander.core.replay;
+
+import java.io.File;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import robocode.Bullet;
+import robocode.robotinterfaces.peer.IAdvancedRobotPeer;
+import robocode.robotinterfaces.peer.IBasicRobotPeer;
+
+/**
+ * Base for robot peers that stand in for the Robocode engine, so that a robot
+ * can be run outside of Robocode.  The peer is installed as a dynamic proxy
+ * for the robot peer interface, so the robot, and everything in the framework
+ * that reads from or commands the robot, runs unchanged.
+ *
+ * Subclasses supply the robot's state and decide what execute does.  Turns
+ * and moves requested by the robot are held here, along with the adjust
+ * flags, for subclasses to act on.  Peer methods not handled, such as colors,
+ * custom events, debug properties, and painting, do nothing.
+ */
+public abstract class PeerHandler implements InvocationHandler {
+
+	/**
+	 * Thrown from execute when the robot's round is over.  An Error, so that
+	 * it is not caught by the robot's run loop.
+	 */
+	public static class RoundOver extends Error {
+		private static final long serialVersionUID = 1L;
+	}
+
+	private static final int GET_NAME = 1;
+	private static final int GET_TIME = 2;
+	private static final int GET_ROUND_NUM = 3;
+	private static final int GET_NUM_ROUNDS = 4;
+	private static final int GET_OTHERS = 5;
+	private static final int GET_X = 6;
+	private static final int GET_Y = 7;
+	private static final int GET_VELOCITY = 8;
+	private static final int GET_BODY_HEADING = 9;
+	private static final int GET_GUN_HEADING = 10;
+	private static final int GET_RADAR_HEADING = 11;
+	private static final int GET_ENERGY = 12;
+	private static final int GET_GUN_HEAT = 13;
+	private static final int GET_GUN_COOLING_RATE = 14;
+	private static final int GET_BATTLE_FIELD_WIDTH = 15;
+	private static final int GET_BATTLE_FIELD_HEIGHT = 16;
+	private static final int GET_BODY_TURN_REMAINING = 17;
+	private static final int GET_GUN_TURN_REMAINING = 18;
+	private static final int GET_RADAR_TURN_REMAINING = 19;
+	private static final int GET_DISTANCE_REMAINING = 20;
+	private static final int SET_TURN_BODY = 21;
+	private static final int SET_TURN_GUN = 22;
+	private static final int SET_TURN_RADAR = 23;
+	private static final int SET_MOVE = 24;
+	private static final int TURN_BODY = 25;
+	private static final int TURN_GUN = 26;
+	private static final int TURN_RADAR = 27;
+	private static final int MOVE = 28;
+	private static final int SET_FIRE = 29;
+	private static final int FIRE = 30;
+	private static final int EXECUTE = 31;
+	private static final int SET_ADJUST_GUN_FOR_BODY_TURN = 32;
+	private static final int SET_ADJUST_RADAR_FOR_GUN_TURN = 33;
+	private static final int SET_ADJUST_RADAR_FOR_BODY_TURN = 34;
+	private static final int IS_ADJUST_GUN_FOR_BODY_TURN = 35;
+	private static final int IS_ADJUST_RADAR_FOR_GUN_TURN = 36;
+	private static final int IS_ADJUST_RADAR_FOR_BODY_TURN = 37;
+	private static final int GET_DATA_DIRECTORY = 38;
+	private static final int GET_DATA_FILE = 39;
+	private static final int GET_DATA_QUOTA_AVAILABLE = 40;
+	private static final int SET_MAX_VELOCITY = 41;
+	private static final int SET_MAX_TURN_RATE = 42;
+
+	private static final Map<String, Integer> codesByName = new HashMap<String, Integer>();
+	static {
+		String[] names = new String[] {null, "getName", "getTime", "getRoundNum", "getNumRounds", "getOthers",
+				"getX", "getY", "getVelocity", "getBodyHeading", "getGunHeading", "getRadarHeading",
+				"getEnergy", "getGunHeat", "getGunCoolingRate", "getBattleFieldWidth", "getBattleFieldHeight",
+				"getBodyTurnRemaining", "getGunTurnRemaining", "getRadarTurnRemaining", "getDistanceRemaining",
+				"setTurnBody", "setTurnGun", "setTurnRadar", "setMove", "turnBody", "turnGun", "turnRadar",
+				"move", "setFire", "fire", "execute", "setAdjustGunForBodyTurn", "setAdjustRadarForGunTurn",
+				"setAdjustRadarForBodyTurn", "isAdjustGunForBodyTurn", "isAdjustRadarForGunTurn",
+				"isAdjustRadarForBodyTurn", "getDataDirectory", "getDataFile", "getDataQuotaAvailable",
+				"setMaxVelocity", "setMaxTurnRate"};
+		for (int i=1; i<names.length; i++) {
+			codesByName.put(names[i], Integer.valueOf(i));
+		}
+	}
+
+	private Map<Method, Integer> codes = new IdentityHashMap<Method, Integer>();
+	private File dataDir;
+	private long dataQuota = 200000;
+	protected double bodyTurnRemaining;     // radians
+	protected double gunTurnRemaining;      // radians
+	protected double radarTurnRemaining;    // radians
+	protected double distanceRemaining;
+	protected double maxVelocity = 8;
+	protected double maxTurnRate = Math.toRadians(10);
+	protected boolean adjustGunForBodyTurn;
+	protected boolean adjustRadarForGunTurn;
+	protected boolean adjustRadarForBodyTurn;
+
+	/**
+	 * Creates a peer handler.
+	 *
+	 * @param dataDir    directory for the robot's data files
+	 */
+	protected PeerHandler(File dataDir) {
+		this.dataDir = dataDir;
+	}
+
+	/**
+	 * Returns a robot peer backed by this handler, to be given to the robot
+	 * with setPeer.
+	 *
+	 * @return    robot peer
+	 */
+	public IBasicRobotPeer newPeer() {
+		return (IBasicRobotPeer) Proxy.newProxyInstance(IAdvancedRobotPeer.class.getClassLoader(),
+				new Class<?>[] {IAdvancedRobotPeer.class}, this);
+	}
+
+	protected abstract String getName();
+
+	protected abstract long getTime();
+
+	protected abstract int getRoundNum();
+
+	protected abstract int getNumRounds();
+
+	protected abstract int getOthers();
+
+	protected abstract double getX();
+
+	protected abstract double getY();
+
+	protected abstract double getVelocity();
+
+	protected abstract double getBodyHeading();
+
+	protected abstract double getGunHeading();
+
+	protected abstract double getRadarHeading();
+
+	protected abstract double getEnergy();
+
+	protected abstract double getGunHeat();
+
+	protected abstract double getBattleFieldWidth();
+
+	protected abstract double getBattleFieldHeight();
+
+	/**
+	 * Fires a bullet if the gun is ready.
+	 *
+	 * @param power    bullet power
+	 *
+	 * @return         bullet fired, or null if none was fired
+	 */
+	protected abstract Bullet setFire(double power);
+
+	/**
+	 * Ends the robot's turn.  Returns when the robot's next turn begins, or
+	 * throws RoundOver if there is none.
+	 */
+	protected abstract void execute();
+
+	protected double getGunCoolingRate() {
+		return 0.1;
+	}
+
+	@Override
+	public Object invoke(Object proxy, Method method, Object[] args) {
+		Integer code = codes.get(method);
+		if (code == null) {
+			code = codesByName.get(method.getName());
+			if (code == null) {
+				code = Integer.valueOf(0);
+			}
+			codes.put(method, code);
+		}
+		switch (code.intValue()) {
+		case GET_NAME:
+			return getName();
+		case GET_TIME:
+			return Long.valueOf(getTime());
+		case GET_ROUND_NUM:
+			return Integer.valueOf(getRoundNum());
+		case GET_NUM_ROUNDS:
+			return Integer.valueOf(getNumRounds());
+		case GET_OTHERS:
+			return Integer.valueOf(getOthers());
+		case GET_X:
+			return Double.valueOf(getX());
+		case GET_Y:
+			return Double.valueOf(getY());
+		case GET_VELOCITY:
+			return Double.valueOf(getVelocity());
+		case GET_BODY_HEADING:
+			return Double.valueOf(getBodyHeading());
+		case GET_GUN_HEADING:
+			return Double.valueOf(getGunHeading());
+		case GET_RADAR_HEADING:
+			return Double.valueOf(getRadarHeading());
+		case GET_ENERGY:
+			return Double.valueOf(getEnergy());
+		case GET_GUN_HEAT:
+			return Double.valueOf(getGunHeat());
+		case GET_GUN_COOLING_RATE:
+			return Double.valueOf(getGunCoolingRate());
+		case GET_BATTLE_FIELD_WIDTH:
+			return Double.valueOf(getBattleFieldWidth());
+		case GET_BATTLE_FIELD_HEIGHT:
+			return Double.valueOf(getBattleFieldHeight());
+		case GET_BODY_TURN_REMAINING:
+			return Double.valueOf(bodyTurnRemaining);
+		case GET_GUN_TURN_REMAINING:
+			return Double.valueOf(gunTurnRemaining);
+		case GET_RADAR_TURN_REMAINING:
+			return Double.valueOf(radarTurnRemaining);
+		case GET_DISTANCE_REMAINING:
+			return Double.valueOf(distanceRemaining);
+		case SET_TURN_BODY:
+			bodyTurnRemaining = ((Double) args[0]).doubleValue();
+			return null;
+		case SET_TURN_GUN:
+			gunTurnRemaining = ((Double) args[0]).doubleValue();
+			return null;
+		case SET_TURN_RADAR:
+			radarTurnRemaining = ((Double) args[0]).doubleValue();
+			return null;
+		case SET_MOVE:
+			distanceRemaining = ((Double) args[0]).doubleValue();
+			return null;
+		case TURN_BODY:
+			bodyTurnRemaining = ((Double) args[0]).doubleValue();
+			execute();
+			return null;
+		case TURN_GUN:
+			gunTurnRemaining = ((Double) args[0]).doubleValue();
+			execute();
+			return null;
+		case TURN_RADAR:
+			radarTurnRemaining = ((Double) args[0]).doubleValue();
+			execute();
+			return null;
+		case MOVE:
+			distanceRemaining = ((Double) args[0]).doubleValue();
+			execute();
+			return null;
+		case SET_FIRE:
+			return setFire(((Double) args[0]).doubleValue());
+		case FIRE:
+			Bullet bullet = setFire(((Double) args[0]).doubleValue());
+			execute();
+			return bullet;
+		case EXECUTE:
+			execute();
+			return null;
+		case SET_ADJUST_GUN_FOR_BODY_TURN:
+			adjustGunForBodyTurn = ((Boolean) args[0]).booleanValue();
+			return null;
+		case SET_ADJUST_RADAR_FOR_GUN_TURN:
+			adjustRadarForGunTurn = ((Boolean) args[0]).booleanValue();
+			return null;
+		case SET_ADJUST_RADAR_FOR_BODY_TURN:
+			adjustRadarForBodyTurn = ((Boolean) args[0]).booleanValue();
+			return null;
+		case IS_ADJUST_GUN_FOR_BODY_TURN:
+			return Boolean.valueOf(adjustGunForBodyTurn);
+		case IS_ADJUST_RADAR_FOR_GUN_TURN:
+			return Boolean.valueOf(adjustRadarForGunTurn);
+		case IS_ADJUST_RADAR_FOR_BODY_TURN:
+			return Boolean.valueOf(adjustRadarForBodyTurn);
+		case GET_DATA_DIRECTORY:
+			return dataDir;
+		case GET_DATA_FILE:
+			return new File(dataDir, (String) args[0]);
+		case GET_DATA_QUOTA_AVAILABLE:
+			return Long.valueOf(getDataQuotaAvailable());
+		case SET_MAX_VELOCITY:
+			maxVelocity = Math.min(8, Math.abs(((Double) args[0]).doubleValue()));
+			return null;
+		case SET_MAX_TURN_RATE:
+			maxTurnRate = Math.min(Math.toRadians(10), Math.abs(((Double) args[0]).doubleValue()));
+			return null;
+		default:
+			return getDefaultValue(method.getReturnType());
+		}
+	}
+
+	private static Object getDefaultValue(Class<?> type) {
+		if (type == Boolean.TYPE) {
+			return Boolean.FALSE;
+		} else if (type == Double.TYPE) {
+			return Double.valueOf(0);
+		} else if (type == Integer.TYPE) {
+			return Integer.valueOf(0);
+		} else if (type == Long.TYPE) {
+			return Long.valueOf(0);
+		} else if (type == Float.TYPE) {
+			return Float.valueOf(0);
+		} else if (type == Short.TYPE) {
+			return Short.valueOf((short) 0);
+		} else if (type == Byte.TYPE) {
+			return Byte.valueOf((byte) 0);
+		} else if (type == Character.TYPE) {
+			return Character.valueOf((char) 0);
+		}
+		return null;
+	}
+
+	private long getDataQuotaAvailable() {
+		long used = 0;
+		File[] files = dataDir.listFiles();
+		if (files != null) {
+			for (int i=0; i<files.length; i++) {
+				used += files[i].length();
+			}
+		}
+		return Math.max(0, dataQuota - used);
+	}
+
+	/**
+	 * Returns what remains of a requested turn or move after the given amount
+	 * of it was made.
+	 *
+	 * @param requested    amount requested
+	 * @param made         amount made
+	 *
+	 * @return             amount remaining
+	 */
+	protected static double getRemaining(double requested, double made) {
+		double remaining = requested - made;
+		return (remaining * requested <= 0)? 0 : remaining;
+	}
+}
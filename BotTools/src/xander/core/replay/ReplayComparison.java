@@ -0,0 +1,112 @@
+package xander.core.replay;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+
+import xander.core.arena.ArenaMatch;
+
+/**
+ * Replays the same recorded battles to a robot once for each of several
+ * tuning files and prints the replay report of each, for comparing settings
+ * such as fire power selectors against the same opponent movement.  The
+ * bullet hit ratio and energy gain resolved by wave are the figures to
+ * compare, as they do not depend on the recorded bullet outcomes.
+ *
+ * Each tuning file is written to the robot's data directory as the arena
+ * does, for robots that read their settings from there.  As the framework
+ * keeps its state in static fields, each replay is run in a JVM of its own.
+ *
+ * Usage: ReplayComparison robotClassName recordingDirectory tuningFile...
+ */
+public class ReplayComparison {
+
+	private static final String REPORT_START = "Replayed ";
+
+	/**
+	 * Replays the recorded battles in a new JVM with the given tuning and
+	 * returns the replay report.
+	 *
+	 * @param robotClassName    class name of robot
+	 * @param recordingDir      directory holding segment files
+	 * @param tuning            tuning properties
+	 *
+	 * @return                  replay report
+	 *
+	 * @throws Exception        if the replay could not be run
+	 */
+	public static String replay(String robotClassName, File recordingDir, Properties tuning) throws Exception {
+		File dataDir = File.createTempFile("replay", "");
+		dataDir.delete();
+		dataDir.mkdirs();
+		OutputStream os = new FileOutputStream(new File(dataDir, ArenaMatch.TUNING_FILE_NAME));
+		try {
+			tuning.store(os, null);
+		} finally {
+			os.close();
+		}
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		List<String> command = new ArrayList<String>();
+		command.add(java);
+		command.add("-cp");
+		command.add(System.getProperty("java.class.path"));
+		command.add(ReplayHarness.class.getName());
+		command.add(robotClassName);
+		command.add(recordingDir.getPath());
+		command.add(dataDir.getPath());
+		ProcessBuilder processBuilder = new ProcessBuilder(command);
+		processBuilder.redirectErrorStream(true);
+		Process process = processBuilder.start();
+		StringBuilder output = new StringBuilder();
+		StringBuilder report = new StringBuilder();
+		BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()));
+		try {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// the robot's own logging comes before the report
+				if (report.length() > 0 || line.startsWith(REPORT_START)) {
+					report.append(line).append('\n');
+				}
+				output.append(line).append('\n');
+			}
+		} finally {
+			reader.close();
+		}
+		int exitValue = process.waitFor();
+		if (exitValue != 0 || report.length() == 0) {
+			throw new IOException("Replay failed with exit value " + exitValue + ":\n" + output);
+		}
+		return report.toString();
+	}
+
+	private static Properties loadTuning(String fileName) throws IOException {
+		Properties tuning = new Properties();
+		InputStream is = new FileInputStream(fileName);
+		try {
+			tuning.load(is);
+		} finally {
+			is.close();
+		}
+		return tuning;
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 3) {
+			System.out.println("Usage: ReplayComparison robotClassName recordingDirectory tuningFile...");
+			return;
+		}
+		File recordingDir = new File(args[1]);
+		for (int i=2; i<args.length; i++) {
+			System.out.println("== " + args[i]);
+			System.out.println(replay(args[0], recordingDir, loadTuning(args[i])));
+		}
+	}
+}
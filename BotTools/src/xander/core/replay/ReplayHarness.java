@@ -0,0 +1,212 @@
+package xander.core.replay;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import robocode.BattleEndedEvent;
+import robocode.RoundEndedEvent;
+import xander.core.AbstractXanderRobot;
+import xander.core.Resources;
+import xander.core.io.BattleRecordReader;
+import xander.core.io.BattleRecorder;
+import xander.core.io.RecordedRound;
+import xander.core.log.Logger;
+import xander.core.track.GunStats;
+import xander.core.track.RunTimeLogger;
+
+/**
+ * Runs a robot built on the framework against rounds recorded by the
+ * BattleRecorder, outside of Robocode, as fast as it will go.  The robot,
+ * with its configured radar, drives, and guns, and all of the framework's
+ * tracking (snapshot and wave history, opponent gun watching, gun stats),
+ * runs exactly as it would in a battle; only the engine is replaced, by a
+ * ReplayPeer for each round.
+ *
+ * Afterwards, a report gives the ticks per second achieved, the run time of
+ * each component, and the hit ratios of each gun, real and virtual.  Since
+ * the outcome of each recorded bullet only applies to the power it was fired
+ * at, the robot's own bullets are also resolved by wave, giving a hit ratio
+ * and energy gain that hold for whatever powers the robot chooses in replay.
+ *
+ * As in Robocode, the framework keeps its state in static fields, so only
+ * one battle can be replayed in a JVM.
+ *
+ * Usage: ReplayHarness robotClassName recordingDirectory [dataDirectory]
+ */
+public class ReplayHarness {
+
+	private Class<? extends AbstractXanderRobot> robotClass;
+	private File dataDir;
+	private int roundsReplayed;
+	private int truncatedRounds;          // rounds the recorder cut short to fit its budget
+	private int ticksReplayed;
+	private long replayNanos;
+	private int recordedBulletsFired;
+	private int recordedOpponentBulletsFired;
+
+	/**
+	 * Creates a harness for the given robot.
+	 *
+	 * @param robotClass    class of robot to replay rounds to
+	 * @param dataDir       directory for the robot's data files
+	 */
+	public ReplayHarness(Class<? extends AbstractXanderRobot> robotClass, File dataDir) {
+		this.robotClass = robotClass;
+		this.dataDir = dataDir;
+	}
+
+	/**
+	 * Reads all recorded rounds in the given directory, in round order.
+	 *
+	 * @param dir    directory holding segment files
+	 *
+	 * @return       recorded rounds
+	 *
+	 * @throws IOException    if a segment cannot be read
+	 */
+	public static List<RecordedRound> readRounds(File dir) throws IOException {
+		List<RecordedRound> rounds = new ArrayList<RecordedRound>();
+		File[] files = dir.listFiles();
+		if (files != null) {
+			for (int i=0; i<files.length; i++) {
+				if (files[i].getName().endsWith(BattleRecorder.EXTENSION)) {
+					rounds.add(BattleRecordReader.read(files[i]));
+				}
+			}
+		}
+		Collections.sort(rounds, new Comparator<RecordedRound>() {
+			@Override
+			public int compare(RecordedRound r1, RecordedRound r2) {
+				return r1.getRound() - r2.getRound();
+			}
+		});
+		return rounds;
+	}
+
+	/**
+	 * Replays the given rounds as one battle.
+	 *
+	 * @param rounds    recorded rounds, in order
+	 *
+	 * @throws Exception    if the robot cannot be created
+	 */
+	public void replay(List<RecordedRound> rounds) throws Exception {
+		AbstractXanderRobot robot = null;
+		int totalTurns = 0;
+		for (RecordedRound round : rounds) {
+			if (round.getTickCount() == 0) {
+				continue;
+			}
+			robot = robotClass.getDeclaredConstructor().newInstance();
+			ReplayPeer peer = new ReplayPeer(robot, round, roundsReplayed, rounds.size(), dataDir);
+			robot.setOut(System.out);
+			robot.setPeer(peer.newPeer());
+			long start = System.nanoTime();
+			try {
+				robot.run();
+			} catch (PeerHandler.RoundOver e) {
+				// recorded round is over
+			}
+			replayNanos += System.nanoTime() - start;
+			int turns = peer.getTicksReplayed();
+			ticksReplayed += turns;
+			totalTurns += turns;
+			robot.onRoundEnded(new RoundEndedEvent(roundsReplayed, turns, totalTurns));
+			roundsReplayed++;
+			if (round.isTruncated()) {
+				truncatedRounds++;
+			}
+			for (int e=0; e<round.getEventCount(); e++) {
+				if (round.getEventTag(e) == BattleRecorder.TAG_MY_FIRE) {
+					recordedBulletsFired++;
+				} else if (round.getEventTag(e) == BattleRecorder.TAG_OPP_FIRE) {
+					recordedOpponentBulletsFired++;
+				}
+			}
+		}
+		if (robot != null) {
+			robot.onBattleEnded(new BattleEndedEvent(false, null));
+		}
+		Logger.flush();
+	}
+
+	public int getTicksReplayed() {
+		return ticksReplayed;
+	}
+
+	public double getTicksPerSecond() {
+		return (replayNanos == 0)? 0 : ticksReplayed * 1000000000d / replayNanos;
+	}
+
+	/**
+	 * Returns a report of the replay.
+	 *
+	 * @return    replay report
+	 */
+	public String getReport() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Replayed ").append(roundsReplayed).append(" rounds (").append(truncatedRounds).append(" truncated), ");
+		sb.append(ticksReplayed).append(" ticks in ");
+		Logger.append(sb, replayNanos / 1000000d, 0).append(" ms (");
+		Logger.append(sb, getTicksPerSecond(), 0).append(" ticks/sec).\n");
+		sb.append("Run times (average ms, peak ms, executions):\n");
+		List<String> names = new ArrayList<String>(RunTimeLogger.getLoggerNames());
+		Collections.sort(names);
+		for (String name : names) {
+			RunTimeLogger rtLogger = RunTimeLogger.getLoggerFor(name);
+			sb.append("  ").append(name).append(": ");
+			Logger.append(sb, rtLogger.getAverageExecutionTime(), 4).append(", ");
+			Logger.append(sb, rtLogger.getPeaks()[0], 4).append(", ");
+			sb.append(rtLogger.getNumExecutions()).append('\n');
+		}
+		GunStats gunStats = Resources.getGunStats();
+		if (gunStats != null) {
+			sb.append("Guns (virtual hit ratio, virtual shots, hit ratio, shots):\n");
+			List<String> gunNames = new ArrayList<String>(gunStats.getGunNames());
+			Collections.sort(gunNames);
+			for (String gunName : gunNames) {
+				sb.append("  ").append(gunName).append(": ");
+				Logger.append(sb, gunStats.getVirtualHitRatio(gunName), 4).append(", ");
+				sb.append(gunStats.getVirtualBulletsFired(gunName)).append(", ");
+				Logger.append(sb, gunStats.getHitRatio(gunName), 4).append(", ");
+				sb.append(gunStats.getActionedBulletsFired(gunName)).append('\n');
+			}
+			sb.append("Bullets fired: ").append(gunStats.getBulletsFired());
+			sb.append(" (recorded ").append(recordedBulletsFired).append(").\n");
+			sb.append("Opponent bullets detected: ").append(gunStats.getOpponentBulletsFired());
+			sb.append(" (recorded ").append(recordedOpponentBulletsFired).append(").\n");
+			int resolved = gunStats.getWaveResolvedBulletsFired();
+			sb.append("Bullets resolved by wave (hit ratio, energy gain per bullet, energy gain, bullets): ");
+			Logger.append(sb, gunStats.getWaveResolvedHitRatio(), 4).append(", ");
+			Logger.append(sb, (resolved == 0)? 0 : gunStats.getWaveResolvedEnergyGain() / resolved, 4).append(", ");
+			Logger.append(sb, gunStats.getWaveResolvedEnergyGain(), 1).append(", ");
+			sb.append(resolved).append('.');
+		}
+		return sb.toString();
+	}
+
+	public static void main(String[] args) throws Exception {
+		if (args.length < 2) {
+			System.out.println("Usage: ReplayHarness robotClassName recordingDirectory [dataDirectory]");
+			return;
+		}
+		Class<? extends AbstractXanderRobot> robotClass = Class.forName(args[0]).asSubclass(AbstractXanderRobot.class);
+		File dataDir;
+		if (args.length > 2) {
+			dataDir = new File(args[2]);
+		} else {
+			// a scratch directory, so saved stats and models do not carry over between runs
+			dataDir = File.createTempFile("replay", "");
+			dataDir.delete();
+		}
+		dataDir.mkdirs();
+		List<RecordedRound> rounds = readRounds(new File(args[1]));
+		ReplayHarness harness = new ReplayHarness(robotClass, dataDir);
+		harness.replay(rounds);
+		System.out.println(harness.getReport());
+	}
+}
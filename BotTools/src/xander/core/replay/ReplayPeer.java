@@ -0,0 +1,268 @@
+package xander.core.replay;
+
+import java.io.File;
+
+import robocode.Bullet;
+import robocode.BulletHitBulletEvent;
+import robocode.BulletHitEvent;
+import robocode.BulletMissedEvent;
+import robocode.Event;
+import robocode.HitByBulletEvent;
+import robocode.ScannedRobotEvent;
+import xander.core.AbstractXanderRobot;
+import xander.core.io.BattleRecorder;
+import xander.core.io.RecordedRound;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.track.RunTimeLogger;
+
+/**
+ * Robot peer that plays back a recorded round, standing in for the Robocode
+ * engine.
+ *
+ * Our own state is taken from the recording, whatever the robot commands;
+ * turns and moves requested are only tracked so that the remaining amounts
+ * look right.  On each execute, the next recorded tick becomes current and its
+ * events are passed to the robot in Robocode's priority order.  Bullets can
+ * be fired whenever the recorded gun heat allows.  When the recorded ticks
+ * run out, execute throws RoundOver out of the robot's run method.
+ */
+public class ReplayPeer extends PeerHandler {
+
+	// the order in which Robocode delivers events, highest priority first
+	private static final int[] BULLET_EVENT_ORDER = new int[] {
+		BattleRecorder.TAG_BULLET_MISSED, BattleRecorder.TAG_BULLET_HIT_BULLET,
+		BattleRecorder.TAG_BULLET_HIT, BattleRecorder.TAG_HIT_BY_BULLET};
+
+	private AbstractXanderRobot robot;
+	private RecordedRound round;
+	private int roundNum;
+	private int numRounds;
+	private RunTimeLogger turnRTLogger = RunTimeLogger.getLoggerFor("Replay: Turn");
+	private RunTimeLogger bulletEventRTLogger = RunTimeLogger.getLoggerFor("Replay: Bullet Events");
+	private boolean turnStarted;
+
+	private int tick;
+	private boolean firedThisTurn;
+	private int nextBulletId;
+
+	/**
+	 * Creates a peer to play back the given round to the given robot.
+	 *
+	 * @param robot        robot to play round back to
+	 * @param round        recorded round
+	 * @param roundNum     round number to report to the robot
+	 * @param numRounds    number of rounds to report to the robot
+	 * @param dataDir      directory for the robot's data files
+	 */
+	public ReplayPeer(AbstractXanderRobot robot, RecordedRound round, int roundNum, int numRounds, File dataDir) {
+		super(dataDir);
+		this.robot = robot;
+		this.round = round;
+		this.roundNum = roundNum;
+		this.numRounds = numRounds;
+	}
+
+	/**
+	 * Returns the number of recorded ticks played back so far.
+	 *
+	 * @return    ticks played back
+	 */
+	public int getTicksReplayed() {
+		return Math.min(tick + 1, round.getTickCount());
+	}
+
+	@Override
+	protected String getName() {
+		return round.getRobotName();
+	}
+
+	@Override
+	protected long getTime() {
+		return round.getTime(tick);
+	}
+
+	@Override
+	protected int getRoundNum() {
+		return roundNum;
+	}
+
+	@Override
+	protected int getNumRounds() {
+		return numRounds;
+	}
+
+	@Override
+	protected int getOthers() {
+		return Math.max(1, round.getOpponentCount());
+	}
+
+	@Override
+	protected double getX() {
+		return round.getX(tick);
+	}
+
+	@Override
+	protected double getY() {
+		return round.getY(tick);
+	}
+
+	@Override
+	protected double getVelocity() {
+		return round.getVelocity(tick);
+	}
+
+	@Override
+	protected double getBodyHeading() {
+		return Math.toRadians(round.getHeadingDegrees(tick));
+	}
+
+	@Override
+	protected double getGunHeading() {
+		return Math.toRadians(round.getGunHeadingDegrees(tick));
+	}
+
+	@Override
+	protected double getRadarHeading() {
+		return Math.toRadians(round.getRadarHeadingDegrees(tick));
+	}
+
+	@Override
+	protected double getEnergy() {
+		return round.getEnergy(tick);
+	}
+
+	@Override
+	protected double getGunHeat() {
+		return round.getGunHeat(tick);
+	}
+
+	@Override
+	protected double getBattleFieldWidth() {
+		return round.getBattleFieldWidth();
+	}
+
+	@Override
+	protected double getBattleFieldHeight() {
+		return round.getBattleFieldHeight();
+	}
+
+	@Override
+	protected Bullet setFire(double power) {
+		if (firedThisTurn || round.getGunHeat(tick) > 0 || round.getEnergy(tick) <= 0) {
+			return null;
+		}
+		power = Math.min(RCPhysics.MAX_FIRE_POWER, Math.max(RCPhysics.MIN_FIRE_POWER, power));
+		firedThisTurn = true;
+		return new Bullet(Math.toRadians(round.getGunHeadingDegrees(tick)), round.getX(tick), round.getY(tick),
+				power, round.getRobotName(), null, true, nextBulletId++);
+	}
+
+	private double getTurnMade(double fromDegrees, double toDegrees) {
+		return Math.toRadians(RCMath.getTurnAngle(fromDegrees, toDegrees));
+	}
+
+	@Override
+	protected void execute() {
+		if (turnStarted) {
+			turnRTLogger.stop();
+		}
+		if (tick == 0) {
+			// the robot sets its own loggers inactive unless configured otherwise
+			RunTimeLogger.setAllActive(true);
+		}
+		int previous = tick;
+		if (tick + 1 >= round.getTickCount()) {
+			throw new RoundOver();
+		}
+		tick++;
+		firedThisTurn = false;
+		bodyTurnRemaining = getRemaining(bodyTurnRemaining,
+				getTurnMade(round.getHeadingDegrees(previous), round.getHeadingDegrees(tick)));
+		gunTurnRemaining = getRemaining(gunTurnRemaining,
+				getTurnMade(round.getGunHeadingDegrees(previous), round.getGunHeadingDegrees(tick)));
+		radarTurnRemaining = getRemaining(radarTurnRemaining,
+				getTurnMade(round.getRadarHeadingDegrees(previous), round.getRadarHeadingDegrees(tick)));
+		distanceRemaining = getRemaining(distanceRemaining, round.getVelocity(tick));
+		dispatchEvents();
+		turnRTLogger.start();
+		turnStarted = true;
+	}
+
+	private void dispatchEvents() {
+		int first = round.getFirstEvent(tick);
+		int end = round.getFirstEvent(tick + 1);
+		if (first == end) {
+			return;
+		}
+		bulletEventRTLogger.start();
+		for (int i=0; i<BULLET_EVENT_ORDER.length; i++) {
+			for (int e=first; e<end; e++) {
+				if (round.getEventTag(e) == BULLET_EVENT_ORDER[i]) {
+					dispatchBulletEvent(e);
+				}
+			}
+		}
+		bulletEventRTLogger.stop();
+		for (int e=first; e<end; e++) {
+			if (round.getEventTag(e) == BattleRecorder.TAG_SCAN) {
+				dispatchScan(e);
+			}
+		}
+	}
+
+	private Bullet getBullet(int e, int offset, double power, String ownerName, String victimName) {
+		return new Bullet(Math.toRadians(round.getEventValue(e, offset)),
+				round.getEventValue(e, offset + 1), round.getEventValue(e, offset + 2),
+				power, ownerName, victimName, false, -1);
+	}
+
+	private Event setTime(Event event, int e) {
+		event.setTime(round.getEventTime(e));
+		return event;
+	}
+
+	private void dispatchBulletEvent(int e) {
+		String myName = round.getRobotName();
+		String oppName = (round.getEventId(e) < 0)? null : round.getOpponentName(round.getEventId(e));
+		double power = round.getEventValue(e, 0);
+		switch (round.getEventTag(e)) {
+		case BattleRecorder.TAG_BULLET_MISSED:
+			robot.onBulletMissed((BulletMissedEvent) setTime(
+					new BulletMissedEvent(getBullet(e, 1, power, myName, null)), e));
+			break;
+		case BattleRecorder.TAG_BULLET_HIT_BULLET:
+			Bullet myBullet = getBullet(e, 1, power, myName, null);
+			Bullet oppBullet = getBullet(e, 5, round.getEventValue(e, 4), oppName, null);
+			robot.onBulletHitBullet((BulletHitBulletEvent) setTime(
+					new BulletHitBulletEvent(myBullet, oppBullet), e));
+			break;
+		case BattleRecorder.TAG_BULLET_HIT:
+			robot.onBulletHit((BulletHitEvent) setTime(new BulletHitEvent(oppName, round.getEventValue(e, 1),
+					getBullet(e, 2, power, myName, oppName)), e));
+			break;
+		case BattleRecorder.TAG_HIT_BY_BULLET:
+			double bulletHeading = round.getEventValue(e, 1);
+			double bearing = RCMath.getTurnAngle(round.getHeadingDegrees(tick),
+					RCMath.normalizeDegrees(bulletHeading + 180));
+			robot.onHitByBullet((HitByBulletEvent) setTime(new HitByBulletEvent(Math.toRadians(bearing),
+					getBullet(e, 1, power, oppName, myName)), e));
+			break;
+		}
+	}
+
+	private void dispatchScan(int e) {
+		double x = round.getX(tick);
+		double y = round.getY(tick);
+		double oppX = round.getEventValue(e, 0);
+		double oppY = round.getEventValue(e, 1);
+		double bearing = RCMath.getTurnAngle(round.getHeadingDegrees(tick),
+				RCMath.getRobocodeAngle(x, y, oppX, oppY));
+		ScannedRobotEvent event = new ScannedRobotEvent(round.getOpponentName(round.getEventId(e)),
+				round.getEventValue(e, 4), Math.toRadians(bearing),
+				RCMath.getDistanceBetweenPoints(x, y, oppX, oppY),
+				Math.toRadians(round.getEventValue(e, 2)), round.getEventValue(e, 3));
+		event.setTime(round.getEventTime(e));
+		robot.onScannedRobot(event);
+	}
+}
@@ -3,7 +3,11 @@ package teamlg.bot;
 import java.awt.Color;
 import java.awt.geom.Path2D;
 import java.awt.geom.Rectangle2D;
-import java.util.Map;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Properties;
 import java.util.Set;
 
 import robocode.RobotDeathEvent;
@@ -11,13 +15,15 @@ import robocode.ScannedRobotEvent;
 import robocode.WinEvent;
 import teamlg.drive.antiGrav.AntiGravityDrive;
 import teamlg.drive.antiGrav.VampAntiGravityDrive;
+import teamlg.drive.minRisk.MinimumRiskDrive;
 import teamlg.gun.DistancePowerSelector;
-import teamlg.radar.SpinningRadar;
 import teamlg.scenario.DuelScenario;
 import teamlg.scenario.StrongerScenario;
 import xander.cat.group.rem.REMFactory;
+import xander.cat.gun.power.ExpectedDamagePowerSelector;
 import xander.cat.group.shield.BulletShieldingController;
 import xander.cat.radar.BasicRadar;
+import xander.cat.radar.MeleeRadar;
 import xander.cat.scenario.CircularDriveScenario;
 import xander.core.AbstractXanderRobot;
 import xander.core.ComponentChain;
@@ -25,12 +31,19 @@ import xander.core.Configuration;
 import xander.core.Resources;
 import xander.core.RobotStyle;
 import xander.core.Scenario;
+import xander.core.drive.Drive;
 import xander.core.drive.DriveBoundsFactory;
+import xander.core.gun.DetectorGunSelector;
+import xander.core.gun.Gun;
+import xander.core.gun.GunArray;
 import xander.core.gun.XanderGun;
 import xander.core.gun.power.PowerSelector;
+import xander.core.gun.targeter.CircularTargeter;
+import xander.core.gun.targeter.HeadOnTargeter;
 import xander.core.gun.targeter.LinearTargeter;
-import xander.core.io.BattleStats;
-import xander.core.math.RCMath;
+import xander.core.io.StatBlock;
+import xander.core.log.Log;
+import xander.core.log.Logger;
 import xander.core.radar.Radar;
 import xander.core.track.DriveStats;
 import xander.core.track.GunStats;
@@ -43,12 +56,30 @@ import xander.core.track.GunStats;
  */
 public class Furby extends AbstractXanderRobot {
 
+	private static final Log log = Logger.getLog(Furby.class);
+	
+	// settings that can be overridden from a tuning file in the data directory, as written by the arena
+	private static final String TUNING_FILE_NAME = "tuning.properties";
+	private static final double[] POWER_HIT_RATIOS = new double[]{     0.1,    0.2,    0.4,    0.6,    };
+	private static final double[] POWER_FIRE_POWERS = new double[]{ 0.5,    1.0,    1.5,    2.0,    2.5 };
+	private static final double[] POWER_DROP = new double[] {0.135, 15, 0};
+	private static final double[] LOW_ENERGY_BONUS = new double[] {30, 1.5};
+	private static final String POWER_SELECTOR_STEPPED = "stepped";
+	private static final String POWER_SELECTOR_EXPECTED_DAMAGE = "expectedDamage";
+	private static final String DEFAULT_GUN_NAME = "Linear Xander Gun";
+	private static final int DETECTOR_MIN_SHOTS = 20;
+	private static final String DRIVE_ANTI_GRAVITY = "antiGravity";
+	private static final String DRIVE_MINIMUM_RISK = "minimumRisk";
+	private static final double MIN_RISK_WALL_MARGIN = 40;
+	private static final double[] MIN_RISK_SAMPLES = new double[] {MinimumRiskDrive.DEFAULT_BASE_SAMPLES, MinimumRiskDrive.DEFAULT_MAX_SAMPLES};
+	
 	private static CircularDriveScenario circularDriverScenario;
 	private static DistancePowerSelector steppedPowerSelector;
 	private static PowerSelector mainPowerSelector;
 	private static Path2D.Double driveBounds;
 	private static boolean[] wins;
 	private static BulletShieldingController bsc;
+	private static Properties tuning;
 	
 	@Override
 	protected void style(RobotStyle robotStyle) {
@@ -69,35 +100,100 @@ public class Furby extends AbstractXanderRobot {
 		PowerSelector powerSelector = configuration.getDisabledOpponentPowerSelector();
 		powerSelector = REMFactory.getX5PowerSelector(powerSelector);
 		configuration.setDisabledOpponentPowerSelector(powerSelector);
-		steppedPowerSelector = new DistancePowerSelector(
-				new double[]{     0.1,    0.2,    0.4,    0.6,    },
-				new double[]{ 0.5,    1.0,    1.5,    2.0,    2.5 });
-		steppedPowerSelector.setPowerDrop(0.135, 15, 0);
-		mainPowerSelector = REMFactory.getX5PowerSelector(steppedPowerSelector);
+		tuning = loadTuning();
+		try {
+			steppedPowerSelector = new DistancePowerSelector(
+					getTuning("power.hitRatios", POWER_HIT_RATIOS, 1),
+					getTuning("power.firePowers", POWER_FIRE_POWERS, 2));
+		} catch (IllegalArgumentException e) {
+			log.warn("Invalid power steps tuning ({}); using defaults.", e.getMessage());
+			steppedPowerSelector = new DistancePowerSelector(POWER_HIT_RATIOS, POWER_FIRE_POWERS);
+		}
+		double[] powerDrop = getTuning("power.drop", POWER_DROP, POWER_DROP.length);
+		steppedPowerSelector.setPowerDrop(powerDrop[0], powerDrop[1], powerDrop[2]);
+		// power.selector switches the main gun to the expected damage power selector, for comparing the two on replays
+		String powerSelectorName = tuning.getProperty("power.selector", POWER_SELECTOR_STEPPED).trim();
+		if (POWER_SELECTOR_EXPECTED_DAMAGE.equals(powerSelectorName)) {
+			mainPowerSelector = REMFactory.getX5PowerSelector(new ExpectedDamagePowerSelector(DEFAULT_GUN_NAME));
+		} else {
+			mainPowerSelector = REMFactory.getX5PowerSelector(steppedPowerSelector);
+		}
 		wins = new boolean[getNumRounds()]; 
 	}
 	
+	private Properties loadTuning() {
+		Properties properties = new Properties();
+		File tuningFile = getDataFile(TUNING_FILE_NAME);
+		if (tuningFile.exists()) {
+			try {
+				InputStream is = new FileInputStream(tuningFile);
+				try {
+					properties.load(is);
+				} finally {
+					is.close();
+				}
+				log.info("Tuning loaded: {}", properties);
+			} catch (IOException e) {
+				log.warn("Unable to load tuning; using defaults.");
+			}
+		}
+		return properties;
+	}
+	
+	/**
+	 * Returns the comma separated values of the given tuning key, or the
+	 * default values if the key is not set or its value is invalid.
+	 * 
+	 * @param key              tuning key
+	 * @param defaultValues    values to use if the key is not set or invalid
+	 * @param minLength        minimum number of values
+	 * 
+	 * @return                 tuning values
+	 */
+	private static double[] getTuning(String key, double[] defaultValues, int minLength) {
+		String value = tuning.getProperty(key);
+		if (value == null) {
+			return defaultValues;
+		}
+		String[] parts = value.split(",");
+		if (parts.length < minLength) {
+			log.warn("Tuning {} needs at least {} values; using defaults.", key, minLength);
+			return defaultValues;
+		}
+		double[] values = new double[parts.length];
+		try {
+			for (int i=0; i<parts.length; i++) {
+				values[i] = Double.parseDouble(parts[i].trim());
+			}
+		} catch (NumberFormatException e) {
+			log.warn("Tuning {} is not a list of numbers; using defaults.", key);
+			return defaultValues;
+		}
+		return values;
+	}
+	
 	@Override
-	protected boolean recordBattleStats(Map<String, String> oppStats, int numBattles) {
+	protected boolean recordBattleStats(StatBlock oppStats) {
 		GunStats gunStats = Resources.getGunStats();
 		DriveStats driveStats = Resources.getDriveStats();
 		double oHR = gunStats.getOverallOpponentHitRatio();
 		double mHR = gunStats.getOverallHitRatio();	
-		double cda = circularDriverScenario.getAppliesPercentage();
 		double dpc = steppedPowerSelector.getDropPowerCount();
-		BattleStats.updateAveragedStatValue(oppStats, "OppHitRatio", oHR, 3, numBattles);
-		BattleStats.updateAveragedStatValue(oppStats, "MyHitRatio", mHR, 3, numBattles);
-		BattleStats.updateAveragedStatValue(oppStats, "CircularApplies", cda, 3, numBattles);
-		BattleStats.updateAveragedStatValue(oppStats, "DropPowerCount", dpc, 1, numBattles);		
+		oppStats.addSample("OppHitRatio", oHR);
+		oppStats.addSample("MyHitRatio", mHR);
+		if (circularDriverScenario != null) {  // not set up while the circular gun is commented out
+			oppStats.addSample("CircularApplies", circularDriverScenario.getAppliesPercentage());
+		}
+		oppStats.addSample("DropPowerCount", dpc);
 		for (int i=0; i<2; i++) {
 			int bf = gunStats.getActionedBulletsFired("GF Gun " + i);
 			// for the guns, we are only showing numbers for the last battle instead of an average
-			oppStats.put("GF"+i, String.valueOf(bf));
+			oppStats.setCount("GF"+i, bf);
 		}
 		Set<String> driveNames = driveStats.getDriveNames();
 		for (String driveName : driveNames) {
 			double dup = driveStats.getDriveUsagePercent(driveName);
-			BattleStats.updateAveragedStatValue(oppStats, "D:"+driveName, dup, 3, numBattles);
+			oppStats.addSample("D:"+driveName, dup);
 		}
 //		String[] loggers = new String[] {"Config", "Construct", "LoadStats", "Radar", "Drive", "Gun"};
 //		for (String loggerName : loggers) {
@@ -108,24 +204,20 @@ public class Furby extends AbstractXanderRobot {
 	}
 
 	@Override
-	protected boolean recordCommonBattleStats(Map<String, String> commonStats, int totalBattles) {
+	protected boolean recordCommonBattleStats(StatBlock commonStats) {
 		for (int i=0; i<wins.length; i++) {
 			String roundKey = (i < 10)? "R 0" + i + " Wins" : "R " + i + " Wins";
-			int roundWins = RCMath.parseInt(commonStats.get(roundKey), 0);
-			if (wins[i]) {
-				roundWins++;
-			}
-			commonStats.put(roundKey, String.valueOf(roundWins));
+			commonStats.add(roundKey, wins[i]? 1 : 0);
 		}
 		double wallHits = Resources.getDriveStats().getWallHits();
-		BattleStats.updateAveragedStatValue(commonStats, "Avg Wall Hits", wallHits, 2, totalBattles);
+		commonStats.addSample("Avg Wall Hits", wallHits);
 		double avgWallHitDmg = Resources.getDriveStats().getAverageWallHitDamage();
-		BattleStats.updateAveragedStatValue(commonStats, "Avg Wall Hit Dmg", avgWallHitDmg, 2, totalBattles);
+		commonStats.addSample("Avg Wall Hit Dmg", avgWallHitDmg);
 		double skippedTurns = getSkippedTurns();
-		BattleStats.updateAveragedStatValue(commonStats, "Skipped Turns", skippedTurns, 2, totalBattles);
-		String fc = bsc.getFireCheckString();
+		commonStats.addSample("Skipped Turns", skippedTurns);
+		String fc = (bsc == null)? null : bsc.getFireCheckString();
 		if (fc != null) {
-			commonStats.put("Fire Check", fc);
+			commonStats.setText("Fire Check", fc);
 		}
 		return true;
 	}
@@ -167,12 +259,36 @@ public class Furby extends AbstractXanderRobot {
         chain.addComponents(aDuelScenario, aDuelRadar);*/
 		
 		// default components will be 
-        // A Anti Gravity Drive
+        // - a minimum risk drive
         // - a linear gun
 
-        SpinningRadar aDefaultRadar = new SpinningRadar(2*Math.PI);
-        XanderGun aDefaultGun = new XanderGun(new LinearTargeter(), mainPowerSelector);
-        AntiGravityDrive aDefaultDrive = new VampAntiGravityDrive( getBattleFieldWidth(), getBattleFieldHeight() );
+        MeleeRadar aDefaultRadar = new MeleeRadar();
+        XanderGun aLinearGun = new XanderGun(DEFAULT_GUN_NAME, new LinearTargeter(), mainPowerSelector);
+        Gun aDefaultGun = aLinearGun;
+        // gun.detectTargeting switches to whichever of the linear, head-on and circular targeters our real waves say hits most;
+        // on by default one on one only, as the detection counts are not kept per opponent
+        if (Boolean.parseBoolean(tuning.getProperty("gun.detectTargeting", String.valueOf(getOthers() == 1)).trim())) {
+            XanderGun aHeadOnGun = new XanderGun(new HeadOnTargeter(), mainPowerSelector);
+            XanderGun aCircularGun = new XanderGun(new CircularTargeter(), mainPowerSelector);
+            GunArray aGunArray = new GunArray(new DetectorGunSelector(DETECTOR_MIN_SHOTS, aLinearGun, aHeadOnGun, aCircularGun), 
+                    aLinearGun, aHeadOnGun, aCircularGun);
+            aGunArray.setFireVirtualBullets(false);
+            aDefaultGun = aGunArray;
+        }
+        Drive aDefaultDrive;
+        // drive switches back from the minimum risk drive to the anti-gravity drive, for comparing the two
+        if (!DRIVE_ANTI_GRAVITY.equals(tuning.getProperty("drive", DRIVE_MINIMUM_RISK).trim())) {
+            MinimumRiskDrive aMinRiskDrive = new MinimumRiskDrive( getBattleFieldWidth(), getBattleFieldHeight(), MIN_RISK_WALL_MARGIN );
+            double[] samples = getTuning("minimumRisk.samples", MIN_RISK_SAMPLES, MIN_RISK_SAMPLES.length);
+            aMinRiskDrive.setSampleBudget((int) samples[0], (int) samples[1]);
+            aDefaultDrive = aMinRiskDrive;
+        } else {
+            AntiGravityDrive aAntiGravityDrive = new VampAntiGravityDrive( getBattleFieldWidth(), getBattleFieldHeight() );
+            double[] lowEnergyBonus = getTuning("antiGravity.lowEnergyBonus", LOW_ENERGY_BONUS, LOW_ENERGY_BONUS.length);
+            aAntiGravityDrive.setLowEnergyBonus(lowEnergyBonus[0], lowEnergyBonus[1]);
+            aAntiGravityDrive.setSeekConfort(Boolean.parseBoolean(tuning.getProperty("antiGravity.seekConfort", "false").trim()));
+            aDefaultDrive = aAntiGravityDrive;
+        }
 
         chain.addDefaultComponents( aDefaultRadar,aDefaultGun, aDefaultDrive);
                 
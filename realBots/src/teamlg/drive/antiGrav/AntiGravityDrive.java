@@ -2,8 +2,6 @@ package teamlg.drive.antiGrav;
 
 import java.awt.Color;
 import java.awt.Graphics2D;
-import java.util.Arrays;
-import java.util.HashMap;
 import java.util.HashSet;
 
 import xander.core.Resources;
@@ -11,6 +9,7 @@ import xander.core.RobotProxy;
 import xander.core.drive.Drive;
 import xander.core.drive.DriveController;
 import xander.core.event.PaintListener;
+import xander.core.log.Log;
 import xander.core.log.Logger;
 import xander.core.math.RCPhysics;
 import xander.core.track.Snapshot;
@@ -28,11 +27,20 @@ import xander.core.track.SnapshotHistory;
  */
 public class AntiGravityDrive implements Drive, PaintListener {
 
+    private static final Log log = Logger.getLog(AntiGravityDrive.class);
+
     protected static final int REPULSE_FACTOR = 100000;
     protected static final int ESCAPE_ANGLE = 15;
     
     protected RobotProxy robot;
-    protected HashMap<String, GravityPoint> aGravMap;
+    // Gravity points, one per visible robot, rebuilt in place every turn.
+    protected int gravCount;
+    protected String[] gravNames = new String[8];
+    protected double[] gravX = new double[8];
+    protected double[] gravY = new double[8];
+    protected double[] gravPower = new double[8];
+    protected double[] gravEnergy = new double[8];
+    protected double[] gravAngle = new double[8];
     protected double mapXLength, mapYLength;
     
     protected double targetX, targetY;
@@ -45,27 +53,48 @@ public class AntiGravityDrive implements Drive, PaintListener {
     protected int turnToRenewRepulse;
     protected static int NB_OF_TURNS_PER_REPULSE = 5;
     
-    protected static final int CONFORT_SUBDIVISION = 100;
-    protected double[][] confortMatrix;
+    protected static final double CONFORT_SUBDIVISION = 50;
+    protected static final double CONFORT_SEARCH_RANGE = 250;
+    protected DangerGrid dangerGrid;
+    protected boolean seekConfort;
 
     protected double LOW_ENERGY_THRESHOLD = 30;
     protected double LOW_ENERGY_BONUS =1.5; // Multiplicative bonus (0 = ignore)
 
 
     public AntiGravityDrive(double mapXlength, double mapYLength) {
-        //Initialize robot proxy and gravmap
+        //Initialize robot proxy
         robot = Resources.getRobotProxy();
-        aGravMap = new HashMap<String, GravityPoint>();
         this.mapXLength = mapXlength;
         this.mapYLength = mapYLength;
         
         
-        this.confortMatrix = new double[(int) (Resources.getRobotProxy().getBattleFieldHeight() / CONFORT_SUBDIVISION)]
-        		[(int) (Resources.getRobotProxy().getBattleFieldWidth() / CONFORT_SUBDIVISION)];
+        this.dangerGrid = new DangerGrid(mapXlength, mapYLength, CONFORT_SUBDIVISION);
         
         Resources.getRobotEvents().addPainter(this);
     }
 
+    /**
+     * Sets how much less threatening robots low on energy are taken to be.
+     *
+     * @param threshold    energy below which a robot is low on energy
+     * @param bonus        threat reduction at 0 energy, as a multiplicative bonus (0 = ignore)
+     */
+    public void setLowEnergyBonus(double threshold, double bonus) {
+        this.LOW_ENERGY_THRESHOLD = threshold;
+        this.LOW_ENERGY_BONUS = bonus;
+    }
+
+    /**
+     * Sets whether or not the drive is drawn towards the most comfortable
+     * cell of the danger grid within reach. Off by default.
+     *
+     * @param seekConfort    whether or not to seek comfortable cells
+     */
+    public void setSeekConfort(boolean seekConfort) {
+        this.seekConfort = seekConfort;
+    }
+
     @Override
     public String getName() {
         return "Anti-gravity Drive";
@@ -73,7 +102,7 @@ public class AntiGravityDrive implements Drive, PaintListener {
 
     @Override
     public void onRoundBegin() {
-        
+        dangerGrid.clear();
     }
 
     @Override
@@ -82,7 +111,14 @@ public class AntiGravityDrive implements Drive, PaintListener {
         SnapshotHistory aHistory = Resources.getSnapshotHistory();
         
         HashSet<String> aRobotList = Resources.getOtherRobots().getRobotList(); 
-        aGravMap.clear();
+        if (seekConfort) {
+            for (int i = 0; i < gravCount; i++) {
+                if (!aRobotList.contains(gravNames[i])) {
+                    dangerGrid.remove(gravNames[i]);
+                }
+            }
+        }
+        gravCount = 0;
         for (String aRobot : aRobotList ) {
             Snapshot aSnapshot = aHistory.getSnapshot(aRobot);
             if (aSnapshot != null) {
@@ -90,13 +126,13 @@ public class AntiGravityDrive implements Drive, PaintListener {
                 double threat = Resources.getHitStats().getHitRatioBy(aRobot);
                 double healthBonus = Math.max(0, LOW_ENERGY_THRESHOLD - aSnapshot.getEnergy())/ LOW_ENERGY_THRESHOLD; //Max 1, bigger=weaker
                 healthBonus = 1 + (healthBonus * LOW_ENERGY_BONUS);
-                Logger.getLog(AntiGravityDrive.class).info(
-                        String.format("%s gravity = %.2f / %.2f", aSnapshot.getName(), threat, healthBonus)
-                        /*aSnapshot.getName() + " gravity = threat [" +
-                                threat + "]/ health [" + healthBonus + "]"*/);
                 threat /= healthBonus;
-                GravityPoint aPoint = new GravityPoint(aSnapshot.getX(), aSnapshot.getY(), -threat, aSnapshot.getName());
-                aGravMap.put(aRobot, aPoint);
+                addGravityPoint(aRobot, aSnapshot.getX(), aSnapshot.getY(), -threat, aSnapshot.getEnergy());
+                if (seekConfort) {
+                    dangerGrid.setThreat(aRobot, aSnapshot.getX(), aSnapshot.getY(), threat);
+                }
+            } else if (seekConfort) {
+                dangerGrid.remove(aRobot);
             }
         }
         
@@ -106,8 +142,9 @@ public class AntiGravityDrive implements Drive, PaintListener {
             InitializePositions();
            
             // Add all the gravity force from other robots
-            for (GravityPoint p : aGravMap.values()) {
-                ComputeRobotThreat(p);
+            prepareRobotThreats();
+            for (int i = 0; i < gravCount; i++) {
+                computeRobotThreat(i);
             }
 
             // Add the gravity from the walls.
@@ -116,14 +153,19 @@ public class AntiGravityDrive implements Drive, PaintListener {
             // Add the repulse from last position.
             handleOwnRepulse();
             
-            //computeConfortMatrix();
+            // Add the attraction towards a more comfortable area.
+            if (seekConfort) {
+                computeConfortMatrix();
+            }
             
             // Tweak the turn angle as to avoid in bearing.
             decidedX = targetX;
             decidedY = targetY;
             
-            Logger.getLog(getClass()).info("Final decision: " + Math.round(targetX)+" ; "+Math.round(targetY));
             double turnAngle = computeTurnAngle(targetX, targetY);
+            for (int i = 0; i < gravCount; i++) {
+                gravAngle[i] = computeTurnAngle(gravX[i], gravY[i]);
+            }
             boolean recompute = true;
             int escapeAngle = ESCAPE_ANGLE;
             if (robot.getOthers() < 4)
@@ -131,18 +173,13 @@ public class AntiGravityDrive implements Drive, PaintListener {
             while (recompute)
             {
                 recompute = false;
-                for (String aRobot: aRobotList)
+                for (int i = 0; i < gravCount; i++)
                 {
-                    Snapshot aSnapshot = aHistory.getSnapshot(aRobot);
-                    if (aSnapshot != null) {
-                        double aRobotAngle = computeTurnAngle(aSnapshot.getX(), aSnapshot.getY());
-                        if (Math.abs(turnAngle - aRobotAngle) % 180 <= escapeAngle)
-                        {
-                            turnAngle+=escapeAngle;
-                            recompute = true;
-                            break;
-                        }
-
+                    if (Math.abs(turnAngle - gravAngle[i]) % 180 <= escapeAngle)
+                    {
+                        turnAngle+=escapeAngle;
+                        recompute = true;
+                        break;
                     }
                 }
             }
@@ -157,6 +194,35 @@ public class AntiGravityDrive implements Drive, PaintListener {
         drive(driveController);
     }
 
+    /**
+     * Adds a gravity point for this turn, growing the arrays if needed.
+     */
+    protected void addGravityPoint(String name, double x, double y, double power, double energy) {
+        if (gravCount == gravX.length) {
+            int aLength = gravCount * 2;
+            String[] aNames = new String[aLength];
+            System.arraycopy(gravNames, 0, aNames, 0, gravCount);
+            gravNames = aNames;
+            gravX = grow(gravX, aLength);
+            gravY = grow(gravY, aLength);
+            gravPower = grow(gravPower, aLength);
+            gravEnergy = grow(gravEnergy, aLength);
+            gravAngle = grow(gravAngle, aLength);
+        }
+        gravNames[gravCount] = name;
+        gravX[gravCount] = x;
+        gravY[gravCount] = y;
+        gravPower[gravCount] = power;
+        gravEnergy[gravCount] = energy;
+        gravCount++;
+    }
+
+    private static double[] grow(double[] values, int length) {
+        double[] aValues = new double[length];
+        System.arraycopy(values, 0, aValues, 0, values.length);
+        return aValues;
+    }
+
     /**
      * Retrieves the positions and the target position from the proxy.
      */
@@ -176,10 +242,14 @@ public class AntiGravityDrive implements Drive, PaintListener {
     protected void computeWallThreat() {
         // compute wall threat. 
         int others = robot.getOthers();
-        targetX += REPULSE_FACTOR*20 * (5- others/2) / Math.pow(myX, 3);
-        targetX -= REPULSE_FACTOR*20 * (5- others/2) / Math.pow(mapXLength - myX, 3);
-        targetY += REPULSE_FACTOR*15 * (5- others/2) / Math.pow(myY, 3);
-        targetY -= REPULSE_FACTOR*15 * (5- others/2) / Math.pow(mapYLength - myY, 3);
+        double aRight = mapXLength - myX;
+        double aTop = mapYLength - myY;
+        double aFactorX = REPULSE_FACTOR*20 * (5- others/2);
+        double aFactorY = REPULSE_FACTOR*15 * (5- others/2);
+        targetX += aFactorX / (myX * myX * myX);
+        targetX -= aFactorX / (aRight * aRight * aRight);
+        targetY += aFactorY / (myY * myY * myY);
+        targetY -= aFactorY / (aTop * aTop * aTop);
     }
 
     protected void handleOwnRepulse() {
@@ -207,112 +277,114 @@ public class AntiGravityDrive implements Drive, PaintListener {
         }
         
         // Compute target X and Y
-        double d2 = Math.pow(repulseX - myX, 2) + Math.pow(repulseY - myY,2);        
+        double dx = repulseX - myX;
+        double dy = repulseY - myY;
+        double d2 = dx * dx + dy * dy;
         if (d2 < 0.1)
             return;
         
         int aRepulseFactor = REPULSE_FACTOR * 20;
         if (robot.getOthers() == 1)
             aRepulseFactor *= 2;
-        targetX += -1* aRepulseFactor * (1/Math.pow(d2, 2))*(repulseX - myX);
-        targetY += -1* aRepulseFactor * (1/Math.pow(d2, 2))*(repulseY - myY);
+        double aForce = aRepulseFactor / (d2 * d2);
+        targetX -= aForce * dx;
+        targetY -= aForce * dy;
     }
     
-    protected void ComputeRobotThreat(GravityPoint p) {
-        double d2 = Math.pow(p.x - myX, 2) + Math.pow(p.y - myY, 2);
-        targetX += REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5)) * (p.x - myX);
-        targetY += REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5)) * (p.y - myY);
+    /**
+     * Called once per turn after the gravity points are set and before
+     * computeRobotThreat is called for each of them. Subclasses can compute
+     * here any state that depends on all the robots.
+     */
+    protected void prepareRobotThreats() {
+        // nothing to prepare
     }
-    
-    protected void computeConfortMatrix() {
-    	// Compute confort of my position
-    	double aMyRepulse = 0;
-    	{	    	
-	        // Add all the gravity force from other robots
-	        for (GravityPoint p : aGravMap.values()) {
-	        	double d2 = Math.pow(p.x - myX, 2) + Math.pow(p.y - myY, 2);
-	        	aMyRepulse -= REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5));
-	        }
-	        
-            // Compute wall threats
-//	        aMyRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(myX, 2);
-//	        aMyRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(mapXLength - myX, 2);
-//	        aMyRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(myY, 2);
-//	        aMyRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(mapYLength - myY, 2);
-	        
-	        aMyRepulse = Math.round(aMyRepulse * 10000);
-    	}
-    	
-    	double aMinRepulse = aMyRepulse;
-    	double aMinRepulseX = 0, aMinRepulseY = 0;
-    	
-    	for (int i = 1; i < confortMatrix.length - 1; i++) {
-			for (int j = 1; j < confortMatrix[i].length - 1; j++) {
-				double aRepulse = 0;
-				double iX = j * CONFORT_SUBDIVISION;
-				double jY = i * CONFORT_SUBDIVISION;
-				
-	            // Add all the gravity force from other robots
-	            for (GravityPoint p : aGravMap.values()) {
-	            	double d2 = Math.pow(p.x - iX, 2) + Math.pow(p.y - jY, 2);
-	            	aRepulse -= REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5));
-	            }
-	            
-	            // Compute wall threats
-//	            aRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(iX, 2);
-//	            aRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(mapXLength - iX, 2);
-//	            aRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(jY, 2);
-//	            aRepulse -= REPULSE_FACTOR/12 * 1 / Math.pow(mapYLength - jY, 2);
 
-	            // Store results
-				confortMatrix[i][j] = Math.round(aRepulse * 10000);
-				if (confortMatrix[i][j] < aMinRepulse) {
-					aMinRepulse = confortMatrix[i][j];
-					aMinRepulseX = iX;
-					aMinRepulseY = jY;
-				}
-			}
-		}
-    	Logger.getLog(getClass()).info("My confort: " + aMyRepulse);
-    	Logger.getLog(getClass()).info("Max confort: " + aMinRepulse);
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[6]));
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[5]));
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[4]));
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[3]));
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[2]));
-    	Logger.getLog(getClass()).info(Arrays.toString(confortMatrix[1]));
-    	
-    	double aRepulseGain = aMyRepulse / aMinRepulse;
-    	if (aRepulseGain > 3) {
-    		Logger.getLog(getClass()).info("Going to : (" + aMinRepulseX + ", " + aMinRepulseY + ")");
-    		// Let's add a heavy attraction point in the most confortable area
-            double d2 = Math.pow(aMinRepulseX - myX, 2) + Math.pow(aMinRepulseY - myY, 2);
-            targetX += REPULSE_FACTOR * 3 * aGravMap.size() * (1 / Math.pow(d2, 1.5)) * (aMinRepulseX - myX);
-            targetY += REPULSE_FACTOR * 3 * aGravMap.size() * (1 / Math.pow(d2, 1.5)) * (aMinRepulseY - myY);
-    	}
+    /**
+     * Adds the force of the i-th gravity point to the target position.
+     *
+     * Force is power / d^2 towards the point, computed as power * (dx, dy) / d^3.
+     */
+    protected void computeRobotThreat(int i) {
+        addForce(i, REPULSE_FACTOR * gravPower[i], false);
     }
 
-    protected double computeTurnAngle( double targetX, double targetY) {
-        double aRadius = Math.sqrt( Math.pow(myX-targetX, 2) + Math.pow(myY-targetY, 2) );
+    /**
+     * Adds a force from the i-th gravity point to the target position.
+     *
+     * @param i           gravity point index
+     * @param power       force factor, REPULSE_FACTOR included
+     * @param inverseD4   if true, force falls off as 1/d^3 instead of 1/d^2
+     */
+    protected void addForce(int i, double power, boolean inverseD4) {
+        double dx = gravX[i] - myX;
+        double dy = gravY[i] - myY;
+        double d2 = dx * dx + dy * dy;
+        double aForce = inverseD4 ? power / (d2 * d2) : power / (d2 * Math.sqrt(d2));
+        targetX += aForce * dx;
+        targetY += aForce * dy;
+    }
+    
+    /**
+     * Looks for the most comfortable cell of the danger grid within reach, and
+     * adds a heavy attraction towards it when it is much safer than where we
+     * are. Of equally safe cells, the nearest is taken. Only the cells near us
+     * are read; the grid itself is kept up to date as the robots move.
+     */
+    protected void computeConfortMatrix() {
+        double aMyRepulse = REPULSE_FACTOR * dangerGrid.getDanger(myX, myY);
 
+        double aMinRepulse = aMyRepulse;
+        double aMinRepulseX = 0, aMinRepulseY = 0;
+        double aMinD2 = 0;
 
-        double diffX = targetX-myX, diffY=targetY-myY;
-        double angleToTurn = Math.acos( Math.abs(diffY)/ Math.sqrt( Math.pow(diffX, 2) + Math.pow(diffY,2)));
-        if (diffY < 0)
-        {
-            angleToTurn = Math.PI - angleToTurn;
+        int aRadius = (int) Math.ceil(CONFORT_SEARCH_RANGE / CONFORT_SUBDIVISION);
+        int aMyColumn = dangerGrid.getColumn(myX);
+        int aMyRow = dangerGrid.getRow(myY);
+        int aRowFrom = Math.max(1, aMyRow - aRadius);
+        int aRowTo = Math.min(dangerGrid.getRows() - 2, aMyRow + aRadius);
+        int aColumnFrom = Math.max(1, aMyColumn - aRadius);
+        int aColumnTo = Math.min(dangerGrid.getColumns() - 2, aMyColumn + aRadius);
+        for (int i = aRowFrom; i <= aRowTo; i++) {
+            for (int j = aColumnFrom; j <= aColumnTo; j++) {
+                double aRepulse = REPULSE_FACTOR * dangerGrid.getDanger(j, i);
+                if (aRepulse <= aMinRepulse) {
+                    double aX = dangerGrid.getCellCenterX(j);
+                    double aY = dangerGrid.getCellCenterY(i);
+                    double aD2 = (aX - myX) * (aX - myX) + (aY - myY) * (aY - myY);
+                    if (aRepulse < aMinRepulse || aD2 < aMinD2) {
+                        aMinRepulse = aRepulse;
+                        aMinRepulseX = aX;
+                        aMinRepulseY = aY;
+                        aMinD2 = aD2;
+                    }
+                }
+            }
         }
-        if (diffX < 0)
-        {
-            angleToTurn *= -1;
+
+        // the grid never reads 0 while any robot is a threat, so this is a true gain of 3
+        if (aMinRepulse * 3 < aMyRepulse) {
+            log.debug("Going to : ({}, {})", aMinRepulseX, aMinRepulseY);
+            // Let's add a heavy attraction point in the most confortable area
+            double dx = aMinRepulseX - myX;
+            double dy = aMinRepulseY - myY;
+            double d2 = dx * dx + dy * dy;
+            double aFactor = REPULSE_FACTOR * 3 * gravCount / (d2 * Math.sqrt(d2));
+            targetX += aFactor * dx;
+            targetY += aFactor * dy;
         }
+    }
 
-        return Math.toDegrees(angleToTurn);
+    protected double computeTurnAngle( double targetX, double targetY) {
+        // Angle from north, in ]-180, 180], positive towards east
+        return Math.toDegrees(Math.atan2(targetX - myX, targetY - myY));
     }
 
     @Override
 	public void onPaint(Graphics2D g) {
-        double d = Math.sqrt( Math.pow(myX - decidedX, 2) + Math.pow(myY - decidedY, 2));
+        double dx = myX - decidedX;
+        double dy = myY - decidedY;
+        double d = Math.sqrt(dx * dx + dy * dy);
     	// Set the paint color to a red half transparent color
         g.setColor(Color.GREEN);
         g.fillOval( (int)myX + (int)(50*(decidedX-myX)/d), (int)myY + (int)(50*(decidedY-myY)/d), 10, 10);
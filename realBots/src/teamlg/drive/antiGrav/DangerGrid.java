@@ -0,0 +1,200 @@
+package teamlg.drive.antiGrav;
+
+import java.util.HashMap;
+
+/**
+ * Danger grid over the battlefield, maintained incrementally.
+ *
+ * Each robot contributes its threat times a 1/d^3 falloff to every cell. The
+ * falloff is precomputed once as a kernel of cell offsets, and when a robot
+ * moves to another cell or its threat changes, its old contribution is
+ * subtracted and the new one added. Reading the danger of a cell is a single
+ * array lookup.
+ *
+ * The kernel spans the whole grid rather than being cut off at some range, so
+ * that the danger of any two cells can be compared however far they are from
+ * the robots; with a cutoff, all the cells out of range would read the same
+ * danger of 0. Cells are doubles, as the far cells hold values small enough
+ * to be lost to the rounding error of repeated float add and remove.
+ */
+public class DangerGrid {
+
+    private final int columns, rows;
+    private final double cellSize;
+    private final int kernelRadius;
+    private final int kernelWidth;
+    private final double[] kernel;
+    private final double[] cells;
+
+    private final HashMap<String, Integer> slots = new HashMap<String, Integer>();
+    private int[] slotColumns = new int[8];
+    private int[] slotRows = new int[8];
+    private double[] slotThreats = new double[8];
+    private boolean[] slotActive = new boolean[8];
+
+    /**
+     * Creates a danger grid.
+     *
+     * @param width       battlefield width
+     * @param height      battlefield height
+     * @param cellSize    width and height of a cell
+     */
+    public DangerGrid(double width, double height, double cellSize) {
+        this.cellSize = cellSize;
+        this.columns = (int) Math.ceil(width / cellSize);
+        this.rows = (int) Math.ceil(height / cellSize);
+        this.cells = new double[columns * rows];
+        this.kernelRadius = Math.max(columns, rows) - 1;
+        this.kernelWidth = 2 * kernelRadius + 1;
+        this.kernel = new double[kernelWidth * kernelWidth];
+        double minDistance = cellSize / 2;
+        for (int dr = -kernelRadius; dr <= kernelRadius; dr++) {
+            for (int dc = -kernelRadius; dc <= kernelRadius; dc++) {
+                double d = Math.max(minDistance, cellSize * Math.sqrt(dc * dc + dr * dr));
+                kernel[(dr + kernelRadius) * kernelWidth + dc + kernelRadius] = 1 / (d * d * d);
+            }
+        }
+    }
+
+    public int getColumns() {
+        return columns;
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public double getCellSize() {
+        return cellSize;
+    }
+
+    public int getColumn(double x) {
+        return Math.max(0, Math.min(columns - 1, (int) (x / cellSize)));
+    }
+
+    public int getRow(double y) {
+        return Math.max(0, Math.min(rows - 1, (int) (y / cellSize)));
+    }
+
+    public double getCellCenterX(int column) {
+        return (column + 0.5) * cellSize;
+    }
+
+    public double getCellCenterY(int row) {
+        return (row + 0.5) * cellSize;
+    }
+
+    public double getDanger(int column, int row) {
+        return cells[row * columns + column];
+    }
+
+    public double getDanger(double x, double y) {
+        return cells[getRow(y) * columns + getColumn(x)];
+    }
+
+    /**
+     * Sets the threat of a robot at the given position. Nothing is recomputed
+     * if the robot is still in the same cell with the same threat.
+     *
+     * @param name      robot name
+     * @param x         robot x-coordinate
+     * @param y         robot y-coordinate
+     * @param threat    robot threat
+     */
+    public void setThreat(String name, double x, double y, double threat) {
+        int slot = getSlot(name);
+        int column = getColumn(x);
+        int row = getRow(y);
+        if (slotActive[slot]) {
+            if (slotColumns[slot] == column && slotRows[slot] == row && slotThreats[slot] == threat) {
+                return;
+            }
+            apply(slotColumns[slot], slotRows[slot], -slotThreats[slot]);
+        }
+        apply(column, row, threat);
+        slotColumns[slot] = column;
+        slotRows[slot] = row;
+        slotThreats[slot] = threat;
+        slotActive[slot] = true;
+    }
+
+    /**
+     * Removes the contribution of a robot, if any.
+     *
+     * @param name    robot name
+     */
+    public void remove(String name) {
+        Integer slot = slots.get(name);
+        if (slot != null && slotActive[slot.intValue()]) {
+            int s = slot.intValue();
+            apply(slotColumns[s], slotRows[s], -slotThreats[s]);
+            slotActive[s] = false;
+        }
+    }
+
+    /**
+     * Returns whether or not the robot currently contributes to the grid.
+     *
+     * @param name    robot name
+     *
+     * @return        whether or not robot is in the grid
+     */
+    public boolean contains(String name) {
+        Integer slot = slots.get(name);
+        return slot != null && slotActive[slot.intValue()];
+    }
+
+    /**
+     * Removes all contributions. Also clears any rounding error accumulated
+     * from repeated add and remove.
+     */
+    public void clear() {
+        for (int i = 0; i < cells.length; i++) {
+            cells[i] = 0;
+        }
+        for (int i = 0; i < slotActive.length; i++) {
+            slotActive[i] = false;
+        }
+    }
+
+    private int getSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            int s = slots.size();
+            if (s == slotActive.length) {
+                int length = s * 2;
+                slotColumns = copyOf(slotColumns, length);
+                slotRows = copyOf(slotRows, length);
+                double[] threats = new double[length];
+                System.arraycopy(slotThreats, 0, threats, 0, s);
+                slotThreats = threats;
+                boolean[] active = new boolean[length];
+                System.arraycopy(slotActive, 0, active, 0, s);
+                slotActive = active;
+            }
+            slot = Integer.valueOf(s);
+            slots.put(name, slot);
+        }
+        return slot.intValue();
+    }
+
+    private static int[] copyOf(int[] values, int length) {
+        int[] copy = new int[length];
+        System.arraycopy(values, 0, copy, 0, values.length);
+        return copy;
+    }
+
+    private void apply(int column, int row, double threat) {
+        int rowFrom = Math.max(0, row - kernelRadius);
+        int rowTo = Math.min(rows - 1, row + kernelRadius);
+        int columnFrom = Math.max(0, column - kernelRadius);
+        int columnTo = Math.min(columns - 1, column + kernelRadius);
+        for (int r = rowFrom; r <= rowTo; r++) {
+            int cellIndex = r * columns + columnFrom;
+            int kernelIndex = (r - row + kernelRadius) * kernelWidth + columnFrom - column + kernelRadius;
+            for (int c = columnFrom; c <= columnTo; c++) {
+                cells[cellIndex++] += threat * kernel[kernelIndex++];
+            }
+        }
+    }
+}
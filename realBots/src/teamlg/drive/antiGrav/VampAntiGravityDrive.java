@@ -1,10 +1,5 @@
 package teamlg.drive.antiGrav;
 
-import java.util.HashSet;
-import static teamlg.drive.antiGrav.AntiGravityDrive.REPULSE_FACTOR;
-import xander.core.Resources;
-import xander.core.track.Snapshot;
-
 /**
  *
  * @author FHEMERY
@@ -13,49 +8,49 @@ public class VampAntiGravityDrive extends AntiGravityDrive{
 
     private static final String ROBOVAMP_STR = "Robovamp";
     
+    // Whether we have more energy than every robot that is not a Robovamp.
+    // Computed once per turn by prepareRobotThreats().
+    private boolean isStrongest;
+    
     public VampAntiGravityDrive(double mapXlength, double mapYLength) {
         super(mapXlength,mapYLength);
     }
     
     @Override
-    protected void ComputeRobotThreat(GravityPoint p) {
-        if (p.name.contains(ROBOVAMP_STR))
+    protected void prepareRobotThreats() {
+        isStrongest = true;
+        double maxHealth = robot.getEnergy();
+        for (int i = 0; i < gravCount; i++)
         {
-            boolean isStrongest = true;
-            double maxHealth = robot.getEnergy();
-            HashSet<String> aRobotList = Resources.getOtherRobots().getRobotList(); 
-            for (String rName: aRobotList)
+            if (!gravNames[i].contains(ROBOVAMP_STR) && maxHealth < gravEnergy[i])
             {
-                if (rName.contains(ROBOVAMP_STR))
-                    continue;
-                Snapshot sn = Resources.getSnapshotHistory().getSnapshot(rName);
-                if (sn != null && maxHealth < sn.getEnergy())
-                {
-                    isStrongest = false;
-                    break;
-                }
+                isStrongest = false;
+                break;
             }
+        }
+    }
+    
+    @Override
+    protected void computeRobotThreat(int i) {
+        if (gravNames[i].contains(ROBOVAMP_STR))
+        {
             if (isStrongest)
             {
-                double d2 = Math.pow(p.x - myX, 2) + Math.pow(p.y - myY, 2);
-                targetX += REPULSE_FACTOR * p.power * 1.5 * (1 / Math.pow(d2, 1.5)) * (p.x - myX);
-                targetY += REPULSE_FACTOR * p.power * 1.5 * (1 / Math.pow(d2, 1.5)) * (p.y - myY);
+                addForce(i, REPULSE_FACTOR * gravPower[i] * 1.5, false);
             }
             else
             {
-                double d2 = Math.pow(p.x - myX, 2) + Math.pow(p.y - myY, 2);
-                if (d2 > 2500)
+                double dx = gravX[i] - myX;
+                double dy = gravY[i] - myY;
+                if (dx * dx + dy * dy > 2500)
                 {
-                    targetX += REPULSE_FACTOR * p.power * -1 * (1 / Math.pow(d2, 2)) * (p.x - myX);
-                    targetY += REPULSE_FACTOR * p.power * -1 * (1 / Math.pow(d2, 2)) * (p.y - myY);
+                    addForce(i, -REPULSE_FACTOR * gravPower[i], true);
                 }
             }
         }
         else
         {
-            double d2 = Math.pow(p.x - myX, 2) + Math.pow(p.y - myY, 2);
-            targetX += REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5)) * (p.x - myX);
-            targetY += REPULSE_FACTOR * p.power * (1 / Math.pow(d2, 1.5)) * (p.y - myY);
+            addForce(i, REPULSE_FACTOR * gravPower[i], false);
         }
         
     }
@@ -0,0 +1,308 @@
+package teamlg.drive.minRisk;
+
+import java.util.HashSet;
+import java.util.Random;
+
+import xander.core.Resources;
+import xander.core.RobotProxy;
+import xander.core.drive.Drive;
+import xander.core.drive.DriveController;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.track.Snapshot;
+import xander.core.track.SnapshotHistory;
+
+/**
+ * Minimum risk melee drive.
+ *
+ * Each turn, candidate destinations are sampled around the robot and scored
+ * against every opponent (energy relative to ours, HitStats threat, distance,
+ * and how much the path to the point runs along the opponent's line of fire),
+ * our recent positions and the walls. The robot heads for the least risky
+ * point, and only changes destination when a clearly better one is found or
+ * the current one is reached.
+ *
+ * A base number of samples is always scored. When the best two candidates are
+ * close, extra samples are spent around both of them, up to the sample budget.
+ * Opponents and recent positions are kept in primitive arrays and scoring
+ * is a flat loop over them, so the cost per turn is bounded by
+ * maxSamples * (opponents + RECENT_POSITIONS) and nothing is allocated.
+ */
+public class MinimumRiskDrive implements Drive {
+
+    public static final int DEFAULT_BASE_SAMPLES = 24;
+    public static final int DEFAULT_MAX_SAMPLES = 64;
+    public static final long DEFAULT_SEED = 1;
+
+    private static final int RECENT_POSITIONS = 16;
+    private static final int RECENT_POSITION_INTERVAL = 5;    // ticks between recorded positions
+
+    private RobotProxy robot;
+    private Random random;
+    private double minX, minY, maxX, maxY;
+
+    private int baseSamples = DEFAULT_BASE_SAMPLES;
+    private int maxSamples = DEFAULT_MAX_SAMPLES;
+    private double closeChoiceRatio = 0.1;      // relative risk difference below which the choice is close
+    private double switchRatio = 0.85;          // new destination must be below this fraction of current risk
+    private double minSampleDistance = 80;
+    private double maxSampleDistance = 180;
+    private double refineDistance = 40;
+    private double recentWeight = 0.3;
+    private double wallWeight = 0.2;
+    private double arrivalDistance = 20;
+
+    // opponents, refilled in place every turn
+    private int oppCount;
+    private double[] oppX = new double[10];
+    private double[] oppY = new double[10];
+    private double[] oppWeight = new double[10];
+
+    // recent positions ring buffer
+    private double[] recentX = new double[RECENT_POSITIONS];
+    private double[] recentY = new double[RECENT_POSITIONS];
+    private int recentCount;
+    private int recentNext;
+
+    private double myX, myY;
+    private double destX, destY;
+    private boolean hasDestination;
+    private double bestX, bestY, bestRisk;
+    private double secondX, secondY, secondRisk;
+    private int lastSampleCount;
+
+    /**
+     * Creates a minimum risk drive sampling with the default seed.
+     *
+     * @param mapXLength     battlefield width
+     * @param mapYLength     battlefield height
+     * @param wallMargin     minimum distance of candidate destinations from the walls
+     */
+    public MinimumRiskDrive(double mapXLength, double mapYLength, double wallMargin) {
+        this(mapXLength, mapYLength, wallMargin, DEFAULT_SEED);
+    }
+
+    /**
+     * Creates a minimum risk drive. Candidate destinations are drawn from a
+     * random number generator with the given seed, so that the drive makes the
+     * same choices whenever it sees the same battle.
+     *
+     * @param mapXLength     battlefield width
+     * @param mapYLength     battlefield height
+     * @param wallMargin     minimum distance of candidate destinations from the walls
+     * @param seed           seed for sampling candidate destinations
+     */
+    public MinimumRiskDrive(double mapXLength, double mapYLength, double wallMargin, long seed) {
+        this.robot = Resources.getRobotProxy();
+        this.random = new Random(seed);
+        this.minX = wallMargin;
+        this.minY = wallMargin;
+        this.maxX = mapXLength - wallMargin;
+        this.maxY = mapYLength - wallMargin;
+    }
+
+    /**
+     * Sets how many candidate destinations are scored each turn. At least two
+     * base samples are always scored, as the close choice test compares the
+     * best two candidates.
+     *
+     * @param baseSamples    number of samples always scored
+     * @param maxSamples     maximum number of samples when the choice is close
+     */
+    public void setSampleBudget(int baseSamples, int maxSamples) {
+        this.baseSamples = Math.max(2, baseSamples);
+        this.maxSamples = Math.max(this.baseSamples, maxSamples);
+    }
+
+    public void setCloseChoiceRatio(double closeChoiceRatio) {
+        this.closeChoiceRatio = closeChoiceRatio;
+    }
+
+    public void setSampleDistance(double minSampleDistance, double maxSampleDistance) {
+        this.minSampleDistance = minSampleDistance;
+        this.maxSampleDistance = maxSampleDistance;
+    }
+
+    public void setRecentWeight(double recentWeight) {
+        this.recentWeight = recentWeight;
+    }
+
+    public void setWallWeight(double wallWeight) {
+        this.wallWeight = wallWeight;
+    }
+
+    /**
+     * Returns the number of candidate destinations scored on the last turn.
+     *
+     * @return    number of samples scored on last turn
+     */
+    public int getLastSampleCount() {
+        return lastSampleCount;
+    }
+
+    @Override
+    public String getName() {
+        return "Minimum Risk Drive";
+    }
+
+    @Override
+    public void onRoundBegin() {
+        recentCount = 0;
+        recentNext = 0;
+        hasDestination = false;
+    }
+
+    @Override
+    public void driveTo(Snapshot opponentSnapshot, DriveController driveController) {
+        drive(driveController);
+    }
+
+    @Override
+    public void drive(DriveController driveController) {
+        myX = robot.getX();
+        myY = robot.getY();
+        if (robot.getTime() % RECENT_POSITION_INTERVAL == 0) {
+            recentX[recentNext] = myX;
+            recentY[recentNext] = myY;
+            recentNext = (recentNext + 1) % RECENT_POSITIONS;
+            recentCount = Math.min(RECENT_POSITIONS, recentCount + 1);
+        }
+        updateOpponents();
+        if (oppCount == 0) {
+            lastSampleCount = 0;
+            driveController.drive(0, 0);
+            return;
+        }
+        chooseDestination();
+        double angle = RCMath.getRobocodeAngle(myX, myY, destX, destY);
+        driveController.drive(angle, RCPhysics.MAX_SPEED);
+    }
+
+    private void updateOpponents() {
+        SnapshotHistory aHistory = Resources.getSnapshotHistory();
+        HashSet<String> aRobotList = Resources.getOtherRobots().getRobotList();
+        double myEnergy = Math.max(0.1, robot.getEnergy());
+        oppCount = 0;
+        for (String aRobot : aRobotList) {
+            Snapshot aSnapshot = aHistory.getSnapshot(aRobot);
+            if (aSnapshot != null) {
+                if (oppCount == oppX.length) {
+                    growOpponents();
+                }
+                oppX[oppCount] = aSnapshot.getX();
+                oppY[oppCount] = aSnapshot.getY();
+                oppWeight[oppCount] = Math.min(aSnapshot.getEnergy() / myEnergy, 2)
+                        * Resources.getHitStats().getHitRatioBy(aRobot);
+                oppCount++;
+            }
+        }
+    }
+
+    private void growOpponents() {
+        int aLength = oppX.length * 2;
+        oppX = grow(oppX, aLength);
+        oppY = grow(oppY, aLength);
+        oppWeight = grow(oppWeight, aLength);
+    }
+
+    private static double[] grow(double[] values, int length) {
+        double[] aValues = new double[length];
+        System.arraycopy(values, 0, aValues, 0, values.length);
+        return aValues;
+    }
+
+    private void chooseDestination() {
+        bestRisk = Double.POSITIVE_INFINITY;
+        secondRisk = Double.POSITIVE_INFINITY;
+        lastSampleCount = 0;
+
+        // sample distance is reduced when an opponent is close, so we do not run through it
+        double nearest2 = Double.POSITIVE_INFINITY;
+        for (int i = 0; i < oppCount; i++) {
+            double dx = oppX[i] - myX;
+            double dy = oppY[i] - myY;
+            nearest2 = Math.min(nearest2, dx * dx + dy * dy);
+        }
+        double sampleMax = Math.max(minSampleDistance, Math.min(maxSampleDistance, 0.8 * Math.sqrt(nearest2)));
+
+        for (int n = 0; n < baseSamples; n++) {
+            sample(myX, myY, minSampleDistance, sampleMax);
+        }
+
+        // spend the rest of the budget around the two best candidates while the choice is close
+        boolean aroundBest = true;
+        while (lastSampleCount < maxSamples && secondRisk - bestRisk < closeChoiceRatio * bestRisk) {
+            if (aroundBest) {
+                sample(bestX, bestY, 0, refineDistance);
+            } else {
+                sample(secondX, secondY, 0, refineDistance);
+            }
+            aroundBest = !aroundBest;
+        }
+
+        boolean arrived = hasDestination
+                && (destX - myX) * (destX - myX) + (destY - myY) * (destY - myY) < arrivalDistance * arrivalDistance;
+        if (!hasDestination || arrived || bestRisk < switchRatio * getRisk(destX, destY)) {
+            destX = bestX;
+            destY = bestY;
+            hasDestination = true;
+        }
+    }
+
+    private void sample(double centerX, double centerY, double fromDistance, double toDistance) {
+        double angle = random.nextDouble() * 2 * Math.PI;
+        double distance = fromDistance + random.nextDouble() * (toDistance - fromDistance);
+        double px = RCMath.limit(centerX + distance * Math.sin(angle), minX, maxX);
+        double py = RCMath.limit(centerY + distance * Math.cos(angle), minY, maxY);
+        double risk = getRisk(px, py);
+        lastSampleCount++;
+        if (risk < bestRisk) {
+            secondX = bestX;
+            secondY = bestY;
+            secondRisk = bestRisk;
+            bestX = px;
+            bestY = py;
+            bestRisk = risk;
+        } else if (risk < secondRisk) {
+            secondX = px;
+            secondY = py;
+            secondRisk = risk;
+        }
+    }
+
+    /**
+     * Returns the risk of driving to the given point.
+     *
+     * Each opponent adds weight * (1 + |cos a|) / d^2, where d is its distance
+     * to the point and a is the angle between our path to the point and the
+     * opponent's line to the point, so paths along an opponent's line of fire
+     * are riskier. Recent positions add recentWeight / d^2 and the nearest wall
+     * adds wallWeight / d^2.
+     *
+     * @param px    point x-coordinate
+     * @param py    point y-coordinate
+     *
+     * @return      risk
+     */
+    public double getRisk(double px, double py) {
+        double ux = px - myX;
+        double uy = py - myY;
+        double uLength = Math.sqrt(ux * ux + uy * uy);
+        double risk = 0;
+        for (int i = 0; i < oppCount; i++) {
+            double dx = oppX[i] - px;
+            double dy = oppY[i] - py;
+            double d2 = dx * dx + dy * dy + 1;
+            double lineOfFire = Math.abs(ux * dx + uy * dy) / (uLength * Math.sqrt(d2) + 1);
+            risk += oppWeight[i] * (1 + lineOfFire) / d2;
+        }
+        for (int k = 0; k < recentCount; k++) {
+            double dx = recentX[k] - px;
+            double dy = recentY[k] - py;
+            risk += recentWeight / (dx * dx + dy * dy + 1);
+        }
+        double wall = Math.min(Math.min(px, maxX + minX - px), Math.min(py, maxY + minY - py));
+        risk += wallWeight / (wall * wall + 1);
+        return risk;
+    }
+}
@@ -3,11 +3,14 @@ package teamlg.gun;
 import xander.cat.gun.power.SteppedHitRatioPowerSelector;
 import xander.core.Resources;
 import xander.core.RobotProxy;
+import xander.core.log.Log;
 import xander.core.log.Logger;
 import xander.core.track.Snapshot;
 
 public class DistancePowerSelector extends SteppedHitRatioPowerSelector {
 	
+	private static final Log log = Logger.getLog(DistancePowerSelector.class);
+	
 	private RobotProxy robotProxy;
 
 	public DistancePowerSelector(double[] stepHitRatios, double[] stepFirePowers) {
@@ -22,20 +25,20 @@ public class DistancePowerSelector extends SteppedHitRatioPowerSelector {
 		
 		// Get parent firePower
 		double firePower = super.getFirePower(target);		
-		Logger.getLog(getClass()).info("Base power: " + firePower);
+		log.debug("Base power: {}", firePower);
 		
 		// Apply distance ratio
 		double d2 = Math.pow(target.getX() - robotProxy.getX(), 2) + Math.pow(target.getY() - robotProxy.getY(), 2);
 		double distanceRate = 100000 / d2;
-		Logger.getLog(getClass()).info("Distance rate [" + target.getName() + "]: " + distanceRate);
+		log.debug("Distance rate [{}]: {}", target.getName(), distanceRate);
 		
 		// Apply opponents ratio
 		double othersRate = (9.0 + robotProxy.getOthers()) / 10.0;
-		Logger.getLog(getClass()).info("Others rate: " + othersRate);		
+		log.debug("Others rate: {}", othersRate);
 		
 		// Consolidate
 		firePower = Math.min(3, firePower * distanceRate * othersRate);		
-		Logger.getLog(getClass()).info("Firing power: " + firePower);
+		log.debug("Firing power: {}", firePower);
 
 		return firePower;
 	}
@@ -6,7 +6,6 @@ import xander.core.RobotProxy;
 import xander.core.radar.Radar;
 import xander.core.radar.RadarController;
 import xander.core.track.Snapshot;
-import xander.core.track.SnapshotHistory;
 
 /**
  * TODO: implement a method to avoid scanning when there is nothing.
@@ -49,21 +48,7 @@ public class SpinningRadar implements Radar{
     }
 
     private Snapshot seekForTarget() {
-        double aRefDistance = 200000000;
-        Snapshot aClosestTarget = null;
-        SnapshotHistory aHistory =  Resources.getSnapshotHistory();
-        for (String aRobot : Resources.getOtherRobots().getRobotList())
-        {
-            Snapshot aSnapshot = aHistory.getSnapshot(aRobot);
-            if (aSnapshot == null)
-                continue;
-            double aRobotDistance = Math.pow(aSnapshot.getX() - robot.getX(),2)+Math.pow(aSnapshot.getY() - robot.getY(),2);
-            if (aRobotDistance < aRefDistance){
-                aRefDistance = aRobotDistance;
-                aClosestTarget = aSnapshot;
-            }
-        }
-        return aClosestTarget;
+        return Resources.getTargetSelector().getBestTargetSnapshot();
     }
 
 }
@@ -0,0 +1,466 @@
+package xander.cat.drive;
+
+import java.awt.geom.Point2D;
+import java.io.IOException;
+import java.util.List;
+
+import robocode.Bullet;
+import robocode.HitByBulletEvent;
+import xander.core.Resources;
+import xander.core.RobotProxy;
+import xander.core.drive.Direction;
+import xander.core.drive.DistancingEquation;
+import xander.core.drive.Drive;
+import xander.core.drive.DriveController;
+import xander.core.drive.DriveState;
+import xander.core.drive.OrbitalDrivePredictor;
+import xander.core.event.OpponentWaveListener;
+import xander.core.io.ModelInput;
+import xander.core.io.ModelOutput;
+import xander.core.io.PersistentModel;
+import xander.core.math.BasicFactorArrays;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.math.RelativeAngleRange;
+import xander.core.math.VelocityVector;
+import xander.core.track.BulletShadow;
+import xander.core.track.Snapshot;
+import xander.core.track.Wave;
+import xander.core.track.WaveHistory;
+
+/**
+ * Wave surfing drive.  Each tick, the options of stopping, orbiting clockwise,
+ * and orbiting counter-clockwise around the origin of the first wave to hit
+ * are predicted until that wave hits, and from each of those end states the
+ * same three options are predicted against the second wave.  The option with
+ * the least combined danger is taken.
+ *
+ * Danger comes from a guess factor profile learned from the opponent's bullets,
+ * segmented on distance and lateral velocity at fire time, blended with an
+ * unsegmented profile, and reduced by the part of the robot covered by bullet
+ * shadows.
+ *
+ * The number of drive state ticks predicted per turn is limited by a prediction
+ * budget.  If there is not enough budget to evaluate the second wave, options
+ * are chosen on the first wave alone; if there is not enough budget for the
+ * first wave, the previously chosen option is kept.
+ *
+ * The profiles are saved for each opponent between battles through the
+ * ModelStore.
+ */
+public class WaveSurfingDrive implements Drive, OpponentWaveListener, PersistentModel {
+
+	private static final int OPTION_STOP = 0;
+	private static final int OPTION_CLOCKWISE = 1;
+	private static final int OPTION_COUNTER_CLOCKWISE = 2;
+	private static final int OPTIONS = 3;
+
+	private static final int FACTORS = 47;
+	private static final int DISTANCE_SEGMENTS = 4;
+	private static final double DISTANCE_SEGMENT_WIDTH = 200;
+	private static final int LATERAL_VELOCITY_SEGMENTS = 3;
+	private static final int MAX_PREDICTION_TICKS = 120;
+
+	private RobotProxy robotProxy;
+	private WaveHistory waveHistory;
+	private OrbitalDrivePredictor predictor;
+	private DistancingEquation distancingEquation = new DistancingEquation(150, 450, 650, 40, 20);
+	private float[][] segmentedProfiles = new float[DISTANCE_SEGMENTS * LATERAL_VELOCITY_SEGMENTS][FACTORS];
+	private float[] segmentedTotals = new float[DISTANCE_SEGMENTS * LATERAL_VELOCITY_SEGMENTS];
+	private float[] profile = new float[FACTORS];
+	private float profileTotal;
+	private double segmentedWeight = 0.7;      // weight of segmented profile versus unsegmented profile
+	private double profileDecay = 0.9;         // retained fraction of profile on each update
+	private double visitWeight = 0;            // weight of each wave hit (without bullet hit) in profile; 0 disables
+	private double secondWaveWeight = 0.5;     // weight of second wave danger versus first wave danger
+	private int predictionBudget = 800;        // maximum drive state ticks predicted per turn
+	private int budgetRemaining;
+	private int lastOption = OPTION_CLOCKWISE;
+	private DriveState[] firstWaveStates = new DriveState[OPTIONS];
+	private DriveState secondWaveState = new DriveState();
+	private double[] dangers = new double[OPTIONS];
+	private double[] secondDangers = new double[OPTIONS];
+
+	public WaveSurfingDrive() {
+		this.robotProxy = Resources.getRobotProxy();
+		this.waveHistory = Resources.getWaveHistory();
+		this.predictor = new OrbitalDrivePredictor();
+		for (int i=0; i<OPTIONS; i++) {
+			firstWaveStates[i] = new DriveState();
+		}
+		// start out assuming head-on targeting
+		for (int s=0; s<segmentedProfiles.length; s++) {
+			segmentedTotals[s] = addKernel(segmentedProfiles[s], FACTORS/2, 1);
+		}
+		profileTotal = addKernel(profile, FACTORS/2, 1);
+		waveHistory.addOpponentWaveListener(this);
+		Resources.getModelStore().register(this);
+	}
+
+	public void setDistancingEquation(DistancingEquation distancingEquation) {
+		this.distancingEquation = distancingEquation;
+	}
+
+	public void setSegmentedWeight(double segmentedWeight) {
+		this.segmentedWeight = segmentedWeight;
+	}
+
+	public void setProfileDecay(double profileDecay) {
+		this.profileDecay = profileDecay;
+	}
+
+	/**
+	 * Sets the weight given to each wave that hits without a bullet hit.  A
+	 * non-zero weight causes the drive to avoid where it has been, which is
+	 * useful against learning guns.  Default is 0.
+	 *
+	 * @param visitWeight    weight of wave hit relative to bullet hit
+	 */
+	public void setVisitWeight(double visitWeight) {
+		this.visitWeight = visitWeight;
+	}
+
+	public void setSecondWaveWeight(double secondWaveWeight) {
+		this.secondWaveWeight = secondWaveWeight;
+	}
+
+	/**
+	 * Sets the maximum number of drive state ticks that can be predicted each
+	 * turn.  Evaluating both waves typically takes 12 predictions, each as
+	 * many ticks as it takes the wave to arrive.
+	 *
+	 * @param predictionBudget    maximum ticks predicted per turn
+	 */
+	public void setPredictionBudget(int predictionBudget) {
+		this.predictionBudget = predictionBudget;
+	}
+
+	@Override
+	public String getName() {
+		return "Wave Surfing Drive";
+	}
+
+	@Override
+	public void onRoundBegin() {
+		lastOption = OPTION_CLOCKWISE;
+	}
+
+	@Override
+	public void driveTo(Snapshot opponentSnapshot, DriveController driveController) {
+		if (!surf(opponentSnapshot.getDistance(), driveController)) {
+			Point2D.Double center = opponentSnapshot.getLocation();
+			Direction direction = (lastOption == OPTION_COUNTER_CLOCKWISE)? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE;
+			VelocityVector vv = predictor.getSmoothedOrbitAngle(
+					center, opponentSnapshot.getDistance(), direction, distancingEquation, RCPhysics.MAX_SPEED);
+			driveController.drive(vv.getRoboAngle(), vv.getMagnitude());
+		}
+	}
+
+	@Override
+	public void drive(DriveController driveController) {
+		if (!surf(distancingEquation.getOptimalDistance(), driveController)) {
+			driveController.drive(robotProxy.getHeadingDegrees(), 0);
+		}
+	}
+
+	/**
+	 * Surf the first wave to hit, if any.
+	 *
+	 * @param distance           distance used for distancing
+	 * @param driveController    drive controller
+	 *
+	 * @return                   whether or not there was a wave to surf
+	 */
+	private boolean surf(double distance, DriveController driveController) {
+		long time = Resources.getTime();
+		double x = robotProxy.getX();
+		double y = robotProxy.getY();
+		Wave firstWave = null;
+		long firstTimeToHit = Long.MAX_VALUE;
+		for (Wave wave : waveHistory.getOpponentWaves()) {
+			if (wave.isLeading()) {
+				long timeToHit = wave.getTimeUntilHit(x, y, time);
+				if (timeToHit >= 0 && timeToHit < firstTimeToHit) {
+					firstTimeToHit = timeToHit;
+					firstWave = wave;
+				}
+			}
+		}
+		if (firstWave == null) {
+			return false;
+		}
+		Wave secondWave = waveHistory.getOpponentWaveAfter(firstWave, x, y);
+		budgetRemaining = predictionBudget;
+
+		// first wave
+		DriveState currentState = new DriveState(robotProxy);
+		boolean firstComplete = true;
+		for (int o=0; o<OPTIONS && firstComplete; o++) {
+			firstWaveStates[o].setState(currentState);
+			firstComplete = predictUntilHit(firstWaveStates[o], firstWave, distance, o);
+			if (firstComplete) {
+				dangers[o] = getDanger(firstWave, firstWaveStates[o]);
+			}
+		}
+		if (firstComplete) {
+			// second wave; only used if it can be evaluated for every option
+			if (secondWave != null && secondWaveWeight > 0) {
+				boolean secondComplete = true;
+				for (int o=0; o<OPTIONS && secondComplete; o++) {
+					secondDangers[o] = Double.POSITIVE_INFINITY;
+					for (int so=0; so<OPTIONS && secondComplete; so++) {
+						secondWaveState.setState(firstWaveStates[o]);
+						secondComplete = predictUntilHit(secondWaveState, secondWave, distance, so);
+						if (secondComplete) {
+							secondDangers[o] = Math.min(secondDangers[o], getDanger(secondWave, secondWaveState));
+						}
+					}
+				}
+				if (secondComplete) {
+					for (int o=0; o<OPTIONS; o++) {
+						dangers[o] += secondWaveWeight * secondDangers[o];
+					}
+				}
+			}
+			int bestOption = lastOption;
+			for (int o=0; o<OPTIONS; o++) {
+				if (dangers[o] < dangers[bestOption]) {
+					bestOption = o;
+				}
+			}
+			lastOption = bestOption;
+		}
+
+		// drive the chosen option
+		Direction direction = (lastOption == OPTION_COUNTER_CLOCKWISE)? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE;
+		double speed = (lastOption == OPTION_STOP)? 0 : RCPhysics.MAX_SPEED;
+		VelocityVector vv = predictor.getSmoothedOrbitAngle(
+				firstWave.getOrigin(), distance, direction, distancingEquation, speed);
+		driveController.drive(vv.getRoboAngle(), speed == 0? 0 : vv.getMagnitude());
+		return true;
+	}
+
+	/**
+	 * Advance the drive state for the given option until the wave hits, charging
+	 * each predicted tick against the prediction budget.
+	 *
+	 * @param driveState    drive state to advance
+	 * @param wave          wave
+	 * @param distance      distance used for distancing
+	 * @param option        drive option
+	 *
+	 * @return              whether or not the prediction completed within budget
+	 */
+	private boolean predictUntilHit(DriveState driveState, Wave wave, double distance, int option) {
+		Direction direction = (option == OPTION_COUNTER_CLOCKWISE)? Direction.COUNTER_CLOCKWISE : Direction.CLOCKWISE;
+		double speed = (option == OPTION_STOP)? 0 : RCPhysics.MAX_SPEED;
+		for (int i=0; i<MAX_PREDICTION_TICKS; i++) {
+			double d = RCMath.getDistanceBetweenPoints(wave.getOriginX(), wave.getOriginY(), driveState.getX(), driveState.getY());
+			if (wave.getBulletTravelDistance(driveState.getTime()) >= d - RCPhysics.ROBOT_HALF_WIDTH) {
+				return true;
+			}
+			if (budgetRemaining <= 0) {
+				return false;
+			}
+			predictor.advanceOrbitalDriveState(driveState, wave.getOrigin(), distance, direction, 1, speed, distancingEquation);
+			budgetRemaining--;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the danger of being at the given drive state when the wave hits.
+	 *
+	 * @param wave          wave
+	 * @param driveState    drive state at time wave hits
+	 *
+	 * @return              danger
+	 */
+	private double getDanger(Wave wave, DriveState driveState) {
+		double d = RCMath.getDistanceBetweenPoints(wave.getOriginX(), wave.getOriginY(), driveState.getX(), driveState.getY());
+		double halfWidth = Math.toDegrees(Math.atan(RCPhysics.ROBOT_HALF_WIDTH / Math.max(d, RCPhysics.ROBOT_WIDTH)));
+		double factorAngle = BasicFactorArrays.getFactorAngle(wave, driveState.getX(), driveState.getY());
+		int lowIndex = getFactorIndex(wave, factorAngle - halfWidth);
+		int highIndex = getFactorIndex(wave, factorAngle + halfWidth);
+		if (lowIndex > highIndex) {
+			int holder = lowIndex;
+			lowIndex = highIndex;
+			highIndex = holder;
+		}
+		int segment = getSegment(wave);
+		float[] segmentedProfile = segmentedProfiles[segment];
+		float segmentedTotal = segmentedTotals[segment];
+		double danger = 0;
+		for (int i=lowIndex; i<=highIndex; i++) {
+			danger += segmentedWeight * segmentedProfile[i] / segmentedTotal
+					+ (1 - segmentedWeight) * profile[i] / profileTotal;
+		}
+
+		// discount by portion of robot covered by bullet shadows
+		double bearing = RCMath.getRobocodeAngle(wave.getOriginX(), wave.getOriginY(), driveState.getX(), driveState.getY());
+		List<BulletShadow> bulletShadows = wave.getBulletShadows();
+		double shadowed = 0;
+		for (int i=0; i<bulletShadows.size(); i++) {
+			BulletShadow bulletShadow = bulletShadows.get(i);
+			double from = Math.max(-halfWidth, RCMath.getTurnAngle(bearing, bulletShadow.getCounterClockwiseAngle()));
+			double to = Math.min(halfWidth, RCMath.getTurnAngle(bearing, bulletShadow.getClockwiseAngle()));
+			if (to > from) {
+				shadowed += to - from;
+			}
+		}
+		danger *= 1 - Math.min(1, shadowed / (2 * halfWidth));
+
+		return danger * RCPhysics.getBulletDamage(wave.getBulletPower());
+	}
+
+	/**
+	 * Returns the profile index for a factor angle on the given wave, oriented
+	 * so that positive factors are in the defender's direction at fire time.
+	 *
+	 * @param wave           wave
+	 * @param factorAngle    factor angle in degrees
+	 *
+	 * @return               profile index
+	 */
+	private int getFactorIndex(Wave wave, double factorAngle) {
+		RelativeAngleRange mea = wave.getInitialMEA();
+		double factor;
+		if (factorAngle >= 0) {
+			factor = factorAngle / Math.max(1, mea.getClockwiseOffset());
+		} else {
+			factor = factorAngle / Math.max(1, -mea.getCounterClockwiseOffset());
+		}
+		factor *= wave.getSurfDirection().getDirectionUnit();
+		factor = RCMath.limit(factor, -1, 1);
+		return (int) Math.round((factor + 1) / 2 * (FACTORS - 1));
+	}
+
+	/**
+	 * Returns the profile segment for a wave, based on the distance and the
+	 * defender's lateral velocity at fire time.
+	 *
+	 * @param wave    wave
+	 *
+	 * @return        segment index
+	 */
+	private int getSegment(Wave wave) {
+		Snapshot defender = wave.getInitialDefenderSnapshot();
+		int distanceSegment = Math.min(DISTANCE_SEGMENTS-1, (int)(wave.getOriginDistance() / DISTANCE_SEGMENT_WIDTH));
+		double bearing = wave.getInitialDefenderBearing();
+		double lateralVelocity = Math.abs(defender.getVelocity()
+				* Math.sin(Math.toRadians(defender.getHeadingRoboDegrees() - bearing)));
+		int lateralSegment = (lateralVelocity < 2)? 0 : (lateralVelocity < 6)? 1 : 2;
+		return distanceSegment * LATERAL_VELOCITY_SEGMENTS + lateralSegment;
+	}
+
+	private static float addKernel(float[] factors, int index, double weight) {
+		float total = 0;
+		for (int i=0; i<factors.length; i++) {
+			int offset = i - index;
+			factors[i] += (float) (weight / (1 + offset*offset));
+			total += factors[i];
+		}
+		return total;
+	}
+
+	private static float getTotal(float[] factors) {
+		float total = 0;
+		for (int i=0; i<factors.length; i++) {
+			total += factors[i];
+		}
+		return total;
+	}
+
+	private static void decay(float[] factors, double decay) {
+		for (int i=0; i<factors.length; i++) {
+			factors[i] *= decay;
+		}
+	}
+
+	private void logFactorAngle(Wave wave, double factorAngle, double weight) {
+		int index = getFactorIndex(wave, factorAngle);
+		int segment = getSegment(wave);
+		decay(segmentedProfiles[segment], profileDecay);
+		segmentedTotals[segment] = addKernel(segmentedProfiles[segment], index, weight);
+		decay(profile, profileDecay);
+		profileTotal = addKernel(profile, index, weight);
+	}
+
+	@Override
+	public String getModelName() {
+		return "WaveSurfingDrive";
+	}
+
+	@Override
+	public void writeModel(ModelOutput out) throws IOException {
+		out.writeInt(segmentedProfiles.length);
+		for (int s=0; s<segmentedProfiles.length; s++) {
+			out.writeProfile(segmentedProfiles[s]);
+		}
+		out.writeProfile(profile);
+	}
+
+	@Override
+	public void readModel(ModelInput in) throws IOException {
+		int segments = in.readInt();
+		float[] skipped = new float[FACTORS];
+		for (int s=0; s<segments; s++) {
+			float[] segmentedProfile = (s < segmentedProfiles.length)? segmentedProfiles[s] : skipped;
+			if (in.readProfile(segmentedProfile) != FACTORS) {
+				throw new IOException("Saved profile does not match factor count.");
+			}
+		}
+		in.readProfile(profile);
+		for (int s=0; s<segmentedProfiles.length; s++) {
+			segmentedTotals[s] = getTotal(segmentedProfiles[s]);
+		}
+		profileTotal = getTotal(profile);
+	}
+
+	@Override
+	public void oppWaveCreated(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveHitBullet(Wave wave, Bullet oppBullet) {
+		logFactorAngle(wave, BasicFactorArrays.getFactorAngle(wave, oppBullet.getHeading()), 1);
+	}
+
+	@Override
+	public void oppWaveHit(Wave wave) {
+		if (visitWeight > 0) {
+			logFactorAngle(wave, BasicFactorArrays.getFactorAngle(wave, robotProxy.getX(), robotProxy.getY()), visitWeight);
+		}
+	}
+
+	@Override
+	public void oppNextWaveToHit(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppBulletHit(Wave wave, HitByBulletEvent hitByBulletEvent) {
+		logFactorAngle(wave, BasicFactorArrays.getFactorAngle(wave, hitByBulletEvent.getBullet().getHeading()), 1);
+	}
+
+	@Override
+	public void oppWavePassing(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWavePassed(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveUpdated(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveDestroyed(Wave wave) {
+		// no action required
+	}
+}
@@ -6,29 +6,40 @@ import robocode.ScannedRobotEvent;
 
 import xander.core.Resources;
 import xander.core.RobotEvents;
+import xander.core.RobotProxy;
 import xander.core.event.RoundBeginListener;
 import xander.core.event.ScannedRobotListener;
-import xander.core.log.Log;
-import xander.core.log.Logger;
+import xander.core.event.TurnListener;
 import xander.core.math.RCPhysics;
-import xander.core.track.Snapshot;
-import xander.core.track.SnapshotHistory;
 
 /**
  * Detects opponents that attempt to perfectly mirror our driving pattern.
  * Presently only guaranteed to work properly for 1v1.
  * 
+ * Our own positions are kept in a ring buffer indexed by time, and for each
+ * lag the number of mirror hits over the last scanDepth scans is kept as a
+ * counter that is adjusted as scans enter and leave the window.  Each scan
+ * therefore costs O(scannedTicks), as does checking for a mirror.
+ * 
  * @author Scott Arnold
  */
-public class MirrorDetector implements RoundBeginListener, ScannedRobotListener {
+public class MirrorDetector implements RoundBeginListener, ScannedRobotListener, TurnListener {
 
-	private static final Log log = Logger.getLog(MirrorDetector.class);
 	private static final double BOX_SIZE = RCPhysics.ROBOT_WIDTH + 10;
 	
-	private boolean[][] mirrorHits;
-	private Rectangle2D.Double mirrorBounds;
-	private Rectangle2D.Double battlefieldBounds;
-	private SnapshotHistory snapshotHistory;
+	// ring buffer of our own positions by time
+	private int positionMask;
+	private long[] myTimes;
+	private double[] myXs;
+	private double[] myYs;
+	
+	// mirrorHits[scanIndex * scannedTicks + lag] is whether scan was a mirror hit at that lag
+	private boolean[] mirrorHits;
+	private int[] lagHitCounts;
+	private int scanDepth;
+	private RobotProxy robotProxy;
+	private double mirrorMaxX;
+	private double mirrorMaxY;
 	private int scanIndex;
 	private double mirrorThreshold = 0.75;
 	private int scannedTicks;
@@ -38,50 +49,89 @@ public class MirrorDetector implements RoundBeginListener, ScannedRobotListener
 	private long mirrorDetectionHits;
 	
 	public MirrorDetector(int scanDepth, int scannedTicks) {
-		this.snapshotHistory = Resources.getSnapshotHistory();
-		if (scannedTicks > snapshotHistory.getHistorySize()) {
-			scannedTicks = snapshotHistory.getHistorySize();
-			log.warn("Robot histories are not long enough for requested scan ticks; reducing scan ticks to " + scannedTicks);
-		}
+		this.robotProxy = Resources.getRobotProxy();
+		this.scanDepth = scanDepth;
 		this.scannedTicks = scannedTicks;
-		this.mirrorHits = new boolean[scannedTicks][scanDepth];
-		this.battlefieldBounds = Resources.getRobotProxy().getBattleFieldSize();
-		this.mirrorBounds = new Rectangle2D.Double(0, 0, 1, 1);  // initialize it to anything
+		this.mirrorHits = new boolean[scanDepth * scannedTicks];
+		this.lagHitCounts = new int[scannedTicks];
+		int capacity = Integer.highestOneBit(Math.max(1, scannedTicks)) * 2;
+		this.positionMask = capacity - 1;
+		this.myTimes = new long[capacity];
+		this.myXs = new double[capacity];
+		this.myYs = new double[capacity];
+		for (int i=0; i<capacity; i++) {
+			myTimes[i] = -1;
+		}
+		Rectangle2D.Double battlefieldBounds = robotProxy.getBattleFieldSize();
+		this.mirrorMaxX = battlefieldBounds.getMaxX();
+		this.mirrorMaxY = battlefieldBounds.getMaxY();
 		RobotEvents robotEvents = Resources.getRobotEvents();
 		robotEvents.addScannedRobotListener(this);
 		robotEvents.addRoundBeginListener(this);
+		robotEvents.addTurnListener(this);
 	}
 
 	@Override
 	public void onRoundBegin() {
 		// it will take the opponent a short while to get into mirror position, so reset mirror hits on startup
 		for (int i=0; i<mirrorHits.length; i++) {
-			for (int j=0; j<mirrorHits[i].length; j++) {
-				mirrorHits[i][j] = false;
-			}
+			mirrorHits[i] = false;
+		}
+		for (int i=0; i<lagHitCounts.length; i++) {
+			lagHitCounts[i] = 0;
+		}
+		for (int i=0; i<myTimes.length; i++) {
+			myTimes[i] = -1;
 		}
 		this.mirrorDetectionHits = 0;
 		this.lastMirrorDetectionTick = -1;
 	}
 
+	private void recordMyPosition() {
+		long time = robotProxy.getTime();
+		int i = (int) (time & positionMask);
+		myTimes[i] = time;
+		myXs[i] = robotProxy.getX();
+		myYs[i] = robotProxy.getY();
+	}
+	
+	@Override
+	public void onTurnBegin() {
+		recordMyPosition();
+	}
+
+	@Override
+	public void onTurnEnd() {
+		// no action required
+	}
+
 	public void onScannedRobot(ScannedRobotEvent event) {
 		// each scan we check for new histories
 		// we don't worry about if it's the same robot for melee as it won't really cause any negative effects
-		Snapshot opp = snapshotHistory.getSnapshot(event.getName(), event.getTime(), false);
-		if (opp != null) {
-			for (int i=0; i<scannedTicks; i++) {
-				Snapshot me = snapshotHistory.getMySnapshot(Math.max(0, event.getTime()-i), false);
-				if (me != null) {
-					double x = battlefieldBounds.getMaxX()-me.getX()-BOX_SIZE/2d;
-					double y = battlefieldBounds.getMaxY()-me.getY()-BOX_SIZE/2d;
-					mirrorBounds.setRect(x, y, BOX_SIZE, BOX_SIZE);
-					mirrorHits[i][scanIndex] = mirrorBounds.contains(opp.getLocation());
-				}
+		recordMyPosition();
+		double absoluteBearing = robotProxy.getHeadingRadians() + event.getBearingRadians();
+		double oppX = robotProxy.getX() + event.getDistance() * Math.sin(absoluteBearing);
+		double oppY = robotProxy.getY() + event.getDistance() * Math.cos(absoluteBearing);
+		long time = event.getTime();
+		int offset = scanIndex * scannedTicks;
+		for (int i=0; i<scannedTicks; i++) {
+			long t = Math.max(0, time-i);
+			int p = (int) (t & positionMask);
+			boolean hit = false;
+			if (myTimes[p] == t) {
+				// opponent within box centered on our position mirrored through the battlefield center
+				hit = Math.abs(oppX - (mirrorMaxX - myXs[p])) < BOX_SIZE/2d 
+						&& Math.abs(oppY - (mirrorMaxY - myYs[p])) < BOX_SIZE/2d;
+			}
+			// the hit leaving the window is replaced by the hit entering it
+			if (mirrorHits[offset+i] != hit) {
+				lagHitCounts[i] += hit? 1 : -1;
+				mirrorHits[offset+i] = hit;
 			}
 		}
 		// update scan index
 		scanIndex++;
-		if (scanIndex == mirrorHits[0].length) {
+		if (scanIndex == scanDepth) {
 			scanIndex = 0;
 		}
 	}
@@ -90,13 +140,7 @@ public class MirrorDetector implements RoundBeginListener, ScannedRobotListener
 		boolean mirrorDetected = false;
 		this.maxHitPercent = 0;
 		for (int i=0; i<scannedTicks; i++) {
-			int hitCount = 0;
-			for (boolean mirrorHit : mirrorHits[i]) {
-				if (mirrorHit) {
-					hitCount++;
-				}
-			}
-			float hitPercent = (float) hitCount / (float) mirrorHits[0].length;
+			float hitPercent = (float) lagHitCounts[i] / (float) scanDepth;
 			if (hitPercent > mirrorThreshold) {
 				if (hitPercent > this.maxHitPercent) {
 					mirrorDetected = true;	
@@ -1,8 +1,6 @@
 package xander.cat.group.shield;
 
-import java.awt.geom.Point2D;
-import java.util.HashMap;
-import java.util.Map;
+import java.awt.geom.Rectangle2D;
 
 import robocode.Bullet;
 import robocode.BulletHitEvent;
@@ -14,8 +12,6 @@ import xander.core.event.MyWaveListener;
 import xander.core.event.OpponentWaveListener;
 import xander.core.gun.AbstractGun;
 import xander.core.gun.Aim;
-import xander.core.math.Linear;
-import xander.core.math.LinearIntercept;
 import xander.core.math.RCMath;
 import xander.core.math.RCPhysics;
 import xander.core.track.Snapshot;
@@ -31,16 +27,20 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 
 	public static final String NAME = "Bullet Shielding Gun";
 	
+	private static final int MAX_WAVE_SLOTS = 16;  // more than enough for the opponent waves that can be in the air at once
+	
 //	private static final Log log = Logger.getLog(BulletShieldingGun.class);
 	
 	private BulletTargeter[] bulletTargeters;
 	private int[] bulletTargeterMatches;
-	private Map<Wave, double[]> waveAims = new HashMap<Wave, double[]>();
-	private Map<Wave, Integer> selectedAims = new HashMap<Wave, Integer>();
+	private Wave[] slotWaves = new Wave[MAX_WAVE_SLOTS];     // opponent wave for each slot, or null if slot is free
+	private double[][] slotAims;                             // bullet targeter aims for each slot
+	private int[] slotSelectedAims = new int[MAX_WAVE_SLOTS]; // index of the targeter selected for each slot, or -1
+	private int nextSlot;
 	private RobotProxy robotProxy;
 	private BulletShieldingController controller;
 	private Wave targetedWave;
-	private Snapshot targetedSnapshot;
+	private double targetedAim;
 	private double maxFirePower = RCPhysics.MIN_FIRE_POWER;
 	private int firePowerAdjustedCount;
 	private int totalCount;
@@ -57,6 +57,8 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 		controller.addBulletShieldingListener(this);
 		this.bulletTargeters = bulletTargeters;
 		this.bulletTargeterMatches = new int[bulletTargeters.length];
+		this.slotAims = new double[MAX_WAVE_SLOTS][bulletTargeters.length];
+		clearSlots();
 		this.robotProxy = Resources.getRobotProxy();
 		Resources.getWaveHistory().addMyWaveListener(this);
 		Resources.getWaveHistory().addOpponentWaveListener(this);
@@ -82,8 +84,7 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 		if (fireCheckString != null) {
 			controller.setFireCheckString(fireCheckString);
 		}
-		this.waveAims.clear();
-		this.selectedAims.clear();
+		clearSlots();
 		reset();
 		fireCheck =0;
 	}
@@ -93,10 +94,58 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 	}
 	
 	public void reset() {
-		this.targetedSnapshot = null;
 		this.targetedWave = null;
 	}
 	
+	private void clearSlots() {
+		for (int i=0; i<MAX_WAVE_SLOTS; i++) {
+			slotWaves[i] = null;
+			slotSelectedAims[i] = -1;
+		}
+		nextSlot = 0;
+	}
+	
+	private int getSlot(Wave wave) {
+		for (int i=0; i<MAX_WAVE_SLOTS; i++) {
+			if (slotWaves[i] == wave) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private void freeSlot(Wave wave) {
+		int slot = getSlot(wave);
+		if (slot >= 0) {
+			slotWaves[slot] = null;
+			slotSelectedAims[slot] = -1;
+		}
+	}
+	
+	/**
+	 * Assigns a slot to the given wave and computes the aims of all bullet
+	 * targeters for it.  If all slots are in use, the slots are reused in
+	 * round-robin order.
+	 * 
+	 * @param wave    opponent wave
+	 * 
+	 * @return        slot for wave
+	 */
+	private int addSlot(Wave wave) {
+		int slot = getSlot(null);
+		if (slot < 0) {
+			slot = nextSlot;
+			nextSlot = (nextSlot + 1) % MAX_WAVE_SLOTS;
+		}
+		slotWaves[slot] = wave;
+		slotSelectedAims[slot] = -1;
+		double[] aims = slotAims[slot];
+		for (int i=0; i<bulletTargeters.length; i++) {
+			aims[i] = bulletTargeters[i].getAim(wave);
+		}
+		return slot;
+	}
+	
 	@Override
 	public Aim getAim(Snapshot target, Snapshot myself) {
 		if (targetedWave == null) {
@@ -123,20 +172,13 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 						}
 					}
 				}
-				// calculate aims for this wave
-				double[] aims = waveAims.get(targetedWave);
-				if (aims == null) {
-					aims = new double[bulletTargeters.length];
-					for (int i=0; i<bulletTargeters.length; i++) {
-						aims[i] = bulletTargeters[i].getAim(targetedWave);
-					}
-					waveAims.put(targetedWave, aims);
+				// aims for this wave are normally calculated when the wave is created
+				int slot = getSlot(targetedWave);
+				if (slot < 0) {
+					slot = addSlot(targetedWave);
 				}
-				// get aim for best targeter and create mock snapshot to be used in targeting
-				selectedAims.put(targetedWave, Integer.valueOf(targeterIdx));
-				targetedSnapshot = new Snapshot("Opponent Bullet", targetedWave.getOriginX(), targetedWave.getOriginY(), 
-						aims[targeterIdx], targetedWave.getBulletVelocity(), 
-						targetedWave.getInitialDefenderSnapshot().getDistance(), 100, targetedWave.getOriginTime()-1);
+				slotSelectedAims[slot] = targeterIdx;
+				targetedAim = slotAims[slot][targeterIdx];
 			} else if (allowFinishingShot) {
 				Snapshot los = Resources.getSnapshotHistory().getLastOpponentScanned();
 				if (los != null && los.getEnergy() <= 0 && Resources.getWaveHistory().getOpponentWaveCount() == 0) {
@@ -146,49 +188,10 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 				} 
 			}
 		}
-		if (targetedSnapshot != null && controller.requestAuthorizationToFire()) {
-			// start with calculating intercept with minimum fire power bullet
-			LinearIntercept intercept = Linear.calculateTrajectory(targetedSnapshot, 
-					robotProxy.getX(), robotProxy.getY(), RCPhysics.MAX_BULLET_VELOCITY, 
-					robotProxy.getBattleFieldSize(), Resources.getTime());
-			double firePower = RCPhysics.MIN_FIRE_POWER;
-			if (intercept != null) {
-				double mfp = Math.min(maxFirePower, targetedWave.getBulletPower());
-				if (mfp > firePower && robotProxy.getEnergy() >= target.getEnergy()) {
-					// calculate better intercept time (note that we can't make the time lower; original calculation was done with max bullet velocity)
-					double improvedTimeToIntercept = Math.floor(intercept.getTimeToIntercept()) + 0.5;
-					if (improvedTimeToIntercept < intercept.getTimeToIntercept()) {
-						improvedTimeToIntercept++;
-					}
-					//System.out.println("Time to intercept: " + Logger.format(intercept.getTimeToIntercept(), 2) + "; Improved time: " + Logger.format(improvedTimeToIntercept, 2));
-					// calculate approximate intercept position using better intercept time
-					double totalTime = Resources.getTime() - targetedSnapshot.getTime() + improvedTimeToIntercept;
-					double travelDistance = targetedSnapshot.getVelocity() * totalTime;
-					Point2D.Double improvedInterceptPos = RCMath.getLocation(
-							targetedSnapshot.getX(), targetedSnapshot.getY(), 
-							travelDistance, targetedSnapshot.getHeadingRoboDegrees());
-					// calculate improved fire power and bullet speed
-					double myShieldingShotTravelDistance = RCMath.getDistanceBetweenPoints(
-							robotProxy.getX(), robotProxy.getY(), improvedInterceptPos.x, improvedInterceptPos.y);
-					//System.out.println("Intercept dist: " + Logger.format(intercept.getDistanceToIntercept(), 2) + "; Improved dist: " + Logger.format(myShieldingShotTravelDistance, 2));
-					double improvedBulletSpeed = myShieldingShotTravelDistance / improvedTimeToIntercept;
-					double improvedFirePower = RCPhysics.getBulletPower(improvedBulletSpeed);
-					if (improvedFirePower <= mfp) {
-						// better power allowable, calculate new intercept
-						LinearIntercept improvedIntercept = Linear.calculateTrajectory(targetedSnapshot, 
-								robotProxy.getX(), robotProxy.getY(), improvedBulletSpeed, 
-								robotProxy.getBattleFieldSize(), Resources.getTime());		
-						if (improvedIntercept != null) {
-							intercept = improvedIntercept;
-							firePower = improvedFirePower;
-							firePowerAdjustedCount++;
-						}
-					}
-				}
-				totalCount++;
-				// return the aim
-				//System.out.println("Ideal fire power is set to " + Logger.format(improvedFirePower, 2));
-				return new Aim(intercept.getVelocityVector().getRoboAngle(), firePower);
+		if (targetedWave != null && controller.requestAuthorizationToFire()) {
+			Aim aim = getInterceptAim(target);
+			if (aim != null) {
+				return aim;
 			} else {
 				// can't compute intercept; throw away the wave in order to move onto the next
 				reset();
@@ -201,9 +204,88 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 		return null;
 	}
 
+	/**
+	 * Returns the aim for intercepting the bullet of the targeted wave, assuming
+	 * the bullet travels along the targeted aim.  The time to intercept is solved
+	 * in closed form for a bullet of minimum power; the time is then rounded to 
+	 * the middle of a tick, and if a higher power bullet (up to the maximum 
+	 * allowed) could reach the opponent bullet's position at that time, that power is used
+	 * and the gun is aimed straight at that position.
+	 * 
+	 * @param target    opponent snapshot
+	 * 
+	 * @return          aim for intercepting opponent bullet, or null if no intercept possible
+	 */
+	private Aim getInterceptAim(Snapshot target) {
+		long time = Resources.getTime();
+		double myX = robotProxy.getX();
+		double myY = robotProxy.getY();
+		// opponent bullet velocity components and current position (wave is treated as fired 1 tick prior to origin time)
+		double vb = targetedWave.getBulletVelocity();
+		double ux = vb * Math.sin(targetedAim);
+		double uy = vb * Math.cos(targetedAim);
+		double elapsed = time - (targetedWave.getOriginTime() - 1);
+		double bx = targetedWave.getOriginX() + ux * elapsed;
+		double by = targetedWave.getOriginY() + uy * elapsed;
+		// solve |(b - me) + u*t| = v*t for smallest positive t
+		double dx = bx - myX;
+		double dy = by - myY;
+		double v = RCPhysics.MAX_BULLET_VELOCITY;
+		double a = ux*ux + uy*uy - v*v;
+		double b = 2 * (dx*ux + dy*uy);
+		double c = dx*dx + dy*dy;
+		double t = -1;
+		if (Math.abs(a) < 1E-9) {
+			if (b < 0) {
+				t = -c / b;
+			}
+		} else {
+			double disc = b*b - 4*a*c;
+			if (disc >= 0) {
+				double sqrtDisc = Math.sqrt(disc);
+				double t1 = (-b - sqrtDisc) / (2*a);
+				double t2 = (-b + sqrtDisc) / (2*a);
+				t = (t1 > 0 && (t2 <= 0 || t1 < t2))? t1 : t2;
+			}
+		}
+		if (t <= 0) {
+			return null;
+		}
+		double ix = bx + ux * t;
+		double iy = by + uy * t;
+		Rectangle2D.Double bounds = robotProxy.getBattleFieldSize();
+		if (!bounds.contains(ix, iy)) {
+			// opponent bullet will hit the wall before it can be intercepted
+			return null;
+		}
+		double firePower = RCPhysics.MIN_FIRE_POWER;
+		double mfp = Math.min(maxFirePower, targetedWave.getBulletPower());
+		if (mfp > firePower && robotProxy.getEnergy() >= target.getEnergy()) {
+			// calculate better intercept time (note that we can't make the time lower; original calculation was done with max bullet velocity)
+			double improvedTimeToIntercept = Math.floor(t) + 0.5;
+			if (improvedTimeToIntercept < t) {
+				improvedTimeToIntercept++;
+			}
+			double improvedX = bx + ux * improvedTimeToIntercept;
+			double improvedY = by + uy * improvedTimeToIntercept;
+			double improvedBulletSpeed = RCMath.getDistanceBetweenPoints(myX, myY, improvedX, improvedY) / improvedTimeToIntercept;
+			double improvedFirePower = RCPhysics.getBulletPower(improvedBulletSpeed);
+			if (improvedFirePower <= mfp && improvedFirePower >= RCPhysics.MIN_FIRE_POWER && bounds.contains(improvedX, improvedY)) {
+				// a bullet of this speed aimed at the improved position reaches it at the improved time
+				ix = improvedX;
+				iy = improvedY;
+				firePower = improvedFirePower;
+				firePowerAdjustedCount++;
+			}
+		}
+		totalCount++;
+		return new Aim(RCMath.getRobocodeAngle(myX, myY, ix, iy), firePower);
+	}
+	
 	private void updateMatches(Wave wave, Bullet bullet) {
-		double[] aims = waveAims.get(wave);
-		if (aims != null) {
+		int slot = getSlot(wave);
+		if (slot >= 0) {
+			double[] aims = slotAims[slot];
 			double actualAim = bullet.getHeadingRadians();
 //			log.info("actual aim: " + Logger.format(actualAim, 4) + "; aims: " + Logger.format(aims, 4));
 //			double[] diffs = new double[aims.length];
@@ -216,8 +298,8 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 					bulletTargeterMatches[i]++;
 				}
 			}
-			waveAims.remove(wave);
-			selectedAims.remove(wave);
+			slotWaves[slot] = null;
+			slotSelectedAims[slot] = -1;
 		}
 	}
 	
@@ -265,7 +347,7 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 	@Override
 	public void oppWaveCreated(Wave wave) {
 		fireCheck++;
-		// no action required
+		addSlot(wave);
 	}
 
 	@Override
@@ -305,8 +387,7 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 
 	@Override
 	public void oppWaveDestroyed(Wave wave) {
-		waveAims.remove(wave);
-		selectedAims.remove(wave);
+		freeSlot(wave);
 	}
 
 	@Override
@@ -316,9 +397,9 @@ public class BulletShieldingGun extends AbstractGun implements MyWaveListener, O
 
 	@Override
 	public void shieldingShotMissed(XBulletWave myWave, Wave opponentWave) {
-		Integer aimIdx = selectedAims.get(opponentWave);
-		if (aimIdx != null) {
-			lastMissIdx = aimIdx.intValue();
+		int slot = getSlot(opponentWave);
+		if (slot >= 0 && slotSelectedAims[slot] >= 0) {
+			lastMissIdx = slotSelectedAims[slot];
 		}
 	}
 }
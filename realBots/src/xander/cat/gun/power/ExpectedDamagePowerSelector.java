@@ -0,0 +1,172 @@
+package xander.cat.gun.power;
+
+import xander.core.Resources;
+import xander.core.gun.power.PowerSelector;
+import xander.core.math.RCPhysics;
+import xander.core.track.GunCounters;
+import xander.core.track.GunStats;
+import xander.core.track.HitCounter;
+import xander.core.track.Snapshot;
+
+/**
+ * Power selector that chooses the fire power expected to give the best energy
+ * gain against the opponent per tick of gun heat.  For a given power, a hit
+ * gains the bullet damage against the opponent plus the energy regained,
+ * every shot costs the bullet power, and the gun heat generated determines
+ * how often shots can be made.
+ *
+ * Hit probability is looked up by bullet flight time (distance over bullet
+ * speed), which lets data collected at one power inform the others.  The hit
+ * ratios by flight time are taken from GunStats for the given gun, blended 
+ * with a rough prior for flight times that have little data.  The best power
+ * for each distance is only recomputed when the gun stats have changed, so 
+ * selecting a power is a single table lookup.
+ */
+public class ExpectedDamagePowerSelector implements PowerSelector {
+
+	private static final double DISTANCE_SEGMENT_WIDTH = 50;
+	private static final int DISTANCE_SEGMENTS = 26;
+
+	private String gunName;
+	private double[] firePowers;
+	private double minPower = RCPhysics.MAX_FIRE_POWER;
+	private double maxPower = RCPhysics.MIN_FIRE_POWER;
+	private double priorWeight = 5;    // number of shots the prior hit probability is worth
+	private double[] bestFirePowers = new double[DISTANCE_SEGMENTS];
+	private double[] flightTimeHitRatios = new double[GunCounters.FLIGHT_TIME_SEGMENTS];
+	private int lastStatsVersion = -1;
+	private GunStats gunStats;
+
+	/**
+	 * Constructs a new expected damage power selector choosing from powers
+	 * 0.1, 0.5, 1.0, 1.5, 1.95, 2.5 and 3.0.
+	 *
+	 * @param gunName    name of gun whose hit ratios are used
+	 */
+	public ExpectedDamagePowerSelector(String gunName) {
+		this(gunName, new double[] {0.1, 0.5, 1.0, 1.5, 1.95, 2.5, 3.0});
+	}
+
+	/**
+	 * Constructs a new expected damage power selector.
+	 *
+	 * @param gunName       name of gun whose hit ratios are used
+	 * @param firePowers    fire powers to choose from
+	 */
+	public ExpectedDamagePowerSelector(String gunName, double[] firePowers) {
+		this.gunName = gunName;
+		this.firePowers = firePowers.clone();
+		for (int i=0; i<firePowers.length; i++) {
+			minPower = Math.min(minPower, firePowers[i]);
+			maxPower = Math.max(maxPower, firePowers[i]);
+		}
+		rebuild(null);
+	}
+
+	public void setPriorWeight(double priorWeight) {
+		this.priorWeight = priorWeight;
+		this.lastStatsVersion = -1;
+		rebuild(null);
+	}
+
+	/**
+	 * Returns a rough prior hit probability for a bullet with the given flight
+	 * time, assuming the target can end up anywhere it could drive to in that
+	 * time with equal likelihood.
+	 *
+	 * @param flightTime    bullet flight time in ticks
+	 *
+	 * @return              prior hit probability
+	 */
+	private static double getPriorHitProbability(double flightTime) {
+		return Math.min(1, RCPhysics.ROBOT_WIDTH / (2 * RCPhysics.MAX_SPEED * flightTime + RCPhysics.ROBOT_WIDTH));
+	}
+
+	/**
+	 * Returns the expected energy gain against the opponent per tick of gun heat
+	 * for bullets of the given power and hit probability.
+	 *
+	 * @param power             bullet power
+	 * @param hitProbability    probability that the bullet hits
+	 *
+	 * @return                  expected energy gain per tick of gun heat
+	 */
+	public static double getExpectedEnergyGainRate(double power, double hitProbability) {
+		double gain = hitProbability * (RCPhysics.getBulletDamage(power) + RCPhysics.getEnergyRegained(power)) - power;
+		return gain / RCPhysics.getGunHeatGenerated(power);
+	}
+
+	/**
+	 * Returns the current hit probability estimate for a bullet of the given
+	 * power fired from the given distance.
+	 *
+	 * @param distance    distance to target
+	 * @param power       bullet power
+	 *
+	 * @return            hit probability
+	 */
+	public double getHitProbability(double distance, double power) {
+		double flightTime = distance / RCPhysics.getBulletVelocity(power);
+		return flightTimeHitRatios[GunCounters.getFlightTimeSegment(flightTime)];
+	}
+
+	private void rebuild(GunCounters counters) {
+		for (int f=0; f<flightTimeHitRatios.length; f++) {
+			double prior = getPriorHitProbability((f + 0.5) * GunCounters.FLIGHT_TIME_SEGMENT_WIDTH);
+			double hits = 0;
+			double actioned = 0;
+			if (counters != null) {
+				HitCounter counter = counters.getFlightTimeCounter(f);
+				hits = counter.getHits();
+				actioned = counter.getActioned();
+			}
+			flightTimeHitRatios[f] = (hits + priorWeight * prior) / (actioned + priorWeight);
+		}
+		for (int d=0; d<DISTANCE_SEGMENTS; d++) {
+			double distance = (d + 0.5) * DISTANCE_SEGMENT_WIDTH;
+			double bestRate = Double.NEGATIVE_INFINITY;
+			for (int p=0; p<firePowers.length; p++) {
+				double flightTime = distance / RCPhysics.getBulletVelocity(firePowers[p]);
+				double hitProbability = flightTimeHitRatios[GunCounters.getFlightTimeSegment(flightTime)];
+				double rate = getExpectedEnergyGainRate(firePowers[p], hitProbability);
+				if (rate > bestRate) {
+					bestRate = rate;
+					bestFirePowers[d] = firePowers[p];
+				}
+			}
+		}
+	}
+
+	@Override
+	public double getFirePower(Snapshot target) {
+		if (gunStats == null) {
+			this.gunStats = Resources.getGunStats();
+		}
+		GunCounters counters = gunStats.getGunCounters(gunName);
+		if (counters != null) {
+			HitCounter virtual = counters.getVirtual();
+			int statsVersion = virtual.getHits() + virtual.getFired();
+			if (statsVersion != lastStatsVersion) {
+				rebuild(counters);
+				lastStatsVersion = statsVersion;
+			}
+		}
+		int d = Math.min(DISTANCE_SEGMENTS-1, (int)(target.getDistance() / DISTANCE_SEGMENT_WIDTH));
+		return bestFirePowers[d];
+	}
+
+	@Override
+	public double getMinimumPower() {
+		return minPower;
+	}
+
+	@Override
+	public double getMaximumPower() {
+		return maxPower;
+	}
+
+	@Override
+	public boolean isAutoAdjustAllowed() {
+		return true;
+	}
+}
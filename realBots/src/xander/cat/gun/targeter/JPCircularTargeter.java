@@ -1,9 +1,10 @@
 package xander.cat.gun.targeter;
 
-import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
 
 import xander.core.Resources;
 import xander.core.gun.targeter.Targeter;
+import xander.core.math.ArcIntercept;
 import xander.core.math.RCMath;
 import xander.core.track.Snapshot;
 import xander.core.track.SnapshotHistory;
@@ -20,10 +21,12 @@ import xander.core.track.Wave;
 public class JPCircularTargeter implements Targeter {
 
 	private SnapshotHistory snapshotHistory;
+	private Rectangle2D.Double battleFieldBounds;
 	private int tMinus;
 	
 	public JPCircularTargeter(int tMinus) {
 		this.snapshotHistory = Resources.getSnapshotHistory();
+		this.battleFieldBounds = Resources.getRobotProxy().getBattleFieldSize();
 		this.tMinus = tMinus;
 	}
 	
@@ -43,18 +46,11 @@ public class JPCircularTargeter implements Targeter {
 		if (targetTM1 == null) {
 			targetTM1 = target;
 		}
-		double distance = 0;
-		double angleRadians = targetTM1.getHeadingRoboRadians();
-		double radianTurn = target.getHeadingRoboRadians() - targetTM1.getHeadingRoboRadians();
-		double x = target.getX() - myself.getX();
-		double y = target.getY() - myself.getY();
-		do {
-			distance += wave.getBulletVelocity();
-			angleRadians += radianTurn;
-			x += target.getVelocity()*Math.sin(angleRadians);
-			y += target.getVelocity()*Math.cos(angleRadians);
-		} while (distance < Point2D.distance(0, 0, x, y));
-		double aim = RCMath.normalizeDegrees(Math.toDegrees(Math.atan2(x, y)));
+		long timeDiff = Math.max(1, target.getTime() - targetTM1.getTime());
+		double turnRate = Math.toRadians(RCMath.getTurnAngle(targetTM1.getHeadingRoboDegrees(), target.getHeadingRoboDegrees())) / timeDiff;
+		double aim = ArcIntercept.getAim(myself.getX(), myself.getY(), target.getX(), target.getY(),
+				target.getHeadingRoboRadians(), target.getVelocity(), turnRate, 
+				wave.getBulletVelocity(), battleFieldBounds);
 		//System.out.println("AIM: " + Logger.format(aim) + "; tm0h=" + Logger.format(target.getHeadingRoboDegrees()) + "; tm1h=" + Logger.format(targetTM1.getHeadingRoboDegrees()) + "; time=" + target.getTime() + "; lastTime=" + targetTM1.getTime());
 		return aim;
 	}
@@ -0,0 +1,258 @@
+package xander.cat.radar;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import robocode.DeathEvent;
+import robocode.RobotDeathEvent;
+import robocode.ScannedRobotEvent;
+import robocode.WinEvent;
+import xander.core.Resources;
+import xander.core.RobotProxy;
+import xander.core.event.ScannedRobotListener;
+import xander.core.event.SurvivalListener;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.radar.Radar;
+import xander.core.radar.RadarController;
+import xander.core.track.Snapshot;
+import xander.core.track.TargetSelector;
+
+/**
+ * Melee radar that keeps the data on every opponent as fresh as possible.
+ *
+ * The time and position of the last scan of each opponent are kept in
+ * primitive arrays.  Each tick, the smallest arc containing all living
+ * opponents is found (everything but the largest gap between opponents), and
+ * the radar is turned towards the opponent with the stalest data without
+ * ever sweeping through the empty gap.  Until every opponent has been seen,
+ * the radar spins.  When the gun is about to fire, the radar locks on to the
+ * target for those few ticks so the gun aims on fresh data.
+ *
+ * The target returned is the best target of the TargetSelector.
+ */
+public class MeleeRadar implements Radar, ScannedRobotListener, SurvivalListener {
+
+	private static final int INITIAL_CAPACITY = 10;
+
+	private RobotProxy robotProxy;
+	private TargetSelector targetSelector;
+	private double overshoot = 10;     // degrees to sweep beyond the robot being scanned
+	private int lockTicks = 2;         // ticks before gun is cool during which radar locks on target
+	private Map<String, Integer> slots = new HashMap<String, Integer>();
+	private String[] names = new String[INITIAL_CAPACITY];
+	private long[] scanTimes = new long[INITIAL_CAPACITY];
+	private double[] xs = new double[INITIAL_CAPACITY];
+	private double[] ys = new double[INITIAL_CAPACITY];
+	private boolean[] alive = new boolean[INITIAL_CAPACITY];
+	private double[] bearings = new double[INITIAL_CAPACITY];
+	private int[] order = new int[INITIAL_CAPACITY];
+	private int spinDirection = 1;
+
+	public MeleeRadar() {
+		this.robotProxy = Resources.getRobotProxy();
+		this.targetSelector = Resources.getTargetSelector();
+		Resources.getRobotEvents().addScannedRobotListener(this);
+		Resources.getRobotEvents().addSurvivalListener(this);
+	}
+
+	public void setOvershoot(double overshootDegrees) {
+		this.overshoot = overshootDegrees;
+	}
+
+	/**
+	 * Sets the number of ticks before the gun is cool during which the radar
+	 * locks on to the target.  A value of 0 disables locking.
+	 *
+	 * @param lockTicks    ticks to lock on to target before firing
+	 */
+	public void setLockTicks(int lockTicks) {
+		this.lockTicks = lockTicks;
+	}
+
+	@Override
+	public String getName() {
+		return "Melee Radar";
+	}
+
+	@Override
+	public void onRoundBegin() {
+		for (int i=0; i<slots.size(); i++) {
+			alive[i] = false;
+		}
+	}
+
+	/**
+	 * Returns the age in ticks of the data on the given opponent.
+	 *
+	 * @param robotName    name of opponent
+	 *
+	 * @return             ticks since opponent was last scanned, or -1 if never scanned this round
+	 */
+	public long getDataAge(String robotName) {
+		Integer slot = slots.get(robotName);
+		if (slot == null || !alive[slot.intValue()]) {
+			return -1;
+		}
+		return robotProxy.getTime() - scanTimes[slot.intValue()];
+	}
+
+	/**
+	 * Returns the age in ticks of the stalest data on any living opponent.
+	 *
+	 * @return    maximum data age, or -1 if no living opponent has been scanned
+	 */
+	public long getMaxDataAge() {
+		long time = robotProxy.getTime();
+		long maxAge = -1;
+		for (int i=0; i<slots.size(); i++) {
+			if (alive[i]) {
+				maxAge = Math.max(maxAge, time - scanTimes[i]);
+			}
+		}
+		return maxAge;
+	}
+
+	@Override
+	public Snapshot search(RadarController radarController) {
+		double myX = robotProxy.getX();
+		double myY = robotProxy.getY();
+		int count = 0;
+		int stalest = -1;
+		for (int i=0; i<slots.size(); i++) {
+			if (alive[i]) {
+				bearings[i] = RCMath.getRobocodeAngle(myX, myY, xs[i], ys[i]);
+				order[count++] = i;
+				if (stalest < 0 || scanTimes[i] < scanTimes[stalest]) {
+					stalest = i;
+				}
+			}
+		}
+		Snapshot target = targetSelector.getBestTargetSnapshot();
+		double radarHeading = radarController.getRadarHeadingDegrees();
+		if (count == 0 || count < robotProxy.getOthers()) {
+			// not everyone has been seen yet
+			radarController.setTurnRadarRightDegrees(spinDirection * 360);
+		} else if (target != null && lockTicks > 0 && RCPhysics.getTimeUntilGunCool() <= lockTicks) {
+			double bearing = RCMath.getRobocodeAngle(myX, myY, target.getX(), target.getY());
+			double degrees = RCMath.getTurnAngle(radarHeading, bearing);
+			degrees += (degrees < 0)? -overshoot : overshoot;
+			spinDirection = (degrees < 0)? -1 : 1;
+			radarController.setTurnRadarRightDegrees(degrees);
+		} else {
+			radarController.setTurnRadarRightDegrees(getSweep(radarHeading, count, stalest));
+		}
+		return target;
+	}
+
+	/**
+	 * Returns the radar turn, in degrees clockwise, that reaches the stalest
+	 * opponent while staying within the smallest arc containing all opponents.
+	 *
+	 * @param radarHeading    current radar heading
+	 * @param count           number of living opponents in order array
+	 * @param stalest         slot of opponent with stalest data
+	 *
+	 * @return                radar turn in degrees
+	 */
+	private double getSweep(double radarHeading, int count, int stalest) {
+		// sort opponents by bearing; there are only a few, so insertion sort
+		for (int i=1; i<count; i++) {
+			int slot = order[i];
+			int j = i - 1;
+			while (j >= 0 && bearings[order[j]] > bearings[slot]) {
+				order[j+1] = order[j];
+				j--;
+			}
+			order[j+1] = slot;
+		}
+		// arc starts just after the largest gap between consecutive bearings
+		double largestGap = 0;
+		double arcStart = bearings[order[0]];
+		for (int i=0; i<count; i++) {
+			double from = bearings[order[i]];
+			double to = bearings[order[(i+1) % count]];
+			double gap = (count == 1)? 360 : RCMath.normalizeDegrees(to - from);
+			if (gap > largestGap) {
+				largestGap = gap;
+				arcStart = to;
+			}
+		}
+		double arcExtent = 360 - largestGap;
+		double headingOffset = RCMath.normalizeDegrees(radarHeading - arcStart);
+		double targetOffset = RCMath.normalizeDegrees(bearings[stalest] - arcStart);
+		double degrees;
+		if (headingOffset <= arcExtent) {
+			degrees = targetOffset - headingOffset;
+		} else {
+			// radar is in the gap; come back through whichever end of the arc is nearer
+			double viaStart = 360 - headingOffset + targetOffset;
+			double viaEnd = targetOffset - headingOffset;
+			degrees = (viaStart < -viaEnd)? viaStart : viaEnd;
+		}
+		if (degrees == 0) {
+			degrees = spinDirection;
+		}
+		spinDirection = (degrees < 0)? -1 : 1;
+		return degrees + spinDirection * overshoot;
+	}
+
+	private int getSlot(String name) {
+		Integer slot = slots.get(name);
+		if (slot == null) {
+			int s = slots.size();
+			if (s == names.length) {
+				int length = s * 2;
+				String[] newNames = new String[length];
+				System.arraycopy(names, 0, newNames, 0, s);
+				names = newNames;
+				long[] newScanTimes = new long[length];
+				System.arraycopy(scanTimes, 0, newScanTimes, 0, s);
+				scanTimes = newScanTimes;
+				double[] newXs = new double[length];
+				System.arraycopy(xs, 0, newXs, 0, s);
+				xs = newXs;
+				double[] newYs = new double[length];
+				System.arraycopy(ys, 0, newYs, 0, s);
+				ys = newYs;
+				boolean[] newAlive = new boolean[length];
+				System.arraycopy(alive, 0, newAlive, 0, s);
+				alive = newAlive;
+				bearings = new double[length];
+				order = new int[length];
+			}
+			names[s] = name;
+			slot = Integer.valueOf(s);
+			slots.put(name, slot);
+		}
+		return slot.intValue();
+	}
+
+	@Override
+	public void onScannedRobot(ScannedRobotEvent event) {
+		int slot = getSlot(event.getName());
+		double bearing = robotProxy.getHeadingRadians() + event.getBearingRadians();
+		xs[slot] = robotProxy.getX() + event.getDistance() * Math.sin(bearing);
+		ys[slot] = robotProxy.getY() + event.getDistance() * Math.cos(bearing);
+		scanTimes[slot] = event.getTime();
+		alive[slot] = true;
+	}
+
+	@Override
+	public void onWin(WinEvent event) {
+		// no action required
+	}
+
+	@Override
+	public void onDeath(DeathEvent event) {
+		// no action required
+	}
+
+	@Override
+	public void onRobotDeath(RobotDeathEvent event) {
+		Integer slot = slots.get(event.getName());
+		if (slot != null) {
+			alive[slot.intValue()] = false;
+		}
+	}
+}
@@ -5,7 +5,6 @@ import java.awt.event.KeyEvent;
 import java.awt.event.MouseEvent;
 import java.awt.event.MouseWheelEvent;
 import java.awt.geom.Rectangle2D;
-import java.util.Map;
 
 import robocode.AdvancedRobot;
 import robocode.BattleEndedEvent;
@@ -28,6 +27,7 @@ import xander.core.gun.DisabledRobotGun;
 import xander.core.gun.Gun;
 import xander.core.gun.GunController;
 import xander.core.io.BattleStats;
+import xander.core.io.StatBlock;
 import xander.core.io.FileIO;
 import xander.core.log.Log;
 import xander.core.log.Logger;
@@ -97,11 +97,10 @@ public abstract class AbstractXanderRobot extends AdvancedRobot {
 	 * Subclasses can override this method to record stats for the opponent.
 	 * 
 	 * @param oppStats      battle stats for the opponent
-	 * @param totalBattlesAgainstOpponent  total battles for which stats have been recorded against the specific opponent, including this time
 	 * 
 	 * @returns   whether or not any values were updated
 	 */
-	protected boolean recordBattleStats(Map<String, String> oppStats, int totalBattlesAgainstOpponent) {
+	protected boolean recordBattleStats(StatBlock oppStats) {
 		// stub method for subclasses
 		return false;
 	}
@@ -110,12 +109,11 @@ public abstract class AbstractXanderRobot extends AdvancedRobot {
 	 * Record battle stats common for all opponents.  This happens at the end
 	 * of the battle for 1v1 battles only.
 	 * 
-	 * @param commonStats   common stat map
-	 * @param totalBattles  total battles for which stats have been recorded, including this time (will always be >= 1)
+	 * @param commonStats   common battle stats
 	 * 
 	 * @return    whether or not any values were updated
 	 */
-	protected boolean recordCommonBattleStats(Map<String, String> commonStats, int totalBattles) {
+	protected boolean recordCommonBattleStats(StatBlock commonStats) {
 		// stub method for subclasses
 		return false;
 	}
@@ -157,42 +155,28 @@ public abstract class AbstractXanderRobot extends AdvancedRobot {
 			BattleStats battleStats = FileIO.getBattleStats(Resources.getConfiguration());
 			if (battleStats != null && snapshotHistory.getLastOpponentScanned() != null) {
 				String opponentName = snapshotHistory.getLastOpponentScanned().getName();
-				Map<String, String> oppStats = battleStats.getStatsForRobot(opponentName, true);
-				Map<String, String> commonStats = battleStats.getCommonStats();
+				StatBlock oppStats = battleStats.getStatsForRobot(opponentName);
+				StatBlock commonStats = battleStats.getCommonStats();
 				
 				// update total battles statistic
-				int totalBattlesAgainstOpp = 1;
-				String totalBattlesAgainstOppStored = oppStats.get(STATS_KEY_TOTAL_BATTLES);
-				if (totalBattlesAgainstOppStored != null) {
-					try {
-						totalBattlesAgainstOpp += Integer.parseInt(totalBattlesAgainstOppStored);
-					} catch (Exception e) { }
-				}
-				oppStats.put(STATS_KEY_TOTAL_BATTLES, String.valueOf(totalBattlesAgainstOpp));
-				int totalBattles = 1;
-				String totalBattlesStored = commonStats.get(STATS_KEY_TOTAL_BATTLES);
-				if (totalBattlesStored != null) {
-					try {
-						totalBattles += Integer.parseInt(totalBattlesStored);
-					} catch (Exception e) { }
-				}
-				commonStats.put(STATS_KEY_TOTAL_BATTLES, String.valueOf(totalBattles));
+				oppStats.increment(STATS_KEY_TOTAL_BATTLES);
+				commonStats.increment(STATS_KEY_TOTAL_BATTLES);
 				
 				// call methods for robot to update it's own statistics
-				boolean oppStatsUpdated = recordBattleStats(oppStats, totalBattlesAgainstOpp);
-				boolean commonStatsUpdated = recordCommonBattleStats(commonStats, totalBattles);
+				boolean oppStatsUpdated = recordBattleStats(oppStats);
+				boolean commonStatsUpdated = recordCommonBattleStats(commonStats);
 				
 				// add statistics for run times, if configuration requests
 				if (Resources.getConfiguration().isSaveComponentRunTimesCommon()) {
 					commonStatsUpdated = true;
-					driveRTLogger.saveTo(commonStats, totalBattles);
-					gunRTLogger.saveTo(commonStats, totalBattles);
-					radarRTLogger.saveTo(commonStats, totalBattles);
+					driveRTLogger.saveTo(commonStats);
+					gunRTLogger.saveTo(commonStats);
+					radarRTLogger.saveTo(commonStats);
 				}
 				if (Resources.getConfiguration().isSaveComponentRunTimesIndividual()) {
-					driveRTLogger.saveTo(oppStats, totalBattlesAgainstOpp);
-					gunRTLogger.saveTo(oppStats, totalBattlesAgainstOpp);
-					radarRTLogger.saveTo(oppStats, totalBattlesAgainstOpp);
+					driveRTLogger.saveTo(oppStats);
+					gunRTLogger.saveTo(oppStats);
+					radarRTLogger.saveTo(oppStats);
 				}
 				
 				// save the battle statistics
@@ -203,6 +187,7 @@ public abstract class AbstractXanderRobot extends AdvancedRobot {
 				}
 			}
 		}
+		Logger.flush();
 	}
 
 	@Override
@@ -328,6 +313,7 @@ public abstract class AbstractXanderRobot extends AdvancedRobot {
 			log.warn("Skipped turns so far: " + skippedTurns);
 		}
 		RunTimeLogger.logAll();
+		Logger.flush();
 	}
 
 	@Override
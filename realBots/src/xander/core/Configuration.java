@@ -28,6 +28,7 @@ public class Configuration {
 	private boolean logScannedRobotEventTime             = false; // whether or not to log CPU usage for ScannedRobotEvents to the standard out at the end of each round
 	private boolean logDriveTimes                        = false; // whether or not to log drive usage data to standard out at the end of each round
 	private int rollingVirtualHitRatioDepth              = 40;    // number of data points to remember for the virtual hit ratios
+	private int[] additionalRollingVirtualHitRatioDepths = {10, 200}; // additional rolling windows to maintain for the virtual hit ratios
 	private PowerSelector disabledOpponentPowerSelector  = new FixedPowerSelector(RCPhysics.MIN_FIRE_POWER); // power selector to use for the head-on gun when auto firing on disabled opponents
 	private boolean clearBattleStatsOnNewVersion         = true;  // whether or not to clear out the saved battle stats when a new version of this robot run 
 	private boolean processNonFiringWaves                = false; 
@@ -135,6 +136,14 @@ public class Configuration {
 		this.rollingVirtualHitRatioDepth = rollingVirtualHitRatioDepth;
 	}
 
+	public int[] getAdditionalRollingVirtualHitRatioDepths() {
+		return additionalRollingVirtualHitRatioDepths;
+	}
+
+	public void setAdditionalRollingVirtualHitRatioDepths(int... additionalRollingVirtualHitRatioDepths) {
+		this.additionalRollingVirtualHitRatioDepths = additionalRollingVirtualHitRatioDepths;
+	}
+
 	public boolean isLogScannedRobotEventTime() {
 		return logScannedRobotEventTime;
 	}
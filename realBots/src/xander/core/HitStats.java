@@ -2,32 +2,58 @@ package xander.core;
 
 import robocode.*;
 import xander.core.event.BulletHitListener;
+import xander.core.event.RoundBeginListener;
 import xander.core.event.SurvivalListener;
 import xander.core.log.Log;
 import xander.core.log.Logger;
+import xander.core.math.RCPhysics;
 
 import java.util.HashMap;
 import java.util.Map;
 
 /**
  * Created by ed on 6/24/13.
+ *
+ * Threat model of the other robots, based on the bullets that hit us.
+ *
+ * Each robot has primitive counters for hits and damage, and an exponentially
+ * decayed damage rate (bullet damage per tick). Decay is applied lazily from
+ * the time of the last update, so every hit and every query is O(1). Totals
+ * over the living robots are kept alongside the per-robot values. Stats are
+ * kept for the whole battle; robots that die are left out of the totals
+ * until the next round.
  */
-public class HitStats implements BulletHitListener, SurvivalListener {
+public class HitStats implements BulletHitListener, SurvivalListener, RoundBeginListener {
 
     private static final Log log = Logger.getLog(HitStats.class);
 
     protected final static double MAX_NORMALIZED = 2.5;
 
-    int totalHits = 0;
+    private double decayTicks = 500;    // time constant of damage rate decay
+
+    int totalHits = 0;    // hits by robots currently alive
     int nOthers = 1;
 
-    Map<String, Integer> hitBy = new HashMap<String, Integer>();
-    Map<String, Double> hitRatioBy = new HashMap<String, Double>();
+    private Map<String, Integer> slots = new HashMap<String, Integer>();
+    private int[] hits = new int[8];
+    private double[] damage = new double[8];
+    private double[] damageRates = new double[8];
+    private long[] damageRateTimes = new long[8];
+    private boolean[] dead = new boolean[8];
+    private double totalDamageRate;
+    private long totalDamageRateTime;
 
     public HitStats(RobotProxy robotProxy, RobotEvents robotEvents) {
-        log.info("Initialize HitStats !");
         robotEvents.addBulletHitListener(this);
         robotEvents.addSurvivalListener(this);
+        robotEvents.addRoundBeginListener(this);
+    }
+
+    /**
+     * Sets the time constant, in ticks, of the damage rate decay.
+     */
+    public void setDecayTicks(double decayTicks) {
+        this.decayTicks = decayTicks;
     }
 
     /**
@@ -46,28 +72,117 @@ public class HitStats implements BulletHitListener, SurvivalListener {
      * @return
      */
     public double getNormalizedHitRatioBy(String aRobot) {
-        Double res = hitRatioBy.get(aRobot);
-        return res == null ?
-                (totalHits < nOthers ? 1/MAX_NORMALIZED : 0) : res;
-        // (Wait for n hits before saying a bit is not dangerous)
+        Integer slot = slots.get(aRobot);
+        if (slot == null || hits[slot.intValue()] == 0 || dead[slot.intValue()]) {
+            // (Wait for n hits before saying a bit is not dangerous)
+            return totalHits < nOthers ? 1/MAX_NORMALIZED : 0;
+        }
+        return hits[slot.intValue()] / (double) totalHits;
+    }
+
+    /**
+     * Returns the number of times we have been hit by the robot this battle.
+     */
+    public int getHitsBy(String aRobot) {
+        Integer slot = slots.get(aRobot);
+        return slot == null ? 0 : hits[slot.intValue()];
+    }
+
+    /**
+     * Returns the total bullet damage done to us by the robot this battle.
+     */
+    public double getDamageBy(String aRobot) {
+        Integer slot = slots.get(aRobot);
+        return slot == null ? 0 : damage[slot.intValue()];
+    }
+
+    /**
+     * Returns the recent bullet damage per tick done to us by the robot.
+     */
+    public double getDamageRateBy(String aRobot) {
+        Integer slot = slots.get(aRobot);
+        if (slot == null) {
+            return 0;
+        }
+        int s = slot.intValue();
+        return damageRates[s] * getDecay(damageRateTimes[s], Resources.getCumulativeTime());
+    }
+
+    /**
+     * Returns the share (0 to 1) of the recent bullet damage per tick done to
+     * us by the living robots that comes from the given robot.
+     */
+    public double getNormalizedDamageRateBy(String aRobot) {
+        double total = totalDamageRate * getDecay(totalDamageRateTime, Resources.getCumulativeTime());
+        return total <= 0 ? 0 : getDamageRateBy(aRobot) / total;
+    }
+
+    private double getDecay(long fromTime, long toTime) {
+        return Math.exp(-(toTime - fromTime) / decayTicks);
+    }
+
+    private int getSlot(String name) {
+        Integer slot = slots.get(name);
+        if (slot == null) {
+            int s = slots.size();
+            if (s == hits.length) {
+                int length = s * 2;
+                int[] newHits = new int[length];
+                System.arraycopy(hits, 0, newHits, 0, s);
+                hits = newHits;
+                damage = grow(damage, length);
+                damageRates = grow(damageRates, length);
+                long[] newTimes = new long[length];
+                System.arraycopy(damageRateTimes, 0, newTimes, 0, s);
+                damageRateTimes = newTimes;
+                boolean[] newDead = new boolean[length];
+                System.arraycopy(dead, 0, newDead, 0, s);
+                dead = newDead;
+            }
+            slot = Integer.valueOf(s);
+            slots.put(name, slot);
+        }
+        return slot.intValue();
+    }
+
+    private static double[] grow(double[] values, int length) {
+        double[] newValues = new double[length];
+        System.arraycopy(values, 0, newValues, 0, values.length);
+        return newValues;
     }
 
     @Override
     public void onHitByBullet(HitByBulletEvent event) {
-        totalHits++;
         nOthers = Resources.getRobotProxy().getOthers();
-        String enemyBot = event.getBullet().getName();
-        Integer curCount = hitBy.get(enemyBot);
-        if (curCount == null) curCount = 0; // first hit by him
-        curCount++;
-        hitBy.put(enemyBot, curCount);
-        // Update hit ratios
-        for (String otherBot : hitBy.keySet()) {
-            hitRatioBy.put(otherBot, hitBy.get(otherBot)/(double)totalHits);
+        int s = getSlot(event.getBullet().getName());
+        double bulletDamage = RCPhysics.getBulletDamage(event.getBullet().getPower());
+        long time = Resources.getCumulativeTime();
+        hits[s]++;
+        damage[s] += bulletDamage;
+        damageRates[s] = damageRates[s] * getDecay(damageRateTimes[s], time) + bulletDamage / decayTicks;
+        damageRateTimes[s] = time;
+        if (!dead[s]) {
+            totalHits++;
+            totalDamageRate = totalDamageRate * getDecay(totalDamageRateTime, time) + bulletDamage / decayTicks;
+            totalDamageRateTime = time;
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("Hit by " + event.getBullet().getName() + "; hits " + hits[s] + " of " + totalHits);
+        }
+    }
+
+    @Override
+    public void onRoundBegin() {
+        // everyone is alive again; restore their share of the totals
+        long time = Resources.getCumulativeTime();
+        totalHits = 0;
+        totalDamageRate = 0;
+        for (int i = 0; i < slots.size(); i++) {
+            dead[i] = false;
+            totalHits += hits[i];
+            totalDamageRate += damageRates[i] * getDecay(damageRateTimes[i], time);
         }
-        log.info("TotalHits: "+totalHits);
-        log.info("Hits: "+hitBy);
-        log.info("HitRatios: "+hitRatioBy);
+        totalDamageRateTime = time;
     }
 
     @Override
@@ -80,12 +195,16 @@ public class HitStats implements BulletHitListener, SurvivalListener {
 
     @Override
     public void onRobotDeath(RobotDeathEvent event) {
-        Integer hitsByDead = hitBy.get(event.getName());
-        if (hitsByDead != null) {
-            totalHits -= hitsByDead;
+        Integer slot = slots.get(event.getName());
+        if (slot != null && !dead[slot.intValue()]) {
+            int s = slot.intValue();
+            long time = Resources.getCumulativeTime();
+            dead[s] = true;
+            totalHits -= hits[s];
+            totalDamageRate = Math.max(0, totalDamageRate * getDecay(totalDamageRateTime, time)
+                    - damageRates[s] * getDecay(damageRateTimes[s], time));
+            totalDamageRateTime = time;
         }
-        hitBy.remove(event.getName());
-        hitRatioBy.remove(event.getName());
     }
 
     @Override
@@ -3,11 +3,13 @@ package xander.core;
 import teamlg.bot.RobotList;
 import xander.core.drive.DriveController;
 import xander.core.gun.GunController;
+import xander.core.io.ModelStore;
 import xander.core.radar.RadarController;
 import xander.core.track.DriveStats;
 import xander.core.track.GunStats;
 import xander.core.track.OpponentGunWatcher;
 import xander.core.track.SnapshotHistory;
+import xander.core.track.TargetSelector;
 import xander.core.track.WaveHistory;
 
 
@@ -21,6 +23,8 @@ import xander.core.track.WaveHistory;
  *   <li>WaveHistory - log of bullet waves for self and opponent.</li>
  *   <li>GunStats - variety of gun-related statistics.</li>
  *   <li>DriveStats - variety of drive-related statistics.</li>
+ *   <li>TargetSelector - ranking of opponents as targets.</li>
+ *   <li>ModelStore - learned state of components saved for each opponent between battles.</li>
  * </ul>
  * Also manages some framework-only resources, which are only available to classes 
  * within the package, including:
@@ -48,6 +52,8 @@ public class Resources {
 	private static GunStats gunStats;
 	private static DriveStats driveStats;
 	private static HitStats hitStats;
+	private static TargetSelector targetSelector;
+	private static ModelStore modelStore;
 	private static SnapshotHistory snapshotHistory;
 	private static WaveHistory waveHistory;
 	private static Configuration configuration = new Configuration();
@@ -65,6 +71,8 @@ public class Resources {
 		gunStats = new GunStats(robotProxy, waveHistory, robotEvents, configuration);
 		driveStats = new DriveStats(robotProxy, robotEvents, configuration, chain);
         hitStats = new HitStats(robotProxy, robotEvents);
+		targetSelector = new TargetSelector(robotProxy, robotEvents, snapshotHistory, hitStats);
+		modelStore = new ModelStore(robotProxy, robotEvents, snapshotHistory);
                 robotList = new RobotList();
 	}
 	
@@ -138,6 +146,14 @@ public class Resources {
         return hitStats;
     }
 
+	public static TargetSelector getTargetSelector() {
+		return targetSelector;
+	}
+
+	public static ModelStore getModelStore() {
+		return modelStore;
+	}
+
     static RadarController getRadarController() {
 		return radarController;
 	}
@@ -178,6 +178,10 @@ public class RobotProxy {
 		return robot.getDataFile(filename);
 	}
 	
+	public long getDataQuotaAvailable() {
+		return robot.getDataQuotaAvailable();
+	}
+	
 	public boolean isAdjustGunForRobotTurn() {
 		return robot.isAdjustGunForRobotTurn();
 	}
@@ -5,4 +5,6 @@ public interface GunListener {
 	public void gunFired(GunFiredEvent event);
 	
 	public void virtualGunFired(GunFiredEvent event);
+	
+	public void virtualVolleyFired(VirtualVolleyFiredEvent event);
 }
@@ -1,18 +1,22 @@
 package xander.core.event;
 
-import xander.core.track.XBulletWave;
+import xander.core.track.VirtualVolleyWave;
 
 public interface MyVirtualWaveListener {
 	
-	public void myVirtualWaveCreated(XBulletWave wave);
+	public void myVirtualWaveCreated(VirtualVolleyWave wave);
 	
-	public void myVirtualWaveHit(XBulletWave wave);
+	/**
+	 * Called when the wave reaches the target.  Whether or not each virtual
+	 * bullet in the wave hit is resolved before this method is called.
+	 * 
+	 * @param wave    virtual wave
+	 */
+	public void myVirtualWaveHit(VirtualVolleyWave wave);
 	
-	public void myVirtualBulletHit(XBulletWave wave);
+	public void myVirtualWavePassing(VirtualVolleyWave wave);
 	
-	public void myVirtualWavePassing(XBulletWave wave);
+	public void myVirtualWavePassed(VirtualVolleyWave wave);
 	
-	public void myVirtualWavePassed(XBulletWave wave);
-	
-	public void myVirtualWaveDestroyed(XBulletWave wave);
+	public void myVirtualWaveDestroyed(VirtualVolleyWave wave);
 }
@@ -0,0 +1,58 @@
+package xander.core.event;
+
+import xander.core.gun.Gun;
+import xander.core.track.Snapshot;
+
+/**
+ * Event for a group of virtual bullets fired from the same position at the 
+ * same target on the same tick, one bullet per gun.  The arrays are owned by 
+ * the gun firing the volley and are reused; listeners should copy anything 
+ * they need to keep.
+ */
+public class VirtualVolleyFiredEvent {
+
+	private Gun[] guns;
+	private double[] aims;
+	private double[] powers;
+	private int size;
+	private Snapshot mySnapshot;
+	private Snapshot opponentSnapshot;
+	
+	public VirtualVolleyFiredEvent(Gun[] guns, double[] aims, double[] powers, int size, Snapshot mySnapshot, Snapshot opponentSnapshot) {
+		this.guns = guns;
+		this.aims = aims;
+		this.powers = powers;
+		this.size = size;
+		this.mySnapshot = mySnapshot;
+		this.opponentSnapshot = opponentSnapshot;
+	}
+	
+	/**
+	 * Returns the number of virtual bullets in the volley.
+	 * 
+	 * @return    number of virtual bullets
+	 */
+	public int getSize() {
+		return size;
+	}
+	
+	public Gun getGun(int i) {
+		return guns[i];
+	}
+	
+	public double getAim(int i) {
+		return aims[i];
+	}
+	
+	public double getPower(int i) {
+		return powers[i];
+	}
+
+	public Snapshot getMySnapshot() {
+		return mySnapshot;
+	}
+
+	public Snapshot getOpponentSnapshot() {
+		return opponentSnapshot;
+	}
+}
@@ -0,0 +1,86 @@
+package xander.core.gun;
+
+import java.io.IOException;
+
+import xander.core.Resources;
+import xander.core.gun.detect.DetectorEnsemble;
+import xander.core.gun.detect.TargeterTargetingDetector;
+import xander.core.io.ModelInput;
+import xander.core.io.ModelOutput;
+import xander.core.io.PersistentModel;
+import xander.core.track.Snapshot;
+
+/**
+ * Gun selector that tests the targeter of each gun against our real waves
+ * using an offensive DetectorEnsemble, and selects the gun whose targeter
+ * would have hit the opponent most often.  The first gun is used until a 
+ * targeter has been tested on enough waves, and unless another targeter 
+ * beats the first gun's detection percentage by at least 5%.  As the ensemble works from real 
+ * waves only, guns in an array using this selector do not need to fire 
+ * virtual bullets.
+ * 
+ * Detection counts are saved for the opponent between battles by the 
+ * ModelStore, so the selector can pick a gun from the first round against an
+ * opponent it has fought before.
+ */
+public class DetectorGunSelector implements GunSelector, PersistentModel {
+
+	private DetectorEnsemble ensemble = new DetectorEnsemble(true);
+	private XanderGun[] detectedGuns;
+	private int minShots;
+	private double margin = 0.05;
+	
+	/**
+	 * Constructs a new gun selector for the given guns.  Guns must be passed to 
+	 * the gun array in the same order.
+	 * 
+	 * @param minShots    minimum waves a targeter must be tested on before its gun can be selected
+	 * @param guns        guns to select from
+	 */
+	public DetectorGunSelector(int minShots, XanderGun... guns) {
+		this.minShots = minShots;
+		this.detectedGuns = guns;
+		for (XanderGun gun : guns) {
+			new TargeterTargetingDetector(ensemble, gun.getTargeter(), 0);
+		}
+		Resources.getModelStore().register(this);
+	}
+	
+	public DetectorEnsemble getEnsemble() {
+		return ensemble;
+	}
+	
+	@Override
+	public int selectGun(Gun[] guns, Snapshot target) {
+		int best = ensemble.getBestDetectorIndex(minShots);
+		if (best < 0 || guns[best] != detectedGuns[best] || !guns[best].canFireAt(target)
+				|| ensemble.getDetectionPercentage(best) < ensemble.getDetectionPercentage(0) + margin) {
+			return 0;
+		}
+		return best;
+	}
+
+	@Override
+	public String getModelName() {
+		return "DetectorGunSelector";
+	}
+
+	@Override
+	public void writeModel(ModelOutput out) throws IOException {
+		out.writeInt(ensemble.getSize());
+		for (int i=0; i<ensemble.getSize(); i++) {
+			out.writeInt(ensemble.getHits(i));
+			out.writeInt(ensemble.getShotsTested(i));
+		}
+	}
+
+	@Override
+	public void readModel(ModelInput in) throws IOException {
+		if (in.readInt() != ensemble.getSize()) {
+			throw new IOException("Saved detection counts do not match gun count.");
+		}
+		for (int i=0; i<ensemble.getSize(); i++) {
+			ensemble.addCounts(i, in.readInt(), in.readInt());
+		}
+	}
+}
@@ -0,0 +1,267 @@
+package xander.core.gun;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import robocode.Bullet;
+import robocode.BulletHitEvent;
+
+import xander.core.Resources;
+import xander.core.event.MyVirtualWaveListener;
+import xander.core.event.MyWaveListener;
+import xander.core.event.RoundBeginListener;
+import xander.core.track.Snapshot;
+import xander.core.track.VirtualVolleyWave;
+import xander.core.track.WaveHistory;
+import xander.core.track.WaveState;
+import xander.core.track.XBulletWave;
+
+/**
+ * Gun selector that treats gun selection as a multi-armed bandit problem and
+ * selects guns using a discounted UCB (upper confidence bound) policy.  Each
+ * virtual or real bullet outcome updates the discounted hit and shot counts
+ * for the gun that fired it in constant time; older outcomes fade out at the
+ * rate of the discount factor, which lets the selector follow opponents that
+ * change their movement over the course of a battle.
+ *
+ * Because every gun in a gun array fires virtual bullets on every shot, the
+ * selector observes the outcome of every arm on every shot; the exploration
+ * term therefore only needs to be strong enough to break early ties between
+ * guns with very few resolved bullets.
+ *
+ * A real bullet usually hits the opponent's bounding box before its wave 
+ * reaches the opponent's centre.  Such a hit is held until the wave's shot 
+ * has been counted, so that, as for virtual bullets, each hit is discounted 
+ * along with its shot and not once more.
+ *
+ * Counts carry over from one round to the next.
+ */
+public class DiscountedUCBGunSelector implements GunSelector, MyVirtualWaveListener, MyWaveListener, RoundBeginListener {
+
+	private double discount;             // multiplier applied to a gun's previous counts on each new outcome
+	private double explorationWeight;    // weight of the confidence bound term
+	private Gun[] guns;                  // guns as last passed to selectGun(...)
+	private Map<String, Integer> gunIndexes = new HashMap<String, Integer>();  // only consulted once per resolved wave
+	private Map<Gun, Double> biasMap = new HashMap<Gun, Double>();
+	private double[] biases = new double[0];
+	private double[] hits = new double[0];
+	private double[] shots = new double[0];
+	private double totalShots;
+	private List<XBulletWave> pendingHitWaves = new ArrayList<XBulletWave>();  // real bullet hits whose shot is not yet counted
+
+	/**
+	 * Constructs a new discounted UCB gun selector with a discount of 0.97 and
+	 * an exploration weight of 0.3.
+	 */
+	public DiscountedUCBGunSelector() {
+		this(0.97, 0.3);
+	}
+
+	/**
+	 * Constructs a new discounted UCB gun selector.
+	 *
+	 * @param discount             discount applied to previous outcomes on each new outcome (0 to 1; 1 is no discount)
+	 * @param explorationWeight    weight of the exploration term (0 for pure greedy selection)
+	 */
+	public DiscountedUCBGunSelector(double discount, double explorationWeight) {
+		if (discount <= 0 || discount > 1) {
+			throw new IllegalArgumentException("discount must be in range (0, 1].");
+		}
+		this.discount = discount;
+		this.explorationWeight = explorationWeight;
+		WaveHistory waveHistory = Resources.getWaveHistory();
+		waveHistory.addMyVirtualWaveListener(this);
+		waveHistory.addMyWaveListener(this);
+		Resources.getRobotEvents().addRoundBeginListener(this);
+	}
+
+	public void setDiscount(double discount) {
+		this.discount = discount;
+	}
+
+	public void setExplorationWeight(double explorationWeight) {
+		this.explorationWeight = explorationWeight;
+	}
+
+	public void addBias(Gun gun, double bias) {
+		biasMap.put(gun, Double.valueOf(bias));
+		if (guns != null) {
+			for (int i=0; i<guns.length; i++) {
+				if (guns[i] == gun) {
+					biases[i] = bias;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the discounted hit ratio for the given gun, or 0 if the gun
+	 * has no resolved bullets yet.
+	 *
+	 * @param gun    gun to get the discounted hit ratio for
+	 *
+	 * @return       discounted hit ratio for gun
+	 */
+	public double getDiscountedHitRatio(Gun gun) {
+		if (guns != null) {
+			for (int i=0; i<guns.length; i++) {
+				if (guns[i] == gun) {
+					return (shots[i] > 0)? hits[i] / shots[i] : 0;
+				}
+			}
+		}
+		return 0;
+	}
+
+	private void index(Gun[] guns) {
+		this.guns = guns;
+		double[] oldHits = hits;
+		double[] oldShots = shots;
+		Map<String, Integer> oldIndexes = gunIndexes;
+		this.gunIndexes = new HashMap<String, Integer>();
+		this.hits = new double[guns.length];
+		this.shots = new double[guns.length];
+		this.biases = new double[guns.length];
+		this.totalShots = 0;
+		for (int i=0; i<guns.length; i++) {
+			String gunName = guns[i].getName();
+			Integer oldIndex = oldIndexes.get(gunName);
+			if (oldIndex != null) {
+				hits[i] = oldHits[oldIndex.intValue()];
+				shots[i] = oldShots[oldIndex.intValue()];
+				totalShots += shots[i];
+			}
+			gunIndexes.put(gunName, Integer.valueOf(i));
+			Double bias = biasMap.get(guns[i]);
+			biases[i] = (bias == null)? 0 : bias.doubleValue();
+		}
+	}
+
+	private int getGunIndex(String gunName) {
+		Integer idx = gunIndexes.get(gunName);
+		return (idx == null)? -1 : idx.intValue();
+	}
+
+	private void addShot(String gunName) {
+		int i = getGunIndex(gunName);
+		if (i >= 0) {
+			double discountedShots = shots[i] * discount;
+			totalShots += (discountedShots + 1) - shots[i];
+			shots[i] = discountedShots + 1;
+			hits[i] *= discount;
+		}
+	}
+
+	private void addHit(String gunName) {
+		int i = getGunIndex(gunName);
+		if (i >= 0) {
+			hits[i] += 1;
+		}
+	}
+
+	@Override
+	public int selectGun(Gun[] guns, Snapshot target) {
+		if (guns != this.guns) {
+			index(guns);
+		}
+		double logTotal = Math.log(Math.max(1, totalShots));
+		int sGunIndex = 0;
+		double sScore = Double.NEGATIVE_INFINITY;
+		for (int i=0; i<guns.length; i++) {
+			if (guns[i].canFireAt(target)) {
+				double score;
+				if (shots[i] < 1) {
+					// untested gun; try it before any gun with resolved bullets
+					score = Double.POSITIVE_INFINITY;
+				} else {
+					score = hits[i] / shots[i] + explorationWeight * Math.sqrt(logTotal / shots[i]) + biases[i];
+				}
+				if (score > sScore) {
+					sGunIndex = i;
+					sScore = score;
+				}
+			}
+		}
+		return sGunIndex;
+	}
+
+	@Override
+	public void myVirtualWaveCreated(VirtualVolleyWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void myVirtualWaveHit(VirtualVolleyWave wave) {
+		for (int i=0; i<wave.getSize(); i++) {
+			addShot(wave.getGunName(i));
+			if (wave.isBulletHit(i)) {
+				addHit(wave.getGunName(i));
+			}
+		}
+	}
+
+	@Override
+	public void myVirtualWavePassing(VirtualVolleyWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void myVirtualWavePassed(VirtualVolleyWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void myVirtualWaveDestroyed(VirtualVolleyWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveCreated(XBulletWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveHitBullet(XBulletWave wave, Bullet myBullet) {
+		// interference; bullet neither hit nor missed
+	}
+
+	@Override
+	public void myWaveHit(XBulletWave wave, Snapshot opponentSnapshot) {
+		addShot(wave.getGunName());
+		if (pendingHitWaves.remove(wave)) {
+			addHit(wave.getGunName());
+		}
+	}
+
+	@Override
+	public void myBulletHit(XBulletWave wave, BulletHitEvent bulletHitEvent) {
+		if (wave.getState() == WaveState.LEADING) {
+			pendingHitWaves.add(wave);  // counted with the shot when the wave hits
+		} else {
+			addHit(wave.getGunName());
+		}
+	}
+
+	@Override
+	public void myWavePassing(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWavePassed(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveDestroyed(XBulletWave wave) {
+		pendingHitWaves.remove(wave);
+	}
+
+	@Override
+	public void onRoundBegin() {
+		// waves from the last round are cleared without being destroyed
+		pendingHitWaves.clear();
+	}
+}
@@ -0,0 +1,156 @@
+package xander.core.gun;
+
+import xander.core.Resources;
+import xander.core.gun.power.PowerSelector;
+import xander.core.track.Snapshot;
+import xander.core.track.Wave;
+
+/**
+ * Fire-time data that is common to all guns aiming at the same target on the
+ * same tick:  the snapshots of self and target advanced to the next tick, the
+ * fire power chosen by each power selector, and the wave for each fire power.
+ * When a gun array aims every one of its guns on the same tick, this allows
+ * the snapshots to be advanced, the power selectors to be queried, and the
+ * waves (with their MEA) to be created only once rather than once per gun.
+ *
+ * A single context instance is reused from one tick to the next; data
+ * obtained from it should not be held onto beyond the current tick.
+ */
+public class FireContext {
+
+	private static final int MAX_CACHED = 8;
+	private static final FireContext fireContext = new FireContext();
+
+	private long time = -1;
+	private Snapshot target;
+	private Snapshot myself;
+	private Snapshot targetP1;
+	private Snapshot myselfP1;
+	private PowerSelector[] powerSelectors = new PowerSelector[MAX_CACHED];
+	private double[] selectorPowers = new double[MAX_CACHED];
+	private int powerSelectorCount;
+	private double[] wavePowers = new double[MAX_CACHED];
+	private Wave[] waves = new Wave[MAX_CACHED];
+	private int waveCount;
+
+	private FireContext() {
+	}
+
+	/**
+	 * Returns the fire context for the given target and self snapshots on the
+	 * current tick.  Repeated calls with the same snapshots on the same tick
+	 * return the same context, with any already computed data intact.
+	 *
+	 * @param target    snapshot of target
+	 * @param myself    snapshot of self
+	 *
+	 * @return          fire context for the current tick
+	 */
+	public static FireContext getFireContext(Snapshot target, Snapshot myself) {
+		long time = Resources.getTime();
+		if (fireContext.time != time || fireContext.target != target || fireContext.myself != myself) {
+			fireContext.reset(target, myself, time);
+		}
+		return fireContext;
+	}
+
+	private void reset(Snapshot target, Snapshot myself, long time) {
+		this.time = time;
+		this.target = target;
+		this.myself = myself;
+		this.targetP1 = null;
+		this.myselfP1 = null;
+		for (int i=0; i<powerSelectorCount; i++) {
+			powerSelectors[i] = null;
+		}
+		this.powerSelectorCount = 0;
+		for (int i=0; i<waveCount; i++) {
+			waves[i] = null;
+		}
+		this.waveCount = 0;
+	}
+
+	public long getTime() {
+		return time;
+	}
+
+	public Snapshot getTarget() {
+		return target;
+	}
+
+	public Snapshot getMyself() {
+		return myself;
+	}
+
+	/**
+	 * Returns the target snapshot advanced one tick.
+	 *
+	 * @return    target snapshot advanced one tick
+	 */
+	public Snapshot getTargetP1() {
+		if (targetP1 == null) {
+			targetP1 = target.advance(myself.getX(), myself.getY());
+		}
+		return targetP1;
+	}
+
+	/**
+	 * Returns the self snapshot advanced one tick.
+	 *
+	 * @return    self snapshot advanced one tick
+	 */
+	public Snapshot getMyselfP1() {
+		if (myselfP1 == null) {
+			double[] myNextXY = myself.getNextXY();  // will keep distance at 0 for self
+			myselfP1 = myself.advance(myNextXY[0], myNextXY[1]);
+		}
+		return myselfP1;
+	}
+
+	/**
+	 * Returns the fire power the given power selector chooses for the advanced
+	 * target snapshot.  Each power selector is only queried once per tick.
+	 *
+	 * @param powerSelector    power selector
+	 *
+	 * @return                 fire power chosen by power selector
+	 */
+	public double getFirePower(PowerSelector powerSelector) {
+		for (int i=0; i<powerSelectorCount; i++) {
+			if (powerSelectors[i] == powerSelector) {
+				return selectorPowers[i];
+			}
+		}
+		double firePower = powerSelector.getFirePower(getTargetP1());
+		if (powerSelectorCount < MAX_CACHED) {
+			powerSelectors[powerSelectorCount] = powerSelector;
+			selectorPowers[powerSelectorCount] = firePower;
+			powerSelectorCount++;
+		}
+		return firePower;
+	}
+
+	/**
+	 * Returns the wave for a bullet of the given power fired from self at the
+	 * target on this tick.  The wave for each distinct power is only created
+	 * once per tick.
+	 *
+	 * @param firePower    bullet power
+	 *
+	 * @return             wave for bullet of given power
+	 */
+	public Wave getWave(double firePower) {
+		for (int i=0; i<waveCount; i++) {
+			if (wavePowers[i] == firePower) {
+				return waves[i];
+			}
+		}
+		Wave wave = Resources.getWaveHistory().createWave(target, myself, firePower, time, false);
+		if (waveCount < MAX_CACHED) {
+			wavePowers[waveCount] = firePower;
+			waves[waveCount] = wave;
+			waveCount++;
+		}
+		return wave;
+	}
+}
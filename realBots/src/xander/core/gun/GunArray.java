@@ -8,6 +8,9 @@ public class GunArray implements Gun {
 	private int activeGunIndex;
 	private boolean fireVirtualBullets = true;
 	private GunSelector gunSelector;
+	private Gun[] volleyGuns;
+	private double[] volleyAims;
+	private double[] volleyPowers;
 	
 	/**
 	 * Constructs a new GunArray using the given gun selector and guns.
@@ -21,29 +24,29 @@ public class GunArray implements Gun {
 	}
 
 	/**
-	 * Constructs a new GunArray that selects a gun based on which has
-	 * the best virtual hit ratio.
+	 * Constructs a new GunArray that selects a gun using a discounted UCB
+	 * policy over the guns' virtual and real bullet outcomes.
 	 * 
 	 * @param guns    guns in the array
 	 */
 	public GunArray(Gun... guns) {
-		this(new VirtualHitRatioGunSelector(), guns);
+		this(new DiscountedUCBGunSelector(), guns);
 	}
 	
 	/**
-	 * Constructs a new GunArray that selects a gun based on which has
-	 * the best virtual hit ratio, adding the given biases for the guns
-	 * hit ratios.  
+	 * Constructs a new GunArray that selects a gun using a discounted UCB
+	 * policy, adding the given biases for the guns hit ratios.  
 	 * 
 	 * @param guns         guns in the array
 	 * @param gunBiases    baises for guns 
 	 */
 	public GunArray(Gun[] guns, double[] gunBiases) {
-		this.gunSelector = new VirtualHitRatioGunSelector();
-		this.guns = guns;
+		DiscountedUCBGunSelector ucbGunSelector = new DiscountedUCBGunSelector();
 		for (int i=0; i<guns.length; i++) {
-			((VirtualHitRatioGunSelector)gunSelector).addBias(guns[i], gunBiases[i]);
+			ucbGunSelector.addBias(guns[i], gunBiases[i]);
 		}
+		this.gunSelector = ucbGunSelector;
+		this.guns = guns;
 	}
 	
 	public boolean isFireVirtualBullets() {
@@ -72,16 +75,25 @@ public class GunArray implements Gun {
 		activeGunIndex = gunSelector.selectGun(guns, target);
 		boolean bulletFired = guns[activeGunIndex].fireAt(target, myself, gunController);	
 		if (bulletFired && fireVirtualBullets) {
+			// guns share one fire context for this tick, and all virtual bullets go out as one volley
+			if (volleyGuns == null) {
+				volleyGuns = new Gun[guns.length];
+				volleyAims = new double[guns.length];
+				volleyPowers = new double[guns.length];
+			}
+			int volleySize = 0;
 			for (int i=0; i<guns.length; i++) {
 				if (i != activeGunIndex && guns[i].canFireAt(target)) {
 					Aim aim = guns[i].getAim(target, myself);
 					if (aim != null) {
-						gunController.setFireVirtualBullet(
-								guns[i], aim.getHeading(), aim.getFirePower(), 
-								myself, target);
+						volleyGuns[volleySize] = guns[i];
+						volleyAims[volleySize] = aim.getHeading();
+						volleyPowers[volleySize] = aim.getFirePower();
+						volleySize++;
 					}
 				}
 			}
+			gunController.setFireVirtualBullets(volleyGuns, volleyAims, volleyPowers, volleySize, myself, target);
 		}
 		return bulletFired;
 	}
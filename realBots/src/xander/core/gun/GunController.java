@@ -8,6 +8,7 @@ import robocode.Bullet;
 import xander.core.AbstractXanderRobot;
 import xander.core.event.GunFiredEvent;
 import xander.core.event.GunListener;
+import xander.core.event.VirtualVolleyFiredEvent;
 import xander.core.track.Snapshot;
 
 public class GunController {
@@ -42,6 +43,26 @@ public class GunController {
 			gunListener.virtualGunFired(event);
 		}
 	}
+
+	/**
+	 * Fires a group of virtual bullets from the same position at the same target, 
+	 * one per gun.  Only the first size elements of each array are used.
+	 * 
+	 * @param guns               guns firing the virtual bullets
+	 * @param aims               aim headings for each gun
+	 * @param powers             bullet powers for each gun
+	 * @param size               number of virtual bullets
+	 * @param mySnapshot         snapshot of self
+	 * @param opponentSnapshot   snapshot of target
+	 */
+	public void setFireVirtualBullets(Gun[] guns, double[] aims, double[] powers, int size, Snapshot mySnapshot, Snapshot opponentSnapshot) {
+		if (size > 0) {
+			VirtualVolleyFiredEvent event = new VirtualVolleyFiredEvent(guns, aims, powers, size, mySnapshot, opponentSnapshot);
+			for (GunListener gunListener : gunListeners) {
+				gunListener.virtualVolleyFired(event);
+			}
+		}
+	}
 	
 	/**
 	 * Returns true if gun heat is dissipated and gun turn remaining is negligible.
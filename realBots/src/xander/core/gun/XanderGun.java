@@ -1,6 +1,5 @@
 package xander.core.gun;
 
-import xander.core.Resources;
 import xander.core.gun.power.PowerSelector;
 import xander.core.gun.targeter.Targeter;
 import xander.core.log.Log;
@@ -8,7 +7,6 @@ import xander.core.log.Logger;
 import xander.core.math.RCPhysics;
 import xander.core.track.Snapshot;
 import xander.core.track.Wave;
-import xander.core.track.WaveHistory;
 
 /**
  * Primary Xander framework gun that relies on using a Targeter and a PowerSelector.
@@ -21,7 +19,6 @@ public class XanderGun extends AbstractGun {
 	
 	private Targeter targeter;
 	private PowerSelector powerSelector;
-	private WaveHistory waveHistory;
 	private String gunName;
 	private double minEnergyToFire = 0.5d;
 	private double lowEnergyConservationRate = 1d;
@@ -30,13 +27,16 @@ public class XanderGun extends AbstractGun {
 		this.gunName = gunName;
 		this.targeter = targeter;
 		this.powerSelector = powerSelector;
-		this.waveHistory = Resources.getWaveHistory();
 	}
 	
 	public XanderGun(Targeter targeter, PowerSelector powerSelector) {
 		this(null, targeter, powerSelector);
 	}
 	
+	public Targeter getTargeter() {
+		return targeter;
+	}
+
 	public double getMinEnergyToFire() {
 		return minEnergyToFire;
 	}
@@ -70,17 +70,17 @@ public class XanderGun extends AbstractGun {
 			if (robotProxy.getTime() != target.getTime()) {
 				log.warn(getName() + " aiming with old target data (from " + (robotProxy.getTime()-target.getTime()) + " ticks ago)");
 			}
-			double[] myNextXY = myself.getNextXY();  // will keep distance at 0 for self
-			Snapshot myselfP1 = myself.advance(myNextXY[0], myNextXY[1]);
-			Snapshot targetP1 = target.advance(myself.getX(), myself.getY());
-			double firePower = powerSelector.getFirePower(targetP1);
+			FireContext fireContext = FireContext.getFireContext(target, myself);
+			Snapshot myselfP1 = fireContext.getMyselfP1();
+			Snapshot targetP1 = fireContext.getTargetP1();
+			double firePower = fireContext.getFirePower(powerSelector);
 			if (powerSelector.isAutoAdjustAllowed()) {
 				double availableFiringEnergy = robotProxy.getEnergy()-minEnergyToFire;
 				firePower = Math.min(firePower, availableFiringEnergy * lowEnergyConservationRate);
 				firePower = Math.min(firePower, RCPhysics.getFirePowerToKill(targetP1.getEnergy()));
 			}
 			if (firePower > 0.09 && firePower < robotProxy.getEnergy()) { 
-				Wave wave = waveHistory.createWave(target, myself, firePower, Resources.getTime(), false);
+				Wave wave = fireContext.getWave(firePower);
 				double aimHeading = targeter.getAim(targetP1, myselfP1, wave);
 				if (aimHeading >= 0) {
 					aim = new Aim(aimHeading, firePower);
@@ -0,0 +1,311 @@
+package xander.core.gun.detect;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import robocode.Bullet;
+import robocode.BulletHitEvent;
+import robocode.HitByBulletEvent;
+import xander.core.Resources;
+import xander.core.RobotProxy;
+import xander.core.event.MyWaveListener;
+import xander.core.event.OpponentWaveListener;
+import xander.core.event.RoundBeginListener;
+import xander.core.math.RCMath;
+import xander.core.math.RCPhysics;
+import xander.core.track.Snapshot;
+import xander.core.track.Wave;
+import xander.core.track.XBulletWave;
+
+/**
+ * Evaluates a group of targeting detectors together.  The ensemble is the
+ * only wave listener.  Detection angles for all detectors are computed once,
+ * when the wave is created, as targeters aim from the current time and the
+ * wave origin is the only time their aim is meaningful; angle arrays are 
+ * reused from wave to wave.  When a wave hits, the distance and bearing of the 
+ * target from the wave origin are computed once, and every detector's 
+ * detection angle is tested against them in a single loop.
+ *
+ * Detectors are added to the ensemble by constructing them with the ensemble,
+ * e.g. new HeadOnDetector(ensemble).  Hit and shot counts are kept only in
+ * the ensemble; detectors in an ensemble read their detection percentage
+ * back from it.  Detection angles less than 0 indicate the detector could
+ * not determine an angle, and that wave is not counted for the detector.
+ */
+public class DetectorEnsemble implements MyWaveListener, OpponentWaveListener, RoundBeginListener {
+
+	private RobotProxy robotProxy;
+	private boolean offensive;
+	private TargetingDetector[] detectors = new TargetingDetector[8];
+	private int[] hits = new int[8];
+	private int[] shots = new int[8];
+	private Map<Wave, double[]> waveAngles = new HashMap<Wave, double[]>();
+	private List<double[]> freeAngles = new ArrayList<double[]>();
+	private int size;
+
+	/**
+	 * Creates a new detector ensemble.
+	 *
+	 * @param offensive    whether detectors test our waves against the opponent (true) or opponent waves against us (false)
+	 */
+	public DetectorEnsemble(boolean offensive) {
+		this.offensive = offensive;
+		this.robotProxy = Resources.getRobotProxy();
+		if (offensive) {
+			Resources.getWaveHistory().addMyWaveListener(this);
+		} else {
+			Resources.getWaveHistory().addOpponentWaveListener(this);
+		}
+		Resources.getRobotEvents().addRoundBeginListener(this);
+	}
+
+	public boolean isOffensive() {
+		return offensive;
+	}
+
+	int addDetector(TargetingDetector detector) {
+		if (size == detectors.length) {
+			int length = size * 2;
+			TargetingDetector[] newDetectors = new TargetingDetector[length];
+			System.arraycopy(detectors, 0, newDetectors, 0, size);
+			detectors = newDetectors;
+			int[] newHits = new int[length];
+			System.arraycopy(hits, 0, newHits, 0, size);
+			hits = newHits;
+			int[] newShots = new int[length];
+			System.arraycopy(shots, 0, newShots, 0, size);
+			shots = newShots;
+		}
+		detectors[size] = detector;
+		freeAngles.clear();  // free arrays may now be too short
+		return size++;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public TargetingDetector getDetector(int i) {
+		return detectors[i];
+	}
+
+	/**
+	 * Returns detection percentage of the i-th detector in range 0 to 1.
+	 *
+	 * @param i    detector index
+	 *
+	 * @return     detection percentage in range 0 to 1
+	 */
+	public double getDetectionPercentage(int i) {
+		return (shots[i] == 0)? 0 : (double)hits[i]/(double)shots[i];
+	}
+
+	public int getShotsTested(int i) {
+		return shots[i];
+	}
+
+	public int getHits(int i) {
+		return hits[i];
+	}
+
+	/**
+	 * Adds hit and shot counts for the i-th detector, as when counts are
+	 * carried over from earlier battles.
+	 *
+	 * @param i        detector index
+	 * @param hits     hits to add
+	 * @param shots    shots to add
+	 */
+	public void addCounts(int i, int hits, int shots) {
+		this.hits[i] += hits;
+		this.shots[i] += shots;
+	}
+
+	/**
+	 * Returns the detector with the highest detection percentage among those
+	 * tested on at least the given number of shots.
+	 *
+	 * @param minShots    minimum shots tested
+	 *
+	 * @return            best detector, or null if none have been tested enough
+	 */
+	public TargetingDetector getBestDetector(int minShots) {
+		int best = getBestDetectorIndex(minShots);
+		return (best < 0)? null : detectors[best];
+	}
+
+	/**
+	 * Returns the index of the detector with the highest detection percentage
+	 * among those tested on at least the given number of shots.
+	 *
+	 * @param minShots    minimum shots tested
+	 *
+	 * @return            index of best detector, or -1 if none have been tested enough
+	 */
+	public int getBestDetectorIndex(int minShots) {
+		int best = -1;
+		for (int i=0; i<size; i++) {
+			if (shots[i] >= minShots && (best < 0 || getDetectionPercentage(i) > getDetectionPercentage(best))) {
+				best = i;
+			}
+		}
+		return best;
+	}
+
+	private void computeAngles(Wave wave) {
+		double[] angles = (freeAngles.isEmpty())? new double[detectors.length] : freeAngles.remove(freeAngles.size()-1);
+		for (int i=0; i<size; i++) {
+			angles[i] = detectors[i].getDetectionAngle(wave);
+		}
+		waveAngles.put(wave, angles);
+	}
+
+	private void releaseAngles(Wave wave) {
+		double[] angles = waveAngles.remove(wave);
+		if (angles != null && angles.length >= size) {
+			freeAngles.add(angles);
+		}
+	}
+
+	/**
+	 * Tests all detectors against a target at the given position when the
+	 * wave hits.
+	 *
+	 * @param wave             wave
+	 * @param x                target x-coordinate
+	 * @param y                target y-coordinate
+	 * @param bulletHit        whether an actual bullet hit the target
+	 * @param countAllShots    whether to count a shot for every detector (false counts only predicted hits)
+	 */
+	private void evaluate(Wave wave, double x, double y, boolean bulletHit, boolean countAllShots) {
+		double[] angles = waveAngles.get(wave);
+		if (angles == null || angles.length < size) {
+			return;  // wave created before the ensemble or its latest detectors
+		}
+		double distance = RCMath.getDistanceBetweenPoints(wave.getOriginX(), wave.getOriginY(), x, y);
+		double bearing = RCMath.getRobocodeAngle(wave.getOriginX(), wave.getOriginY(), x, y);
+		for (int i=0; i<size; i++) {
+			if (angles[i] < 0) {
+				continue;
+			}
+			double difference = TargetingDetector.getAimDifference(distance, bearing, angles[i]);
+			boolean detected = difference <= RCPhysics.ROBOT_HALF_WIDTH;
+			if (!bulletHit) {
+				if (detected || countAllShots) {
+					record(i, false, true);
+				}
+				if (detected && countAllShots) {
+					record(i, true, false);
+				}
+			} else if (detected) {
+				record(i, true, false);  // shot already counted when wave hit
+			} else if (difference <= RCPhysics.ROBOT_HALF_WIDTH + detectors[i].getSloppyAimToleranceValue()) {
+				record(i, true, true);
+			} else {
+				record(i, false, true);
+			}
+		}
+	}
+
+	private void record(int i, boolean hit, boolean shot) {
+		if (hit) {
+			hits[i]++;
+		}
+		if (shot) {
+			shots[i]++;
+		}
+	}
+
+	@Override
+	public void oppWaveCreated(Wave wave) {
+		computeAngles(wave);
+	}
+
+	@Override
+	public void oppWaveHitBullet(Wave wave, Bullet oppBullet) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveHit(Wave wave) {
+		evaluate(wave, robotProxy.getX(), robotProxy.getY(), false, false);
+	}
+
+	@Override
+	public void oppNextWaveToHit(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppBulletHit(Wave wave, HitByBulletEvent hitByBulletEvent) {
+		evaluate(wave, robotProxy.getX(), robotProxy.getY(), true, false);
+	}
+
+	@Override
+	public void oppWavePassing(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWavePassed(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveUpdated(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveDestroyed(Wave wave) {
+		releaseAngles(wave);
+	}
+
+	@Override
+	public void myWaveCreated(XBulletWave wave) {
+		computeAngles(wave);
+	}
+
+	@Override
+	public void myWaveHitBullet(XBulletWave wave, Bullet myBullet) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveHit(XBulletWave wave, Snapshot opponentSnapshot) {
+		evaluate(wave, opponentSnapshot.getX(), opponentSnapshot.getY(), false, true);
+	}
+
+	@Override
+	public void myBulletHit(XBulletWave wave, BulletHitEvent bulletHitEvent) {
+		// no action required
+	}
+
+	@Override
+	public void myWavePassing(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWavePassed(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveDestroyed(XBulletWave wave) {
+		releaseAngles(wave);
+	}
+
+	@Override
+	public void onRoundBegin() {
+		// waves from the last round are cleared without being destroyed
+		for (double[] angles : waveAngles.values()) {
+			if (angles.length >= size) {
+				freeAngles.add(angles);
+			}
+		}
+		waveAngles.clear();
+	}
+}
@@ -8,6 +8,10 @@ public class HeadOnDetector extends TargetingDetector {
 		super("Head-On Detector", offensive);
 	}
 
+	public HeadOnDetector(DetectorEnsemble ensemble) {
+		super("Head-On Detector", ensemble);
+	}
+
 	@Override
 	public double getDetectionAngle(Wave wave) {
 		return wave.getInitialDefenderBearing();
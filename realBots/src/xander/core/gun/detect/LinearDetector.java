@@ -11,6 +11,10 @@ public class LinearDetector extends TargetingDetector {
 		super("Linear Detector", offensive);
 	}
 
+	public LinearDetector(DetectorEnsemble ensemble) {
+		super("Linear Detector", ensemble);
+	}
+
 	@Override
 	public double getDetectionAngle(Wave wave) {
 		LinearIntercept linearTrajectory = Linear.calculateTrajectory(
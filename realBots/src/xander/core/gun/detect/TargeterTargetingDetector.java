@@ -13,6 +13,12 @@ public class TargeterTargetingDetector extends TargetingDetector {
 		this.targeter = targeter;
 		this.sloppyAimTolerance = sloppyAimTolerance;
 	}
+	
+	public TargeterTargetingDetector(DetectorEnsemble ensemble, Targeter targeter, double sloppyAimTolerance) {
+		super(targeter.getTargetingType() + " Targeting Detector", ensemble);
+		this.targeter = targeter;
+		this.sloppyAimTolerance = sloppyAimTolerance;
+	}
 
 	@Override
 	public double getDetectionAngle(Wave wave) {
@@ -1,7 +1,5 @@
 package xander.core.gun.detect;
 
-import java.awt.geom.Point2D;
-
 import robocode.Bullet;
 import robocode.BulletHitEvent;
 import robocode.HitByBulletEvent;
@@ -16,6 +14,12 @@ import xander.core.track.SnapshotHistory;
 import xander.core.track.Wave;
 import xander.core.track.XBulletWave;
 
+/**
+ * Detects whether a robot is using a particular type of targeting, by testing
+ * whether its bullets would have hit when aimed at the detection angle.  A
+ * detector either registers itself as a wave listener, or is evaluated along
+ * with other detectors as part of a DetectorEnsemble.
+ */
 public abstract class TargetingDetector implements MyWaveListener, OpponentWaveListener {
 
 	protected RobotProxy robotProxy;
@@ -24,6 +28,8 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 	private int shots;
 	private String name;
 	private boolean offensive;
+	private DetectorEnsemble ensemble;
+	private int ensembleIndex;
 	
 	public TargetingDetector(String name, boolean offensive) {
 		this.name = name;
@@ -37,10 +43,52 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 		this.snapshotHistory = Resources.getSnapshotHistory();
 	}
 	
+	/**
+	 * Creates a detector that is evaluated as part of the given ensemble rather
+	 * than registering as a wave listener itself.  Hit and shot counts for
+	 * the detector are then kept by the ensemble.
+	 * 
+	 * @param name        detector name
+	 * @param ensemble    ensemble to add detector to
+	 */
+	public TargetingDetector(String name, DetectorEnsemble ensemble) {
+		this.name = name;
+		this.offensive = ensemble.isOffensive();
+		this.robotProxy = Resources.getRobotProxy();
+		this.snapshotHistory = Resources.getSnapshotHistory();
+		this.ensemble = ensemble;
+		this.ensembleIndex = ensemble.addDetector(this);
+	}
+	
+	/**
+	 * Returns the distance between a target and the point on the wave along
+	 * the given aim, given the target's distance and bearing from the wave 
+	 * origin.  This is the chord 2 * d * sin(delta / 2).
+	 * 
+	 * @param distance    distance of target from wave origin
+	 * @param bearing     bearing of target from wave origin, in degrees
+	 * @param aim         aim in degrees
+	 * 
+	 * @return            distance between target and aim point on wave
+	 */
+	static double getAimDifference(double distance, double bearing, double aim) {
+		return 2 * distance * Math.abs(Math.sin(Math.toRadians(aim - bearing) / 2));
+	}
+	
+	private static double getAimDifference(Wave wave, double x, double y, double aim) {
+		double distance = RCMath.getDistanceBetweenPoints(wave.getOriginX(), wave.getOriginY(), x, y);
+		double bearing = RCMath.getRobocodeAngle(wave.getOriginX(), wave.getOriginY(), x, y);
+		return getAimDifference(distance, bearing, aim);
+	}
+	
 	public abstract double getDetectionAngle(Wave wave);
 	
 	protected abstract double getSloppyAimTolerance();
 	
+	double getSloppyAimToleranceValue() {
+		return getSloppyAimTolerance();
+	}
+	
 	public String getName() {
 		return name;
 	}
@@ -51,6 +99,9 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 	 * @return    detection percentage in range 0 to 1.
 	 */
 	public double getDetectionPercentage() {
+		if (ensemble != null) {
+			return ensemble.getDetectionPercentage(ensembleIndex);
+		}
 		if (shots == 0) {
 			return 0;
 		}
@@ -58,7 +109,7 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 	}
 
 	public int getShotsTested() {
-		return shots;
+		return (ensemble == null)? shots : ensemble.getShotsTested(ensembleIndex);
 	}
 	
 	@Override
@@ -76,12 +127,7 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 		if (!offensive) {
 			double detectionAngle = getDetectionAngle(wave);
 			//TODO: Handle detection angle < 0
-			double travelDistance = RCMath.getDistanceBetweenPoints(
-					wave.getOriginX(), wave.getOriginY(), robotProxy.getX(), robotProxy.getY());
-			Point2D.Double detectionPosition = RCMath.getLocation(
-					wave.getOriginX(), wave.getOriginY(), travelDistance, detectionAngle);
-			double difference = RCMath.getDistanceBetweenPoints(
-					detectionPosition.x, detectionPosition.y, robotProxy.getX(), robotProxy.getY());
+			double difference = getAimDifference(wave, robotProxy.getX(), robotProxy.getY(), detectionAngle);
 			if (difference <= RCPhysics.ROBOT_HALF_WIDTH) {
 				shots++;
 			}
@@ -97,12 +143,7 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 	public void oppBulletHit(Wave wave, HitByBulletEvent hitByBulletEvent) {
 		if (!offensive) {
 			double detectionAngle = getDetectionAngle(wave);
-			double travelDistance = RCMath.getDistanceBetweenPoints(
-					wave.getOriginX(), wave.getOriginY(), robotProxy.getX(), robotProxy.getY());
-			Point2D.Double detectionPosition = RCMath.getLocation(
-					wave.getOriginX(), wave.getOriginY(), travelDistance, detectionAngle);
-			double difference = RCMath.getDistanceBetweenPoints(
-					detectionPosition.x, detectionPosition.y, robotProxy.getX(), robotProxy.getY());
+			double difference = getAimDifference(wave, robotProxy.getX(), robotProxy.getY(), detectionAngle);
 			if (difference <= RCPhysics.ROBOT_HALF_WIDTH) {
 				hits++;  // no need to increment shots as oppWaveHit(...) will have handled it
 			} else if (difference <= RCPhysics.ROBOT_HALF_WIDTH + getSloppyAimTolerance()) {
@@ -149,12 +190,7 @@ public abstract class TargetingDetector implements MyWaveListener, OpponentWaveL
 		if (offensive) {
 			shots++;
 			double detectionAngle = getDetectionAngle(wave);	
-			double travelDistance = RCMath.getDistanceBetweenPoints(
-					wave.getOriginX(), wave.getOriginY(), opponentSnapshot.getX(), opponentSnapshot.getY());
-			Point2D.Double detectionPosition = RCMath.getLocation(
-					wave.getOriginX(), wave.getOriginY(), travelDistance, detectionAngle);
-			double difference = RCMath.getDistanceBetweenPoints(
-					detectionPosition.x, detectionPosition.y, opponentSnapshot.getX(), opponentSnapshot.getY());
+			double difference = getAimDifference(wave, opponentSnapshot.getX(), opponentSnapshot.getY(), detectionAngle);
 			if (difference <= RCPhysics.ROBOT_HALF_WIDTH) {
 				hits++;
 			}			
@@ -1,9 +1,11 @@
 package xander.core.gun.targeter;
 
+import java.awt.geom.Rectangle2D;
+
 import xander.core.Resources;
+import xander.core.math.ArcIntercept;
 import xander.core.math.Circular;
 import xander.core.math.RCMath;
-import xander.core.math.VelocityVector;
 import xander.core.track.Snapshot;
 import xander.core.track.SnapshotHistory;
 import xander.core.track.Wave;
@@ -18,7 +20,9 @@ import xander.core.track.Wave;
  */
 public class CircularTargeter implements Targeter {
 
-	private double[] centerPoint;
+	private double[] centerPoint = new double[2];
+	private boolean circular;
+	private Rectangle2D.Double battleFieldBounds;
 	private double aim;
 	private SnapshotHistory snapshotHistory;
 	private Snapshot firstSnapshot;
@@ -29,6 +33,7 @@ public class CircularTargeter implements Targeter {
 
 	public CircularTargeter() {
 		this.snapshotHistory = Resources.getSnapshotHistory();
+		this.battleFieldBounds = Resources.getRobotProxy().getBattleFieldSize();
 	}
 	
 	@Override
@@ -38,7 +43,7 @@ public class CircularTargeter implements Targeter {
 
 	@Override
 	public boolean canAimAt(Snapshot target) {
-		centerPoint = null;
+		circular = false;
 		if (target != null) {
 			Snapshot olderSnapshot = null;
 			long checkTime = target.getTime() - minTimeAgo;
@@ -53,28 +58,25 @@ public class CircularTargeter implements Targeter {
 				checkTime--;
 			}
 			if (olderSnapshot != null) {
-				centerPoint = Circular.getCenterPoint(target, olderSnapshot);
+				circular = Circular.getCenterPoint(target, olderSnapshot, centerPoint);
 			} 
 			this.secondSnapshot = olderSnapshot;
 		}
 		this.firstSnapshot = target;
-		return centerPoint != null;
+		return circular;
 	}
 
 	@Override
 	public double getAim(Snapshot target, Snapshot myself,
 			Wave wave) {
-		if (centerPoint == null) {
+		if (!circular) {
 			return -1;
 		}
-		VelocityVector targetVector = Circular.calculateTrajectory(
-				target, 
-				myself.getX(), 
-				myself.getY(), 
-				centerPoint, 
-				wave.getBulletVelocity(), 
-				target.getTime());
-		this.aim = (targetVector == null)? -1 : targetVector.getRoboAngle();
+		long timeDiff = Math.max(1, firstSnapshot.getTime() - secondSnapshot.getTime());
+		double turnRate = Math.toRadians(RCMath.getTurnAngle(secondSnapshot.getHeadingRoboDegrees(), firstSnapshot.getHeadingRoboDegrees())) / timeDiff;
+		this.aim = ArcIntercept.getAim(myself.getX(), myself.getY(), target.getX(), target.getY(), 
+				target.getHeadingRoboRadians(), target.getVelocity(), turnRate, 
+				wave.getBulletVelocity(), battleFieldBounds);
 		return aim;
 	}
 
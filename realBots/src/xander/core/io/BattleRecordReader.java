@@ -0,0 +1,232 @@
+package xander.core.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Reads segment files written by the BattleRecorder.  Deltas are applied to
+ * the same quantized values the recorder took them from, so values read back
+ * differ from those recorded only by the quantization step.
+ */
+public class BattleRecordReader {
+
+	private DataInputStream in;
+	private RecordedRound round = new RecordedRound();
+	private long lastTime;
+	private int ownX, ownY, ownHeading, ownGunHeading, ownRadarHeading, ownEnergy;
+	private int[] scanX = new int[8];
+	private int[] scanY = new int[8];
+	private int[] scanHeading = new int[8];
+	private int[] scanEnergy = new int[8];
+
+	/**
+	 * Reads a segment file.
+	 *
+	 * @param file    segment file
+	 *
+	 * @return        recorded round
+	 *
+	 * @throws IOException    if the file cannot be read or is not a segment file
+	 */
+	public static RecordedRound read(File file) throws IOException {
+		InputStream is = new FileInputStream(file);
+		try {
+			return read(is);
+		} finally {
+			is.close();
+		}
+	}
+
+	/**
+	 * Reads a segment from the given stream.
+	 *
+	 * @param is    stream to read deflated segment from
+	 *
+	 * @return      recorded round
+	 *
+	 * @throws IOException    if the segment cannot be read
+	 */
+	public static RecordedRound read(InputStream is) throws IOException {
+		BattleRecordReader reader = new BattleRecordReader(
+				new DataInputStream(new BufferedInputStream(new InflaterInputStream(is))));
+		reader.readSegment();
+		return reader.round;
+	}
+
+	private BattleRecordReader(DataInputStream in) {
+		this.in = in;
+	}
+
+	private static double normalize(int value, double scale) {
+		int full = (int) Math.round(360 * scale);
+		value %= full;
+		return ((value < 0)? value + full : value) / scale;
+	}
+
+	private long readTime() throws IOException {
+		int dt = in.readUnsignedByte();
+		lastTime = (dt == 255)? in.readInt() : lastTime + dt;
+		return lastTime;
+	}
+
+	private void ensureId(int id) {
+		if (id >= scanX.length) {
+			int length = Math.max(id + 1, scanX.length * 2);
+			scanX = grow(scanX, length);
+			scanY = grow(scanY, length);
+			scanHeading = grow(scanHeading, length);
+			scanEnergy = grow(scanEnergy, length);
+		}
+	}
+
+	private static int[] grow(int[] values, int length) {
+		int[] newValues = new int[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	private void readBullet(int offset) throws IOException {
+		round.eventValues[offset] = in.readUnsignedShort() / BattleRecorder.ANGLE_SCALE;
+		round.eventValues[offset + 1] = in.readUnsignedShort() / BattleRecorder.POSITION_SCALE;
+		round.eventValues[offset + 2] = in.readUnsignedShort() / BattleRecorder.POSITION_SCALE;
+	}
+
+	private void readSegment() throws IOException {
+		if (in.readInt() != BattleRecorder.MAGIC) {
+			throw new IOException("Not a battle recording.");
+		}
+		int version = in.readByte();
+		if (version < BattleRecorder.VERSION) {
+			throw new IOException("Battle recording version " + version + " predates the current segment layout; record the battle again.");
+		} else if (version != BattleRecorder.VERSION) {
+			throw new IOException("Unsupported battle recording version " + version + ".");
+		}
+		round.robotName = in.readUTF();
+		round.round = in.readInt();
+		round.battleFieldWidth = in.readFloat();
+		round.battleFieldHeight = in.readFloat();
+		round.truncated = in.readBoolean();
+		round.roundTickCount = in.readInt();
+		int tag;
+		while ((tag = in.readUnsignedByte()) != BattleRecorder.TAG_END) {
+			long time = readTime();
+			int id, offset;
+			switch (tag) {
+			case BattleRecorder.TAG_NAME:
+				id = in.readUnsignedByte();
+				round.setName(id, in.readUTF());
+				ensureId(id);
+				break;
+			case BattleRecorder.TAG_OWN_KEY:
+				float x = in.readFloat();
+				float y = in.readFloat();
+				float heading = in.readFloat();
+				float velocity = in.readFloat();
+				float energy = in.readFloat();
+				float gunHeading = in.readFloat();
+				float gunHeat = in.readFloat();
+				float radarHeading = in.readFloat();
+				ownX = quantize(x, BattleRecorder.POSITION_SCALE);
+				ownY = quantize(y, BattleRecorder.POSITION_SCALE);
+				ownHeading = quantize(heading, BattleRecorder.HEADING_SCALE);
+				ownGunHeading = quantize(gunHeading, BattleRecorder.GUN_HEADING_SCALE);
+				ownRadarHeading = quantize(radarHeading, BattleRecorder.RADAR_HEADING_SCALE);
+				ownEnergy = quantize(energy, BattleRecorder.ENERGY_SCALE);
+				round.addTick(time, x, y, heading, velocity, energy, gunHeading, gunHeat, radarHeading);
+				break;
+			case BattleRecorder.TAG_OWN:
+				ownX += in.readByte();
+				ownY += in.readByte();
+				ownHeading += in.readByte();
+				double ownVelocity = in.readByte() / BattleRecorder.VELOCITY_SCALE;
+				ownGunHeading += in.readByte();
+				ownRadarHeading += in.readByte();
+				double ownGunHeat = in.readUnsignedByte() / BattleRecorder.GUN_HEAT_SCALE;
+				ownEnergy += in.readByte();
+				round.addTick(time, ownX / BattleRecorder.POSITION_SCALE, ownY / BattleRecorder.POSITION_SCALE,
+						normalize(ownHeading, BattleRecorder.HEADING_SCALE), ownVelocity, ownEnergy / BattleRecorder.ENERGY_SCALE,
+						normalize(ownGunHeading, BattleRecorder.GUN_HEADING_SCALE), ownGunHeat,
+						normalize(ownRadarHeading, BattleRecorder.RADAR_HEADING_SCALE));
+				break;
+			case BattleRecorder.TAG_SCAN_KEY:
+				id = in.readUnsignedByte();
+				ensureId(id);
+				offset = round.addEvent(BattleRecorder.TAG_SCAN, id, time);
+				for (int i=0; i<5; i++) {
+					round.eventValues[offset + i] = in.readFloat();
+				}
+				scanX[id] = quantize(round.eventValues[offset], BattleRecorder.POSITION_SCALE);
+				scanY[id] = quantize(round.eventValues[offset + 1], BattleRecorder.POSITION_SCALE);
+				scanHeading[id] = quantize(round.eventValues[offset + 2], BattleRecorder.HEADING_SCALE);
+				scanEnergy[id] = quantize(round.eventValues[offset + 4], BattleRecorder.ENERGY_SCALE);
+				break;
+			case BattleRecorder.TAG_SCAN:
+				id = in.readUnsignedByte();
+				ensureId(id);
+				scanX[id] += in.readByte();
+				scanY[id] += in.readByte();
+				scanHeading[id] += in.readByte();
+				double scanVelocity = in.readByte() / BattleRecorder.VELOCITY_SCALE;
+				scanEnergy[id] += in.readByte();
+				offset = round.addEvent(BattleRecorder.TAG_SCAN, id, time);
+				round.eventValues[offset] = scanX[id] / BattleRecorder.POSITION_SCALE;
+				round.eventValues[offset + 1] = scanY[id] / BattleRecorder.POSITION_SCALE;
+				round.eventValues[offset + 2] = normalize(scanHeading[id], BattleRecorder.HEADING_SCALE);
+				round.eventValues[offset + 3] = scanVelocity;
+				round.eventValues[offset + 4] = scanEnergy[id] / BattleRecorder.ENERGY_SCALE;
+				break;
+			case BattleRecorder.TAG_BULLET_HIT:
+				id = in.readUnsignedByte();
+				offset = round.addEvent(tag, id, time);
+				round.eventValues[offset] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				round.eventValues[offset + 1] = in.readShort() / BattleRecorder.ENERGY_SCALE;
+				readBullet(offset + 2);
+				break;
+			case BattleRecorder.TAG_BULLET_MISSED:
+				offset = round.addEvent(tag, -1, time);
+				round.eventValues[offset] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				readBullet(offset + 1);
+				break;
+			case BattleRecorder.TAG_HIT_BY_BULLET:
+				id = in.readUnsignedByte();
+				offset = round.addEvent(tag, id, time);
+				round.eventValues[offset] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				readBullet(offset + 1);
+				break;
+			case BattleRecorder.TAG_BULLET_HIT_BULLET:
+				double power = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				id = in.readUnsignedByte();
+				offset = round.addEvent(tag, id, time);
+				round.eventValues[offset] = power;
+				round.eventValues[offset + 4] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				readBullet(offset + 1);
+				readBullet(offset + 5);
+				break;
+			case BattleRecorder.TAG_MY_FIRE:
+				offset = round.addEvent(tag, -1, time);
+				round.eventValues[offset] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				round.eventValues[offset + 1] = in.readUnsignedShort() / BattleRecorder.ANGLE_SCALE;
+				break;
+			case BattleRecorder.TAG_OPP_FIRE:
+				id = in.readUnsignedByte();
+				offset = round.addEvent(tag, id, time);
+				round.eventValues[offset] = in.readUnsignedByte() / BattleRecorder.POWER_SCALE;
+				round.eventValues[offset + 1] = in.readInt();
+				round.eventValues[offset + 2] = in.readFloat();
+				round.eventValues[offset + 3] = in.readFloat();
+				break;
+			default:
+				throw new IOException("Unknown battle recording tag " + tag + ".");
+			}
+		}
+	}
+
+	private static int quantize(double value, double scale) {
+		return (int) Math.round(value * scale);
+	}
+}
@@ -0,0 +1,636 @@
+package xander.core.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+import robocode.BattleEndedEvent;
+import robocode.Bullet;
+import robocode.BulletHitBulletEvent;
+import robocode.BulletHitEvent;
+import robocode.BulletMissedEvent;
+import robocode.HitByBulletEvent;
+import robocode.RobocodeFileOutputStream;
+import robocode.RoundEndedEvent;
+import robocode.ScannedRobotEvent;
+import xander.core.Resources;
+import xander.core.RobotEvents;
+import xander.core.RobotProxy;
+import xander.core.event.BulletHitListener;
+import xander.core.event.MyWaveListener;
+import xander.core.event.OpponentWaveListener;
+import xander.core.event.RoundBeginListener;
+import xander.core.event.RoundListener;
+import xander.core.event.ScannedRobotListener;
+import xander.core.event.TurnListener;
+import xander.core.log.Log;
+import xander.core.log.Logger;
+import xander.core.math.RCMath;
+import xander.core.track.Snapshot;
+import xander.core.track.Wave;
+import xander.core.track.WaveHistory;
+import xander.core.track.XBulletWave;
+
+/**
+ * Records our own state each turn, every scan, bullet events, our own fire,
+ * and detected opponent fire to robot data files, for offline analysis and
+ * replay.
+ *
+ * Records are written into an in-memory byte buffer as they happen, so the
+ * per-tick cost is a handful of primitive stores.  Own state and scans are
+ * delta-encoded against the previous record, quantized to 1/8 pixel, 1/10
+ * degree, and so on; a full key record is written whenever a delta does not
+ * fit.  At the end of each round the buffer is deflated and written as a new
+ * segment file, one per round.  The budget is the data quota left, less a
+ * reserve, capped by an optional byte budget for the battle.  A round may use
+ * whatever of the budget the rounds left would not need if they were the size
+ * of an average round so far, and never less than an even share; budget a
+ * round leaves unused rolls forward to later rounds.  A round that does not
+ * fit is cut short at a turn boundary, and marked as truncated in its header,
+ * so that every round of a long battle gets recorded and replay can tell
+ * which rounds are incomplete.
+ *
+ * Segment layout (deflated):
+ * <pre>
+ * int MAGIC, byte VERSION, UTF robot name, int round, float battlefield width, float battlefield height,
+ * boolean truncated, int turns in round
+ * records, each starting with a tag byte and a time (see begin), ending with TAG_END
+ * </pre>
+ */
+public class BattleRecorder implements TurnListener, ScannedRobotListener, BulletHitListener,
+		RoundBeginListener, RoundListener, MyWaveListener, OpponentWaveListener {
+
+	private static final Log log = Logger.getLog(BattleRecorder.class);
+
+	public static final int MAGIC = 0x58524543;    // "XREC"
+	public static final byte VERSION = 3;         // 2: bullet events carry bullet positions, key records quantized; 3: truncation in header
+	public static final String EXTENSION = ".xrec";
+
+	public static final int TAG_END = 0;
+	public static final int TAG_NAME = 1;                // byte id, UTF name
+	public static final int TAG_OWN_KEY = 2;             // float x, y, heading, velocity, energy, gun heading, gun heat, radar heading
+	public static final int TAG_OWN = 3;                 // byte dx, dy, dHeading, velocity, dGunHeading, dRadarHeading, gunHeat, dEnergy
+	public static final int TAG_SCAN_KEY = 4;            // byte id; float x, y, heading, velocity, energy
+	public static final int TAG_SCAN = 5;                // byte id, dx, dy, dHeading, velocity, dEnergy
+	public static final int TAG_BULLET_HIT = 6;          // byte victim id, power; short victim energy; bullet
+	public static final int TAG_BULLET_MISSED = 7;       // byte power; bullet
+	public static final int TAG_HIT_BY_BULLET = 8;       // byte shooter id, power; bullet
+	public static final int TAG_BULLET_HIT_BULLET = 9;   // byte power, other owner id, other power; bullet, other bullet
+	public static final int TAG_MY_FIRE = 10;            // byte power; unsigned short aim
+	public static final int TAG_OPP_FIRE = 11;           // byte id, power; int origin time; float origin x, y
+
+	public static final double POSITION_SCALE = 8;       // units per pixel
+	public static final double HEADING_SCALE = 10;       // units per degree
+	public static final double GUN_HEADING_SCALE = 4;    // units per degree
+	public static final double RADAR_HEADING_SCALE = 2;  // units per degree
+	public static final double VELOCITY_SCALE = 8;       // units per pixel per tick
+	public static final double ENERGY_SCALE = 10;        // units per energy
+	public static final double GUN_HEAT_SCALE = 50;      // units per gun heat
+	public static final double POWER_SCALE = 50;         // units per bullet power
+	public static final double ANGLE_SCALE = 100;        // units per degree, for absolute angles
+	// a bullet is written as unsigned shorts heading (ANGLE_SCALE), x and y (POSITION_SCALE)
+
+	private RobotProxy robotProxy;
+	private long byteBudget = Long.MAX_VALUE;    // maximum bytes written for all segments in the battle
+	private long quotaReserve = 16384;           // bytes of data quota to leave free for other files
+	private long bytesWritten;
+	private long fullBytes;                      // bytes the rounds so far would have taken uncut
+	private int segments;
+	private boolean enabled = true;
+
+	private byte[] buffer = new byte[65536];
+	private int size;
+	private long lastTime;
+	private boolean ownKeyed;
+	private int ownX, ownY, ownHeading, ownGunHeading, ownRadarHeading, ownEnergy;
+	private int[] tickStarts = new int[1024];    // buffer offset of each own state record
+	private int ticks;
+
+	private Map<String, Integer> ids = new HashMap<String, Integer>();
+	private boolean[] scanKeyed = new boolean[8];
+	private int[] scanX = new int[8];
+	private int[] scanY = new int[8];
+	private int[] scanHeading = new int[8];
+	private int[] scanEnergy = new int[8];
+
+	public BattleRecorder() {
+		this.robotProxy = Resources.getRobotProxy();
+		RobotEvents robotEvents = Resources.getRobotEvents();
+		robotEvents.addTurnListener(this);
+		robotEvents.addScannedRobotListener(this);
+		robotEvents.addBulletHitListener(this);
+		robotEvents.addRoundBeginListener(this);
+		robotEvents.addRoundListener(this);
+		WaveHistory waveHistory = Resources.getWaveHistory();
+		waveHistory.addMyWaveListener(this);
+		waveHistory.addOpponentWaveListener(this);
+	}
+
+	/**
+	 * Sets the maximum number of bytes written for all segments in a battle.
+	 * By default only the data quota limits what is written.
+	 *
+	 * @param byteBudget      maximum bytes written in battle
+	 * @param quotaReserve    bytes of data quota to leave free for other files
+	 */
+	public void setByteBudget(long byteBudget, long quotaReserve) {
+		this.byteBudget = byteBudget;
+		this.quotaReserve = quotaReserve;
+	}
+
+	public long getBytesWritten() {
+		return bytesWritten;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	// --- buffer writes ---
+
+	private void ensureCapacity(int bytes) {
+		if (size + bytes > buffer.length) {
+			byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + bytes)];
+			System.arraycopy(buffer, 0, newBuffer, 0, size);
+			buffer = newBuffer;
+		}
+	}
+
+	private void putByte(int value) {
+		buffer[size++] = (byte) value;
+	}
+
+	private void putShort(int value) {
+		buffer[size++] = (byte) (value >> 8);
+		buffer[size++] = (byte) value;
+	}
+
+	private void putInt(int value) {
+		buffer[size++] = (byte) (value >> 24);
+		buffer[size++] = (byte) (value >> 16);
+		buffer[size++] = (byte) (value >> 8);
+		buffer[size++] = (byte) value;
+	}
+
+	private void putFloat(double value) {
+		putInt(Float.floatToIntBits((float) value));
+	}
+
+	/**
+	 * Starts a record: writes the tag and the time, as a byte holding the
+	 * ticks since the previous record, or 255 followed by the time as an int.
+	 */
+	private void begin(int tag, long time, int bytes) {
+		ensureCapacity(bytes + 6);
+		putByte(tag);
+		long dt = time - lastTime;
+		if (dt >= 0 && dt < 255) {
+			putByte((int) dt);
+		} else {
+			putByte(255);
+			putInt((int) time);
+		}
+		lastTime = time;
+	}
+
+	private static int quantize(double value, double scale) {
+		return (int) Math.round(value * scale);
+	}
+
+	private static boolean fitsByte(int value) {
+		return value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE;
+	}
+
+	/**
+	 * Returns the difference between two quantized angles, wrapped to the
+	 * range -180 to 180 degrees.
+	 */
+	private static int angleDelta(int to, int from, double scale) {
+		int full = (int) Math.round(360 * scale);
+		int delta = (to - from) % full;
+		if (delta > full / 2) {
+			delta -= full;
+		} else if (delta < -full / 2) {
+			delta += full;
+		}
+		return delta;
+	}
+
+	private int getId(String name, long time) {
+		Integer id = ids.get(name);
+		if (id == null) {
+			id = Integer.valueOf(ids.size());
+			ids.put(name, id);
+			int n = ids.size();
+			if (n > scanKeyed.length) {
+				boolean[] newScanKeyed = new boolean[n * 2];
+				System.arraycopy(scanKeyed, 0, newScanKeyed, 0, scanKeyed.length);
+				scanKeyed = newScanKeyed;
+				scanX = grow(scanX, n * 2);
+				scanY = grow(scanY, n * 2);
+				scanHeading = grow(scanHeading, n * 2);
+				scanEnergy = grow(scanEnergy, n * 2);
+			}
+			writeName(name, id.intValue(), time);
+		}
+		return id.intValue();
+	}
+
+	private void writeName(String name, int id, long time) {
+		begin(TAG_NAME, time, 3 + name.length() * 3);
+		putByte(id);
+		int length = 0;
+		for (int i=0; i<name.length(); i++) {
+			char c = name.charAt(i);
+			length += (c >= 0x0001 && c <= 0x007F)? 1 : (c > 0x07FF)? 3 : 2;
+		}
+		putShort(length);
+		for (int i=0; i<name.length(); i++) {
+			// modified UTF-8, as DataOutput.writeUTF
+			char c = name.charAt(i);
+			if (c >= 0x0001 && c <= 0x007F) {
+				putByte(c);
+			} else if (c > 0x07FF) {
+				putByte(0xE0 | ((c >> 12) & 0x0F));
+				putByte(0x80 | ((c >> 6) & 0x3F));
+				putByte(0x80 | (c & 0x3F));
+			} else {
+				putByte(0xC0 | ((c >> 6) & 0x1F));
+				putByte(0x80 | (c & 0x3F));
+			}
+		}
+	}
+
+	private static int[] grow(int[] values, int length) {
+		int[] newValues = new int[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	// --- segments ---
+
+	private void startSegment() {
+		size = 0;
+		ticks = 0;
+		lastTime = 0;
+		ownKeyed = false;
+		for (int i=0; i<scanKeyed.length; i++) {
+			scanKeyed[i] = false;
+		}
+		// every segment names its opponents again so it can be read on its own
+		for (Map.Entry<String, Integer> entry : ids.entrySet()) {
+			writeName(entry.getKey(), entry.getValue().intValue(), 0);
+		}
+	}
+
+	/**
+	 * Returns the segment file contents for the first keepTicks turns of the
+	 * buffer.
+	 */
+	private ByteArrayOutputStream deflate(int keepTicks) throws IOException {
+		int length = (keepTicks < ticks)? tickStarts[keepTicks] : size;
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(length / 3 + 64);
+		DataOutputStream out = new DataOutputStream(
+				new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION)));
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeUTF(robotProxy.getName());
+		out.writeInt(robotProxy.getRoundNum());
+		out.writeFloat((float) robotProxy.getBattleFieldWidth());
+		out.writeFloat((float) robotProxy.getBattleFieldHeight());
+		out.writeBoolean(keepTicks < ticks);
+		out.writeInt(ticks);
+		out.write(buffer, 0, length);
+		out.writeByte(TAG_END);
+		out.close();
+		return bytes;
+	}
+
+	private void writeSegment() {
+		if (!enabled || size == 0) {
+			return;
+		}
+		OutputStream os = null;
+		try {
+			long available = Math.min(byteBudget - bytesWritten, robotProxy.getDataQuotaAvailable() - quotaReserve);
+			int roundsLeft = Math.max(1, robotProxy.getNumRounds() - robotProxy.getRoundNum());
+			ByteArrayOutputStream bytes = deflate(ticks);
+			fullBytes += bytes.size();
+			segments++;
+			long share = Math.max(available / roundsLeft, available - (roundsLeft - 1) * (fullBytes / segments));
+			int keepTicks = ticks;
+			while (bytes.size() > share && keepTicks > 1) {
+				// cut at a turn boundary, in proportion to the overrun, less a little for the header
+				keepTicks = Math.min(keepTicks - 1, (int) (keepTicks * (share * 0.95 / bytes.size())));
+				keepTicks = Math.max(1, keepTicks);
+				bytes = deflate(keepTicks);
+			}
+			if (bytes.size() > share) {
+				log.warn("Battle recording budget reached; recording stopped.");
+				enabled = false;
+				return;
+			}
+			if (keepTicks < ticks) {
+				log.info("Battle recording for round cut to {} turns.", keepTicks);
+			}
+			String fileName = robotProxy.getName().split(" ")[0] + "_rec_" + robotProxy.getRoundNum() + EXTENSION;
+			os = new RobocodeFileOutputStream(robotProxy.getDataFile(fileName));
+			bytes.writeTo(os);
+			os.close();
+			os = null;
+			bytesWritten += bytes.size();
+		} catch (IOException e) {
+			log.error("Unable to write battle recording; recording stopped.");
+			enabled = false;
+		} finally {
+			size = 0;
+			ticks = 0;
+			if (os != null) {
+				try {
+					os.close();
+				} catch (Exception e) { }
+			}
+		}
+	}
+
+	// --- records ---
+
+	@Override
+	public void onTurnBegin() {
+		if (!enabled) {
+			return;
+		}
+		if (ticks == tickStarts.length) {
+			tickStarts = grow(tickStarts, ticks * 2);
+		}
+		tickStarts[ticks++] = size;
+		long time = robotProxy.getTime();
+		int x = quantize(robotProxy.getX(), POSITION_SCALE);
+		int y = quantize(robotProxy.getY(), POSITION_SCALE);
+		int heading = quantize(robotProxy.getHeadingDegrees(), HEADING_SCALE);
+		int gunHeading = quantize(robotProxy.getGunHeadingDegrees(), GUN_HEADING_SCALE);
+		int radarHeading = quantize(robotProxy.getRadarHeadingDegrees(), RADAR_HEADING_SCALE);
+		int energy = quantize(robotProxy.getEnergy(), ENERGY_SCALE);
+		int dx = x - ownX;
+		int dy = y - ownY;
+		int dHeading = angleDelta(heading, ownHeading, HEADING_SCALE);
+		int dGunHeading = angleDelta(gunHeading, ownGunHeading, GUN_HEADING_SCALE);
+		int dRadarHeading = angleDelta(radarHeading, ownRadarHeading, RADAR_HEADING_SCALE);
+		int dEnergy = energy - ownEnergy;
+		if (ownKeyed && fitsByte(dx) && fitsByte(dy) && fitsByte(dHeading) && fitsByte(dGunHeading)
+				&& fitsByte(dRadarHeading) && fitsByte(dEnergy)) {
+			begin(TAG_OWN, time, 8);
+			putByte(dx);
+			putByte(dy);
+			putByte(dHeading);
+			putByte(quantize(robotProxy.getVelocity(), VELOCITY_SCALE));
+			putByte(dGunHeading);
+			putByte(dRadarHeading);
+			putByte(Math.min(255, quantize(robotProxy.getGunHeat(), GUN_HEAT_SCALE)));
+			putByte(dEnergy);
+		} else {
+			begin(TAG_OWN_KEY, time, 32);
+			putFloat(robotProxy.getX());
+			putFloat(robotProxy.getY());
+			putFloat(robotProxy.getHeadingDegrees());
+			putFloat(robotProxy.getVelocity());
+			putFloat(robotProxy.getEnergy());
+			putFloat(robotProxy.getGunHeadingDegrees());
+			putFloat(robotProxy.getGunHeat());
+			putFloat(robotProxy.getRadarHeadingDegrees());
+			// later deltas are from the values as read back
+			x = quantize((float) robotProxy.getX(), POSITION_SCALE);
+			y = quantize((float) robotProxy.getY(), POSITION_SCALE);
+			heading = quantize((float) robotProxy.getHeadingDegrees(), HEADING_SCALE);
+			gunHeading = quantize((float) robotProxy.getGunHeadingDegrees(), GUN_HEADING_SCALE);
+			radarHeading = quantize((float) robotProxy.getRadarHeadingDegrees(), RADAR_HEADING_SCALE);
+			energy = quantize((float) robotProxy.getEnergy(), ENERGY_SCALE);
+			ownKeyed = true;
+		}
+		ownX = x;
+		ownY = y;
+		ownHeading = heading;
+		ownGunHeading = gunHeading;
+		ownRadarHeading = radarHeading;
+		ownEnergy = energy;
+	}
+
+	@Override
+	public void onTurnEnd() {
+		// no action required
+	}
+
+	@Override
+	public void onScannedRobot(ScannedRobotEvent event) {
+		if (!enabled) {
+			return;
+		}
+		long time = event.getTime();
+		int id = getId(event.getName(), time);
+		double bearing = robotProxy.getHeadingRadians() + event.getBearingRadians();
+		double oppX = robotProxy.getX() + event.getDistance() * Math.sin(bearing);
+		double oppY = robotProxy.getY() + event.getDistance() * Math.cos(bearing);
+		int x = quantize(oppX, POSITION_SCALE);
+		int y = quantize(oppY, POSITION_SCALE);
+		int heading = quantize(event.getHeading(), HEADING_SCALE);
+		int dx = x - scanX[id];
+		int dy = y - scanY[id];
+		int energy = quantize(event.getEnergy(), ENERGY_SCALE);
+		int dHeading = angleDelta(heading, scanHeading[id], HEADING_SCALE);
+		int dEnergy = energy - scanEnergy[id];
+		if (scanKeyed[id] && fitsByte(dx) && fitsByte(dy) && fitsByte(dHeading) && fitsByte(dEnergy)) {
+			begin(TAG_SCAN, time, 6);
+			putByte(id);
+			putByte(dx);
+			putByte(dy);
+			putByte(dHeading);
+			putByte(quantize(event.getVelocity(), VELOCITY_SCALE));
+			putByte(dEnergy);
+		} else {
+			begin(TAG_SCAN_KEY, time, 21);
+			putByte(id);
+			putFloat(oppX);
+			putFloat(oppY);
+			putFloat(event.getHeading());
+			putFloat(event.getVelocity());
+			putFloat(event.getEnergy());
+			x = quantize((float) oppX, POSITION_SCALE);
+			y = quantize((float) oppY, POSITION_SCALE);
+			heading = quantize((float) event.getHeading(), HEADING_SCALE);
+			energy = quantize((float) event.getEnergy(), ENERGY_SCALE);
+			scanKeyed[id] = true;
+		}
+		scanX[id] = x;
+		scanY[id] = y;
+		scanHeading[id] = heading;
+		scanEnergy[id] = energy;
+	}
+
+	private void putBullet(Bullet bullet) {
+		putShort(quantize(bullet.getHeading(), ANGLE_SCALE));
+		putShort(Math.max(0, quantize(bullet.getX(), POSITION_SCALE)));
+		putShort(Math.max(0, quantize(bullet.getY(), POSITION_SCALE)));
+	}
+
+	@Override
+	public void onBulletHit(BulletHitEvent event) {
+		if (enabled) {
+			int id = getId(event.getName(), event.getTime());
+			begin(TAG_BULLET_HIT, event.getTime(), 10);
+			putByte(id);
+			putByte(quantize(event.getBullet().getPower(), POWER_SCALE));
+			putShort(quantize(event.getEnergy(), ENERGY_SCALE));
+			putBullet(event.getBullet());
+		}
+	}
+
+	@Override
+	public void onBulletHitBullet(BulletHitBulletEvent event) {
+		if (enabled) {
+			int id = getId(event.getHitBullet().getName(), event.getTime());
+			begin(TAG_BULLET_HIT_BULLET, event.getTime(), 15);
+			putByte(quantize(event.getBullet().getPower(), POWER_SCALE));
+			putByte(id);
+			putByte(quantize(event.getHitBullet().getPower(), POWER_SCALE));
+			putBullet(event.getBullet());
+			putBullet(event.getHitBullet());
+		}
+	}
+
+	@Override
+	public void onBulletMissed(BulletMissedEvent event) {
+		if (enabled) {
+			begin(TAG_BULLET_MISSED, event.getTime(), 7);
+			putByte(quantize(event.getBullet().getPower(), POWER_SCALE));
+			putBullet(event.getBullet());
+		}
+	}
+
+	@Override
+	public void onHitByBullet(HitByBulletEvent event) {
+		if (enabled) {
+			int id = getId(event.getName(), event.getTime());
+			begin(TAG_HIT_BY_BULLET, event.getTime(), 8);
+			putByte(id);
+			putByte(quantize(event.getPower(), POWER_SCALE));
+			putBullet(event.getBullet());
+		}
+	}
+
+	@Override
+	public void myWaveCreated(XBulletWave wave) {
+		if (enabled) {
+			begin(TAG_MY_FIRE, wave.getOriginTime(), 3);
+			putByte(quantize(wave.getBulletPower(), POWER_SCALE));
+			putShort(quantize(RCMath.normalizeDegrees(wave.getXBullet().getAim()), ANGLE_SCALE));
+		}
+	}
+
+	@Override
+	public void oppWaveCreated(Wave wave) {
+		if (enabled) {
+			Snapshot attacker = wave.getInitialAttackerSnapshot();
+			long time = robotProxy.getTime();
+			int id = getId(attacker.getName(), time);
+			begin(TAG_OPP_FIRE, time, 14);
+			putByte(id);
+			putByte(quantize(wave.getBulletPower(), POWER_SCALE));
+			putInt((int) wave.getOriginTime());
+			putFloat(wave.getOriginX());
+			putFloat(wave.getOriginY());
+		}
+	}
+
+	@Override
+	public void onRoundBegin() {
+		writeSegment();    // in case the previous round's end was not reported
+		if (enabled) {
+			startSegment();
+		}
+	}
+
+	@Override
+	public void onRoundEnded(RoundEndedEvent event) {
+		writeSegment();
+	}
+
+	@Override
+	public void onBattleEnded(BattleEndedEvent event) {
+		writeSegment();
+	}
+
+	@Override
+	public void myWaveHitBullet(XBulletWave wave, Bullet myBullet) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveHit(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myBulletHit(XBulletWave wave, BulletHitEvent bulletHitEvent) {
+		// no action required
+	}
+
+	@Override
+	public void myWavePassing(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWavePassed(XBulletWave wave, Snapshot opponentSnapshot) {
+		// no action required
+	}
+
+	@Override
+	public void myWaveDestroyed(XBulletWave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveHitBullet(Wave wave, Bullet oppBullet) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveHit(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppNextWaveToHit(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppBulletHit(Wave wave, HitByBulletEvent hitByBulletEvent) {
+		// no action required
+	}
+
+	@Override
+	public void oppWavePassing(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWavePassed(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveUpdated(Wave wave) {
+		// no action required
+	}
+
+	@Override
+	public void oppWaveDestroyed(Wave wave) {
+		// no action required
+	}
+}
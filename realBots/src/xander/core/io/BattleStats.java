@@ -1,45 +1,75 @@
 package xander.core.io;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
-import java.text.NumberFormat;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
+import xander.core.AbstractXanderRobot;
+import xander.core.log.Log;
+import xander.core.log.Logger;
+import xander.core.math.RCMath;
+
+/**
+ * Statistics saved between battles, kept as one StatBlock for each
+ * opponent plus a block of common stats.
+ *
+ * When read from a file, only the index is read at first; the block for an
+ * opponent is read and decoded the first time it is asked for, so in a
+ * battle typically only the common block and the current opponent's block
+ * are ever read.  Blocks that were never read, or were read and not changed,
+ * are written back as the same bytes they were read as.
+ *
+ * This class remains Serializable only so that stats saved in the old format
+ * can still be read.
+ */
 public class BattleStats implements Serializable {
 
 	public static final String COMMON_STAT_KEY = "DfPEdfeWQzfcfckRlFDSo";
-	
+
 	private static final long serialVersionUID = 20110928L;
-	private static final NumberFormat numberFormatter = NumberFormat.getNumberInstance();
-	
+	private static final Log log = Logger.getLog(BattleStats.class);
+
 	String robotName;    // name of our robot, including version
 	private boolean clearStatsOnNewVersion = true;
-	Map<String, Map<String, String>> statMap = new HashMap<String, Map<String, String>>();
-	
+	Map<String, Map<String, String>> statMap;    // only used when reading the old format
+
+	private transient Map<String, StatBlock> blocks;         // loaded blocks
+	transient File storedFile;                               // file blocks not yet loaded are read from
+	private transient Map<String, int[]> storedBlocks;       // offset and length of blocks in stored file
+	private transient boolean indexChanged;
+
+	public BattleStats() {
+		this.blocks = new HashMap<String, StatBlock>();
+		this.storedBlocks = new LinkedHashMap<String, int[]>();
+	}
+
 	/**
-	 * Update an average double statistic value in the given statistics map.
-	 * 
-	 * @param statMap         the statistics map, either for an individual robot or for all robots
-	 * @param key             the key for the statistic
-	 * @param newValue        the new value to factor into the average
-	 * @param decimalPlaces   the number of decimal places to maintain
-	 * @param totalBattles    the total number of battles, including the battle where the new value was obtained
+	 * Creates battle stats from battle stats read in the old serialized format.
+	 * All blocks are considered changed.
+	 *
+	 * @param legacy    battle stats read in old format
+	 *
+	 * @return          battle stats
 	 */
-	public static void updateAveragedStatValue(Map<String, String> statMap, String key, double newValue, int decimalPlaces, int totalBattles) {
-		String previousFormattedValue = statMap.get(key);
-		if (previousFormattedValue != null) {
-			double previousValue = newValue;
-			try {
-				previousValue = Double.parseDouble(previousFormattedValue);
-			} catch (Exception e) {
+	static BattleStats fromLegacy(BattleStats legacy) {
+		BattleStats battleStats = new BattleStats();
+		battleStats.robotName = legacy.robotName;
+		battleStats.clearStatsOnNewVersion = legacy.clearStatsOnNewVersion;
+		if (legacy.statMap != null) {
+			for (Map.Entry<String, Map<String, String>> entry : legacy.statMap.entrySet()) {
+				int totalBattles = RCMath.parseInt(entry.getValue().get(AbstractXanderRobot.STATS_KEY_TOTAL_BATTLES), 1);
+				battleStats.blocks.put(entry.getKey(), StatBlock.fromStrings(entry.getValue(), totalBattles));
 			}
-			newValue = (newValue + (totalBattles-1) * previousValue) / (double)totalBattles;
 		}
-		numberFormatter.setMinimumFractionDigits(decimalPlaces);
-		numberFormatter.setMaximumFractionDigits(decimalPlaces);
-		statMap.put(key, numberFormatter.format(newValue));
+		battleStats.indexChanged = true;
+		return battleStats;
 	}
-	
+
 	public boolean isClearStatsOnNewVersion() {
 		return clearStatsOnNewVersion;
 	}
@@ -49,51 +79,157 @@ public class BattleStats implements Serializable {
 	}
 
 	void clear() {
-		statMap.clear();
-	}
-	
-	public Map<String, String> getStatsForRobot(String robotName, boolean create) {
-		Map<String, String> robotStats = statMap.get(robotName);
-		if (robotStats == null && create) {
-			robotStats = new HashMap<String, String>();
-			statMap.put(robotName, robotStats);
-		} 
-		return robotStats;
+		blocks.clear();
+		storedBlocks.clear();
+		indexChanged = true;
 	}
-	
-	public Map<String, String> getCommonStats() {
-		return getStatsForRobot(COMMON_STAT_KEY, true);
+
+	void setRobotName(String robotName) {
+		this.robotName = robotName;
+		this.indexChanged = true;
 	}
-	
-	public String getStatForRobot(String robotName, String statName) {
-		Map<String, String> robotStats = statMap.get(robotName);
-		if (robotStats != null) {
-			return robotStats.get(statName);
-		} else {
+
+	void addStoredBlock(String key, int offset, int length) {
+		storedBlocks.put(key, new int[] {offset, length});
+	}
+
+	private StatBlock loadBlock(String key) {
+		int[] position = storedBlocks.get(key);
+		if (position == null || storedFile == null) {
+			return null;
+		}
+		try {
+			StatBlock block = BattleStatsFormat.decodeBlock(
+					BattleStatsFormat.readBytes(storedFile, position[0], position[1]));
+			block.setChanged(false);
+			blocks.put(key, block);
+			return block;
+		} catch (IOException e) {
+			log.error("Unable to load battle stats block.  Discarding block.");
+			storedBlocks.remove(key);
+			indexChanged = true;
 			return null;
 		}
 	}
-	
-	public void setStatForRobot(String robotName, String statName, String statValue) {
-		Map<String, String> robotStats = statMap.get(robotName);
-		if (robotStats == null) {
-			robotStats = new HashMap<String, String>();
-			statMap.put(robotName, robotStats);
+
+	/**
+	 * Returns whether anything has changed since the stats were loaded or
+	 * last saved.
+	 *
+	 * @return    whether stats have changed
+	 */
+	boolean isChanged() {
+		if (indexChanged) {
+			return true;
+		}
+		for (String key : blocks.keySet()) {
+			if (isBlockChanged(key)) {
+				return true;
+			}
 		}
-		robotStats.put(statName, statValue);
-	}
-	
-	public void removeStatForRobot(String robotName, String statName) {
-		Map<String, String> robotStats = statMap.get(robotName);
-		if (robotStats != null) {
-			robotStats.remove(statName);
-			if (robotStats.size() == 0) {
-				statMap.remove(robotName);
+		return false;
+	}
+
+	private boolean isBlockChanged(String key) {
+		StatBlock block = blocks.get(key);
+		return block != null && (block.isChanged() || !storedBlocks.containsKey(key));
+	}
+
+	/**
+	 * Returns the keys of all blocks, stored or loaded, in file order followed
+	 * by new blocks.
+	 *
+	 * @return    block keys
+	 */
+	List<String> getBlockKeys() {
+		List<String> keys = new ArrayList<String>(storedBlocks.keySet());
+		for (String key : blocks.keySet()) {
+			if (!storedBlocks.containsKey(key)) {
+				keys.add(key);
 			}
 		}
+		return keys;
 	}
-	
+
+	/**
+	 * Returns the bytes to write for the given block.  Changed blocks are
+	 * encoded; other blocks are copied from the contents of the stored file.
+	 *
+	 * @param key            block key
+	 * @param storedBytes    contents of the stored file, or null if there is none
+	 *
+	 * @return               deflated block bytes
+	 *
+	 * @throws IOException    if block cannot be encoded
+	 */
+	byte[] getBlockBytes(String key, byte[] storedBytes) throws IOException {
+		int[] position = storedBlocks.get(key);
+		if (position == null || storedBytes == null || isBlockChanged(key)) {
+			return BattleStatsFormat.encodeBlock(getStatsForRobot(key));
+		} else {
+			byte[] bytes = new byte[position[1]];
+			System.arraycopy(storedBytes, position[0], bytes, 0, position[1]);
+			return bytes;
+		}
+	}
+
+	/**
+	 * Marks the stats as saved to the given file, with blocks at the given
+	 * offsets and lengths.
+	 */
+	void saved(File file, List<String> keys, byte[][] blockBytes, int dataStart) {
+		storedFile = file;
+		storedBlocks.clear();
+		int offset = dataStart;
+		for (int i=0; i<keys.size(); i++) {
+			addStoredBlock(keys.get(i), offset, blockBytes[i].length);
+			offset += blockBytes[i].length;
+		}
+		for (StatBlock block : blocks.values()) {
+			block.setChanged(false);
+		}
+		indexChanged = false;
+	}
+
+	/**
+	 * Returns the stats for the given robot, loading or creating them if
+	 * necessary.
+	 *
+	 * @param robotName    robot name
+	 *
+	 * @return             stats for robot
+	 */
+	public StatBlock getStatsForRobot(String robotName) {
+		StatBlock robotStats = blocks.get(robotName);
+		if (robotStats == null) {
+			robotStats = loadBlock(robotName);
+		}
+		if (robotStats == null) {
+			robotStats = new StatBlock();
+			blocks.put(robotName, robotStats);
+		}
+		return robotStats;
+	}
+
+	/**
+	 * Returns whether any stats exist for the given robot.
+	 *
+	 * @param robotName    robot name
+	 *
+	 * @return             whether stats exist for robot
+	 */
+	public boolean hasStatsForRobot(String robotName) {
+		return blocks.containsKey(robotName) || storedBlocks.containsKey(robotName);
+	}
+
+	public StatBlock getCommonStats() {
+		return getStatsForRobot(COMMON_STAT_KEY);
+	}
+
 	public void removeStatsForRobot(String robotName) {
-		statMap.remove(robotName);
+		blocks.remove(robotName);
+		if (storedBlocks.remove(robotName) != null) {
+			indexChanged = true;
+		}
 	}
 }
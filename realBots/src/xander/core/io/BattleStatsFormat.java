@@ -0,0 +1,178 @@
+package xander.core.io;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Binary file format for battle stats.
+ *
+ * The file starts with a small header and index:
+ *
+ * <pre>
+ * int     magic number
+ * byte    format version
+ * int     index length in bytes
+ * index:
+ *   UTF     robot name (including version)
+ *   boolean clear stats on new version
+ *   int     block count
+ *   block count times:
+ *     UTF     block key (opponent name or common stat key)
+ *     int     block length in bytes
+ * blocks, back to back in index order
+ * </pre>
+ *
+ * Each block holds the StatBlock of one opponent (or the common stats), 
+ * deflated separately so that a single block can be read without reading any 
+ * other.
+ */
+class BattleStatsFormat {
+
+	static final int MAGIC = 0x58425354;    // "XBST"
+	static final byte VERSION = 2;
+	static final int INDEX_START = 9;       // magic, version, and index length
+
+	/**
+	 * Reads the header and index of a battle stats file.  No blocks are read.
+	 *
+	 * @param file    battle stats file
+	 *
+	 * @return        battle stats with index loaded and no blocks loaded
+	 *
+	 * @throws IOException    if file cannot be read or is not in this format
+	 */
+	static BattleStats readIndex(File file) throws IOException {
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+		try {
+			int version = (in.readInt() == MAGIC)? in.readByte() : -1;
+			if (version != VERSION) {
+				throw new IOException("Unrecognized battle stats format.");
+			}
+			int indexLength = in.readInt();
+			BattleStats battleStats = new BattleStats();
+			battleStats.robotName = in.readUTF();
+			battleStats.setClearStatsOnNewVersion(in.readBoolean());
+			int blockCount = in.readInt();
+			int offset = INDEX_START + indexLength;
+			for (int i=0; i<blockCount; i++) {
+				String key = in.readUTF();
+				int length = in.readInt();
+				battleStats.addStoredBlock(key, offset, length);
+				offset += length;
+			}
+			battleStats.storedFile = file;
+			return battleStats;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads the raw (still deflated) bytes at the given position in a file.
+	 *
+	 * @param file      file to read
+	 * @param offset    offset of first byte
+	 * @param length    number of bytes to read
+	 *
+	 * @return          bytes read
+	 *
+	 * @throws IOException    if file cannot be read
+	 */
+	static byte[] readBytes(File file, int offset, int length) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			long toSkip = offset;
+			while (toSkip > 0) {
+				long skipped = in.skip(toSkip);
+				if (skipped <= 0) {
+					throw new IOException("Unexpected end of battle stats file.");
+				}
+				toSkip -= skipped;
+			}
+			byte[] bytes = new byte[length];
+			new DataInputStream(in).readFully(bytes);
+			return bytes;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Decodes a deflated block.
+	 *
+	 * @param bytes    deflated block bytes
+	 *
+	 * @return         stat block
+	 *
+	 * @throws IOException    if block is corrupt
+	 */
+	static StatBlock decodeBlock(byte[] bytes) throws IOException {
+		DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(bytes)));
+		return StatBlock.readFrom(in);
+	}
+
+	/**
+	 * Encodes a stat block into a deflated block.
+	 *
+	 * @param stats    stat block
+	 *
+	 * @return         deflated block bytes
+	 *
+	 * @throws IOException    if stat block cannot be encoded
+	 */
+	static byte[] encodeBlock(StatBlock stats) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DeflaterOutputStream deflater = new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION));
+		DataOutputStream out = new DataOutputStream(deflater);
+		stats.writeTo(out);
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Writes a complete battle stats file.
+	 *
+	 * @param os             stream to write to
+	 * @param battleStats    battle stats (for robot name and flags)
+	 * @param keys           block keys, in order
+	 * @param blocks         deflated block bytes, in the same order as the keys
+	 *
+	 * @return               offset of the first block in the file
+	 *
+	 * @throws IOException    if file cannot be written
+	 */
+	static int write(OutputStream os, BattleStats battleStats, List<String> keys, byte[][] blocks) throws IOException {
+		ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+		DataOutputStream index = new DataOutputStream(indexBytes);
+		index.writeUTF(battleStats.robotName == null? "" : battleStats.robotName);
+		index.writeBoolean(battleStats.isClearStatsOnNewVersion());
+		index.writeInt(blocks.length);
+		for (int i=0; i<blocks.length; i++) {
+			index.writeUTF(keys.get(i));
+			index.writeInt(blocks[i].length);
+		}
+		index.close();
+		DataOutputStream out = new DataOutputStream(os);
+		out.writeInt(MAGIC);
+		out.writeByte(VERSION);
+		out.writeInt(indexBytes.size());
+		indexBytes.writeTo(out);
+		for (int i=0; i<blocks.length; i++) {
+			out.write(blocks[i]);
+		}
+		out.flush();
+		return INDEX_START + indexBytes.size();
+	}
+}
@@ -5,11 +5,9 @@ import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.ObjectInput;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
-import java.util.zip.ZipEntry;
+import java.io.OutputStream;
+import java.util.List;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
 
 import robocode.AdvancedRobot;
 import robocode.RobocodeFileOutputStream;
@@ -25,6 +23,7 @@ public class FileIO {
 	private static final Log log = Logger.getLog(FileIO.class);
 	private static final String BATTLE_STATS_SUFFIX = "_BattleStats";
 	private static final String BATTLE_STATS_EXT = ".dat";
+	private static final String BATTLE_STATS_BINARY_EXT = ".bin";
 	
 	private static BattleStats battleStats;
 	
@@ -48,9 +47,15 @@ public class FileIO {
 		return battleStats;
 	}
 	
+	/**
+	 * Loads the battle stats index.  Stats for individual opponents are not 
+	 * read until they are asked for.  Stats saved in the old serialized zip 
+	 * format are read in full and will be saved in the new format.
+	 * 
+	 * @param configuration    robot configuration
+	 */
 	public static void loadBattleStats(Configuration configuration) {
 		String battleStatsFileName = getFileName(BATTLE_STATS_SUFFIX, BATTLE_STATS_EXT);
-		String battleStatsZipFileName = getFileName(BATTLE_STATS_SUFFIX, ".zip");
 		
 		// clean up battle stats file from previous version if it exists
 		File battleStatsFile = Resources.getRobotProxy().getDataFile(battleStatsFileName);
@@ -58,58 +63,93 @@ public class FileIO {
 			battleStatsFile.delete();
 		}
 		
-		File battleStatsZipFile = Resources.getRobotProxy().getDataFile(battleStatsZipFileName);
-		ObjectInput oi = null;
-		if (battleStatsZipFile.exists()) {
+		File battleStatsBinaryFile = Resources.getRobotProxy().getDataFile(
+				getFileName(BATTLE_STATS_SUFFIX, BATTLE_STATS_BINARY_EXT));
+		File battleStatsZipFile = Resources.getRobotProxy().getDataFile(
+				getFileName(BATTLE_STATS_SUFFIX, ".zip"));
+		battleStats = null;
+		if (battleStatsBinaryFile.exists()) {
 			try {
-				ZipInputStream zis = new ZipInputStream(new FileInputStream(battleStatsZipFile));
-				zis.getNextEntry();
-				oi = new ObjectInputStream(zis);
-				battleStats = (BattleStats) oi.readObject();
-				oi.close();
+				battleStats = BattleStatsFormat.readIndex(battleStatsBinaryFile);
 			} catch (Exception e) {
 				log.error("Unable to load existing battle stats.  Creating new battle stats.");
-				battleStats = new BattleStats();
-			} finally {
-				if (oi != null) {
-					try {
-						oi.close();
-					} catch (Exception e) { }
-				}
 			}
-		} else {
+		} else if (battleStatsZipFile.exists()) {
+			battleStats = loadLegacyBattleStats(battleStatsZipFile);
+		}
+		if (battleStats == null) {
 			battleStats = new BattleStats();
 		}
 		String robotName = Resources.getRobotProxy().getName();
-		if (battleStats != null && !robotName.equals(battleStats.robotName)) {
+		if (!robotName.equals(battleStats.robotName)) {
 			boolean clearBattleStatsOnNewVersion = configuration.isClearBattleStatsOnNewVersion();
 			battleStats.setClearStatsOnNewVersion(clearBattleStatsOnNewVersion);
 			if (clearBattleStatsOnNewVersion) {
 				battleStats.clear();
 			}
-			battleStats.robotName = robotName;
+			battleStats.setRobotName(robotName);
+		}
+	}
+	
+	private static BattleStats loadLegacyBattleStats(File battleStatsZipFile) {
+		ObjectInput oi = null;
+		try {
+			ZipInputStream zis = new ZipInputStream(new FileInputStream(battleStatsZipFile));
+			zis.getNextEntry();
+			oi = new ObjectInputStream(zis);
+			return BattleStats.fromLegacy((BattleStats) oi.readObject());
+		} catch (Exception e) {
+			log.error("Unable to load existing battle stats.  Creating new battle stats.");
+			return null;
+		} finally {
+			if (oi != null) {
+				try {
+					oi.close();
+				} catch (Exception e) { }
+			}
 		}
 	}
 	
+	/**
+	 * Saves the battle stats if anything has changed.  Blocks that have not
+	 * changed are copied as is from the existing file.
+	 */
 	public static void saveBattleStats() {
-		if (battleStats == null) {
+		if (battleStats == null || !battleStats.isChanged()) {
 			return;
 		}
-		String battleStatsFileName = getFileName(BATTLE_STATS_SUFFIX, BATTLE_STATS_EXT);
-		String battleStatsZipFileName = getFileName(BATTLE_STATS_SUFFIX, ".zip");
-		File battleStatsZipFile = Resources.getRobotProxy().getDataFile(battleStatsZipFileName);
-		ObjectOutput oo = null;
+		File battleStatsBinaryFile = Resources.getRobotProxy().getDataFile(
+				getFileName(BATTLE_STATS_SUFFIX, BATTLE_STATS_BINARY_EXT));
+		OutputStream os = null;
 		try {
-			ZipOutputStream zos = new ZipOutputStream(new RobocodeFileOutputStream(battleStatsZipFile));
-			zos.putNextEntry(new ZipEntry(battleStatsFileName));
-			oo = new ObjectOutputStream(zos);
-			oo.writeObject(battleStats);
+			byte[] storedBytes = null;
+			if (battleStats.storedFile != null && battleStats.storedFile.exists()) {
+				storedBytes = BattleStatsFormat.readBytes(
+						battleStats.storedFile, 0, (int) battleStats.storedFile.length());
+			}
+			List<String> keys = battleStats.getBlockKeys();
+			byte[][] blocks = new byte[keys.size()][];
+			for (int i=0; i<blocks.length; i++) {
+				blocks[i] = battleStats.getBlockBytes(keys.get(i), storedBytes);
+			}
+			os = new RobocodeFileOutputStream(battleStatsBinaryFile);
+			int dataStart = BattleStatsFormat.write(os, battleStats, keys, blocks);
+			os.close();
+			os = null;
+			battleStats.saved(battleStatsBinaryFile, keys, blocks, dataStart);
+			
+			// stats are now in the binary format; remove stats in the old format
+			File battleStatsZipFile = Resources.getRobotProxy().getDataFile(
+					getFileName(BATTLE_STATS_SUFFIX, ".zip"));
+			if (battleStatsZipFile.exists()) {
+				battleStatsZipFile.delete();
+			}
 		} catch (Exception e) {
 			log.error("Unable to save battle stats.");
 		} finally {
-			if (oo != null) {
+			if (os != null) {
 				try {
-					oo.close();
+					os.close();
 				} catch (Exception e) { }
 			}
 		}
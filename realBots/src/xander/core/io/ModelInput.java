@@ -0,0 +1,77 @@
+package xander.core.io;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input for reading the learned state of a PersistentModel, as written by 
+ * ModelOutput.
+ */
+public class ModelInput {
+
+	private DataInputStream in;
+	
+	ModelInput(InputStream is) {
+		this.in = new DataInputStream(is);
+	}
+	
+	public int readInt() throws IOException {
+		return in.readInt();
+	}
+	
+	public float readFloat() throws IOException {
+		return in.readFloat();
+	}
+	
+	/**
+	 * Reads values written by ModelOutput.writeProfile.  If fewer values were 
+	 * written than the array holds, the remaining values are left unchanged; 
+	 * if more were written, the extra values are skipped.
+	 * 
+	 * @param values    array to read values into
+	 * 
+	 * @return          number of values written
+	 * 
+	 * @throws IOException    if values cannot be read
+	 */
+	public int readProfile(float[] values) throws IOException {
+		int length = in.readUnsignedShort();
+		float max = in.readFloat();
+		int q = 0;
+		for (int i=0; i<length; i++) {
+			q = (q + in.readByte()) & 0xFF;
+			if (i < values.length) {
+				values[i] = q * max / 255;
+			}
+		}
+		return length;
+	}
+	
+	/**
+	 * Reads values written by ModelOutput.writeQuantized.  The same minimum 
+	 * and maximum must be given as when the values were written.  Values that
+	 * do not fit in the array after the given offset are skipped.
+	 * 
+	 * @param values    array to read values into
+	 * @param offset    index to read first value into
+	 * @param min       minimum value
+	 * @param max       maximum value
+	 * 
+	 * @return          number of values written
+	 * 
+	 * @throws IOException    if values cannot be read
+	 */
+	public int readQuantized(double[] values, int offset, double min, double max) throws IOException {
+		int length = in.readInt();
+		double scale = (max - min) / 65535;
+		int q = 0;
+		for (int i=0; i<length; i++) {
+			q = (q + in.readShort()) & 0xFFFF;
+			if (offset + i < values.length) {
+				values[offset + i] = min + q * scale;
+			}
+		}
+		return length;
+	}
+}
@@ -0,0 +1,79 @@
+package xander.core.io;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Output for writing the learned state of a PersistentModel.  Arrays are 
+ * quantized to bytes or shorts and delta-encoded (each value is written as 
+ * the difference from the previous value), which leaves mostly small numbers
+ * for the compression applied by the ModelStore.
+ */
+public class ModelOutput {
+
+	private DataOutputStream out;
+	
+	ModelOutput(OutputStream os) {
+		this.out = new DataOutputStream(os);
+	}
+	
+	public void writeInt(int value) throws IOException {
+		out.writeInt(value);
+	}
+	
+	public void writeFloat(float value) throws IOException {
+		out.writeFloat(value);
+	}
+	
+	/**
+	 * Writes non-negative values, such as a guess factor profile, as one byte 
+	 * each, scaled relative to the largest value.
+	 * 
+	 * @param values    values to write
+	 * 
+	 * @throws IOException    if values cannot be written
+	 */
+	public void writeProfile(float[] values) throws IOException {
+		float max = 0;
+		for (int i=0; i<values.length; i++) {
+			max = Math.max(max, values[i]);
+		}
+		out.writeShort(values.length);
+		out.writeFloat(max);
+		int previous = 0;
+		for (int i=0; i<values.length; i++) {
+			int q = (max <= 0)? 0 : Math.round(Math.max(0, values[i]) / max * 255);
+			out.writeByte(q - previous);
+			previous = q;
+		}
+	}
+	
+	/**
+	 * Writes values in the given range as two bytes each.  Values outside the 
+	 * range are clamped.
+	 * 
+	 * @param values    values to write
+	 * @param offset    index of first value to write
+	 * @param length    number of values to write
+	 * @param min       minimum value
+	 * @param max       maximum value
+	 * 
+	 * @throws IOException    if values cannot be written
+	 */
+	public void writeQuantized(double[] values, int offset, int length, double min, double max) throws IOException {
+		out.writeInt(length);
+		double scale = (max > min)? 65535 / (max - min) : 0;
+		int previous = 0;
+		for (int i=offset; i<offset+length; i++) {
+			double v = Math.max(min, Math.min(max, values[i]));
+			int q = (int) Math.round((v - min) * scale);
+			out.writeShort(q - previous);
+			previous = q;
+		}
+	}
+	
+	void flush() throws IOException {
+		out.flush();
+	}
+}
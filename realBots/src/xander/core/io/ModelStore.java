@@ -0,0 +1,361 @@
+package xander.core.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+import robocode.BattleEndedEvent;
+import robocode.RoundEndedEvent;
+import robocode.RobocodeFileOutputStream;
+import robocode.ScannedRobotEvent;
+import xander.core.RobotEvents;
+import xander.core.RobotProxy;
+import xander.core.event.RoundListener;
+import xander.core.event.ScannedRobotListener;
+import xander.core.log.Log;
+import xander.core.log.Logger;
+import xander.core.track.SnapshotHistory;
+
+/**
+ * Saves the learned state of registered PersistentModels for each opponent
+ * between battles, so that guns and drives do not start cold against an
+ * opponent that has been fought before.
+ *
+ * The state for an opponent is kept in its own deflated file, and is read the
+ * first time the opponent is scanned in a battle.  At the end of a one-on-one
+ * battle, the state of every model is written for the opponent, within a byte
+ * budget per opponent; if the models do not fit, the models registered last
+ * are left out.  An index file records the size of each opponent's file and
+ * the battle it was last fought in, and when the data quota runs low the
+ * files of the opponents fought least recently are deleted.
+ */
+public class ModelStore implements ScannedRobotListener, RoundListener {
+
+	private static final Log log = Logger.getLog(ModelStore.class);
+	private static final int INDEX_MAGIC = 0x584D4458;    // "XMDX"
+	private static final int MODEL_MAGIC = 0x584D444C;    // "XMDL"
+	private static final String INDEX_SUFFIX = "_Models.idx";
+	private static final String MODEL_PREFIX = "_M";
+	private static final String MODEL_EXT = ".dat";
+
+	private RobotProxy robotProxy;
+	private SnapshotHistory snapshotHistory;
+	private List<PersistentModel> models = new ArrayList<PersistentModel>();
+	private int opponentBudget = 4096;        // maximum bytes saved per opponent
+	private int quotaReserve = 16384;         // bytes of data quota to leave free for other files
+	private String loadedOpponent;            // opponent whose state has been loaded this battle, if any
+
+	// index of saved opponents
+	private boolean indexLoaded;
+	private int battleCount;
+	private List<String> opponents = new ArrayList<String>();
+	private List<String> fileNames = new ArrayList<String>();
+	private List<Integer> sizes = new ArrayList<Integer>();
+	private List<Integer> lastBattles = new ArrayList<Integer>();
+
+	public ModelStore(RobotProxy robotProxy, RobotEvents robotEvents, SnapshotHistory snapshotHistory) {
+		this.robotProxy = robotProxy;
+		this.snapshotHistory = snapshotHistory;
+		robotEvents.addScannedRobotListener(this);
+		robotEvents.addRoundListener(this);
+	}
+
+	/**
+	 * Registers a model to be saved and loaded for each opponent.
+	 *
+	 * @param model    model to register
+	 */
+	public void register(PersistentModel model) {
+		models.add(model);
+	}
+
+	/**
+	 * Sets the byte budgets for saved state.
+	 *
+	 * @param opponentBudget    maximum bytes saved for any one opponent
+	 * @param quotaReserve      bytes of data quota to leave free for other files
+	 */
+	public void setBudgets(int opponentBudget, int quotaReserve) {
+		this.opponentBudget = opponentBudget;
+		this.quotaReserve = quotaReserve;
+	}
+
+	private String getRobotFilePrefix() {
+		return robotProxy.getName().split(" ")[0];
+	}
+
+	/**
+	 * Returns a file name for the state of an opponent not yet in the index.
+	 * Names are based on the opponent name's hash code, with a suffix added
+	 * where that would clash with the file of another opponent.
+	 *
+	 * @param opponentName    opponent name
+	 *
+	 * @return                file name unique within the index
+	 */
+	private String getModelFileName(String opponentName) {
+		String baseName = getRobotFilePrefix() + MODEL_PREFIX + Integer.toHexString(opponentName.hashCode());
+		String fileName = baseName + MODEL_EXT;
+		for (int suffix=1; fileNames.contains(fileName); suffix++) {
+			fileName = baseName + "_" + suffix + MODEL_EXT;
+		}
+		return fileName;
+	}
+
+	private void loadIndex() {
+		if (indexLoaded) {
+			return;
+		}
+		indexLoaded = true;
+		File indexFile = robotProxy.getDataFile(getRobotFilePrefix() + INDEX_SUFFIX);
+		if (!indexFile.exists()) {
+			return;
+		}
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new FileInputStream(indexFile));
+			if (in.readInt() != INDEX_MAGIC) {
+				throw new IOException("Unrecognized model index format.");
+			}
+			battleCount = in.readInt();
+			int count = in.readInt();
+			for (int i=0; i<count; i++) {
+				opponents.add(in.readUTF());
+				fileNames.add(in.readUTF());
+				sizes.add(Integer.valueOf(in.readInt()));
+				lastBattles.add(Integer.valueOf(in.readInt()));
+			}
+		} catch (Exception e) {
+			log.error("Unable to load model index.  Starting new index.");
+			opponents.clear();
+			fileNames.clear();
+			sizes.clear();
+			lastBattles.clear();
+		} finally {
+			close(in);
+		}
+	}
+
+	private void saveIndex() throws IOException {
+		File indexFile = robotProxy.getDataFile(getRobotFilePrefix() + INDEX_SUFFIX);
+		DataOutputStream out = new DataOutputStream(new RobocodeFileOutputStream(indexFile));
+		try {
+			out.writeInt(INDEX_MAGIC);
+			out.writeInt(battleCount);
+			out.writeInt(opponents.size());
+			for (int i=0; i<opponents.size(); i++) {
+				out.writeUTF(opponents.get(i));
+				out.writeUTF(fileNames.get(i));
+				out.writeInt(sizes.get(i).intValue());
+				out.writeInt(lastBattles.get(i).intValue());
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Loads the saved state of all registered models for the given opponent.
+	 *
+	 * @param opponentName    opponent name
+	 */
+	private void load(String opponentName) {
+		loadIndex();
+		int index = opponents.indexOf(opponentName);
+		if (index < 0) {
+			return;
+		}
+		File modelFile = robotProxy.getDataFile(fileNames.get(index));
+		DataInputStream in = null;
+		try {
+			in = new DataInputStream(new InflaterInputStream(new FileInputStream(modelFile)));
+			if (in.readInt() != MODEL_MAGIC || !opponentName.equals(in.readUTF())) {
+				throw new IOException("Model file does not match opponent.");
+			}
+			int count = in.readShort();
+			for (int i=0; i<count; i++) {
+				String modelName = in.readUTF();
+				byte[] bytes = new byte[in.readInt()];
+				in.readFully(bytes);
+				PersistentModel model = getModel(modelName);
+				if (model != null) {
+					model.readModel(new ModelInput(new ByteArrayInputStream(bytes)));
+				}
+			}
+			log.info("Loaded learned state for " + opponentName + ".");
+		} catch (Exception e) {
+			log.error("Unable to load learned state for " + opponentName + ".");
+		} finally {
+			close(in);
+		}
+	}
+
+	private PersistentModel getModel(String modelName) {
+		for (int i=0; i<models.size(); i++) {
+			if (models.get(i).getModelName().equals(modelName)) {
+				return models.get(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Returns the compressed state of the first modelCount registered models
+	 * for the given opponent.
+	 */
+	private byte[] write(String opponentName, int modelCount) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		DataOutputStream out = new DataOutputStream(
+				new DeflaterOutputStream(bytes, new Deflater(Deflater.BEST_COMPRESSION)));
+		out.writeInt(MODEL_MAGIC);
+		out.writeUTF(opponentName);
+		out.writeShort(modelCount);
+		ByteArrayOutputStream modelBytes = new ByteArrayOutputStream();
+		for (int i=0; i<modelCount; i++) {
+			PersistentModel model = models.get(i);
+			modelBytes.reset();
+			ModelOutput modelOut = new ModelOutput(modelBytes);
+			model.writeModel(modelOut);
+			modelOut.flush();
+			out.writeUTF(model.getModelName());
+			out.writeInt(modelBytes.size());
+			modelBytes.writeTo(out);
+		}
+		out.close();
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Saves the state of all registered models for the given opponent, within
+	 * the per-opponent budget, evicting the state of other opponents if the
+	 * data quota is running low.
+	 *
+	 * @param opponentName    opponent name
+	 */
+	private void save(String opponentName) {
+		loadIndex();
+		OutputStream os = null;
+		try {
+			int modelCount = models.size();
+			byte[] bytes = write(opponentName, modelCount);
+			while (bytes.length > opponentBudget && modelCount > 0) {
+				modelCount--;
+				log.warn("Learned state over budget; leaving out " + models.get(modelCount).getModelName() + ".");
+				bytes = write(opponentName, modelCount);
+			}
+			if (modelCount == 0) {
+				return;
+			}
+			int index = opponents.indexOf(opponentName);
+			long available = robotProxy.getDataQuotaAvailable() - quotaReserve
+					+ ((index < 0)? 0 : sizes.get(index).intValue());
+			while (bytes.length > available && evictLeastRecent(opponentName)) {
+				available = robotProxy.getDataQuotaAvailable() - quotaReserve
+						+ ((index < 0)? 0 : sizes.get(opponents.indexOf(opponentName)).intValue());
+			}
+			if (bytes.length > available) {
+				log.warn("Not enough data quota to save learned state.");
+				return;
+			}
+			battleCount++;
+			index = opponents.indexOf(opponentName);
+			String fileName = (index < 0)? getModelFileName(opponentName) : fileNames.get(index);
+			os = new RobocodeFileOutputStream(robotProxy.getDataFile(fileName));
+			os.write(bytes);
+			os.close();
+			os = null;
+			if (index < 0) {
+				opponents.add(opponentName);
+				fileNames.add(fileName);
+				sizes.add(Integer.valueOf(bytes.length));
+				lastBattles.add(Integer.valueOf(battleCount));
+			} else {
+				sizes.set(index, Integer.valueOf(bytes.length));
+				lastBattles.set(index, Integer.valueOf(battleCount));
+			}
+			saveIndex();
+		} catch (Exception e) {
+			log.error("Unable to save learned state for " + opponentName + ".");
+		} finally {
+			close(os);
+		}
+	}
+
+	/**
+	 * Deletes the saved state of the opponent fought least recently, other
+	 * than the given opponent.
+	 *
+	 * @param keepOpponent    opponent whose state should not be deleted
+	 *
+	 * @return                whether any state was deleted
+	 */
+	private boolean evictLeastRecent(String keepOpponent) {
+		int oldest = -1;
+		for (int i=0; i<opponents.size(); i++) {
+			if (!opponents.get(i).equals(keepOpponent)
+					&& (oldest < 0 || lastBattles.get(i).intValue() < lastBattles.get(oldest).intValue())) {
+				oldest = i;
+			}
+		}
+		if (oldest < 0) {
+			return false;
+		}
+		log.info("Evicting learned state for " + opponents.get(oldest) + ".");
+		File file = robotProxy.getDataFile(fileNames.get(oldest));
+		if (file.exists()) {
+			file.delete();
+		}
+		opponents.remove(oldest);
+		fileNames.remove(oldest);
+		sizes.remove(oldest);
+		lastBattles.remove(oldest);
+		return true;
+	}
+
+	private static void close(InputStream in) {
+		if (in != null) {
+			try {
+				in.close();
+			} catch (Exception e) { }
+		}
+	}
+
+	private static void close(OutputStream os) {
+		if (os != null) {
+			try {
+				os.close();
+			} catch (Exception e) { }
+		}
+	}
+
+	@Override
+	public void onScannedRobot(ScannedRobotEvent event) {
+		if (loadedOpponent == null && !models.isEmpty() && robotProxy.getOthers() == 1) {
+			loadedOpponent = event.getName();
+			load(loadedOpponent);
+		}
+	}
+
+	@Override
+	public void onBattleEnded(BattleEndedEvent event) {
+		if (loadedOpponent != null && !models.isEmpty() && snapshotHistory.getOpponentCount() == 1) {
+			save(loadedOpponent);
+		}
+	}
+
+	@Override
+	public void onRoundEnded(RoundEndedEvent event) {
+		// no action required
+	}
+}
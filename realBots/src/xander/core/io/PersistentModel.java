@@ -0,0 +1,40 @@
+package xander.core.io;
+
+import java.io.IOException;
+
+/**
+ * Learned state of a component that is saved for each opponent between 
+ * battles by the ModelStore.  Models should keep their saved state small; 
+ * ModelOutput provides quantized, delta-encoded writes for arrays.
+ */
+public interface PersistentModel {
+
+	/**
+	 * Returns the name the model is saved under.  Must be unique among the
+	 * models registered with the store, and should not change between versions
+	 * unless the saved format changes.
+	 * 
+	 * @return    model name
+	 */
+	public String getModelName();
+	
+	/**
+	 * Writes the learned state of the model.
+	 * 
+	 * @param out    output to write to
+	 * 
+	 * @throws IOException    if the state cannot be written
+	 */
+	public void writeModel(ModelOutput out) throws IOException;
+	
+	/**
+	 * Reads learned state previously written by writeModel.  This is called 
+	 * the first time the opponent is scanned in a battle, if state was saved 
+	 * for that opponent.
+	 * 
+	 * @param in    input to read from
+	 * 
+	 * @throws IOException    if the state cannot be read
+	 */
+	public void readModel(ModelInput in) throws IOException;
+}
@@ -0,0 +1,247 @@
+package xander.core.io;
+
+/**
+ * One round of a battle as read from a BattleRecorder segment.  Our own state
+ * is held per tick in parallel arrays; everything else is held as a list of
+ * events, in the order recorded, each belonging to the tick whose own state
+ * record followed it.
+ *
+ * Event values by tag, with angles in degrees:
+ * <pre>
+ * TAG_SCAN                 x, y, heading, velocity, energy
+ * TAG_BULLET_HIT           power, victim energy, bullet heading, bullet x, bullet y
+ * TAG_BULLET_MISSED        power, bullet heading, bullet x, bullet y
+ * TAG_HIT_BY_BULLET        power, bullet heading, bullet x, bullet y
+ * TAG_BULLET_HIT_BULLET    power, bullet heading, bullet x, bullet y,
+ *                          other power, other heading, other x, other y
+ * TAG_MY_FIRE              power, aim
+ * TAG_OPP_FIRE             power, origin time, origin x, origin y
+ * </pre>
+ * The event id is the id of the opponent involved, or -1 if none.
+ */
+public class RecordedRound {
+
+	public static final int VALUES_PER_EVENT = 8;
+
+	String robotName;
+	int round;
+	double battleFieldWidth;
+	double battleFieldHeight;
+	boolean truncated;
+	int roundTickCount;
+	String[] names = new String[0];
+
+	int tickCount;
+	long[] times = new long[1024];
+	double[] x = new double[1024];
+	double[] y = new double[1024];
+	double[] heading = new double[1024];
+	double[] velocity = new double[1024];
+	double[] energy = new double[1024];
+	double[] gunHeading = new double[1024];
+	double[] gunHeat = new double[1024];
+	double[] radarHeading = new double[1024];
+	int[] tickEventStart = new int[1025];
+
+	int eventCount;
+	int[] eventTags = new int[1024];
+	int[] eventIds = new int[1024];
+	long[] eventTimes = new long[1024];
+	double[] eventValues = new double[1024 * VALUES_PER_EVENT];
+
+	RecordedRound() {
+	}
+
+	void setName(int id, String name) {
+		if (id >= names.length) {
+			String[] newNames = new String[id + 1];
+			System.arraycopy(names, 0, newNames, 0, names.length);
+			names = newNames;
+		}
+		names[id] = name;
+	}
+
+	void addTick(long time, double x, double y, double heading, double velocity, double energy,
+			double gunHeading, double gunHeat, double radarHeading) {
+		if (tickCount == times.length) {
+			int length = tickCount * 2;
+			times = grow(times, length);
+			this.x = grow(this.x, length);
+			this.y = grow(this.y, length);
+			this.heading = grow(this.heading, length);
+			this.velocity = grow(this.velocity, length);
+			this.energy = grow(this.energy, length);
+			this.gunHeading = grow(this.gunHeading, length);
+			this.gunHeat = grow(this.gunHeat, length);
+			this.radarHeading = grow(this.radarHeading, length);
+			tickEventStart = grow(tickEventStart, length + 1);
+		}
+		int i = tickCount++;
+		times[i] = time;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.heading[i] = heading;
+		this.velocity[i] = velocity;
+		this.energy[i] = energy;
+		this.gunHeading[i] = gunHeading;
+		this.gunHeat[i] = gunHeat;
+		this.radarHeading[i] = radarHeading;
+		tickEventStart[tickCount] = eventCount;
+	}
+
+	/**
+	 * Adds an event and returns the offset its values are to be written at.
+	 */
+	int addEvent(int tag, int id, long time) {
+		if (eventCount == eventTags.length) {
+			int length = eventCount * 2;
+			eventTags = grow(eventTags, length);
+			eventIds = grow(eventIds, length);
+			eventTimes = grow(eventTimes, length);
+			eventValues = grow(eventValues, length * VALUES_PER_EVENT);
+		}
+		int e = eventCount++;
+		eventTags[e] = tag;
+		eventIds[e] = id;
+		eventTimes[e] = time;
+		return e * VALUES_PER_EVENT;
+	}
+
+	private static long[] grow(long[] values, int length) {
+		long[] newValues = new long[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	private static int[] grow(int[] values, int length) {
+		int[] newValues = new int[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	private static double[] grow(double[] values, int length) {
+		double[] newValues = new double[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	public String getRobotName() {
+		return robotName;
+	}
+
+	public int getRound() {
+		return round;
+	}
+
+	public double getBattleFieldWidth() {
+		return battleFieldWidth;
+	}
+
+	public double getBattleFieldHeight() {
+		return battleFieldHeight;
+	}
+
+	/**
+	 * Returns the number of opponents named in the round.
+	 *
+	 * @return    number of opponents
+	 */
+	public int getOpponentCount() {
+		return names.length;
+	}
+
+	public String getOpponentName(int id) {
+		return names[id];
+	}
+
+	public int getTickCount() {
+		return tickCount;
+	}
+
+	/**
+	 * Returns whether the recording of the round was cut short to fit the
+	 * recording budget, so that it holds only the first turns of the round.
+	 *
+	 * @return    whether the round was truncated
+	 */
+	public boolean isTruncated() {
+		return truncated;
+	}
+
+	/**
+	 * Returns the number of turns in the round, recorded or not.
+	 *
+	 * @return    number of turns in round
+	 */
+	public int getRoundTickCount() {
+		return roundTickCount;
+	}
+
+	public long getTime(int tick) {
+		return times[tick];
+	}
+
+	public double getX(int tick) {
+		return x[tick];
+	}
+
+	public double getY(int tick) {
+		return y[tick];
+	}
+
+	public double getHeadingDegrees(int tick) {
+		return heading[tick];
+	}
+
+	public double getVelocity(int tick) {
+		return velocity[tick];
+	}
+
+	public double getEnergy(int tick) {
+		return energy[tick];
+	}
+
+	public double getGunHeadingDegrees(int tick) {
+		return gunHeading[tick];
+	}
+
+	public double getGunHeat(int tick) {
+		return gunHeat[tick];
+	}
+
+	public double getRadarHeadingDegrees(int tick) {
+		return radarHeading[tick];
+	}
+
+	/**
+	 * Returns the index of the first event belonging to the given tick.  The
+	 * events of the tick end at the first event of the next tick.
+	 *
+	 * @param tick    tick index, up to and including the tick count
+	 *
+	 * @return        index of first event of tick
+	 */
+	public int getFirstEvent(int tick) {
+		return tickEventStart[tick];
+	}
+
+	public int getEventCount() {
+		return eventCount;
+	}
+
+	public int getEventTag(int event) {
+		return eventTags[event];
+	}
+
+	public int getEventId(int event) {
+		return eventIds[event];
+	}
+
+	public long getEventTime(int event) {
+		return eventTimes[event];
+	}
+
+	public double getEventValue(int event, int index) {
+		return eventValues[event * VALUES_PER_EVENT + index];
+	}
+}
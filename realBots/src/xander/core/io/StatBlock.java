@@ -0,0 +1,389 @@
+package xander.core.io;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.text.ParsePosition;
+import java.util.HashMap;
+import java.util.Map;
+
+import xander.core.log.Log;
+import xander.core.log.Logger;
+
+/**
+ * Typed statistics for one opponent, or common to all opponents, kept between
+ * battles.  Each statistic is one of:
+ *
+ * <ul>
+ * <li>a counter (a long value),</li>
+ * <li>a running mean, kept as sample count, mean, and sum of squared
+ * differences from the mean (Welford's method), so the mean and variance stay
+ * exact however many battles are added, or</li>
+ * <li>text.</li>
+ * </ul>
+ *
+ * Values are kept in primitive arrays and are only turned into strings when a
+ * report is asked for.  A key keeps the type it was created with; updating it
+ * as another type logs a warning and leaves the statistic unchanged, so that
+ * history saved under the key is not lost.
+ */
+public class StatBlock {
+
+	private static final Log log = Logger.getLog(StatBlock.class);
+
+	static final byte TYPE_TEXT = 0;
+	static final byte TYPE_COUNTER = 1;
+	static final byte TYPE_MEAN = 2;
+
+	private Map<String, Integer> slots = new HashMap<String, Integer>();
+	private String[] keys = new String[16];
+	private byte[] types = new byte[16];
+	private long[] counts = new long[16];     // counter value, or sample count for a mean
+	private double[] means = new double[16];
+	private double[] m2s = new double[16];    // sum of squared differences from the mean
+	private String[] texts = new String[16];
+	private int size;
+	private boolean changed;
+
+	/**
+	 * Returns the slot for a key, creating it with the given type if necessary.
+	 * Returns -1 if the key already holds a statistic of another type.
+	 */
+	private int getSlot(String key, byte type) {
+		Integer slot = slots.get(key);
+		if (slot != null) {
+			int s = slot.intValue();
+			if (types[s] != type) {
+				log.warn("Statistic {} is kept as another type; update ignored.", key);
+				return -1;
+			}
+			return s;
+		}
+		if (size == keys.length) {
+			int length = size * 2;
+			String[] newKeys = new String[length];
+			System.arraycopy(keys, 0, newKeys, 0, size);
+			keys = newKeys;
+			byte[] newTypes = new byte[length];
+			System.arraycopy(types, 0, newTypes, 0, size);
+			types = newTypes;
+			long[] newCounts = new long[length];
+			System.arraycopy(counts, 0, newCounts, 0, size);
+			counts = newCounts;
+			means = grow(means, length);
+			m2s = grow(m2s, length);
+			String[] newTexts = new String[length];
+			System.arraycopy(texts, 0, newTexts, 0, size);
+			texts = newTexts;
+		}
+		int s = size++;
+		keys[s] = key;
+		types[s] = type;
+		counts[s] = 0;
+		means[s] = 0;
+		m2s[s] = 0;
+		texts[s] = null;
+		slots.put(key, Integer.valueOf(s));
+		return s;
+	}
+
+	private static double[] grow(double[] values, int length) {
+		double[] newValues = new double[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	private int findSlot(String key, byte type) {
+		Integer slot = slots.get(key);
+		return (slot == null || types[slot.intValue()] != type)? -1 : slot.intValue();
+	}
+
+	/**
+	 * Adds to a counter, creating it if necessary.
+	 *
+	 * @param key       statistic key
+	 * @param amount    amount to add (may be 0, to create the counter)
+	 *
+	 * @return          new counter value, or 0 if the key holds another type
+	 */
+	public long add(String key, long amount) {
+		int s = getSlot(key, TYPE_COUNTER);
+		if (s < 0) {
+			return 0;
+		}
+		counts[s] += amount;
+		changed = true;
+		return counts[s];
+	}
+
+	/**
+	 * Adds one to a counter, creating it if necessary.
+	 *
+	 * @param key    statistic key
+	 *
+	 * @return       new counter value, or 0 if the key holds another type
+	 */
+	public long increment(String key) {
+		return add(key, 1);
+	}
+
+	/**
+	 * Sets a counter to the given value, creating it if necessary.
+	 *
+	 * @param key      statistic key
+	 * @param value    counter value
+	 */
+	public void setCount(String key, long value) {
+		int s = getSlot(key, TYPE_COUNTER);
+		if (s >= 0 && counts[s] != value) {
+			counts[s] = value;
+			changed = true;
+		}
+	}
+
+	/**
+	 * Returns the value of a counter.
+	 *
+	 * @param key    statistic key
+	 *
+	 * @return       counter value, or 0 if there is no such counter
+	 */
+	public long getCount(String key) {
+		int s = findSlot(key, TYPE_COUNTER);
+		return (s < 0)? 0 : counts[s];
+	}
+
+	/**
+	 * Adds a sample to a running mean, creating it if necessary.
+	 *
+	 * @param key      statistic key
+	 * @param value    sample value
+	 */
+	public void addSample(String key, double value) {
+		int s = getSlot(key, TYPE_MEAN);
+		if (s < 0) {
+			return;
+		}
+		counts[s]++;
+		double delta = value - means[s];
+		means[s] += delta / counts[s];
+		m2s[s] += delta * (value - means[s]);
+		changed = true;
+	}
+
+	/**
+	 * Returns the mean of the samples of a running mean.
+	 *
+	 * @param key    statistic key
+	 *
+	 * @return       mean, or 0 if there are no samples
+	 */
+	public double getMean(String key) {
+		int s = findSlot(key, TYPE_MEAN);
+		return (s < 0)? 0 : means[s];
+	}
+
+	/**
+	 * Returns the sample variance of a running mean.
+	 *
+	 * @param key    statistic key
+	 *
+	 * @return       sample variance, or 0 if there are fewer than 2 samples
+	 */
+	public double getVariance(String key) {
+		int s = findSlot(key, TYPE_MEAN);
+		return (s < 0 || counts[s] < 2)? 0 : m2s[s] / (counts[s] - 1);
+	}
+
+	/**
+	 * Returns the number of samples of a running mean.
+	 *
+	 * @param key    statistic key
+	 *
+	 * @return       sample count, or 0 if there is no such mean
+	 */
+	public long getSampleCount(String key) {
+		int s = findSlot(key, TYPE_MEAN);
+		return (s < 0)? 0 : counts[s];
+	}
+
+	public void setText(String key, String text) {
+		int s = getSlot(key, TYPE_TEXT);
+		if (s >= 0 && (text == null? texts[s] != null : !text.equals(texts[s]))) {
+			texts[s] = text;
+			changed = true;
+		}
+	}
+
+	public String getText(String key) {
+		int s = findSlot(key, TYPE_TEXT);
+		return (s < 0)? null : texts[s];
+	}
+
+	public boolean contains(String key) {
+		return slots.containsKey(key);
+	}
+
+	public void remove(String key) {
+		Integer slot = slots.remove(key);
+		if (slot != null) {
+			// move last statistic into the removed slot
+			int s = slot.intValue();
+			int last = --size;
+			if (s != last) {
+				keys[s] = keys[last];
+				types[s] = types[last];
+				counts[s] = counts[last];
+				means[s] = means[last];
+				m2s[s] = m2s[last];
+				texts[s] = texts[last];
+				slots.put(keys[s], slot);
+			}
+			keys[last] = null;
+			texts[last] = null;
+			changed = true;
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	boolean isChanged() {
+		return changed;
+	}
+
+	void setChanged(boolean changed) {
+		this.changed = changed;
+	}
+
+	/**
+	 * Returns a statistic formatted for a report.  Means are shown with their
+	 * standard deviation and sample count.
+	 *
+	 * @param key              statistic key
+	 * @param decimalPlaces    decimal places for means
+	 *
+	 * @return                 formatted statistic, or null if there is no such statistic
+	 */
+	public String format(String key, int decimalPlaces) {
+		Integer slot = slots.get(key);
+		if (slot == null) {
+			return null;
+		}
+		int s = slot.intValue();
+		if (types[s] == TYPE_COUNTER) {
+			return String.valueOf(counts[s]);
+		} else if (types[s] == TYPE_MEAN) {
+			return Logger.format(means[s], decimalPlaces, decimalPlaces)
+					+ " +/- " + Logger.format(Math.sqrt(getVariance(key)), decimalPlaces, decimalPlaces)
+					+ " (" + counts[s] + ")";
+		} else {
+			return texts[s];
+		}
+	}
+
+	/**
+	 * Returns all statistics formatted for a report, one per line.
+	 *
+	 * @param decimalPlaces    decimal places for means
+	 *
+	 * @return                 report
+	 */
+	public String getReport(int decimalPlaces) {
+		StringBuilder sb = new StringBuilder();
+		for (int i=0; i<size; i++) {
+			sb.append(keys[i]).append(": ").append(format(keys[i], decimalPlaces)).append('\n');
+		}
+		return sb.toString();
+	}
+
+	/**
+	 * Creates a stat block from statistics kept as formatted strings, as in
+	 * earlier versions.  Those values were written by a number format for the
+	 * default locale, so they are parsed by one too.  Whole numbers become
+	 * counters, numbers with a decimal separator become means with the given
+	 * number of samples, and anything else becomes text.
+	 *
+	 * @param stats          statistics as formatted strings
+	 * @param sampleCount    number of samples each decimal value was averaged over
+	 *
+	 * @return               stat block
+	 */
+	static StatBlock fromStrings(Map<String, String> stats, long sampleCount) {
+		NumberFormat numberFormat = NumberFormat.getNumberInstance();
+		char decimalSeparator = new DecimalFormatSymbols().getDecimalSeparator();
+		StatBlock block = new StatBlock();
+		for (Map.Entry<String, String> entry : stats.entrySet()) {
+			String value = entry.getValue();
+			Number number = parseLegacyNumber(numberFormat, value);
+			if (number == null) {
+				block.setText(entry.getKey(), value);
+			} else if (value.indexOf(decimalSeparator) < 0) {
+				block.setCount(entry.getKey(), number.longValue());
+			} else {
+				int s = block.getSlot(entry.getKey(), TYPE_MEAN);
+				block.means[s] = number.doubleValue();
+				block.counts[s] = Math.max(1, sampleCount);
+			}
+		}
+		block.changed = true;
+		return block;
+	}
+
+	/**
+	 * Parses a number written by the given number format, or returns null if
+	 * the value is not one in its entirety.
+	 */
+	private static Number parseLegacyNumber(NumberFormat numberFormat, String value) {
+		if (value == null) {
+			return null;
+		}
+		String trimmed = value.trim();
+		ParsePosition position = new ParsePosition(0);
+		Number number = numberFormat.parse(trimmed, position);
+		return (trimmed.length() == 0 || position.getIndex() != trimmed.length())? null : number;
+	}
+
+	void writeTo(DataOutput out) throws IOException {
+		out.writeShort(size);
+		for (int i=0; i<size; i++) {
+			out.writeUTF(keys[i]);
+			out.writeByte(types[i]);
+			if (types[i] == TYPE_COUNTER) {
+				out.writeLong(counts[i]);
+			} else if (types[i] == TYPE_MEAN) {
+				out.writeInt((int) counts[i]);
+				out.writeDouble(means[i]);
+				out.writeDouble(m2s[i]);
+			} else {
+				out.writeUTF(texts[i] == null? "" : texts[i]);
+			}
+		}
+	}
+
+	static StatBlock readFrom(DataInput in) throws IOException {
+		StatBlock block = new StatBlock();
+		int count = in.readShort() & 0xFFFF;
+		for (int i=0; i<count; i++) {
+			String key = in.readUTF();
+			byte type = in.readByte();
+			int s = block.getSlot(key, type);
+			if (s < 0) {
+				throw new IOException("Statistic " + key + " stored as two types.");
+			}
+			if (type == TYPE_COUNTER) {
+				block.counts[s] = in.readLong();
+			} else if (type == TYPE_MEAN) {
+				block.counts[s] = in.readInt();
+				block.means[s] = in.readDouble();
+				block.m2s[s] = in.readDouble();
+			} else {
+				block.texts[s] = in.readUTF();
+			}
+		}
+		return block;
+	}
+}
@@ -5,6 +5,11 @@ import xander.core.Resources;
 /**
  * Log logs messages for one class.  
  * 
+ * Messages can be given as a pattern with {} placeholders and primitive or 
+ * object arguments; the message is then only built if the level is active, 
+ * and is written into a reusable buffer (see Logger.setBuffered) without 
+ * creating any intermediate strings.
+ * 
  * @author Scott Arnold
  */
 public class Log {
@@ -67,46 +72,189 @@ public class Log {
 	/**
 	 * Returns whether or not log messages will be printed for the given level.
 	 * 
-	 * @param level       level to check
+	 * @param msgLevel    level to check
 	 * 
 	 * @return  whether or not log messages will be printed for the given level
 	 */
-	public boolean isActiveForLevel(Log.Level level) {
+	public boolean isActiveForLevel(Log.Level msgLevel) {
 		Log.Level useLevel = (level == null)? Logger.defaultLevel : level;
-		return level.getPriority() >= useLevel.getPriority();
+		return msgLevel.getPriority() >= useLevel.getPriority();
+	}
+	
+	public boolean isDebugEnabled() {
+		return isActiveForLevel(Level.DEBUG);
+	}
+	
+	public boolean isInfoEnabled() {
+		return isActiveForLevel(Level.INFO);
 	}
 	
 	public void setLevel(Level level) {
 		this.level = level;
 	}
 	
+	private StringBuilder begin(Level msgLevel) {
+		StringBuilder sb = Logger.buffer.nextLine();
+		sb.append(className).append(" [").append(Resources.getTime()).append("] ")
+			.append(msgLevel.getDescription()).append(": ");
+		return sb;
+	}
+	
+	/**
+	 * Appends the pattern from the given index up to the next {} placeholder.
+	 * 
+	 * @return   index after the placeholder, or pattern length if there is none
+	 */
+	private static int appendToArg(StringBuilder sb, String pattern, int from) {
+		int arg = pattern.indexOf("{}", from);
+		if (arg < 0) {
+			sb.append(pattern, from, pattern.length());
+			return pattern.length();
+		}
+		sb.append(pattern, from, arg);
+		return arg + 2;
+	}
+	
+	private static void appendArg(StringBuilder sb, double arg) {
+		Logger.append(sb, arg, 0, 4);
+	}
+	
+	private static void end(StringBuilder sb, String pattern, int from) {
+		sb.append(pattern, from, pattern.length());
+		Logger.buffer.commit();
+	}
+	
 	private void log(String s, Level msgLevel) {
-		Log.Level useLevel = (level == null)? Logger.defaultLevel : level;
-		if (msgLevel.getPriority() >= useLevel.getPriority()) {
-			String[] lines = s.split("\n");
-			String time = String.valueOf(Resources.getTime());
-			for (int i=0; i<lines.length; i++) {
-				System.out.println(className + " [" + time + "] " + msgLevel.getDescription() + ": " + lines[i]);
+		if (isActiveForLevel(msgLevel)) {
+			int from = 0;
+			int newLine;
+			while ((newLine = s.indexOf('\n', from)) >= 0) {
+				begin(msgLevel).append(s, from, newLine);
+				Logger.buffer.commit();
+				from = newLine + 1;
+			}
+			if (from < s.length() || from == 0) {
+				begin(msgLevel).append(s, from, s.length());
+				Logger.buffer.commit();
 			}
 		}
 	}
 	
+	private void log(Level msgLevel, String pattern, Object arg) {
+		if (isActiveForLevel(msgLevel)) {
+			StringBuilder sb = begin(msgLevel);
+			int i = appendToArg(sb, pattern, 0);
+			sb.append(arg);
+			end(sb, pattern, i);
+		}
+	}
+	
+	private void log(Level msgLevel, String pattern, double arg) {
+		if (isActiveForLevel(msgLevel)) {
+			StringBuilder sb = begin(msgLevel);
+			int i = appendToArg(sb, pattern, 0);
+			appendArg(sb, arg);
+			end(sb, pattern, i);
+		}
+	}
+	
+	private void log(Level msgLevel, String pattern, Object arg1, double arg2) {
+		if (isActiveForLevel(msgLevel)) {
+			StringBuilder sb = begin(msgLevel);
+			int i = appendToArg(sb, pattern, 0);
+			sb.append(arg1);
+			i = appendToArg(sb, pattern, i);
+			appendArg(sb, arg2);
+			end(sb, pattern, i);
+		}
+	}
+	
+	private void log(Level msgLevel, String pattern, double arg1, double arg2) {
+		if (isActiveForLevel(msgLevel)) {
+			StringBuilder sb = begin(msgLevel);
+			int i = appendToArg(sb, pattern, 0);
+			appendArg(sb, arg1);
+			i = appendToArg(sb, pattern, i);
+			appendArg(sb, arg2);
+			end(sb, pattern, i);
+		}
+	}
+	
 	public void debug(String s) {
 		log(s,Level.DEBUG);
 	}
 	
+	/**
+	 * Logs a debug message, replacing the {} placeholder in the pattern with 
+	 * the argument.  The message is only built if debug logging is active.
+	 * 
+	 * @param pattern    message pattern
+	 * @param arg        argument
+	 */
+	public void debug(String pattern, Object arg) {
+		log(Level.DEBUG, pattern, arg);
+	}
+	
+	public void debug(String pattern, double arg) {
+		log(Level.DEBUG, pattern, arg);
+	}
+	
+	public void debug(String pattern, Object arg1, double arg2) {
+		log(Level.DEBUG, pattern, arg1, arg2);
+	}
+	
+	public void debug(String pattern, double arg1, double arg2) {
+		log(Level.DEBUG, pattern, arg1, arg2);
+	}
+	
 	public void info(String s) {
 		log(s,Level.INFO);
 	}
 	
+	public void info(String pattern, Object arg) {
+		log(Level.INFO, pattern, arg);
+	}
+	
+	public void info(String pattern, double arg) {
+		log(Level.INFO, pattern, arg);
+	}
+	
+	public void info(String pattern, Object arg1, double arg2) {
+		log(Level.INFO, pattern, arg1, arg2);
+	}
+	
+	public void info(String pattern, double arg1, double arg2) {
+		log(Level.INFO, pattern, arg1, arg2);
+	}
+	
 	public void warn(String s) {
 		log(s,Level.WARN);
 	}
 	
+	public void warn(String pattern, Object arg) {
+		log(Level.WARN, pattern, arg);
+	}
+	
+	public void warn(String pattern, double arg) {
+		log(Level.WARN, pattern, arg);
+	}
+	
+	public void warn(String pattern, Object arg1, double arg2) {
+		log(Level.WARN, pattern, arg1, arg2);
+	}
+	
 	public void stat(String s) {
 		log(s,Level.STAT);
 	}
 	
+	public void stat(String pattern, Object arg) {
+		log(Level.STAT, pattern, arg);
+	}
+	
+	public void stat(String pattern, double arg) {
+		log(Level.STAT, pattern, arg);
+	}
+	
 	public void error(String s) {
 		log(s,Level.ERROR);
 	}
@@ -0,0 +1,75 @@
+package xander.core.log;
+
+import java.io.PrintStream;
+
+/**
+ * Ring of reusable StringBuilders that log lines are written into.  Unless
+ * buffering is on, each line is printed as soon as it is written.  When
+ * buffering is on, lines are held until flush() is called (normally at the end
+ * of the round) or until the ring is full, so that logging does not hold up
+ * the robot's turn with console output.
+ */
+class LogBuffer {
+
+	private PrintStream out = System.out;
+	private StringBuilder[] lines;
+	private int next;
+	private int pending;
+	private boolean buffered;
+
+	LogBuffer(int capacity) {
+		lines = new StringBuilder[capacity];
+		for (int i=0; i<capacity; i++) {
+			lines[i] = new StringBuilder(160);
+		}
+	}
+
+	void setBuffered(boolean buffered) {
+		if (!buffered) {
+			flush();
+		}
+		this.buffered = buffered;
+	}
+
+	boolean isBuffered() {
+		return buffered;
+	}
+
+	/**
+	 * Returns the builder to write the next line into, cleared.  The line must
+	 * be completed with commit() before the next call.
+	 *
+	 * @return    builder for next line
+	 */
+	StringBuilder nextLine() {
+		StringBuilder sb = lines[next];
+		sb.setLength(0);
+		return sb;
+	}
+
+	/**
+	 * Completes the line written into the builder returned by nextLine().
+	 */
+	void commit() {
+		if (buffered) {
+			next = (next + 1) % lines.length;
+			pending++;
+			if (pending == lines.length) {
+				flush();
+			}
+		} else {
+			out.println(lines[next]);
+		}
+	}
+
+	/**
+	 * Prints all lines held in the buffer, oldest first.
+	 */
+	void flush() {
+		int first = (next - pending + lines.length) % lines.length;
+		for (int i=0; i<pending; i++) {
+			out.println(lines[(first + i) % lines.length]);
+		}
+		pending = 0;
+	}
+}
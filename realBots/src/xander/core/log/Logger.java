@@ -1,7 +1,6 @@
 package xander.core.log;
 
 import java.awt.geom.Point2D;
-import java.text.NumberFormat;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -16,8 +15,15 @@ import robocode.AdvancedRobot;
 public class Logger {
 
 	protected static Log.Level defaultLevel = Log.Level.INFO;
-	protected static final NumberFormat nf = NumberFormat.getInstance();
+	private static final long[] POWERS_OF_TEN = new long[19];
+	static {
+		POWERS_OF_TEN[0] = 1;
+		for (int i=1; i<POWERS_OF_TEN.length; i++) {
+			POWERS_OF_TEN[i] = POWERS_OF_TEN[i-1] * 10;
+		}
+	}
 	protected static final Map<Class<?>, Log> logs = new HashMap<Class<?>, Log>();
+	static final LogBuffer buffer = new LogBuffer(256);
 
 	public static void setDefaultLogLevel(Log.Level level) {
 		defaultLevel = level;
@@ -27,6 +33,24 @@ public class Logger {
 		return defaultLevel;
 	}
 	
+	/**
+	 * Sets whether log output is held in a buffer until flush() is called, 
+	 * rather than printed as each message is logged.
+	 * 
+	 * @param buffered    whether to buffer log output
+	 */
+	public static void setBuffered(boolean buffered) {
+		buffer.setBuffered(buffered);
+	}
+	
+	/**
+	 * Prints any buffered log output.  The framework calls this at the end 
+	 * of each round.
+	 */
+	public static void flush() {
+		buffer.flush();
+	}
+	
 	public static void setLogLevel(Class<?> c, Log.Level level) {
 		Log log = logs.get(c);
 		if (log != null) {
@@ -48,22 +72,19 @@ public class Logger {
 	}
 	
 	public static String formatPosition(double x, double y) {
-		return "(" + format(x) + "," + format(y)+ ")"; 
+		return appendPosition(new StringBuilder(24), x, y, 1).toString(); 
 	}
 	
 	public static String format(Point2D.Double p) {
-		return "(" + format(p.x) + "," + format(p.y)+ ")"; 
+		return appendPosition(new StringBuilder(24), p.x, p.y, 1).toString(); 
 	}
 	
 	public static String format(double d, int minFractionDigits, int maxFractionDigits) {
-		nf.setMaximumFractionDigits(maxFractionDigits);
-		nf.setMinimumFractionDigits(minFractionDigits);
-		return nf.format(d);
+		return append(new StringBuilder(16), d, minFractionDigits, maxFractionDigits).toString();
 	}
 	
 	public static String format(double d, int maxFractionDigits) {
-		nf.setMaximumFractionDigits(maxFractionDigits);
-		return nf.format(d);
+		return append(new StringBuilder(16), d, 0, maxFractionDigits).toString();
 	}
 	
 	/**
@@ -78,36 +99,110 @@ public class Logger {
 	}
 	
 	public static String format(int[] intArray) {
-		StringBuilder sb = new StringBuilder();
+		return append(new StringBuilder(), intArray).toString();
+	}
+	
+	public static String format(double[] dArray, int maxFractionDigits) {
+		return append(new StringBuilder(), dArray, maxFractionDigits).toString();
+	}
+	
+	/**
+	 * Appends a double to the given StringBuilder, rounded half up to at most 
+	 * maxFractionDigits decimal places, with trailing zeros dropped down to 
+	 * minFractionDigits.  No objects are created, except for values too large 
+	 * to round as a long, which are appended as StringBuilder.append(double) 
+	 * would.  Unlike the NumberFormat this replaces, no grouping separators 
+	 * are used and the decimal separator is always '.'.
+	 * 
+	 * @param sb                   builder to append to
+	 * @param d                    value to append
+	 * @param minFractionDigits    minimum decimal places
+	 * @param maxFractionDigits    maximum decimal places (at most 18)
+	 * 
+	 * @return                     the builder
+	 */
+	public static StringBuilder append(StringBuilder sb, double d, int minFractionDigits, int maxFractionDigits) {
+		if (Double.isNaN(d) || Double.isInfinite(d)) {
+			return sb.append(d);
+		}
+		maxFractionDigits = Math.min(18, maxFractionDigits);
+		long scale = POWERS_OF_TEN[maxFractionDigits];
+		double abs = Math.abs(d);
+		if (abs * scale >= Long.MAX_VALUE / 10) {
+			return sb.append(d);
+		}
+		long scaled = (long) (abs * scale + 0.5);
+		if (d < 0 && scaled != 0) {
+			sb.append('-');
+		}
+		sb.append(scaled / scale);
+		long fraction = scaled % scale;
+		int digits = maxFractionDigits;
+		while (digits > minFractionDigits && fraction % 10 == 0) {
+			fraction /= 10;
+			digits--;
+		}
+		if (digits > 0) {
+			sb.append('.');
+			for (long p = POWERS_OF_TEN[digits-1]; p > fraction && p > 1; p /= 10) {
+				sb.append('0');
+			}
+			sb.append(fraction);
+		}
+		return sb;
+	}
+	
+	/**
+	 * Appends a double to the given StringBuilder with at most the given 
+	 * number of decimal places.
+	 * 
+	 * @param sb                   builder to append to
+	 * @param d                    value to append
+	 * @param maxFractionDigits    maximum decimal places
+	 * 
+	 * @return                     the builder
+	 */
+	public static StringBuilder append(StringBuilder sb, double d, int maxFractionDigits) {
+		return append(sb, d, 0, maxFractionDigits);
+	}
+	
+	public static StringBuilder appendPosition(StringBuilder sb, double x, double y, int maxFractionDigits) {
+		sb.append('(');
+		append(sb, x, 0, maxFractionDigits).append(',');
+		return append(sb, y, 0, maxFractionDigits).append(')');
+	}
+	
+	public static StringBuilder append(StringBuilder sb, int[] intArray) {
+		sb.append('[');
 		for (int i=0; i<intArray.length; i++) {
 			if (i > 0) {
-				sb.append(",");
+				sb.append(',');
 			}
 			sb.append(intArray[i]);
 		}
-		return "[" + sb.toString() + "]";
+		return sb.append(']');
 	}
 	
-	public static String format(double[] dArray, int maxFractionDigits) {
-		StringBuilder sb = new StringBuilder();
+	public static StringBuilder append(StringBuilder sb, double[] dArray, int maxFractionDigits) {
+		sb.append('[');
 		for (int i=0; i<dArray.length; i++) {
 			if (i > 0) {
-				sb.append(",");
+				sb.append(',');
 			}
-			sb.append(format(dArray[i], maxFractionDigits));
+			append(sb, dArray[i], 0, maxFractionDigits);
 		}
-		return "[" + sb.toString() + "]";
+		return sb.append(']');
 	}
 	
 	public static String formatRobotState(AdvancedRobot robot) {
 		StringBuilder sb = new StringBuilder();
-		sb.append(";x=").append(format(robot.getX(),3));
-		sb.append(";y=").append(format(robot.getY(),3));
-		sb.append(";heading(radians)=").append(format(robot.getHeadingRadians(),4));
-		sb.append(";velocity=").append(format(robot.getVelocity(),2));
-		sb.append(";gunHeading(radians)=").append(format(robot.getGunHeadingRadians(),4));
-		sb.append(";energy=").append(format(robot.getEnergy(),2));
-		sb.append(";gunHeat=").append(format(robot.getGunHeat(),2));
+		append(sb.append(";x="), robot.getX(), 3);
+		append(sb.append(";y="), robot.getY(), 3);
+		append(sb.append(";heading(radians)="), robot.getHeadingRadians(), 4);
+		append(sb.append(";velocity="), robot.getVelocity(), 2);
+		append(sb.append(";gunHeading(radians)="), robot.getGunHeadingRadians(), 4);
+		append(sb.append(";energy="), robot.getEnergy(), 2);
+		append(sb.append(";gunHeat="), robot.getGunHeat(), 2);
 		return sb.toString();
 	}
 }
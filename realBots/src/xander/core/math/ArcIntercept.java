@@ -0,0 +1,102 @@
+package xander.core.math;
+
+import java.awt.geom.Rectangle2D;
+
+/**
+ * Intercept calculations for a target moving along a circular arc at constant
+ * speed and constant turn rate.  A turn rate of 0 is a straight line.  The
+ * target's path is clamped to the battlefield (shrunk by a half robot width),
+ * so a target on a path into a wall is treated as stopping at the wall.
+ *
+ * The time of intercept is solved with a bounded number of Newton iterations
+ * on |P(t) - S| - v_b * t = 0, where P(t) is the target position at time t
+ * and S is the firing location.  The target can never outrun a bullet, so
+ * the derivative of this function is always negative and the iteration is
+ * well behaved.  All calculations are done on primitives; nothing is allocated.
+ */
+public class ArcIntercept {
+
+	private static final int MAX_ITERATIONS = 8;
+	private static final double TOLERANCE = 0.05;      // pixels
+	private static final double MIN_TURN_RATE = 1E-6;  // radians per tick; below this, path is treated as straight
+
+	/**
+	 * Returns the aim needed to hit a target moving along a circular arc.
+	 *
+	 * @param fromX                 firing location x-coordinate
+	 * @param fromY                 firing location y-coordinate
+	 * @param targetX               target x-coordinate
+	 * @param targetY               target y-coordinate
+	 * @param headingRoboRadians    target heading in robo-radians
+	 * @param velocity              target velocity (negative if moving backwards)
+	 * @param turnRateRadians       target heading change per tick in radians
+	 * @param bulletVelocity        bullet velocity
+	 * @param bounds                battlefield bounds, or null for no clamping
+	 *
+	 * @return                      aim in Robocode degrees
+	 */
+	public static double getAim(double fromX, double fromY, double targetX, double targetY,
+			double headingRoboRadians, double velocity, double turnRateRadians,
+			double bulletVelocity, Rectangle2D.Double bounds) {
+		double minX = Double.NEGATIVE_INFINITY, maxX = Double.POSITIVE_INFINITY;
+		double minY = Double.NEGATIVE_INFINITY, maxY = Double.POSITIVE_INFINITY;
+		if (bounds != null) {
+			minX = bounds.getMinX() + RCPhysics.ROBOT_HALF_WIDTH;
+			maxX = bounds.getMaxX() - RCPhysics.ROBOT_HALF_WIDTH;
+			minY = bounds.getMinY() + RCPhysics.ROBOT_HALF_WIDTH;
+			maxY = bounds.getMaxY() - RCPhysics.ROBOT_HALF_WIDTH;
+		}
+		boolean straight = Math.abs(turnRateRadians) < MIN_TURN_RATE;
+		double sinH0 = Math.sin(headingRoboRadians);
+		double cosH0 = Math.cos(headingRoboRadians);
+		double radius = straight? 0 : velocity / turnRateRadians;
+		double dx = targetX - fromX;
+		double dy = targetY - fromY;
+		double t = Math.sqrt(dx*dx + dy*dy) / bulletVelocity;
+		for (int i=0; i<MAX_ITERATIONS; i++) {
+			// target position and velocity at time t
+			double px, py, vx, vy;
+			if (straight) {
+				px = targetX + velocity * t * sinH0;
+				py = targetY + velocity * t * cosH0;
+				vx = velocity * sinH0;
+				vy = velocity * cosH0;
+			} else {
+				double h = headingRoboRadians + turnRateRadians * t;
+				double sinH = Math.sin(h);
+				double cosH = Math.cos(h);
+				px = targetX + radius * (cosH0 - cosH);
+				py = targetY + radius * (sinH - sinH0);
+				vx = velocity * sinH;
+				vy = velocity * cosH;
+			}
+			// clamp to walls; target does not move along a clamped axis
+			if (px < minX) {
+				px = minX;
+				vx = 0;
+			} else if (px > maxX) {
+				px = maxX;
+				vx = 0;
+			}
+			if (py < minY) {
+				py = minY;
+				vy = 0;
+			} else if (py > maxY) {
+				py = maxY;
+				vy = 0;
+			}
+			dx = px - fromX;
+			dy = py - fromY;
+			double d = Math.sqrt(dx*dx + dy*dy);
+			double f = d - bulletVelocity * t;
+			if (Math.abs(f) < TOLERANCE || d == 0) {
+				break;
+			}
+			double fPrime = (dx*vx + dy*vy) / d - bulletVelocity;
+			double nextT = t - f / fPrime;
+			// fall back to a fixed-point step if Newton step overshoots into negative time
+			t = (nextT > 0)? nextT : d / bulletVelocity;
+		}
+		return RCMath.normalizeDegrees(Math.toDegrees(Math.atan2(dx, dy)));
+	}
+}
@@ -22,12 +22,25 @@ public class Circular {
 	 * @return					center point for target robot's circular path
 	 */
 	public static double[] getCenterPoint(Snapshot target_t1, Snapshot target_t0) {
-		if (target_t1 == null || target_t0 == null || target_t1.getVelocity() == 0) return null;
+		double[] centerPoint = new double[2];
+		return getCenterPoint(target_t1, target_t0, centerPoint)? centerPoint : null;
+	}
+	
+	/**
+	 * Get the center point of a robot's circular path, storing it in the given
+	 * array.  This version does not allocate any objects.
+	 * 
+	 * @param target_t1			first/more recent target robot snapshot
+	 * @param target_t0         second/older target robot snapshot
+	 * @param centerPoint       array of length 2 to store center point x and y in
+	 * 
+	 * @return					whether or not the path appears to be circular
+	 */
+	public static boolean getCenterPoint(Snapshot target_t1, Snapshot target_t0, double[] centerPoint) {
+		if (target_t1 == null || target_t0 == null || target_t1.getVelocity() == 0) return false;
 		if (RCMath.differenceLessThanPercent(target_t0.getHeadingRoboRadians(),target_t1.getHeadingRoboRadians(),0.025d)) {
-			return null;
+			return false;
 		}
-//		System.out.println("Getting center point for " + target_t1.getName() + "; x1=" + target_t0.getX() + "; y1=" + target_t0.getY() + "; x2=" + target_t1.getX() + "; y2=" + target_t1.getY());
-		//float velocity = (float) ((target_t1.getVelocity() + target_t0.getVelocity()) / 2d);
 		float velocity = (float) target_t1.getVelocity();
 
 		double s1_ex = target_t0.getX();
@@ -36,44 +49,55 @@ public class Circular {
 		double s2_ex = target_t1.getX();
 		double s2_ey = target_t1.getY();
 		
-		VelocityVector sre1pv = new VelocityVector(target_t0.getHeadingRoboDegrees()+90,velocity);
-		VelocityVector sre2pv = new VelocityVector(target_t1.getHeadingRoboDegrees()+90,velocity);
-		Double slope1 = (sre1pv.getX() == 0)? null : new Double(sre1pv.getY() / sre1pv.getX());
-		Double slope2 = (sre2pv.getX() == 0)? null : new Double(sre2pv.getY() / sre2pv.getX());
+		// perpendicular vectors to the headings (same as a VelocityVector of heading + 90 degrees)
+		double sign = (velocity < 0)? -1 : 1;
+		double mag = Math.abs(velocity);
+		double p1Radians = Math.toRadians(target_t0.getHeadingRoboDegrees()+90);
+		double p2Radians = Math.toRadians(target_t1.getHeadingRoboDegrees()+90);
+		double sre1pv_x = sign * mag * Math.sin(p1Radians);
+		double sre1pv_y = sign * mag * Math.cos(p1Radians);
+		double sre2pv_x = sign * mag * Math.sin(p2Radians);
+		double sre2pv_y = sign * mag * Math.cos(p2Radians);
+		boolean vertical1 = (sre1pv_x == 0);
+		boolean vertical2 = (sre2pv_x == 0);
+		double slope1 = vertical1? 0 : sre1pv_y / sre1pv_x;
+		double slope2 = vertical2? 0 : sre2pv_y / sre2pv_x;
 
 		double center_x = 0, center_y = 0;
 		// note: center_x and center_y are from (0,0), not relative to me.
 		// this makes it easier to account for my own movement
-		if (slope1 == null) {
-			if (slope2 == null) {
-				return null;
+		if (vertical1) {
+			if (vertical2) {
+				return false;
 			} else {
 				center_x = s1_ex;
-				double c = s2_ey - slope2.doubleValue() * s2_ex;
-				center_y = slope2.doubleValue() * center_x + c;
+				double c = s2_ey - slope2 * s2_ex;
+				center_y = slope2 * center_x + c;
 			}
 		} else {
-			if (slope2 == null) {
+			if (vertical2) {
 				center_x = s2_ex;
-				double c = s1_ey - slope1.doubleValue() * s1_ex;
-				center_y = slope1.doubleValue() * center_x + c;
+				double c = s1_ey - slope1 * s1_ex;
+				center_y = slope1 * center_x + c;
 			} else {
-				double c1 = s1_ey - slope1.doubleValue() * s1_ex;
-				double c2 = s2_ey - slope2.doubleValue() * s2_ex;
-				center_x =  (c2 - c1) / (slope1.doubleValue() - slope2.doubleValue());
-				center_y = slope1.doubleValue() * center_x + c1;
-				double center2_y = slope2.doubleValue() * center_x + c2;
+				double c1 = s1_ey - slope1 * s1_ex;
+				double c2 = s2_ey - slope2 * s2_ex;
+				center_x =  (c2 - c1) / (slope1 - slope2);
+				center_y = slope1 * center_x + c1;
+				double center2_y = slope2 * center_x + c2;
 				if (!RCMath.differenceLessThanPercent(center_y,center2_y,DEFAULT_ERROR_TOLERANCE)) {
-					return null;
+					return false;
 				} 
 			}
 		}
-		double d1 = RCMath.getDistanceBetweenPoints(sre1pv.getX(),sre1pv.getY(),center_x,center_y);
-		double d2 = RCMath.getDistanceBetweenPoints(sre2pv.getX(),sre2pv.getY(),center_x,center_y);
+		double d1 = RCMath.getDistanceBetweenPoints(sre1pv_x,sre1pv_y,center_x,center_y);
+		double d2 = RCMath.getDistanceBetweenPoints(sre2pv_x,sre2pv_y,center_x,center_y);
 		if (!RCMath.differenceLessThanPercent(d1,d2,DEFAULT_ERROR_TOLERANCE)) {
-			return null;
+			return false;
 		} else {
-			return new double[] {center_x, center_y};
+			centerPoint[0] = center_x;
+			centerPoint[1] = center_y;
+			return true;
 		}
 	}
 	
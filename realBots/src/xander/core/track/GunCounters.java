@@ -0,0 +1,123 @@
+package xander.core.track;
+
+/**
+ * Bullet outcome counters for a single gun.  Virtual counters include actual 
+ * bullets as well as virtual bullets, as do the rolling, distance, and power 
+ * counters.
+ */
+public class GunCounters {
+
+	public static final int DISTANCE_SEGMENTS = 8;
+	public static final double DISTANCE_SEGMENT_WIDTH = 150;
+	public static final int POWER_SEGMENTS = 6;
+	public static final double POWER_SEGMENT_WIDTH = 0.5;
+	public static final int FLIGHT_TIME_SEGMENTS = 24;
+	public static final double FLIGHT_TIME_SEGMENT_WIDTH = 5;
+	
+	private final int index;
+	private final String gunName;
+	private final HitCounter real = new HitCounter();
+	private final HitCounter virtual = new HitCounter();
+	private final RollingHitCounter rolling;
+	private final HitCounter[] distanceCounters = new HitCounter[DISTANCE_SEGMENTS];
+	private final HitCounter[] powerCounters = new HitCounter[POWER_SEGMENTS];
+	private final HitCounter[] flightTimeCounters = new HitCounter[FLIGHT_TIME_SEGMENTS];
+	
+	GunCounters(int index, String gunName, int... rollingDepths) {
+		this.index = index;
+		this.gunName = gunName;
+		this.rolling = new RollingHitCounter(rollingDepths);
+		for (int i=0; i<distanceCounters.length; i++) {
+			distanceCounters[i] = new HitCounter();
+		}
+		for (int i=0; i<powerCounters.length; i++) {
+			powerCounters[i] = new HitCounter();
+		}
+		for (int i=0; i<flightTimeCounters.length; i++) {
+			flightTimeCounters[i] = new HitCounter();
+		}
+	}
+	
+	/**
+	 * Returns the distance segment for the given bullet fire distance.
+	 * 
+	 * @param distance    distance to target when bullet was fired
+	 * 
+	 * @return            distance segment index
+	 */
+	public static int getDistanceSegment(double distance) {
+		return Math.max(0, Math.min(DISTANCE_SEGMENTS-1, (int)(distance / DISTANCE_SEGMENT_WIDTH)));
+	}
+	
+	/**
+	 * Returns the power segment for the given bullet power.
+	 * 
+	 * @param power    bullet power
+	 * 
+	 * @return         power segment index
+	 */
+	public static int getPowerSegment(double power) {
+		return Math.max(0, Math.min(POWER_SEGMENTS-1, (int)(power / POWER_SEGMENT_WIDTH)));
+	}
+	
+	/**
+	 * Returns the flight time segment for the given bullet flight time.
+	 * 
+	 * @param flightTime    ticks for bullet to reach target (distance / bullet velocity)
+	 * 
+	 * @return              flight time segment index
+	 */
+	public static int getFlightTimeSegment(double flightTime) {
+		return Math.max(0, Math.min(FLIGHT_TIME_SEGMENTS-1, (int)(flightTime / FLIGHT_TIME_SEGMENT_WIDTH)));
+	}
+	
+	void addReal(Wave wave, int hits, int interferences, int fired) {
+		real.add(hits, interferences, fired);
+		addVirtual(wave, hits, interferences, fired);
+	}
+	
+	void addVirtual(Wave wave, int hits, int interferences, int fired) {
+		virtual.add(hits, interferences, fired);
+		rolling.add(hits, interferences, fired);
+		distanceCounters[getDistanceSegment(wave.getOriginDistance())].add(hits, interferences, fired);
+		powerCounters[getPowerSegment(wave.getBulletPower())].add(hits, interferences, fired);
+		flightTimeCounters[getFlightTimeSegment(wave.getOriginDistance() / wave.getBulletVelocity())].add(hits, interferences, fired);
+	}
+	
+	/**
+	 * Returns the dense index of this gun within the gun stats.
+	 * 
+	 * @return    index of gun
+	 */
+	public int getIndex() {
+		return index;
+	}
+	
+	public String getGunName() {
+		return gunName;
+	}
+	
+	public HitCounter getReal() {
+		return real;
+	}
+	
+	public HitCounter getVirtual() {
+		return virtual;
+	}
+	
+	public RollingHitCounter getRolling() {
+		return rolling;
+	}
+	
+	public HitCounter getDistanceCounter(int distanceSegment) {
+		return distanceCounters[distanceSegment];
+	}
+	
+	public HitCounter getPowerCounter(int powerSegment) {
+		return powerCounters[powerSegment];
+	}
+	
+	public HitCounter getFlightTimeCounter(int flightTimeSegment) {
+		return flightTimeCounters[flightTimeSegment];
+	}
+}
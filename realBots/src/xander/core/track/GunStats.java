@@ -1,8 +1,6 @@
 package xander.core.track;
 
-import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -19,18 +17,23 @@ import xander.core.event.MyVirtualWaveListener;
 import xander.core.event.MyWaveListener;
 import xander.core.event.OpponentWaveListener;
 import xander.core.event.RoundListener;
+import xander.core.io.StatBlock;
 import xander.core.log.Log;
 import xander.core.log.Logger;
+import xander.core.math.RCPhysics;
 
 public class GunStats implements MyWaveListener, MyVirtualWaveListener, OpponentWaveListener, RoundListener {
 	
 	private static final Log log = Logger.getLog(GunStats.class);
 	
-	private int[] cumulativeHitRatio = new int[3];
+	private HitCounter cumulativeHitRatio = new HitCounter();
+	private HitCounter waveResolvedHitRatio = new HitCounter();
+	private double waveResolvedEnergyGain;
 	private int[] oppCumulativeHitRatio = new int[3];
-	private Map<String, int[]> hitRatios = new HashMap<String, int[]>();
-	private Map<String, List<int[]>> rollingRatios = new HashMap<String, List<int[]>>();
-	private int rollingVirtualHitRatioDepth;
+	private Map<String, GunCounters> gunCountersByName = new HashMap<String, GunCounters>();
+	private GunCounters[] gunCounters = new GunCounters[4];  // dense by gun index
+	private int gunCount;
+	private int[] rollingDepths;    // rolling window depths; first is the primary rolling virtual hit ratio depth
 	private double cumulativeOppPower;
 	private int cumulativeOppShots;
 	private int lastOppPowerIndex;
@@ -41,7 +44,10 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	
 	public GunStats(RobotProxy robotProxy, WaveHistory waveHistory, RobotEvents robotEvents, Configuration configuration) {
 		this.robotProxy = robotProxy;
-		this.rollingVirtualHitRatioDepth = configuration.getRollingVirtualHitRatioDepth();
+		int[] additionalDepths = configuration.getAdditionalRollingVirtualHitRatioDepths();
+		this.rollingDepths = new int[1 + additionalDepths.length];
+		this.rollingDepths[0] = configuration.getRollingVirtualHitRatioDepth();
+		System.arraycopy(additionalDepths, 0, rollingDepths, 1, additionalDepths.length);
 		waveHistory.addMyVirtualWaveListener(this);
 		waveHistory.addMyWaveListener(this);
 		waveHistory.addOpponentWaveListener(this);
@@ -54,7 +60,64 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return         set of all gun names
 	 */
 	public Set<String> getGunNames() {
-		return hitRatios.keySet();
+		return gunCountersByName.keySet();
+	}
+	
+	/**
+	 * Returns the number of guns that have had bullet outcomes recorded.
+	 * 
+	 * @return         number of guns
+	 */
+	public int getGunCount() {
+		return gunCount;
+	}
+	
+	/**
+	 * Returns the dense index for the gun of given name, or -1 if no bullet
+	 * outcomes have been recorded for the gun.  Gun indexes do not change 
+	 * over the course of a battle.
+	 * 
+	 * @param gunName   name of gun
+	 * 
+	 * @return          index of gun, or -1 if not yet known
+	 */
+	public int getGunIndex(String gunName) {
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? -1 : counters.getIndex();
+	}
+	
+	/**
+	 * Returns the counters for the gun of given index.
+	 * 
+	 * @param gunIndex  index of gun
+	 * 
+	 * @return          counters for gun
+	 */
+	public GunCounters getGunCounters(int gunIndex) {
+		return gunCounters[gunIndex];
+	}
+	
+	/**
+	 * Returns the counters for the gun of given name, or null if no bullet
+	 * outcomes have been recorded for the gun.
+	 * 
+	 * @param gunName   name of gun
+	 * 
+	 * @return          counters for gun
+	 */
+	public GunCounters getGunCounters(String gunName) {
+		return gunCountersByName.get(gunName);
+	}
+	
+	/**
+	 * Returns the rolling window depths.  The first depth is the primary 
+	 * depth used by the rolling virtual hit ratio methods that do not take
+	 * a window index.
+	 * 
+	 * @return          rolling window depths
+	 */
+	public int[] getRollingDepths() {
+		return rollingDepths.clone();
 	}
 	
 	/**
@@ -75,15 +138,8 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return          hit ratio for gun
 	 */
 	public double getHitRatio(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		int actionedBullets = hitRatio[2]-hitRatio[1];
-		if (actionedBullets == 0) {
-			return 0;
-		}
-		return (double) hitRatio[0] / (double) actionedBullets;
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getReal().getHitRatio();
 	}
 	
 	/**
@@ -97,15 +153,36 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return          virtual hit ratio for gun
 	 */	
 	public double getVirtualHitRatio(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		int actionedBullets = hitRatio[5]-hitRatio[4];
-		if (actionedBullets == 0) {
-			return 0;
-		}
-		return (double) hitRatio[3] / (double) actionedBullets;		
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getVirtual().getHitRatio();
+	}
+	
+	/**
+	 * Returns the virtual hit ratio (from 0 to 1) for the gun of given name
+	 * for bullets fired from about the given distance.  
+	 * 
+	 * @param gunName   name of gun
+	 * @param distance  distance to target when bullet fired
+	 * 
+	 * @return          virtual hit ratio for gun at distance
+	 */
+	public double getVirtualHitRatioAtDistance(String gunName, double distance) {
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getDistanceCounter(GunCounters.getDistanceSegment(distance)).getHitRatio();
+	}
+	
+	/**
+	 * Returns the virtual hit ratio (from 0 to 1) for the gun of given name
+	 * for bullets fired at about the given bullet power.  
+	 * 
+	 * @param gunName   name of gun
+	 * @param power     bullet power
+	 * 
+	 * @return          virtual hit ratio for gun at bullet power
+	 */
+	public double getVirtualHitRatioAtPower(String gunName, double power) {
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getPowerCounter(GunCounters.getPowerSegment(power)).getHitRatio();
 	}
 	
 	public double getRollingHitRatio(String gunName) {
@@ -123,15 +200,21 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return          virtual hit ratio for gun
 	 */	
 	public double getRollingVirtualHitRatio(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		int actionedBullets = hitRatio[8]-hitRatio[7];
-		if (actionedBullets == 0) {
-			return 0;
-		}
-		return (double) hitRatio[6] / (double) actionedBullets;		
+		return getRollingVirtualHitRatio(gunName, 0);
+	}
+	
+	/**
+	 * Returns the rolling virtual hit ratio (from 0 to 1) for the gun of given 
+	 * name over the rolling window of given index.  
+	 * 
+	 * @param gunName   name of gun
+	 * @param window    index of rolling window (see getRollingDepths())
+	 * 
+	 * @return          virtual hit ratio for gun over window
+	 */
+	public double getRollingVirtualHitRatio(String gunName, int window) {
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getRolling().getHitRatio(window);
 	}
 	
 	/**
@@ -155,18 +238,14 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return    overall hit ratio for all guns
 	 */
 	public double getOverallHitRatio() {
-		int actionedBullets = cumulativeHitRatio[2]-cumulativeHitRatio[1];
-		if (actionedBullets == 0) {
-			return 0;
-		}
-		return (double) cumulativeHitRatio[0] / (double) actionedBullets;
+		return cumulativeHitRatio.getHitRatio();
 	}
 	
 	public double getOverallInterferenceRatio() {
-		if (cumulativeHitRatio[2] == 0) {
+		if (cumulativeHitRatio.getFired() == 0) {
 			return 0;
 		} else {
-			return (double)cumulativeHitRatio[1] / (double)cumulativeHitRatio[2];
+			return (double)cumulativeHitRatio.getInterferences() / (double)cumulativeHitRatio.getFired();
 		}
 	}
 	
@@ -189,7 +268,41 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return    number of bullets fired by self
 	 */
 	public int getBulletsFired() {
-		return cumulativeHitRatio[2];
+		return cumulativeHitRatio.getFired();
+	}
+	
+	/**
+	 * Returns the hit ratio of bullets fired by self when each bullet is resolved
+	 * by its wave: a bullet counts as a hit if its aim crosses the opponent's 
+	 * position when the wave reaches the opponent, whatever then happens to the
+	 * bullet.  Unlike the overall hit ratio, this does not rely on bullet hit
+	 * events, so it stays meaningful when recorded battles are replayed with
+	 * different fire powers.
+	 * 
+	 * @return    hit ratio of bullets resolved by wave
+	 */
+	public double getWaveResolvedHitRatio() {
+		return waveResolvedHitRatio.getHitRatio();
+	}
+	
+	/**
+	 * Returns the number of bullets fired by self that have been resolved by wave.
+	 * 
+	 * @return    number of bullets resolved by wave
+	 */
+	public int getWaveResolvedBulletsFired() {
+		return waveResolvedHitRatio.getFired();
+	}
+	
+	/**
+	 * Returns the energy gained against the opponent by bullets fired by self,
+	 * as resolved by wave; each hit gains the bullet damage plus the energy
+	 * regained, and each bullet costs its power.
+	 * 
+	 * @return    energy gain of bullets resolved by wave
+	 */
+	public double getWaveResolvedEnergyGain() {
+		return waveResolvedEnergyGain;
 	}
 	
 	/**
@@ -211,11 +324,8 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return           bullets fired by gun
 	 */
 	public int getActionedBulletsFired(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		return hitRatio[2]-hitRatio[1];
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getReal().getActioned();
 	}
 	
 	/**
@@ -229,11 +339,8 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return           bullets fired by gun
 	 */	
 	public int getVirtualBulletsFired(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		return hitRatio[5]-hitRatio[4];
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getVirtual().getActioned();
 	}
 	
 	/**
@@ -247,11 +354,8 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * @return           bullets fired by gun
 	 */	
 	public int getRollingVirtualBulletsFired(String gunName) {
-		int[] hitRatio = hitRatios.get(gunName);
-		if (hitRatio == null) {
-			return 0;
-		}
-		return hitRatio[8]-hitRatio[7];
+		GunCounters counters = gunCountersByName.get(gunName);
+		return (counters == null)? 0 : counters.getRolling().getActioned(0);
 	}
 	
 	/**
@@ -274,14 +378,35 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	 * target, the second integer represents the number of hits on robots or bullets
 	 * that were not the intended target, and the third integer represents the 
 	 * number of bullets fired.  The final three are the same, but for virtual
-	 * bullets.
+	 * bullets.  The array is a copy; prefer getGunCounters(...) where possible.
 	 * 
 	 * @param gunName    name of the gun
 	 * 
 	 * @return           hit ratio values for gun
 	 */
 	public int[] getHitRatioValues(String gunName) {
-		return hitRatios.get(gunName);
+		GunCounters counters = gunCountersByName.get(gunName);
+		if (counters == null) {
+			return null;
+		}
+		HitCounter real = counters.getReal();
+		HitCounter virtual = counters.getVirtual();
+		return new int[] {real.getHits(), real.getInterferences(), real.getFired(),
+				virtual.getHits(), virtual.getInterferences(), virtual.getFired()};
+	}
+	
+	/**
+	 * Adds the hit ratios for each gun to the running means in the given 
+	 * battle stats.
+	 * 
+	 * @param stats    the battle stats
+	 */
+	public void saveTo(StatBlock stats) {
+		for (int i=0; i<gunCount; i++) {
+			GunCounters counters = gunCounters[i];
+			stats.addSample("HR:" + counters.getGunName(), counters.getReal().getHitRatio());
+			stats.addSample("VHR:" + counters.getGunName(), counters.getVirtual().getHitRatio());
+		}
 	}
 	
 	/**
@@ -338,36 +463,24 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 		return lastOppFireTime;
 	}
 	
-	private void updateRatio(String gunName, int hits, int interferences, int fires) {
-		int[] ratio = hitRatios.get(gunName);
-		if (ratio == null) {
-			ratio = new int[9];
-			hitRatios.put(gunName, ratio);
-		}
-		cumulativeHitRatio[0] += hits;
-		cumulativeHitRatio[1] += interferences;
-		cumulativeHitRatio[2] += fires;
-		ratio[0] += hits;
-		ratio[1] += interferences;
-		ratio[2] += fires;
-		ratio[3] += hits;
-		ratio[4] += interferences;
-		ratio[5] += fires;
-		ratio[6] += hits;
-		ratio[7] += interferences;
-		ratio[8] += fires;
-		List<int[]> gunRollingRatios = rollingRatios.get(gunName);
-		if (gunRollingRatios == null) {
-			gunRollingRatios = new ArrayList<int[]>();
-			rollingRatios.put(gunName, gunRollingRatios);
-		}
-		gunRollingRatios.add(new int[] {hits, interferences, fires});
-		if (gunRollingRatios.size() > rollingVirtualHitRatioDepth) {
-			int[] oldCount = gunRollingRatios.remove(0);
-			ratio[6] -= oldCount[0];
-			ratio[7] -= oldCount[1];
-			ratio[8] -= oldCount[2];
+	private GunCounters getOrCreateGunCounters(String gunName) {
+		GunCounters counters = gunCountersByName.get(gunName);
+		if (counters == null) {
+			if (gunCount == gunCounters.length) {
+				GunCounters[] expanded = new GunCounters[gunCount * 2];
+				System.arraycopy(gunCounters, 0, expanded, 0, gunCount);
+				gunCounters = expanded;
+			}
+			counters = new GunCounters(gunCount, gunName, rollingDepths);
+			gunCounters[gunCount++] = counters;
+			gunCountersByName.put(gunName, counters);
 		}
+		return counters;
+	}
+	
+	private void updateRatio(XBulletWave wave, int hits, int interferences, int fires) {
+		cumulativeHitRatio.add(hits, interferences, fires);
+		getOrCreateGunCounters(wave.getGunName()).addReal(wave, hits, interferences, fires);
 	}
 	
 	private void updateOpponentRatio(int hits, int interferences, int fires) {
@@ -386,37 +499,15 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 		ratio[1] += shots;
 	}
 	
-	private void updateVirtualRatio(String gunName, int hits, int interferences, int fires) {
-		int[] ratio = hitRatios.get(gunName);
-		if (ratio == null) {
-			ratio = new int[9];
-			hitRatios.put(gunName, ratio);
-		}		
-		ratio[3] += hits;
-		ratio[4] += interferences;
-		ratio[5] += fires;
-		ratio[6] += hits;
-		ratio[7] += interferences;
-		ratio[8] += fires;
-		List<int[]> gunRollingRatios = rollingRatios.get(gunName);
-		if (gunRollingRatios == null) {
-			gunRollingRatios = new ArrayList<int[]>();
-			rollingRatios.put(gunName, gunRollingRatios);
-		}
-		gunRollingRatios.add(new int[] {hits, interferences, fires});
-		if (gunRollingRatios.size() > rollingVirtualHitRatioDepth) {
-			int[] oldCount = gunRollingRatios.remove(0);
-			ratio[6] -= oldCount[0];
-			ratio[7] -= oldCount[1];
-			ratio[8] -= oldCount[2];
-		}
+	private void updateVirtualRatio(Wave wave, String gunName, int hits, int interferences, int fires) {
+		getOrCreateGunCounters(gunName).addVirtual(wave, hits, interferences, fires);
 	}
 
 	private void logGunHitRatios() {
-		for (Map.Entry<String, int[]> entry : hitRatios.entrySet()) {
-			double denom = entry.getValue()[2] - entry.getValue()[1];
-			String percent = (denom > 0)? Logger.format((double) entry.getValue()[0] * 100d / denom) : "?";
-			log.stat("Hit ratio for " + entry.getKey() + ": " + percent + "% (" + entry.getValue()[0] + "," + entry.getValue()[1] + "," + entry.getValue()[2] + ")");
+		for (int i=0; i<gunCount; i++) {
+			HitCounter real = gunCounters[i].getReal();
+			String percent = (real.getActioned() > 0)? Logger.format(100d * real.getHitRatio()) : "?";
+			log.stat("Hit ratio for " + gunCounters[i].getGunName() + ": " + percent + "% (" + real.getHits() + "," + real.getInterferences() + "," + real.getFired() + ")");
 		}
 		log.stat("My overall hit ratio:       " + Logger.format(100*getOverallHitRatio()) + "%");
 		log.stat("Opponent overall hit ratio: " + Logger.format(100*getOverallOpponentHitRatio()) + "%");
@@ -481,32 +572,29 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 	}
 
 	@Override
-	public void myVirtualWaveCreated(XBulletWave wave) {
+	public void myVirtualWaveCreated(VirtualVolleyWave wave) {
 		// no action required	
 	}
 
 	@Override
-	public void myVirtualWaveHit(XBulletWave wave) {
-		updateVirtualRatio(wave.getGunName(), 0, 0, 1);	
-	}
-
-	@Override
-	public void myVirtualBulletHit(XBulletWave wave) {
-		updateVirtualRatio(wave.getGunName(), 1, 0, 0);		
+	public void myVirtualWaveHit(VirtualVolleyWave wave) {
+		for (int i=0; i<wave.getSize(); i++) {
+			updateVirtualRatio(wave, wave.getGunName(i), wave.isBulletHit(i)? 1 : 0, 0, 1);
+		}
 	}
 
 	@Override
-	public void myVirtualWavePassing(XBulletWave wave) {
+	public void myVirtualWavePassing(VirtualVolleyWave wave) {
 		// no action required		
 	}
 
 	@Override
-	public void myVirtualWavePassed(XBulletWave wave) {
+	public void myVirtualWavePassed(VirtualVolleyWave wave) {
 		// no action required		
 	}
 
 	@Override
-	public void myVirtualWaveDestroyed(XBulletWave wave) {
+	public void myVirtualWaveDestroyed(VirtualVolleyWave wave) {
 		// no action required
 	}
 
@@ -517,17 +605,25 @@ public class GunStats implements MyWaveListener, MyVirtualWaveListener, Opponent
 
 	@Override
 	public void myWaveHitBullet(XBulletWave wave, Bullet bullet) {
-		updateRatio(wave.getGunName(), 0, 1, 1);	
+		updateRatio(wave, 0, 1, 1);	
 	}
 
 	@Override
 	public void myWaveHit(XBulletWave wave, Snapshot opponentSnapshot) {
-		updateRatio(wave.getGunName(), 0, 0, 1);		
+		updateRatio(wave, 0, 0, 1);
+		double power = wave.getBulletPower();
+		if (wave.isBulletHit(opponentSnapshot.getX(), opponentSnapshot.getY())) {
+			waveResolvedHitRatio.add(1, 0, 1);
+			waveResolvedEnergyGain += RCPhysics.getBulletDamage(power) + RCPhysics.getEnergyRegained(power) - power;
+		} else {
+			waveResolvedHitRatio.add(0, 0, 1);
+			waveResolvedEnergyGain -= power;
+		}
 	}
 
 	@Override
 	public void myBulletHit(XBulletWave wave, BulletHitEvent bulletHitEvent) {
-		updateRatio(wave.getGunName(), 1, 0, 0);		
+		updateRatio(wave, 1, 0, 0);		
 	}
 
 	@Override
@@ -0,0 +1,57 @@
+package xander.core.track;
+
+/**
+ * Counter for bullet outcomes.  Interference bullets are bullets that neither
+ * hit nor missed due to some external factor like hitting another bullet or
+ * the round ending; they are counted as fired, but are not considered when
+ * calculating the hit ratio.
+ */
+public class HitCounter {
+
+	private int hits;
+	private int interferences;
+	private int fired;
+	
+	void add(int hits, int interferences, int fired) {
+		this.hits += hits;
+		this.interferences += interferences;
+		this.fired += fired;
+	}
+	
+	void clear() {
+		hits = 0;
+		interferences = 0;
+		fired = 0;
+	}
+	
+	public int getHits() {
+		return hits;
+	}
+	
+	public int getInterferences() {
+		return interferences;
+	}
+	
+	public int getFired() {
+		return fired;
+	}
+	
+	/**
+	 * Returns the number of bullets that either hit or missed.
+	 * 
+	 * @return    number of bullets that either hit or missed
+	 */
+	public int getActioned() {
+		return fired - interferences;
+	}
+	
+	/**
+	 * Returns the hit ratio (from 0 to 1), or 0 if no bullets have hit or missed.
+	 * 
+	 * @return    hit ratio
+	 */
+	public double getHitRatio() {
+		int actioned = fired - interferences;
+		return (actioned == 0)? 0 : (double) hits / (double) actioned;
+	}
+}
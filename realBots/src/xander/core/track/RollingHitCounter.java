@@ -0,0 +1,111 @@
+package xander.core.track;
+
+/**
+ * Hit counter over the most recent bullet outcomes, maintained for several
+ * window lengths at once.  Outcomes are kept in a fixed size primitive ring
+ * buffer sized for the longest window; each window keeps running sums, so 
+ * adding an outcome and reading a windowed hit ratio are both constant time
+ * and do not allocate.
+ */
+public class RollingHitCounter {
+
+	private static final byte HIT = 1;
+	private static final byte INTERFERENCE = 2;
+	private static final byte FIRED = 4;
+	
+	private final int[] depths;
+	private final byte[] outcomes;
+	private final int[] hits;
+	private final int[] interferences;
+	private final int[] fired;
+	private int head;    // index where next outcome will be stored
+	private int size;    // number of outcomes stored, up to ring buffer length
+	
+	/**
+	 * Constructs a new rolling hit counter.
+	 * 
+	 * @param depths    number of outcomes to remember for each window
+	 */
+	public RollingHitCounter(int... depths) {
+		this.depths = depths.clone();
+		int maxDepth = 1;
+		for (int depth : depths) {
+			maxDepth = Math.max(maxDepth, depth);
+		}
+		this.outcomes = new byte[maxDepth];
+		this.hits = new int[depths.length];
+		this.interferences = new int[depths.length];
+		this.fired = new int[depths.length];
+	}
+	
+	void add(int hits, int interferences, int fired) {
+		byte outcome = (byte)((hits > 0? HIT : 0) | (interferences > 0? INTERFERENCE : 0) | (fired > 0? FIRED : 0));
+		for (int w=0; w<depths.length; w++) {
+			if (size >= depths[w]) {
+				byte old = outcomes[(head - depths[w] + outcomes.length) % outcomes.length];
+				this.hits[w] -= (old & HIT);
+				this.interferences[w] -= (old & INTERFERENCE) >> 1;
+				this.fired[w] -= (old & FIRED) >> 2;
+			}
+			this.hits[w] += hits;
+			this.interferences[w] += interferences;
+			this.fired[w] += fired;
+		}
+		outcomes[head] = outcome;
+		head = (head + 1) % outcomes.length;
+		if (size < outcomes.length) {
+			size++;
+		}
+	}
+	
+	void clear() {
+		head = 0;
+		size = 0;
+		for (int w=0; w<depths.length; w++) {
+			hits[w] = 0;
+			interferences[w] = 0;
+			fired[w] = 0;
+		}
+	}
+	
+	/**
+	 * Returns the number of windows.
+	 * 
+	 * @return    number of windows
+	 */
+	public int getWindowCount() {
+		return depths.length;
+	}
+	
+	/**
+	 * Returns the number of outcomes remembered by the given window.
+	 * 
+	 * @param window    window index
+	 * 
+	 * @return          depth of window
+	 */
+	public int getDepth(int window) {
+		return depths[window];
+	}
+	
+	public int getHits(int window) {
+		return hits[window];
+	}
+	
+	public int getActioned(int window) {
+		return fired[window] - interferences[window];
+	}
+	
+	/**
+	 * Returns the hit ratio (from 0 to 1) over the given window, or 0 if no 
+	 * bullets in the window have hit or missed.
+	 * 
+	 * @param window    window index
+	 * 
+	 * @return          hit ratio over window
+	 */
+	public double getHitRatio(int window) {
+		int actioned = fired[window] - interferences[window];
+		return (actioned == 0)? 0 : (double) hits[window] / (double) actioned;
+	}
+}
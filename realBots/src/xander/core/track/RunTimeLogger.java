@@ -2,8 +2,9 @@ package xander.core.track;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 
-import xander.core.io.BattleStats;
+import xander.core.io.StatBlock;
 import xander.core.log.Log;
 import xander.core.log.Logger;
 
@@ -34,6 +35,16 @@ public class RunTimeLogger {
 		}
 	}
 	
+	public static Set<String> getLoggerNames() {
+		return loggers.keySet();
+	}
+	
+	public static void setAllActive(boolean active) {
+		for (RunTimeLogger rtLogger : loggers.values()) {
+			rtLogger.setActive(active);
+		}
+	}
+	
 	private RunTimeLogger(String loggerFor) {
 		this.loggerFor = loggerFor;
 	}
@@ -69,6 +80,10 @@ public class RunTimeLogger {
 		return (numExecutions > 0)? cumulativeTime / (double)numExecutions : 0;
 	}
 	
+	public int getNumExecutions() {
+		return numExecutions;
+	}
+	
 	public double[] getPeaks() {
 		return peakTimes;
 	}
@@ -77,24 +92,23 @@ public class RunTimeLogger {
 		if (active) {
 			double avgExeTime = cumulativeTime / (double)numExecutions;
 			StringBuilder sb = new StringBuilder();
-			sb.append(loggerFor).append(": ").append(Logger.format(avgExeTime, 3)).append(" ms average, ");
+			sb.append(loggerFor).append(": ");
+			Logger.append(sb, avgExeTime, 3).append(" ms average, ");
 			for (int i=0; i<peakTimes.length; i++) {
 				if (i>0) {
 					sb.append(';');
 				}
-				sb.append(Logger.format(peakTimes[i], 3));
+				Logger.append(sb, peakTimes[i], 3);
 			}
 			sb.append(" ms peaks.");
 			log.info(sb.toString());
 		}
 	}
 	
-	public void saveTo(Map<String, String> statsMap, int totalBattles) {
-		String key = "Runtime Avg: " + loggerFor;
-		BattleStats.updateAveragedStatValue(statsMap, key, getAverageExecutionTime(), 3, totalBattles);
+	public void saveTo(StatBlock stats) {
+		stats.addSample("Runtime Avg: " + loggerFor, getAverageExecutionTime());
 		for (int i=0; i<peakTimes.length; i++) {
-			key = "Runtime P" + (i+1) + ": " + loggerFor;
-			BattleStats.updateAveragedStatValue(statsMap, key, peakTimes[i], 3, totalBattles);
+			stats.addSample("Runtime P" + (i+1) + ": " + loggerFor, peakTimes[i]);
 		}
 	}
 }
@@ -0,0 +1,288 @@
+package xander.core.track;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import robocode.DeathEvent;
+import robocode.RobotDeathEvent;
+import robocode.ScannedRobotEvent;
+import robocode.WinEvent;
+import xander.core.HitStats;
+import xander.core.RobotEvents;
+import xander.core.RobotProxy;
+import xander.core.event.RoundBeginListener;
+import xander.core.event.ScannedRobotListener;
+import xander.core.event.SurvivalListener;
+import xander.core.math.RCPhysics;
+
+/**
+ * Ranks the opponents as targets.  A score is computed for an opponent each
+ * time it is scanned, and the opponents are kept in a priority queue (an
+ * indexed binary heap) so that the best target can be read at any time
+ * without looping over the opponents.  Radar, gun, and drive can then all
+ * work from the same ranking.
+ *
+ * The score combines distance, energy, the chance of hitting given how far
+ * the opponent can escape in the time a bullet takes to reach it, how much
+ * the opponent has been hitting us, and the staleness of the data.  Staleness
+ * lowers every opponent's score at the same rate, so it is applied by adding
+ * stalenessWeight * scanTime to the score at scan time; the order of the
+ * queue never has to be updated between scans.  Scores can be further biased
+ * by robot name, for example to prefer or avoid a particular type of robot.
+ */
+public class TargetSelector implements ScannedRobotListener, SurvivalListener, RoundBeginListener {
+
+	private RobotProxy robotProxy;
+	private SnapshotHistory snapshotHistory;
+	private HitStats hitStats;
+	private double distanceWeight = 1;            // per 1000 pixels
+	private double energyWeight = 0.5;            // per 100 energy
+	private double hitChanceWeight = 2;
+	private double hitRatioWeight = 1;
+	private double stalenessWeight = 0.05;        // per tick
+	private double referenceBulletVelocity = RCPhysics.getBulletVelocity(2);
+	private Map<String, Double> nameBiases = new HashMap<String, Double>();
+
+	private Map<String, Integer> slots = new HashMap<String, Integer>();
+	private String[] names = new String[8];
+	private double[] keys = new double[8];
+	private double[] scores = new double[8];
+	private long[] scanTimes = new long[8];
+	private int[] heapIndexes = new int[8];    // position of slot in heap, or -1 if not in heap
+	private int[] heap = new int[8];
+	private int heapSize;
+
+	public TargetSelector(RobotProxy robotProxy, RobotEvents robotEvents,
+			SnapshotHistory snapshotHistory, HitStats hitStats) {
+		this.robotProxy = robotProxy;
+		this.snapshotHistory = snapshotHistory;
+		this.hitStats = hitStats;
+		robotEvents.addScannedRobotListener(this);
+		robotEvents.addSurvivalListener(this);
+		robotEvents.addRoundBeginListener(this);
+	}
+
+	/**
+	 * Sets the score weights.  Each weight is applied to a value where larger
+	 * means a better target.
+	 *
+	 * @param distanceWeight     weight of closeness, per 1000 pixels
+	 * @param energyWeight       weight of low energy, per 100 energy
+	 * @param hitChanceWeight    weight of the chance of hitting (0 to 1) given the escape angle
+	 * @param hitRatioWeight     weight of the normalized hit ratio of the opponent against us (0 to 1)
+	 * @param stalenessWeight    weight of fresh data, per tick
+	 */
+	public void setWeights(double distanceWeight, double energyWeight,
+			double hitChanceWeight, double hitRatioWeight, double stalenessWeight) {
+		this.distanceWeight = distanceWeight;
+		this.energyWeight = energyWeight;
+		this.hitChanceWeight = hitChanceWeight;
+		this.hitRatioWeight = hitRatioWeight;
+		this.stalenessWeight = stalenessWeight;
+	}
+
+	/**
+	 * Adds a bias to the score of any robot whose name contains the given text.
+	 * Takes effect the next time such a robot is scanned.
+	 *
+	 * @param nameFragment    text the robot name should contain
+	 * @param bias            value to add to the score (negative to avoid)
+	 */
+	public void setNameBias(String nameFragment, double bias) {
+		nameBiases.put(nameFragment, Double.valueOf(bias));
+	}
+
+	/**
+	 * Returns the name of the best target, or null if there are none.
+	 *
+	 * @return    name of best target
+	 */
+	public String getBestTarget() {
+		return (heapSize == 0)? null : names[heap[0]];
+	}
+
+	/**
+	 * Returns the latest snapshot of the best target, or null if there are none.
+	 *
+	 * @return    latest snapshot of best target
+	 */
+	public Snapshot getBestTargetSnapshot() {
+		return (heapSize == 0)? null : snapshotHistory.getSnapshot(names[heap[0]]);
+	}
+
+	/**
+	 * Returns the number of opponents currently ranked.
+	 *
+	 * @return    number of ranked opponents
+	 */
+	public int getTargetCount() {
+		return heapSize;
+	}
+
+	/**
+	 * Returns the current score of the given opponent.
+	 *
+	 * @param robotName    opponent name
+	 *
+	 * @return             current score, or negative infinity if opponent is not ranked
+	 */
+	public double getScore(String robotName) {
+		Integer slot = slots.get(robotName);
+		if (slot == null || heapIndexes[slot.intValue()] < 0) {
+			return Double.NEGATIVE_INFINITY;
+		}
+		int s = slot.intValue();
+		return scores[s] - stalenessWeight * (robotProxy.getTime() - scanTimes[s]);
+	}
+
+	private double computeScore(ScannedRobotEvent event) {
+		double distance = Math.max(1, event.getDistance());
+		double lateralVelocity = Math.abs(event.getVelocity() * Math.sin(event.getHeadingRadians()
+				- (robotProxy.getHeadingRadians() + event.getBearingRadians())));
+		// angular width of target versus angle it can escape while the bullet is in the air
+		double widthAngle = RCPhysics.ROBOT_WIDTH / distance;
+		double hitChance = widthAngle / (widthAngle + 2 * lateralVelocity / referenceBulletVelocity);
+		double score = -distanceWeight * distance / 1000d
+				- energyWeight * event.getEnergy() / 100d
+				+ hitChanceWeight * hitChance
+				+ hitRatioWeight * hitStats.getNormalizedHitRatioBy(event.getName());
+		if (!nameBiases.isEmpty()) {
+			for (Map.Entry<String, Double> entry : nameBiases.entrySet()) {
+				if (event.getName().contains(entry.getKey())) {
+					score += entry.getValue().doubleValue();
+				}
+			}
+		}
+		return score;
+	}
+
+	private int getSlot(String name) {
+		Integer slot = slots.get(name);
+		if (slot == null) {
+			int s = slots.size();
+			if (s == names.length) {
+				int length = s * 2;
+				String[] newNames = new String[length];
+				System.arraycopy(names, 0, newNames, 0, s);
+				names = newNames;
+				keys = grow(keys, length);
+				scores = grow(scores, length);
+				long[] newScanTimes = new long[length];
+				System.arraycopy(scanTimes, 0, newScanTimes, 0, s);
+				scanTimes = newScanTimes;
+				int[] newHeapIndexes = new int[length];
+				System.arraycopy(heapIndexes, 0, newHeapIndexes, 0, s);
+				heapIndexes = newHeapIndexes;
+				int[] newHeap = new int[length];
+				System.arraycopy(heap, 0, newHeap, 0, heapSize);
+				heap = newHeap;
+			}
+			names[s] = name;
+			heapIndexes[s] = -1;
+			slot = Integer.valueOf(s);
+			slots.put(name, slot);
+		}
+		return slot.intValue();
+	}
+
+	private static double[] grow(double[] values, int length) {
+		double[] newValues = new double[length];
+		System.arraycopy(values, 0, newValues, 0, values.length);
+		return newValues;
+	}
+
+	private void siftUp(int i) {
+		int slot = heap[i];
+		while (i > 0) {
+			int parent = (i - 1) / 2;
+			if (keys[heap[parent]] >= keys[slot]) {
+				break;
+			}
+			heap[i] = heap[parent];
+			heapIndexes[heap[i]] = i;
+			i = parent;
+		}
+		heap[i] = slot;
+		heapIndexes[slot] = i;
+	}
+
+	private void siftDown(int i) {
+		int slot = heap[i];
+		while (true) {
+			int child = 2 * i + 1;
+			if (child >= heapSize) {
+				break;
+			}
+			if (child + 1 < heapSize && keys[heap[child+1]] > keys[heap[child]]) {
+				child++;
+			}
+			if (keys[heap[child]] <= keys[slot]) {
+				break;
+			}
+			heap[i] = heap[child];
+			heapIndexes[heap[i]] = i;
+			i = child;
+		}
+		heap[i] = slot;
+		heapIndexes[slot] = i;
+	}
+
+	private void remove(int slot) {
+		int i = heapIndexes[slot];
+		if (i < 0) {
+			return;
+		}
+		heapIndexes[slot] = -1;
+		heapSize--;
+		if (i < heapSize) {
+			int moved = heap[heapSize];
+			heap[i] = moved;
+			heapIndexes[moved] = i;
+			siftDown(i);
+			siftUp(heapIndexes[moved]);
+		}
+	}
+
+	@Override
+	public void onScannedRobot(ScannedRobotEvent event) {
+		int slot = getSlot(event.getName());
+		double score = computeScore(event);
+		scores[slot] = score;
+		scanTimes[slot] = event.getTime();
+		keys[slot] = score + stalenessWeight * event.getTime();
+		int i = heapIndexes[slot];
+		if (i < 0) {
+			i = heapSize++;
+			heap[i] = slot;
+			heapIndexes[slot] = i;
+		}
+		siftUp(i);
+		siftDown(heapIndexes[slot]);
+	}
+
+	@Override
+	public void onRoundBegin() {
+		for (int i=0; i<heapSize; i++) {
+			heapIndexes[heap[i]] = -1;
+		}
+		heapSize = 0;
+	}
+
+	@Override
+	public void onWin(WinEvent event) {
+		// no action required
+	}
+
+	@Override
+	public void onDeath(DeathEvent event) {
+		// no action required
+	}
+
+	@Override
+	public void onRobotDeath(RobotDeathEvent event) {
+		Integer slot = slots.get(event.getName());
+		if (slot != null) {
+			remove(slot.intValue());
+		}
+	}
+}
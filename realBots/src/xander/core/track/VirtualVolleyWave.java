@@ -0,0 +1,98 @@
+package xander.core.track;
+
+import xander.core.math.RCMath;
+
+/**
+ * Wave for a volley of virtual bullets fired by several guns from the same
+ * origin, at the same time, with the same bullet power.  Rather than one wave
+ * per gun, the volley wave holds a primitive array of (gun index, aim) pairs,
+ * and whether or not each bullet hit is resolved for all guns in a single
+ * pass when the wave crosses the target.
+ */
+public class VirtualVolleyWave extends Wave {
+
+	private int size;
+	private int[] gunIndexes;
+	private String[] gunNames;
+	private double[] aims;
+	private boolean[] bulletHits;
+
+	VirtualVolleyWave(Snapshot defenderSnapshot, Snapshot attackerSnapshot,
+			double bulletPower, long bulletFiredTime, int capacity) {
+		super(defenderSnapshot, attackerSnapshot, bulletPower, bulletFiredTime);
+		this.gunIndexes = new int[capacity];
+		this.gunNames = new String[capacity];
+		this.aims = new double[capacity];
+		this.bulletHits = new boolean[capacity];
+	}
+
+	void addAim(int gunIndex, String gunName, double aim) {
+		gunIndexes[size] = gunIndex;
+		gunNames[size] = gunName;
+		aims[size] = aim;
+		size++;
+	}
+
+	/**
+	 * Resolves whether or not each bullet in the volley hit a target robot at
+	 * the given location.  The bullet hits if the point on the wave along the
+	 * bullet's aim is within a half robot width of the target center.  Only
+	 * one inverse sine is computed for the whole volley.
+	 *
+	 * @param targetX    target x-coordinate
+	 * @param targetY    target y-coordinate
+	 */
+	void resolveBulletHits(double targetX, double targetY) {
+		double distance = RCMath.getDistanceBetweenPoints(getOriginX(), getOriginY(), targetX, targetY);
+		double bearing = RCMath.getRobocodeAngle(getOriginX(), getOriginY(), targetX, targetY);
+		double maxDelta = getMaxHitAngle(distance);
+		for (int i=0; i<size; i++) {
+			double delta = Math.abs(aims[i] - bearing);
+			if (delta > 180) {
+				delta = 360 - delta;
+			}
+			bulletHits[i] = delta <= maxDelta;
+		}
+	}
+
+	/**
+	 * Returns the number of virtual bullets in this wave.
+	 *
+	 * @return    number of virtual bullets
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Returns the virtual gun index (see WaveHistory.getVirtualGunIndex(...))
+	 * for the i-th bullet.
+	 *
+	 * @param i    bullet index
+	 *
+	 * @return     virtual gun index
+	 */
+	public int getGunIndex(int i) {
+		return gunIndexes[i];
+	}
+
+	public String getGunName(int i) {
+		return gunNames[i];
+	}
+
+	public double getAim(int i) {
+		return aims[i];
+	}
+
+	/**
+	 * Returns whether or not the i-th bullet hit the target.  Only valid once
+	 * the wave has reached the HIT state.
+	 *
+	 * @param i    bullet index
+	 *
+	 * @return     whether or not the bullet hit
+	 */
+	public boolean isBulletHit(int i) {
+		return bulletHits[i];
+	}
+}
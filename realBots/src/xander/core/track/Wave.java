@@ -201,14 +201,30 @@ public class Wave {
 	public double getBulletTravelDistance(long time) {
 		return (time - originTime) * bulletVelocity;
 	}
+
+	/**
+	 * Returns the largest angle by which a bullet's aim can be off the bearing
+	 * to a target's center and still hit the target, for a target at the given
+	 * distance from the wave origin.  The bullet hits if the point on the wave
+	 * along its aim is within a half robot width of the target center.
+	 * 
+	 * @param distance       distance from wave origin to target center
+	 * 
+	 * @return               largest angle off bearing that hits, in degrees
+	 */
+	static double getMaxHitAngle(double distance) {
+		// chord between aim point and target center is 2*d*sin(delta/2)
+		return (distance <= RCPhysics.ROBOT_HALF_WIDTH/2)? 180
+				: Math.toDegrees(2 * Math.asin(RCPhysics.ROBOT_HALF_WIDTH / (2 * distance)));
+	}
 	
 	public String toString() {
 		StringBuilder sb = new StringBuilder();
 		sb.append("Wave[");
 		sb.append("originTime=").append(originTime);
 		sb.append(";origin=").append(origin.toString());
-		sb.append(";bulletPower=").append(Logger.format(bulletPower, 3));
-		sb.append(";bulletVelocity=").append(Logger.format(bulletVelocity, 3));
+		Logger.append(sb.append(";bulletPower="), bulletPower, 3);
+		Logger.append(sb.append(";bulletVelocity="), bulletVelocity, 3);
 		sb.append(";state=").append(state.toString());
 		sb.append(";opponentWave=").append(opponentWave);
 		sb.append("]");
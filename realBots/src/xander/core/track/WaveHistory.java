@@ -30,6 +30,7 @@ import xander.core.event.OpponentGunListener;
 import xander.core.event.OpponentWaveListener;
 import xander.core.event.RoundBeginListener;
 import xander.core.event.TurnListener;
+import xander.core.event.VirtualVolleyFiredEvent;
 import xander.core.gun.GunController;
 import xander.core.log.Log;
 import xander.core.log.Logger;
@@ -96,7 +97,9 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 	
 	private List<Wave> opponentWaves = new ArrayList<Wave>();
 	private List<XBulletWave> myWaves = new ArrayList<XBulletWave>();
-	private List<XBulletWave> myVirtualWaves = new ArrayList<XBulletWave>();
+	private List<VirtualVolleyWave> myVirtualWaves = new ArrayList<VirtualVolleyWave>();
+	private Map<String, Integer> virtualGunIndexes = new HashMap<String, Integer>();
+	private List<String> virtualGunNames = new ArrayList<String>();
 	private List<MyWaveListener> myWaveListeners = new ArrayList<MyWaveListener>();
 	private List<MyVirtualWaveListener> myVirtualWaveListeners = new ArrayList<MyVirtualWaveListener>();
 	private List<OpponentWaveListener> oppWaveListeners = new ArrayList<OpponentWaveListener>();
@@ -180,10 +183,37 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 		return myWaves;
 	}
 	
-	public List<XBulletWave> getMyVirtualWaves() {
+	public List<VirtualVolleyWave> getMyVirtualWaves() {
 		return myVirtualWaves;
 	}
 	
+	/**
+	 * Returns the dense index for the virtual gun of given name, assigning
+	 * a new index if the gun has not fired a virtual bullet before.  Indexes
+	 * do not change over the course of a battle.
+	 * 
+	 * @param gunName   name of gun
+	 * 
+	 * @return          virtual gun index
+	 */
+	public int getVirtualGunIndex(String gunName) {
+		Integer index = virtualGunIndexes.get(gunName);
+		if (index == null) {
+			index = Integer.valueOf(virtualGunNames.size());
+			virtualGunIndexes.put(gunName, index);
+			virtualGunNames.add(gunName);
+		}
+		return index.intValue();
+	}
+	
+	public int getVirtualGunCount() {
+		return virtualGunNames.size();
+	}
+	
+	public String getVirtualGunName(int gunIndex) {
+		return virtualGunNames.get(gunIndex);
+	}
+	
 	private RelativeAngleRange getMEA(Wave wave, Snapshot defenderSnapshot, long bulletFiredTime, boolean opponentWave) {
 		if (!opponentWave && opponentDriveOptions != null) {
 			DriveState defenderDriveState = new DriveState(defenderSnapshot);
@@ -207,12 +237,23 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 		} else {
 			wave = new XBulletWave(defenderSnapshot, attackerSnapshot, bulletPower, bulletFiredTime);
 		}
+		wave.initialMEA = getCachedMEA(wp, wave, defenderSnapshot, bulletFiredTime, opponentWave);
+		return wave;
+	}
+	
+	private RelativeAngleRange getCachedMEA(WaveParams wp, Wave wave, Snapshot defenderSnapshot, long bulletFiredTime, boolean opponentWave) {
 		RelativeAngleRange mea = meaCache.get(wp);
 		if (mea == null) {
 			mea = getMEA(wave, defenderSnapshot, bulletFiredTime, opponentWave);
 			meaCache.put(wp, mea);
 		}
-		wave.initialMEA = mea;
+		return mea;
+	}
+	
+	private VirtualVolleyWave createVirtualVolleyWave(Snapshot defenderSnapshot, Snapshot attackerSnapshot, double bulletPower, long bulletFiredTime, int capacity) {
+		WaveParams wp = new WaveParams(attackerSnapshot, defenderSnapshot, bulletPower);
+		VirtualVolleyWave wave = new VirtualVolleyWave(defenderSnapshot, attackerSnapshot, bulletPower, bulletFiredTime, capacity);
+		wave.initialMEA = getCachedMEA(wp, wave, defenderSnapshot, bulletFiredTime, false);
 		return wave;
 	}
 	
@@ -241,7 +282,15 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 		return closestWaveAfter;
 	}
 	
-	private void addBulletShadow(XBulletWave myWave, Wave opponentWave, long time) {
+	/**
+	 * Adds to the opponent wave the shadow cast by the bullet of my wave, if
+	 * my bullet crosses the opponent wave while both are leading.
+	 *
+	 * @param myWave          my bullet wave
+	 * @param opponentWave    opponent wave
+	 * @param time            current time
+	 */
+	public void addBulletShadow(XBulletWave myWave, Wave opponentWave, long time) {
 		if (myWave.getState() == WaveState.LEADING && opponentWave.getState() == WaveState.LEADING) {
 			
 			// find time at which my bullet will intersect opponent wave
@@ -356,8 +405,40 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 	@Override
 	public void virtualGunFired(GunFiredEvent event) {
 		long adjustedFireTime = Resources.getTime();
-		XBullet xbullet = new XBullet(event.getMySnapshot().getLocation(), event.getAim(), event.getPower());
-		XBulletWave wave = createXBulletWave(event.getOpponentSnapshot(), event.getMySnapshot(), xbullet, event.getGun().getName(), adjustedFireTime, false);
+		VirtualVolleyWave wave = createVirtualVolleyWave(event.getOpponentSnapshot(), event.getMySnapshot(), event.getPower(), adjustedFireTime, 1);
+		String gunName = event.getGun().getName();
+		wave.addAim(getVirtualGunIndex(gunName), gunName, event.getAim());
+		addVirtualVolleyWave(wave);
+	}
+
+	@Override
+	public void virtualVolleyFired(VirtualVolleyFiredEvent event) {
+		long adjustedFireTime = Resources.getTime();
+		int size = event.getSize();
+		// one wave per distinct bullet power; guns generally share a power selector, so usually just one wave
+		VirtualVolleyWave[] waves = new VirtualVolleyWave[size];
+		int waveCount = 0;
+		for (int i=0; i<size; i++) {
+			double power = event.getPower(i);
+			VirtualVolleyWave wave = null;
+			for (int j=0; j<waveCount && wave == null; j++) {
+				if (waves[j].getBulletPower() == power) {
+					wave = waves[j];
+				}
+			}
+			if (wave == null) {
+				wave = createVirtualVolleyWave(event.getOpponentSnapshot(), event.getMySnapshot(), power, adjustedFireTime, size);
+				waves[waveCount++] = wave;
+			}
+			String gunName = event.getGun(i).getName();
+			wave.addAim(getVirtualGunIndex(gunName), gunName, event.getAim(i));
+		}
+		for (int j=0; j<waveCount; j++) {
+			addVirtualVolleyWave(waves[j]);
+		}
+	}
+	
+	private void addVirtualVolleyWave(VirtualVolleyWave wave) {
 		myVirtualWaves.add(wave);
 		for (MyVirtualWaveListener listener : myVirtualWaveListeners) {
 			listener.myVirtualWaveCreated(wave);
@@ -416,8 +497,8 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 	
 	private void updateMyVirtualWaves(long time) {
 		Snapshot oppSnapshot = null;
-		for (Iterator<XBulletWave> iter = myVirtualWaves.iterator(); iter.hasNext();) {
-			XBulletWave wave = iter.next();
+		for (Iterator<VirtualVolleyWave> iter = myVirtualWaves.iterator(); iter.hasNext();) {
+			VirtualVolleyWave wave = iter.next();
 			if (oppSnapshot == null || !oppSnapshot.getName().equals(wave.getInitialDefenderSnapshot().getName())) {
 				oppSnapshot = snapshotHistory.getSnapshot(wave.getInitialDefenderSnapshot().getName());
 			}
@@ -425,19 +506,10 @@ public class WaveHistory implements RoundBeginListener, GunListener, OpponentGun
 			double oppDistance = RCMath.getDistanceBetweenPoints(wave.getOrigin(), oppSnapshot.getLocation());
 			if (wave.getState() == WaveState.LEADING && waveDistance >= oppDistance - RCPhysics.ROBOT_HALF_WIDTH) {
 				wave.state = WaveState.HIT;
+				wave.resolveBulletHits(oppSnapshot.getX(), oppSnapshot.getY());
 				for (MyVirtualWaveListener listener : myVirtualWaveListeners) {
 					listener.myVirtualWaveHit(wave);
 				}
-				double waveDistanceToOpponent = RCMath.getDistanceBetweenPoints(wave.getOrigin(), oppSnapshot.getLocation());
-				Point2D.Double expectedRobotPosition = RCMath.getLocation(
-						wave.getOriginX(), wave.getOriginY(), 
-						waveDistanceToOpponent, wave.getXBullet().getAim());
-				double diff = RCMath.getDistanceBetweenPoints(oppSnapshot.getLocation(), expectedRobotPosition);
-				if (diff <= RCPhysics.ROBOT_HALF_WIDTH) {
-					for (MyVirtualWaveListener listener : myVirtualWaveListeners) {
-						listener.myVirtualBulletHit(wave);
-					}
-				}
 			}
 			if (wave.getState() == WaveState.HIT && waveDistance >= oppDistance) {
 				wave.state = WaveState.PASSING;
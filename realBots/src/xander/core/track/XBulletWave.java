@@ -29,6 +29,21 @@ public class XBulletWave extends Wave {
 		return gunName;
 	}
 	
+	/**
+	 * Returns whether or not the bullet of this wave hits a target robot at the
+	 * given location, by the same rule used to resolve virtual bullets.
+	 * 
+	 * @param targetX    target x-coordinate
+	 * @param targetY    target y-coordinate
+	 * 
+	 * @return           whether or not the bullet hits the target
+	 */
+	public boolean isBulletHit(double targetX, double targetY) {
+		double distance = RCMath.getDistanceBetweenPoints(getOriginX(), getOriginY(), targetX, targetY);
+		double bearing = RCMath.getRobocodeAngle(getOriginX(), getOriginY(), targetX, targetY);
+		return Math.abs(RCMath.getTurnAngle(xbullet.getAim(), bearing)) <= getMaxHitAngle(distance);
+	}
+	
 	public Point2D.Double getBulletLocation(long time) {
 		return RCMath.getLocation(getOriginX(), getOriginY(), 
 				getBulletTravelDistance(time), xbullet.getAim());